@@ -30,7 +30,6 @@ import com.ardor3d.util.export.Ardor3DExporter;
 import com.ardor3d.util.export.Ardor3DImporter;
 import com.ardor3d.util.export.InputCapsule;
 import com.ardor3d.util.export.OutputCapsule;
-import com.ardor3d.util.geom.BufferUtils;
 
 /**
  * <code>BoundingBox</code> defines an axis-aligned cube that defines a container for a group of vertices of a
@@ -250,33 +249,32 @@ public class BoundingBox extends BoundingVolume {
             return;
         }
 
-        final Vector3 compVect = Vector3.fetchTempInstance();
-        BufferUtils.populateFromBuffer(compVect, points, 0);
-        double minX = compVect.getX(), minY = compVect.getY(), minZ = compVect.getZ();
-        double maxX = compVect.getX(), maxY = compVect.getY(), maxZ = compVect.getZ();
+        double minX = points.get(0), minY = points.get(1), minZ = points.get(2);
+        double maxX = minX, maxY = minY, maxZ = minZ;
 
-        for (int i = 1, len = points.remaining() / 3; i < len; i++) {
-            BufferUtils.populateFromBuffer(compVect, points, i);
+        // read the buffer directly rather than through a Vector3, this is called every time a mesh's model bound is
+        // updated.
+        for (int i = 3, len = (points.remaining() / 3) * 3; i < len; i += 3) {
+            final double x = points.get(i), y = points.get(i + 1), z = points.get(i + 2);
 
-            if (compVect.getX() < minX) {
-                minX = compVect.getX();
-            } else if (compVect.getX() > maxX) {
-                maxX = compVect.getX();
+            if (x < minX) {
+                minX = x;
+            } else if (x > maxX) {
+                maxX = x;
             }
 
-            if (compVect.getY() < minY) {
-                minY = compVect.getY();
-            } else if (compVect.getY() > maxY) {
-                maxY = compVect.getY();
+            if (y < minY) {
+                minY = y;
+            } else if (y > maxY) {
+                maxY = y;
             }
 
-            if (compVect.getZ() < minZ) {
-                minZ = compVect.getZ();
-            } else if (compVect.getZ() > maxZ) {
-                maxZ = compVect.getZ();
+            if (z < minZ) {
+                minZ = z;
+            } else if (z > maxZ) {
+                maxZ = z;
             }
         }
-        Vector3.releaseTempInstance(compVect);
 
         center.set(minX + maxX, minY + maxY, minZ + maxZ);
         center.multiplyLocal(0.5f);
@@ -286,6 +284,33 @@ public class BoundingBox extends BoundingVolume {
         setZExtent(maxZ - center.getZ());
     }
 
+    @Override
+    public void expandToContain(final FloatBuffer points, final int startVertex, final int count) {
+        if (points == null || count <= 0) {
+            return;
+        }
+
+        double minX = center.getX() - _xExtent, minY = center.getY() - _yExtent, minZ = center.getZ() - _zExtent;
+        double maxX = center.getX() + _xExtent, maxY = center.getY() + _yExtent, maxZ = center.getZ() + _zExtent;
+
+        for (int i = startVertex * 3, end = (startVertex + count) * 3; i < end; i += 3) {
+            final double x = points.get(i), y = points.get(i + 1), z = points.get(i + 2);
+            minX = Math.min(minX, x);
+            maxX = Math.max(maxX, x);
+            minY = Math.min(minY, y);
+            maxY = Math.max(maxY, y);
+            minZ = Math.min(minZ, z);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        center.set(minX + maxX, minY + maxY, minZ + maxZ);
+        center.multiplyLocal(0.5);
+
+        setXExtent(maxX - center.getX());
+        setYExtent(maxY - center.getY());
+        setZExtent(maxZ - center.getZ());
+    }
+
     /**
      * <code>transform</code> modifies the center of the box to reflect the change made via a rotation, translation and
      * scale.
@@ -44,8 +44,33 @@ public class BoundingSphere extends BoundingVolume {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * The algorithms <code>computeFromPoints</code> can use, from the tightest to the fastest.
+     */
+    public enum FitMode {
+        /** Exact minimal sphere using Welzl's algorithm. Recursive and slow on large point sets. */
+        Welzl,
+        /**
+         * Approximate sphere seeded from the extreme points along 7 directions (the axes and the cube diagonals, as in
+         * EPOS-14) and then grown over the remaining points. Two linear passes, usually within a few percent of the
+         * minimal sphere.
+         */
+        ExtremalPoints,
+        /**
+         * Ritter's approximate sphere, seeded from the extreme points along the x, y and z axes only. The fastest fit,
+         * but may be noticeably larger than the minimal sphere.
+         */
+        Ritter;
+    }
+
+    /** Directions (not normalized) searched for extreme points by the ExtremalPoints fit. */
+    private static final double[] EXTREMAL_DIRECTIONS = { 1, 0, 0, 0, 1, 0, 0, 0, 1, 1, 1, 1, 1, 1, -1, 1, -1, 1, 1,
+            -1, -1 };
+
     private double _radius;
 
+    private FitMode _fitMode = FitMode.Welzl;
+
     static final private double radiusEpsilon = 1 + 0.00001;
 
     /**
@@ -107,16 +132,152 @@ public class BoundingSphere extends BoundingVolume {
         _radius = radius;
     }
 
+    /**
+     * @return the algorithm used by <code>computeFromPoints</code>.
+     */
+    public FitMode getFitMode() {
+        return _fitMode;
+    }
+
+    /**
+     * @param fitMode
+     *            the algorithm <code>computeFromPoints</code> should use. Welzl is the default.
+     */
+    public void setFitMode(final FitMode fitMode) {
+        _fitMode = fitMode;
+    }
+
     /**
      * <code>computeFromPoints</code> creates a new Bounding Sphere from a given set of points. It uses the
-     * <code>calcWelzl</code> method as default.
+     * <code>calcWelzl</code> method as default, see {@link #setFitMode(FitMode)} for faster alternatives.
      * 
      * @param points
      *            the points to contain.
      */
     @Override
     public void computeFromPoints(final FloatBuffer points) {
-        calcWelzl(points);
+        switch (_fitMode) {
+            case ExtremalPoints:
+                calcExtremal(points, EXTREMAL_DIRECTIONS.length / 3);
+                break;
+            case Ritter:
+                calcExtremal(points, 3);
+                break;
+            case Welzl:
+            default:
+                calcWelzl(points);
+        }
+    }
+
+    @Override
+    public void expandToContain(final FloatBuffer points, final int startVertex, final int count) {
+        if (points == null || count <= 0) {
+            return;
+        }
+        growToContain(points, startVertex, startVertex + count);
+    }
+
+    /**
+     * Calculates an approximate bounding sphere for the set of points. The sphere is seeded with the most distant pair
+     * of extreme points found along the given number of search directions and is then grown to contain every point.
+     * 
+     * @param points
+     *            The points to calculate the bounds from.
+     * @param directions
+     *            how many of the search directions to use; 3 gives Ritter's algorithm, 7 the EPOS-14 variant.
+     */
+    private void calcExtremal(final FloatBuffer points, final int directions) {
+        final int count = points.limit() / 3;
+        if (count == 0) {
+            center.set(0, 0, 0);
+            setRadius(0);
+            return;
+        }
+
+        final int[] minIndex = new int[directions];
+        final int[] maxIndex = new int[directions];
+        final double[] minProj = new double[directions];
+        final double[] maxProj = new double[directions];
+        for (int d = 0; d < directions; d++) {
+            minProj[d] = Double.POSITIVE_INFINITY;
+            maxProj[d] = Double.NEGATIVE_INFINITY;
+        }
+
+        // first pass, find the extreme points along each direction.
+        for (int i = 0; i < count; i++) {
+            final double x = points.get(i * 3), y = points.get(i * 3 + 1), z = points.get(i * 3 + 2);
+            for (int d = 0; d < directions; d++) {
+                final double proj = x * EXTREMAL_DIRECTIONS[d * 3] + y * EXTREMAL_DIRECTIONS[d * 3 + 1] + z
+                        * EXTREMAL_DIRECTIONS[d * 3 + 2];
+                if (proj < minProj[d]) {
+                    minProj[d] = proj;
+                    minIndex[d] = i;
+                }
+                if (proj > maxProj[d]) {
+                    maxProj[d] = proj;
+                    maxIndex[d] = i;
+                }
+            }
+        }
+
+        // seed the sphere with the most distant pair
+        int a = 0, b = 0;
+        double maxDistSq = -1;
+        for (int d = 0; d < directions; d++) {
+            final int i = minIndex[d] * 3, j = maxIndex[d] * 3;
+            final double dx = points.get(j) - points.get(i);
+            final double dy = points.get(j + 1) - points.get(i + 1);
+            final double dz = points.get(j + 2) - points.get(i + 2);
+            final double distSq = dx * dx + dy * dy + dz * dz;
+            if (distSq > maxDistSq) {
+                maxDistSq = distSq;
+                a = i;
+                b = j;
+            }
+        }
+        center.set((points.get(a) + points.get(b)) * 0.5, (points.get(a + 1) + points.get(b + 1)) * 0.5, (points
+                .get(a + 2) + points.get(b + 2)) * 0.5);
+        setRadius(Math.sqrt(maxDistSq) * 0.5);
+
+        // second pass, grow to contain any point left outside.
+        growToContain(points, 0, count);
+    }
+
+    /**
+     * Grows this sphere, Ritter style, to contain the points from start to end. Each point found outside moves the
+     * center toward it just enough to keep the old sphere inside the new one.
+     * 
+     * @param points
+     *            the points to contain.
+     * @param start
+     *            the first point to check, inclusive.
+     * @param end
+     *            the last point to check, exclusive.
+     */
+    private void growToContain(final FloatBuffer points, final int start, final int end) {
+        double cx = center.getX(), cy = center.getY(), cz = center.getZ();
+        double radius = getRadius();
+        double radiusSq = radius * radius;
+        boolean grown = false;
+        for (int i = start * 3, max = end * 3; i < max; i += 3) {
+            final double dx = points.get(i) - cx, dy = points.get(i + 1) - cy, dz = points.get(i + 2) - cz;
+            final double distSq = dx * dx + dy * dy + dz * dz;
+            if (distSq > radiusSq) {
+                final double dist = Math.sqrt(distSq);
+                final double newRadius = (radius + dist) * 0.5;
+                final double shift = (newRadius - radius) / dist;
+                cx += dx * shift;
+                cy += dy * shift;
+                cz += dz * shift;
+                radius = newRadius;
+                radiusSq = radius * radius;
+                grown = true;
+            }
+        }
+        if (grown) {
+            center.set(cx, cy, cz);
+            setRadius(radius * radiusEpsilon);
+        }
     }
 
     /**
@@ -620,10 +781,13 @@ public class BoundingSphere extends BoundingVolume {
             rVal.center.set(center);
             rVal.setRadius(_radius);
             rVal.checkPlane = checkPlane;
+            rVal._fitMode = _fitMode;
             return rVal;
         }
 
-        return new BoundingSphere(getRadius(), center);
+        final BoundingSphere rVal = new BoundingSphere(getRadius(), center);
+        rVal._fitMode = _fitMode;
+        return rVal;
     }
 
     @Override
@@ -759,6 +923,7 @@ public class BoundingSphere extends BoundingVolume {
         super.write(e);
         try {
             e.getCapsule(this).write(getRadius(), "radius", 0);
+            e.getCapsule(this).write(_fitMode, "fitMode", FitMode.Welzl);
         } catch (final IOException ex) {
             logger.logp(Level.SEVERE, this.getClass().toString(), "write(Ardor3DExporter)", "Exception", ex);
         }
@@ -769,6 +934,7 @@ public class BoundingSphere extends BoundingVolume {
         super.read(e);
         try {
             setRadius(e.getCapsule(this).readDouble("radius", 0));
+            _fitMode = e.getCapsule(this).readEnum("fitMode", FitMode.class, FitMode.Welzl);
         } catch (final IOException ex) {
             logger.logp(Level.SEVERE, this.getClass().toString(), "read(Ardor3DImporter)", "Exception", ex);
         }
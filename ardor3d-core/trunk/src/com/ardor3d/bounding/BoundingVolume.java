@@ -155,6 +155,21 @@ public abstract class BoundingVolume implements Serializable, Savable {
      */
     public abstract void computeFromPoints(FloatBuffer points);
 
+    /**
+     * 
+     * <code>expandToContain</code> grows this bounding volume, if needed, so that it also contains a range of points.
+     * The volume never shrinks, so this is a cheap conservative refit after a few vertices of a mesh were edited. Call
+     * <code>computeFromPoints</code> to get a tight volume again.
+     * 
+     * @param points
+     *            the buffer of points (x, y, z triplets) to read from.
+     * @param startVertex
+     *            the first point in the buffer to contain.
+     * @param count
+     *            the number of points to contain.
+     */
+    public abstract void expandToContain(FloatBuffer points, int startVertex, int count);
+
     /**
      * <code>merge</code> combines two bounding volumes into a single bounding volume that contains both this bounding
      * volume and the parameter volume.
@@ -77,6 +77,9 @@ public class CollisionTree implements Serializable {
     // directly responsible for.
     private int start, end;
 
+    // true if triIndex is also used by a tree copied with copyFor, so must not be reused when reconstructing.
+    private boolean sharedTriIndex;
+
     // Required Spatial information
     protected Mesh mesh;
 
@@ -124,10 +127,61 @@ public class CollisionTree implements Serializable {
      */
     public void construct(final Mesh mesh, final boolean doSort) {
         this.mesh = mesh;
-        triIndex = PickingUtil.getTriangleIndices(mesh, triIndex);
+        triIndex = PickingUtil.getTriangleIndices(mesh, sharedTriIndex ? null : triIndex);
+        sharedTriIndex = false;
         createTree(0, triIndex.length, doSort);
     }
 
+    /**
+     * Make a tree for another mesh using the same mesh data, for example a shared copy made with SceneCopier. The copy
+     * shares this tree's triangle indices and local bounds, which only depend on the mesh data, and gets world bounds
+     * of its own, so it costs a fraction of constructing a new tree.
+     * 
+     * @param other
+     *            the mesh the copy is for. Should share our mesh's mesh data.
+     * @return the new tree.
+     */
+    public CollisionTree copyFor(final Mesh other) {
+        sharedTriIndex = true;
+        final CollisionTree copy = new CollisionTree(type);
+        copy.sharedTriIndex = true;
+        copyInto(copy, other);
+        return copy;
+    }
+
+    private void copyInto(final CollisionTree copy, final Mesh other) {
+        copy.mesh = other;
+        copy.triIndex = triIndex;
+        copy.start = start;
+        copy.end = end;
+        copy.bounds = bounds;
+        if (worldBounds != null) {
+            copy.worldBounds = worldBounds.clone(null);
+        }
+        if (left != null) {
+            copy.left = new CollisionTree(type);
+            left.copyInto(copy.left, other);
+        }
+        if (right != null) {
+            copy.right = new CollisionTree(type);
+            right.copyInto(copy.right, other);
+        }
+    }
+
+    /**
+     * @return the type of bounding volumes this tree is made of.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * @return the mesh this tree was constructed for.
+     */
+    public Mesh getMesh() {
+        return mesh;
+    }
+
     /**
      * Creates a Collision Tree by recursively creating children nodes, splitting the triangles this node is responsible
      * for in half until the desired triangle count is reached.
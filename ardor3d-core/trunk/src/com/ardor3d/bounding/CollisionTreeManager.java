@@ -103,7 +103,9 @@ public class CollisionTreeManager {
 
     /**
      * getCollisionTree obtains a collision tree that is assigned to a supplied Mesh. The cache is checked for a
-     * pre-existing tree, if none is available and generateTrees is true, a new tree is created and returned.
+     * pre-existing tree, if none is available and generateTrees is true, a new tree is created and returned. If the
+     * cache holds a tree for another mesh with the same mesh data, such as the original of a shared copy, the new tree
+     * is copied from it rather than constructed.
      * 
      * @param mesh
      *            the mesh to use as the key for the tree to obtain.
@@ -117,6 +119,10 @@ public class CollisionTreeManager {
         // we didn't have it in the cache, create it if possible.
         if (toReturn == null) {
             if (generateTrees) {
+                final CollisionTree shared = findSharedTree(mesh);
+                if (shared != null) {
+                    return cacheTree(shared.copyFor(mesh), mesh, false);
+                }
                 return generateCollisionTree(treeType, mesh, false);
             } else {
                 return null;
@@ -130,6 +136,22 @@ public class CollisionTreeManager {
         }
     }
 
+    /**
+     * @return a cached tree of our tree type for another mesh using the same mesh data as the given one, or null.
+     */
+    private CollisionTree findSharedTree(final Mesh mesh) {
+        synchronized (cache) {
+            for (final CollisionTree tree : cache.values()) {
+                final Mesh other = tree.getMesh();
+                if (other != mesh && other != null && other.getMeshData() == mesh.getMeshData()
+                        && tree.getType() == treeType) {
+                    return tree;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * creates a new collision tree for the provided spatial. If the spatial is a node, it recursively calls
      * generateCollisionTree for each child. If it is a Mesh, a call to generateCollisionTree is made for each mesh. If
@@ -196,6 +218,13 @@ public class CollisionTreeManager {
     public CollisionTree generateCollisionTree(final CollisionTree tree, final Mesh mesh, final boolean protect) {
         if (tree != null) {
             tree.construct(mesh, doSort);
+            cacheTree(tree, mesh, protect);
+        }
+        return tree;
+    }
+
+    private CollisionTree cacheTree(final CollisionTree tree, final Mesh mesh, final boolean protect) {
+        if (tree != null) {
             cache.put(mesh, tree);
             // This mesh has been added by outside sources and labeled
             // as protected. Therefore, put it in the protected list
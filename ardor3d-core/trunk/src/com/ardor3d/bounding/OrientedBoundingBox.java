@@ -113,9 +113,73 @@ public class OrientedBoundingBox extends BoundingVolume {
         }
     }
 
+    /**
+     * The algorithms <code>computeFromPoints</code> can use to orient the box.
+     */
+    public enum FitMode {
+        /** Keep the box aligned with the world axes. One linear pass. */
+        AABB,
+        /**
+         * Align the box with the principal axes of the points, found from the eigenvectors of their covariance matrix.
+         * Two linear passes, usually a much tighter fit for elongated or rotated geometry.
+         */
+        PCA;
+    }
+
+    private FitMode _fitMode = FitMode.AABB;
+
+    /**
+     * @return the algorithm used by <code>computeFromPoints</code>.
+     */
+    public FitMode getFitMode() {
+        return _fitMode;
+    }
+
+    /**
+     * @param fitMode
+     *            the algorithm <code>computeFromPoints</code> should use. AABB is the default.
+     */
+    public void setFitMode(final FitMode fitMode) {
+        _fitMode = fitMode;
+    }
+
     @Override
     public void computeFromPoints(final FloatBuffer points) {
-        containAABB(points);
+        if (_fitMode == FitMode.PCA) {
+            containPCA(points);
+        } else {
+            containAABB(points);
+        }
+    }
+
+    @Override
+    public void expandToContain(final FloatBuffer points, final int startVertex, final int count) {
+        if (points == null || count <= 0) {
+            return;
+        }
+
+        // work in box space, where the box spans [-extent, extent] on each axis.
+        final double cx = center.getX(), cy = center.getY(), cz = center.getZ();
+        final double ax = xAxis.getX(), ay = xAxis.getY(), az = xAxis.getZ();
+        final double bx = yAxis.getX(), by = yAxis.getY(), bz = yAxis.getZ();
+        final double dx = zAxis.getX(), dy = zAxis.getY(), dz = zAxis.getZ();
+        double min0 = -extent.getX(), min1 = -extent.getY(), min2 = -extent.getZ();
+        double max0 = extent.getX(), max1 = extent.getY(), max2 = extent.getZ();
+
+        for (int i = startVertex * 3, max = (startVertex + count) * 3; i < max; i += 3) {
+            final double x = points.get(i) - cx, y = points.get(i + 1) - cy, z = points.get(i + 2) - cz;
+            final double p0 = x * ax + y * ay + z * az;
+            final double p1 = x * bx + y * by + z * bz;
+            final double p2 = x * dx + y * dy + z * dz;
+            min0 = Math.min(min0, p0);
+            max0 = Math.max(max0, p0);
+            min1 = Math.min(min1, p1);
+            max1 = Math.max(max1, p1);
+            min2 = Math.min(min2, p2);
+            max2 = Math.max(max2, p2);
+        }
+
+        setFromProjections(cx, cy, cz, min0, max0, min1, max1, min2, max2);
     }
 
     /**
@@ -130,33 +194,30 @@ public class OrientedBoundingBox extends BoundingVolume {
             return;
         }
 
-        final Vector3 compVect1 = Vector3.fetchTempInstance();
-        BufferUtils.populateFromBuffer(compVect1, points, 0);
-        double minX = compVect1.getX(), minY = compVect1.getY(), minZ = compVect1.getZ();
-        double maxX = compVect1.getX(), maxY = compVect1.getY(), maxZ = compVect1.getZ();
+        double minX = points.get(0), minY = points.get(1), minZ = points.get(2);
+        double maxX = minX, maxY = minY, maxZ = minZ;
 
-        for (int i = 1, len = points.limit() / 3; i < len; i++) {
-            BufferUtils.populateFromBuffer(compVect1, points, i);
+        for (int i = 3, len = points.limit() - 2; i < len; i += 3) {
+            final double x = points.get(i), y = points.get(i + 1), z = points.get(i + 2);
 
-            if (compVect1.getX() < minX) {
-                minX = compVect1.getX();
-            } else if (compVect1.getX() > maxX) {
-                maxX = compVect1.getX();
+            if (x < minX) {
+                minX = x;
+            } else if (x > maxX) {
+                maxX = x;
             }
 
-            if (compVect1.getY() < minY) {
-                minY = compVect1.getY();
-            } else if (compVect1.getY() > maxY) {
-                maxY = compVect1.getY();
+            if (y < minY) {
+                minY = y;
+            } else if (y > maxY) {
+                maxY = y;
             }
 
-            if (compVect1.getZ() < minZ) {
-                minZ = compVect1.getZ();
-            } else if (compVect1.getZ() > maxZ) {
-                maxZ = compVect1.getZ();
+            if (z < minZ) {
+                minZ = z;
+            } else if (z > maxZ) {
+                maxZ = z;
             }
         }
-        Vector3.releaseTempInstance(compVect1);
 
         center.set(minX + maxX, minY + maxY, minZ + maxZ);
         center.multiplyLocal(0.5);
@@ -170,6 +231,129 @@ public class OrientedBoundingBox extends BoundingVolume {
         correctCorners = false;
     }
 
+    /**
+     * Calculates an OBB aligned with the principal axes of the given point values.
+     * 
+     * @param points
+     *            The points this OBB should contain.
+     */
+    private void containPCA(final FloatBuffer points) {
+        if (points == null || points.limit() <= 2) {
+            return;
+        }
+
+        // first pass, accumulate the mean and covariance of the points.
+        final int count = points.limit() / 3;
+        double sx = 0, sy = 0, sz = 0;
+        double sxx = 0, syy = 0, szz = 0, sxy = 0, sxz = 0, syz = 0;
+        for (int i = 0, max = count * 3; i < max; i += 3) {
+            final double x = points.get(i), y = points.get(i + 1), z = points.get(i + 2);
+            sx += x;
+            sy += y;
+            sz += z;
+            sxx += x * x;
+            syy += y * y;
+            szz += z * z;
+            sxy += x * y;
+            sxz += x * z;
+            syz += y * z;
+        }
+        final double inv = 1.0 / count;
+        final double mx = sx * inv, my = sy * inv, mz = sz * inv;
+        final double[] cov = new double[] { sxx * inv - mx * mx, sxy * inv - mx * my, sxz * inv - mx * mz, //
+                sxy * inv - mx * my, syy * inv - my * my, syz * inv - my * mz, //
+                sxz * inv - mx * mz, syz * inv - my * mz, szz * inv - mz * mz };
+        final double[] axes = new double[9];
+        jacobiEigenvectors(cov, axes);
+
+        xAxis.set(axes[0], axes[3], axes[6]).normalizeLocal();
+        yAxis.set(axes[1], axes[4], axes[7]).normalizeLocal();
+        xAxis.cross(yAxis, zAxis).normalizeLocal();
+        zAxis.cross(xAxis, yAxis);
+
+        // second pass, project onto the axes to find the extents.
+        final double ax = xAxis.getX(), ay = xAxis.getY(), az = xAxis.getZ();
+        final double bx = yAxis.getX(), by = yAxis.getY(), bz = yAxis.getZ();
+        final double dx = zAxis.getX(), dy = zAxis.getY(), dz = zAxis.getZ();
+        double min0 = Double.POSITIVE_INFINITY, min1 = Double.POSITIVE_INFINITY, min2 = Double.POSITIVE_INFINITY;
+        double max0 = Double.NEGATIVE_INFINITY, max1 = Double.NEGATIVE_INFINITY, max2 = Double.NEGATIVE_INFINITY;
+        for (int i = 0, max = count * 3; i < max; i += 3) {
+            final double x = points.get(i) - mx, y = points.get(i + 1) - my, z = points.get(i + 2) - mz;
+            final double p0 = x * ax + y * ay + z * az;
+            final double p1 = x * bx + y * by + z * bz;
+            final double p2 = x * dx + y * dy + z * dz;
+            min0 = Math.min(min0, p0);
+            max0 = Math.max(max0, p0);
+            min1 = Math.min(min1, p1);
+            max1 = Math.max(max1, p1);
+            min2 = Math.min(min2, p2);
+            max2 = Math.max(max2, p2);
+        }
+
+        setFromProjections(mx, my, mz, min0, max0, min1, max1, min2, max2);
+    }
+
+    /**
+     * Sets center and extent from the range of projections onto our axes, measured from the given origin.
+     */
+    private void setFromProjections(final double ox, final double oy, final double oz, final double min0,
+            final double max0, final double min1, final double max1, final double min2, final double max2) {
+        final double c0 = (min0 + max0) * 0.5, c1 = (min1 + max1) * 0.5, c2 = (min2 + max2) * 0.5;
+        center.set(ox + xAxis.getX() * c0 + yAxis.getX() * c1 + zAxis.getX() * c2, //
+                oy + xAxis.getY() * c0 + yAxis.getY() * c1 + zAxis.getY() * c2, //
+                oz + xAxis.getZ() * c0 + yAxis.getZ() * c1 + zAxis.getZ() * c2);
+        extent.set(max0 - c0, max1 - c1, max2 - c2);
+        correctCorners = false;
+    }
+
+    /**
+     * Finds the eigenvectors of a symmetric 3x3 matrix using cyclic Jacobi rotations.
+     * 
+     * @param matrix
+     *            the row major symmetric matrix. It is diagonalized in place.
+     * @param vectors
+     *            the row major store for the eigenvectors, one per column.
+     */
+    private static void jacobiEigenvectors(final double[] matrix, final double[] vectors) {
+        vectors[0] = vectors[4] = vectors[8] = 1;
+        vectors[1] = vectors[2] = vectors[3] = vectors[5] = vectors[6] = vectors[7] = 0;
+        for (int sweep = 0; sweep < 32; sweep++) {
+            final double off = matrix[1] * matrix[1] + matrix[2] * matrix[2] + matrix[5] * matrix[5];
+            if (off < 1e-24) {
+                return;
+            }
+            for (int p = 0; p < 2; p++) {
+                for (int q = p + 1; q < 3; q++) {
+                    final double apq = matrix[p * 3 + q];
+                    if (Math.abs(apq) < 1e-30) {
+                        continue;
+                    }
+                    final double theta = (matrix[q * 3 + q] - matrix[p * 3 + p]) / (2 * apq);
+                    final double t = Math.signum(theta == 0 ? 1 : theta)
+                            / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+                    final double c = 1 / Math.sqrt(t * t + 1), s = t * c;
+                    for (int k = 0; k < 3; k++) {
+                        // rotate columns p and q of the matrix
+                        final double mkp = matrix[k * 3 + p], mkq = matrix[k * 3 + q];
+                        matrix[k * 3 + p] = c * mkp - s * mkq;
+                        matrix[k * 3 + q] = s * mkp + c * mkq;
+                    }
+                    for (int k = 0; k < 3; k++) {
+                        // then rows p and q
+                        final double mpk = matrix[p * 3 + k], mqk = matrix[q * 3 + k];
+                        matrix[p * 3 + k] = c * mpk - s * mqk;
+                        matrix[q * 3 + k] = s * mpk + c * mqk;
+                    }
+                    for (int k = 0; k < 3; k++) {
+                        final double vkp = vectors[k * 3 + p], vkq = vectors[k * 3 + q];
+                        vectors[k * 3 + p] = c * vkp - s * vkq;
+                        vectors[k * 3 + q] = s * vkp + c * vkq;
+                    }
+                }
+            }
+        }
+    }
+
     @Override
     public BoundingVolume merge(final BoundingVolume volume) {
         // clone ourselves into a new bounding volume, then merge.
@@ -457,6 +641,7 @@ public class OrientedBoundingBox extends BoundingVolume {
             toReturn.vectorStore[x].set(vectorStore[x]);
         }
         toReturn.correctCorners = correctCorners;
+        toReturn._fitMode = _fitMode;
         return toReturn;
     }
 
@@ -1537,6 +1722,7 @@ public class OrientedBoundingBox extends BoundingVolume {
         capsule.write(yAxis, "yAxis", new Vector3(Vector3.UNIT_Y));
         capsule.write(zAxis, "zAxis", new Vector3(Vector3.UNIT_Z));
         capsule.write(extent, "extent", new Vector3(Vector3.ZERO));
+        capsule.write(_fitMode, "fitMode", FitMode.AABB);
     }
 
     @Override
@@ -1547,6 +1733,7 @@ public class OrientedBoundingBox extends BoundingVolume {
         yAxis.set((Vector3) capsule.readSavable("yAxis", new Vector3(Vector3.UNIT_Y)));
         zAxis.set((Vector3) capsule.readSavable("zAxis", new Vector3(Vector3.UNIT_Z)));
         extent.set((Vector3) capsule.readSavable("extent", new Vector3(Vector3.ZERO)));
+        _fitMode = capsule.readEnum("fitMode", FitMode.class, FitMode.AABB);
         correctCorners = false;
     }
 
@@ -38,6 +38,22 @@ public class KeyboardState {
         return keysDownView;
     }
 
+    /**
+     * @return true if the key is down in this state but was not in the previous one. Unlike
+     *         {@link #getKeysPressedSince(KeyboardState)}, this creates no objects.
+     */
+    public boolean isPressedSince(final Key key, final KeyboardState previous) {
+        return keysDown.contains(key) && !previous.keysDown.contains(key);
+    }
+
+    /**
+     * @return true if the key was down in the previous state but is not in this one. Unlike
+     *         {@link #getKeysReleasedSince(KeyboardState)}, this creates no objects.
+     */
+    public boolean isReleasedSince(final Key key, final KeyboardState previous) {
+        return !keysDown.contains(key) && previous.keysDown.contains(key);
+    }
+
     public EnumSet<Key> getKeysReleasedSince(final KeyboardState previous) {
         final EnumSet<Key> result = EnumSet.copyOf(previous.keysDown);
 
@@ -95,6 +95,22 @@ public class MouseState {
         return ButtonState.UP;
     }
 
+    /**
+     * @return true if the button is down in this state but was not in the previous one. Unlike
+     *         {@link #getButtonsPressedSince(MouseState)}, this creates no objects.
+     */
+    public boolean isPressedSince(final MouseButton button, final MouseState previous) {
+        return getButtonState(button) == ButtonState.DOWN && previous.getButtonState(button) != ButtonState.DOWN;
+    }
+
+    /**
+     * @return true if the button was down in the previous state but is not in this one. Unlike
+     *         {@link #getButtonsReleasedSince(MouseState)}, this creates no objects.
+     */
+    public boolean isReleasedSince(final MouseButton button, final MouseState previous) {
+        return getButtonState(button) != ButtonState.DOWN && previous.getButtonState(button) == ButtonState.DOWN;
+    }
+
     public EnumSet<MouseButton> getButtonsReleasedSince(final MouseState previous) {
         final EnumSet<MouseButton> result = EnumSet.noneOf(MouseButton.class);
         for (final MouseButton button : MouseButton.values()) {
@@ -27,6 +27,10 @@ public final class InputTrigger {
         this.action = action;
     }
 
+    Predicate<TwoInputStates> getCondition() {
+        return condition;
+    }
+
     /**
      * Checks if the condition is applicable, and if so, performs the action.
      * 
@@ -12,13 +12,14 @@ package com.ardor3d.input.logical;
 
 import com.ardor3d.annotation.Immutable;
 import com.ardor3d.input.Key;
+import com.ardor3d.input.MouseButton;
 import com.google.common.base.Predicate;
 
 /**
  * A condition that is true when a key is down in the current input state.
  */
 @Immutable
-public final class KeyHeldCondition implements Predicate<TwoInputStates> {
+public final class KeyHeldCondition implements Predicate<TwoInputStates>, KeyedCondition {
     private final Key key;
 
     /**
@@ -40,4 +41,16 @@ public final class KeyHeldCondition implements Predicate<TwoInputStates> {
     public boolean apply(final TwoInputStates states) {
         return states.getCurrent().getKeyboardState().isDown(key);
     }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public MouseButton getButton() {
+        return null;
+    }
+
+    public boolean isOnChange() {
+        return false;
+    }
 }
@@ -13,13 +13,14 @@ package com.ardor3d.input.logical;
 import com.ardor3d.annotation.Immutable;
 import com.ardor3d.input.InputState;
 import com.ardor3d.input.Key;
+import com.ardor3d.input.MouseButton;
 import com.google.common.base.Predicate;
 
 /**
  * A condition that is true if a given key was pressed when going from the previous input state to the current one.
  */
 @Immutable
-public final class KeyPressedCondition implements Predicate<TwoInputStates> {
+public final class KeyPressedCondition implements Predicate<TwoInputStates>, KeyedCondition {
     private final Key key;
 
     /**
@@ -42,6 +43,18 @@ public final class KeyPressedCondition implements Predicate<TwoInputStates> {
         final InputState currentState = states.getCurrent();
         final InputState previousState = states.getPrevious();
 
-        return currentState.getKeyboardState().getKeysPressedSince(previousState.getKeyboardState()).contains(key);
+        return currentState.getKeyboardState().isPressedSince(key, previousState.getKeyboardState());
+    }
+
+    public Key getKey() {
+        return key;
+    }
+
+    public MouseButton getButton() {
+        return null;
+    }
+
+    public boolean isOnChange() {
+        return true;
     }
 }
@@ -13,13 +13,14 @@ package com.ardor3d.input.logical;
 import com.ardor3d.input.InputState;
 import com.ardor3d.input.Key;
 import com.ardor3d.annotation.Immutable;
+import com.ardor3d.input.MouseButton;
 import com.google.common.base.Predicate;
 
 /**
  * A condition that is true when a key was released from the previous to the current input state.
  */
 @Immutable
-public final class KeyReleasedCondition implements Predicate<TwoInputStates> {
+public final class KeyReleasedCondition implements Predicate<TwoInputStates>, KeyedCondition {
     private final Key key;
 
     /**
@@ -42,6 +43,18 @@ public final class KeyReleasedCondition implements Predicate<TwoInputStates> {
         final InputState currentState = states.getCurrent();
         final InputState previousState = states.getPrevious();
 
-        return currentState.getKeyboardState().getKeysReleasedSince(previousState.getKeyboardState()).contains(key);
+        return currentState.getKeyboardState().isReleasedSince(key, previousState.getKeyboardState());
     }
-}
\ No newline at end of file
+
+    public Key getKey() {
+        return key;
+    }
+
+    public MouseButton getButton() {
+        return null;
+    }
+
+    public boolean isOnChange() {
+        return true;
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.logical;
+
+import com.ardor3d.input.Key;
+import com.ardor3d.input.MouseButton;
+
+/**
+ * A trigger condition that can only be true when a single key or mouse button is involved. The {@link LogicalLayer}
+ * indexes triggers with such conditions by that key or button, and only checks them when it changed state or is held
+ * down, rather than for every input state. Conditions returning neither a key nor a button are checked every time.
+ */
+public interface KeyedCondition {
+
+    /**
+     * @return the key this condition depends on, or null.
+     */
+    Key getKey();
+
+    /**
+     * @return the mouse button this condition depends on, or null. Ignored if {@link #getKey()} is not null.
+     */
+    MouseButton getButton();
+
+    /**
+     * @return true if the condition can only be true when the key or button went up or down between the previous and
+     *         the current input state, false if it can only be true while the key or button is down in the current
+     *         state.
+     */
+    boolean isOnChange();
+}
@@ -13,6 +13,7 @@ package com.ardor3d.input.logical;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.ardor3d.annotation.GuardedBy;
 import com.ardor3d.annotation.MainThread;
@@ -25,12 +26,22 @@ import com.google.inject.Inject;
 /**
  * Implementation of a logical layer on top of the physical one, to be able to more easily trigger certain commands for
  * certain combination of user input.
+ * <p>
+ * Triggers whose conditions are {@link KeyedCondition}s, such as the key and mouse button conditions in this package,
+ * are indexed by their key or button and only checked when it is involved in an input state change, so having many of
+ * them registered costs little. Other conditions are checked for every input state.
+ * </p>
  */
 @ThreadSafe
 public final class LogicalLayer {
     // private final ConcurrentMap<Canvas, PhysicalLayer> viewInputs = new ConcurrentHashMap<Canvas, PhysicalLayer>();
     private final Set<InputSource> inputs = new CopyOnWriteArraySet<InputSource>();
     private final Set<InputTrigger> triggers = new CopyOnWriteArraySet<InputTrigger>();
+    private final AtomicInteger triggersVersion = new AtomicInteger();
+    @GuardedBy("this")
+    private TriggerIndex triggerIndex;
+    @GuardedBy("this")
+    private int triggerIndexVersion;
 
     @Inject
     public LogicalLayer() {}
@@ -47,6 +58,7 @@ public final class LogicalLayer {
      */
     public void registerTrigger(final InputTrigger inputTrigger) {
         triggers.add(inputTrigger);
+        triggersVersion.incrementAndGet();
     }
 
     /**
@@ -57,6 +69,7 @@ public final class LogicalLayer {
      */
     public void deregisterTrigger(final InputTrigger inputTrigger) {
         triggers.remove(inputTrigger);
+        triggersVersion.incrementAndGet();
     }
 
     /**
@@ -68,38 +81,46 @@ public final class LogicalLayer {
      */
     @MainThread
     public synchronized void checkTriggers(final double tpf) {
+        // read the version first, so a trigger registered while indexing gets the index rebuilt next time.
+        final int version = triggersVersion.get();
+        if (triggerIndex == null || triggerIndexVersion != version) {
+            triggerIndex = new TriggerIndex(triggers);
+            triggerIndexVersion = version;
+        }
+
         for (final InputSource is : inputs) {
             is.physicalLayer.readState();
 
             final List<InputState> newStates = is.physicalLayer.drainAvailableStates();
 
             if (newStates.isEmpty()) {
-                checkAndPerformTriggers(is.source, new TwoInputStates(is.lastState, is.lastState), tpf);
+                if (is.unchangedStates == null) {
+                    is.unchangedStates = new TwoInputStates(is.lastState, is.lastState);
+                }
+                triggerIndex.checkAndPerform(is.source, is.lastState, is.lastState, is.unchangedStates, tpf);
             } else {
                 for (final InputState inputState : newStates) {
                     // no trigger is valid in the LOST_FOCUS state, so don't bother checking them
                     if (inputState != InputState.LOST_FOCUS) {
-                        checkAndPerformTriggers(is.source, new TwoInputStates(is.lastState, inputState), tpf);
+                        triggerIndex.checkAndPerform(is.source, is.lastState, inputState, null, tpf);
                     }
 
                     is.lastState = inputState;
+                    is.unchangedStates = null;
                 }
             }
         }
 
     }
 
-    private void checkAndPerformTriggers(final Canvas source, final TwoInputStates states, final double tpf) {
-        for (final InputTrigger trigger : triggers) {
-            trigger.performIfValid(source, states, tpf);
-        }
-    }
-
     private static class InputSource {
         private final Canvas source;
         private final PhysicalLayer physicalLayer;
         @GuardedBy("LogicalLayer.this")
         private InputState lastState;
+        // lastState paired with itself, kept while no new states arrive.
+        @GuardedBy("LogicalLayer.this")
+        private TwoInputStates unchangedStates;
 
         public InputSource(final Canvas source, final PhysicalLayer physicalLayer) {
             this.source = source;
@@ -15,6 +15,7 @@ import java.util.EnumMap;
 import com.ardor3d.annotation.Immutable;
 import com.ardor3d.input.ButtonState;
 import com.ardor3d.input.InputState;
+import com.ardor3d.input.Key;
 import com.ardor3d.input.MouseButton;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Maps;
@@ -23,7 +24,7 @@ import com.google.common.collect.Maps;
  * A condition that checks the state of the two most commonly used mouse buttons.
  */
 @Immutable
-public final class MouseButtonCondition implements Predicate<TwoInputStates> {
+public final class MouseButtonCondition implements Predicate<TwoInputStates>, KeyedCondition {
     private final EnumMap<MouseButton, ButtonState> _states = Maps.newEnumMap(MouseButton.class);
 
     public MouseButtonCondition(final EnumMap<MouseButton, ButtonState> states) {
@@ -42,6 +43,26 @@ public final class MouseButtonCondition implements Predicate<TwoInputStates> {
         }
     }
 
+    public Key getKey() {
+        return null;
+    }
+
+    /**
+     * @return the first button this condition requires to be down, or null if it requires none to be.
+     */
+    public MouseButton getButton() {
+        for (final MouseButton button : _states.keySet()) {
+            if (_states.get(button) == ButtonState.DOWN) {
+                return button;
+            }
+        }
+        return null;
+    }
+
+    public boolean isOnChange() {
+        return false;
+    }
+
     public boolean apply(final TwoInputStates states) {
         final InputState currentState = states.getCurrent();
 
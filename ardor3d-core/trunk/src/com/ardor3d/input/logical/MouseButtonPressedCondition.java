@@ -12,6 +12,7 @@ package com.ardor3d.input.logical;
 
 import com.ardor3d.annotation.Immutable;
 import com.ardor3d.input.InputState;
+import com.ardor3d.input.Key;
 import com.ardor3d.input.MouseButton;
 import com.google.common.base.Predicate;
 
@@ -19,7 +20,7 @@ import com.google.common.base.Predicate;
  * A condition that is true if a given button was pressed when going from the previous input state to the current one.
  */
 @Immutable
-public final class MouseButtonPressedCondition implements Predicate<TwoInputStates> {
+public final class MouseButtonPressedCondition implements Predicate<TwoInputStates>, KeyedCondition {
     private final MouseButton _button;
 
     /**
@@ -46,6 +47,18 @@ public final class MouseButtonPressedCondition implements Predicate<TwoInputStat
             return false;
         }
 
-        return currentState.getMouseState().getButtonsPressedSince(previousState.getMouseState()).contains(_button);
+        return currentState.getMouseState().isPressedSince(_button, previousState.getMouseState());
+    }
+
+    public Key getKey() {
+        return null;
+    }
+
+    public MouseButton getButton() {
+        return _button;
+    }
+
+    public boolean isOnChange() {
+        return true;
     }
 }
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.logical;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+import com.ardor3d.framework.Canvas;
+import com.ardor3d.input.ButtonState;
+import com.ardor3d.input.InputState;
+import com.ardor3d.input.Key;
+import com.ardor3d.input.KeyboardState;
+import com.ardor3d.input.MouseButton;
+import com.ardor3d.input.MouseState;
+
+/**
+ * A snapshot of the triggers registered with a {@link LogicalLayer}, indexed by the keys and mouse buttons their
+ * {@link KeyedCondition}s depend on. For each pair of input states, only the indexed keys and buttons are compared,
+ * and only the triggers on those that changed or are down are checked, along with any triggers that could not be
+ * indexed. Triggers still run in the order they were registered in. Not thread safe.
+ */
+final class TriggerIndex {
+    private static final MouseButton[] BUTTONS = MouseButton.values();
+
+    private final InputTrigger[] _triggers;
+    private final BitSet _unindexed = new BitSet();
+
+    // per indexed key or button, the positions of the triggers depending on it.
+    private final Key[] _changeKeys;
+    private final int[][] _changeKeyTriggers;
+    private final Key[] _downKeys;
+    private final int[][] _downKeyTriggers;
+    private final int[][] _changeButtonTriggers = new int[BUTTONS.length][];
+    private final int[][] _downButtonTriggers = new int[BUTTONS.length][];
+
+    private final BitSet _selected = new BitSet();
+
+    TriggerIndex(final Collection<InputTrigger> triggers) {
+        _triggers = triggers.toArray(new InputTrigger[triggers.size()]);
+
+        final List<Integer>[] changeKeys = newLists(Key.values().length);
+        final List<Integer>[] downKeys = newLists(Key.values().length);
+        final List<Integer>[] changeButtons = newLists(BUTTONS.length);
+        final List<Integer>[] downButtons = newLists(BUTTONS.length);
+        for (int i = 0; i < _triggers.length; i++) {
+            if (!(_triggers[i].getCondition() instanceof KeyedCondition)) {
+                _unindexed.set(i);
+                continue;
+            }
+            final KeyedCondition condition = (KeyedCondition) _triggers[i].getCondition();
+            final Key key = condition.getKey();
+            final MouseButton button = condition.getButton();
+            if (key != null) {
+                (condition.isOnChange() ? changeKeys : downKeys)[key.ordinal()].add(i);
+            } else if (button != null) {
+                (condition.isOnChange() ? changeButtons : downButtons)[button.ordinal()].add(i);
+            } else {
+                _unindexed.set(i);
+            }
+        }
+
+        _changeKeys = usedKeys(changeKeys);
+        _changeKeyTriggers = usedPositions(changeKeys, _changeKeys.length);
+        _downKeys = usedKeys(downKeys);
+        _downKeyTriggers = usedPositions(downKeys, _downKeys.length);
+        for (int i = 0; i < BUTTONS.length; i++) {
+            _changeButtonTriggers[i] = changeButtons[i].isEmpty() ? null : toArray(changeButtons[i]);
+            _downButtonTriggers[i] = downButtons[i].isEmpty() ? null : toArray(downButtons[i]);
+        }
+    }
+
+    /**
+     * Check the triggers that could be affected by going from the previous to the current state, and perform the
+     * actions of those whose conditions are met.
+     *
+     * @param states
+     *            the pair of states to pass to the triggers, or null to create one only if any trigger is checked.
+     */
+    void checkAndPerform(final Canvas source, final InputState previous, final InputState current,
+            final TwoInputStates states, final double tpf) {
+        _selected.clear();
+        _selected.or(_unindexed);
+
+        final KeyboardState keys = current.getKeyboardState();
+        final KeyboardState previousKeys = previous.getKeyboardState();
+        if (keys != previousKeys) {
+            for (int i = 0; i < _changeKeys.length; i++) {
+                if (keys.isDown(_changeKeys[i]) != previousKeys.isDown(_changeKeys[i])) {
+                    select(_changeKeyTriggers[i]);
+                }
+            }
+        }
+        for (int i = 0; i < _downKeys.length; i++) {
+            if (keys.isDown(_downKeys[i])) {
+                select(_downKeyTriggers[i]);
+            }
+        }
+
+        final MouseState mouse = current.getMouseState();
+        final MouseState previousMouse = previous.getMouseState();
+        for (int i = 0; i < BUTTONS.length; i++) {
+            final boolean down = mouse.getButtonState(BUTTONS[i]) == ButtonState.DOWN;
+            if (down && _downButtonTriggers[i] != null) {
+                select(_downButtonTriggers[i]);
+            }
+            if (_changeButtonTriggers[i] != null && mouse != previousMouse
+                    && down != (previousMouse.getButtonState(BUTTONS[i]) == ButtonState.DOWN)) {
+                select(_changeButtonTriggers[i]);
+            }
+        }
+
+        if (_selected.isEmpty()) {
+            return;
+        }
+        final TwoInputStates pair = states != null ? states : new TwoInputStates(previous, current);
+        for (int i = _selected.nextSetBit(0); i >= 0; i = _selected.nextSetBit(i + 1)) {
+            _triggers[i].performIfValid(source, pair, tpf);
+        }
+    }
+
+    private void select(final int[] positions) {
+        for (final int position : positions) {
+            _selected.set(position);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static List<Integer>[] newLists(final int count) {
+        final List<Integer>[] lists = new List[count];
+        for (int i = 0; i < count; i++) {
+            lists[i] = new ArrayList<Integer>(1);
+        }
+        return lists;
+    }
+
+    private static Key[] usedKeys(final List<Integer>[] byKey) {
+        final List<Key> used = new ArrayList<Key>();
+        for (final Key key : Key.values()) {
+            if (!byKey[key.ordinal()].isEmpty()) {
+                used.add(key);
+            }
+        }
+        return used.toArray(new Key[used.size()]);
+    }
+
+    private static int[][] usedPositions(final List<Integer>[] byKey, final int count) {
+        final int[][] positions = new int[count][];
+        int used = 0;
+        for (int i = 0; i < byKey.length; i++) {
+            if (!byKey[i].isEmpty()) {
+                positions[used++] = toArray(byKey[i]);
+            }
+        }
+        return positions;
+    }
+
+    private static int[] toArray(final List<Integer> list) {
+        final int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
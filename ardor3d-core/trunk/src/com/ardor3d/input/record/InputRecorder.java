@@ -0,0 +1,161 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.record;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ardor3d.annotation.GuardedBy;
+import com.ardor3d.input.ButtonState;
+import com.ardor3d.input.KeyEvent;
+import com.ardor3d.input.KeyState;
+import com.ardor3d.input.MouseButton;
+import com.ardor3d.input.MouseState;
+
+/**
+ * Writes the input a {@link com.ardor3d.input.PhysicalLayer} reads to a compact binary stream, so the session can be
+ * played back later with an {@link InputReplay}. Wrap the real input wrappers with a {@link RecordingKeyboardWrapper},
+ * {@link RecordingMouseWrapper} and {@link RecordingFocusWrapper} sharing one recorder, and give those to the physical
+ * layer:
+ *
+ * <pre>
+ * final InputRecorder recorder = new InputRecorder(new File(&quot;session.input&quot;));
+ * final PhysicalLayer physicalLayer = new PhysicalLayer(new RecordingKeyboardWrapper(keyboardWrapper, recorder),
+ *         new RecordingMouseWrapper(mouseWrapper, recorder), new RecordingFocusWrapper(focusWrapper, recorder));
+ * </pre>
+ * <p>
+ * Events are recorded as the physical layer takes them, and grouped in frames: the physical layer checks for lost focus
+ * once at the end of every {@link com.ardor3d.input.PhysicalLayer#readState()}, which ends the frame. Each frame is
+ * stamped with the time since the previous one. Replaying a recording made this way hands the physical layer the same
+ * events on the same calls to readState, so it produces the same input states.
+ * </p>
+ */
+public class InputRecorder {
+    private static final Logger logger = Logger.getLogger(InputRecorder.class.getName());
+
+    static final int MAGIC = 0x41334950; // "A3IP"
+    static final int VERSION = 1;
+
+    static final int KEY_DOWN = 1;
+    static final int KEY_UP = 2;
+    static final int MOUSE = 3;
+    static final int FRAME = 4;
+    static final int FRAME_FOCUS_LOST = 5;
+
+    @GuardedBy("this")
+    private DataOutputStream _out;
+    @GuardedBy("this")
+    private long _lastFrameTime = System.nanoTime();
+    @GuardedBy("this")
+    private int _frameCount;
+
+    /**
+     * @param file
+     *            the file to record to. Replaced if it exists.
+     * @throws IOException
+     *             if the file can not be created.
+     */
+    public InputRecorder(final File file) throws IOException {
+        this(new FileOutputStream(file));
+    }
+
+    /**
+     * @param out
+     *            the stream to record to, closed by {@link #close()}.
+     * @throws IOException
+     *             if the header can not be written.
+     */
+    public InputRecorder(final OutputStream out) throws IOException {
+        _out = new DataOutputStream(new BufferedOutputStream(out));
+        _out.writeInt(MAGIC);
+        _out.writeByte(VERSION);
+    }
+
+    public synchronized int getFrameCount() {
+        return _frameCount;
+    }
+
+    synchronized void recordKey(final KeyEvent event) {
+        if (_out == null) {
+            return;
+        }
+        try {
+            _out.writeByte(event.getState() == KeyState.DOWN ? KEY_DOWN : KEY_UP);
+            _out.writeShort(event.getKey().ordinal());
+        } catch (final IOException e) {
+            failed(e);
+        }
+    }
+
+    synchronized void recordMouse(final MouseState state) {
+        if (_out == null) {
+            return;
+        }
+        try {
+            _out.writeByte(MOUSE);
+            _out.writeInt(state.getX());
+            _out.writeInt(state.getY());
+            _out.writeInt(state.getDx());
+            _out.writeInt(state.getDy());
+            _out.writeInt(state.getDwheel());
+            // two bits per button, the ordinal of its state plus one; zero if the state has no entry for it.
+            final Map<MouseButton, ButtonState> buttons = state.getButtonStates();
+            int packed = 0;
+            for (final Map.Entry<MouseButton, ButtonState> entry : buttons.entrySet()) {
+                packed |= (entry.getValue().ordinal() + 1) << (entry.getKey().ordinal() * 2);
+            }
+            _out.writeByte(packed);
+        } catch (final IOException e) {
+            failed(e);
+        }
+    }
+
+    synchronized void endFrame(final boolean focusLost) {
+        if (_out == null) {
+            return;
+        }
+        final long now = System.nanoTime();
+        try {
+            _out.writeByte(focusLost ? FRAME_FOCUS_LOST : FRAME);
+            _out.writeInt((int) Math.min(Integer.MAX_VALUE, (now - _lastFrameTime) / 1000));
+        } catch (final IOException e) {
+            failed(e);
+        }
+        _lastFrameTime = now;
+        _frameCount++;
+    }
+
+    /**
+     * Write out anything buffered and close the stream. Input read after this is no longer recorded.
+     */
+    public synchronized void close() {
+        if (_out != null) {
+            try {
+                _out.close();
+            } catch (final IOException e) {
+                logger.log(Level.WARNING, "Unable to close input recording.", e);
+            }
+            _out = null;
+        }
+    }
+
+    private void failed(final IOException e) {
+        logger.log(Level.WARNING, "Unable to write input recording, recording stopped.", e);
+        close();
+    }
+}
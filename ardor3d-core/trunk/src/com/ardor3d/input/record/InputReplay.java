@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.record;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.ardor3d.input.ButtonState;
+import com.ardor3d.input.Key;
+import com.ardor3d.input.KeyEvent;
+import com.ardor3d.input.KeyState;
+import com.ardor3d.input.MouseButton;
+import com.ardor3d.input.MouseState;
+import com.google.common.collect.PeekingIterator;
+
+/**
+ * Plays back input recorded by an {@link InputRecorder}. Give a {@link ReplayKeyboardWrapper},
+ * {@link ReplayMouseWrapper} and {@link ReplayFocusWrapper} sharing one replay to a
+ * {@link com.ardor3d.input.PhysicalLayer} in place of the real wrappers: each of its reads then gets the events of the
+ * next recorded frame, so frame N of the replay sees the same input states as frame N of the recording. Pair it with a
+ * {@link com.ardor3d.util.FixedStepTimer} to make everything driven by time repeat as well.
+ * <p>
+ * Once all frames are played, {@link #isFinished()} returns true and no more input is given. Not thread safe; use it
+ * from the thread reading input.
+ * </p>
+ */
+public class InputReplay {
+    private static final Key[] KEYS = Key.values();
+    private static final MouseButton[] BUTTONS = MouseButton.values();
+    private static final ButtonState[] BUTTON_STATES = ButtonState.values();
+
+    private final List<Frame> _frames = new ArrayList<Frame>();
+    private int _frame;
+
+    private final LinkedList<KeyEvent> _keyEvents = new LinkedList<KeyEvent>();
+    private final LinkedList<MouseState> _mouseStates = new LinkedList<MouseState>();
+
+    /**
+     * @param file
+     *            a file written by an InputRecorder.
+     * @throws IOException
+     *             if the file can not be read or is not an input recording.
+     */
+    public InputReplay(final File file) throws IOException {
+        this(new FileInputStream(file));
+    }
+
+    /**
+     * @param in
+     *            a stream written by an InputRecorder. Read fully and closed.
+     * @throws IOException
+     *             if the stream can not be read or is not an input recording.
+     */
+    public InputReplay(final InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        try {
+            read(data);
+        } finally {
+            data.close();
+        }
+        startFrame();
+    }
+
+    private void read(final DataInputStream in) throws IOException {
+        if (in.readInt() != InputRecorder.MAGIC) {
+            throw new IOException("Not an input recording.");
+        }
+        final int version = in.readUnsignedByte();
+        if (version != InputRecorder.VERSION) {
+            throw new IOException("Unsupported input recording version: " + version);
+        }
+
+        Frame frame = new Frame();
+        try {
+            while (true) {
+                final int type = in.readUnsignedByte();
+                switch (type) {
+                    case InputRecorder.KEY_DOWN:
+                    case InputRecorder.KEY_UP:
+                        final int key = in.readUnsignedShort();
+                        if (key >= KEYS.length) {
+                            throw new IOException("Corrupt input recording, unknown key: " + key);
+                        }
+                        frame.keyEvents.add(new KeyEvent(KEYS[key], type == InputRecorder.KEY_DOWN ? KeyState.DOWN
+                                : KeyState.UP));
+                        break;
+                    case InputRecorder.MOUSE:
+                        frame.mouseStates.add(readMouse(in));
+                        break;
+                    case InputRecorder.FRAME:
+                    case InputRecorder.FRAME_FOCUS_LOST:
+                        frame.focusLost = type == InputRecorder.FRAME_FOCUS_LOST;
+                        frame.micros = in.readInt();
+                        _frames.add(frame);
+                        frame = new Frame();
+                        break;
+                    default:
+                        throw new IOException("Corrupt input recording, unknown entry type: " + type);
+                }
+            }
+        } catch (final EOFException e) {
+            // a recording that was not closed properly may end mid frame, or even mid entry; drop the partial frame.
+        }
+    }
+
+    private static MouseState readMouse(final DataInputStream in) throws IOException {
+        final int x = in.readInt(), y = in.readInt();
+        final int dx = in.readInt(), dy = in.readInt();
+        final int dwheel = in.readInt();
+        final int packed = in.readUnsignedByte();
+        final EnumMap<MouseButton, ButtonState> buttons = new EnumMap<MouseButton, ButtonState>(MouseButton.class);
+        for (final MouseButton button : BUTTONS) {
+            final int state = (packed >> (button.ordinal() * 2)) & 3;
+            if (state > BUTTON_STATES.length) {
+                throw new IOException("Corrupt input recording, unknown button state: " + state);
+            }
+            if (state != 0) {
+                buttons.put(button, BUTTON_STATES[state - 1]);
+            }
+        }
+        return new MouseState(x, y, dx, dy, dwheel, buttons);
+    }
+
+    /**
+     * @return the number of frames in the recording.
+     */
+    public int getFrameCount() {
+        return _frames.size();
+    }
+
+    /**
+     * @return the index of the frame the next read of the physical layer will see.
+     */
+    public int getFrame() {
+        return _frame;
+    }
+
+    public boolean isFinished() {
+        return _frame >= _frames.size();
+    }
+
+    /**
+     * @return the time in seconds the current frame took while recording, or 0 once finished.
+     */
+    public double getRecordedTimePerFrame() {
+        return isFinished() ? 0 : _frames.get(_frame).micros / 1e6;
+    }
+
+    /**
+     * Start the playback over from the first frame.
+     */
+    public void rewind() {
+        _frame = 0;
+        _keyEvents.clear();
+        _mouseStates.clear();
+        startFrame();
+    }
+
+    PeekingIterator<KeyEvent> getKeyEvents() {
+        return new QueueIterator<KeyEvent>(_keyEvents);
+    }
+
+    PeekingIterator<MouseState> getMouseStates() {
+        return new QueueIterator<MouseState>(_mouseStates);
+    }
+
+    /**
+     * Ends the current frame and moves on to the next.
+     * 
+     * @return whether focus was lost at the end of the frame.
+     */
+    boolean endFrame() {
+        if (isFinished()) {
+            return false;
+        }
+        final boolean focusLost = _frames.get(_frame).focusLost;
+        _frame++;
+        startFrame();
+        return focusLost;
+    }
+
+    private void startFrame() {
+        if (!isFinished()) {
+            final Frame frame = _frames.get(_frame);
+            _keyEvents.addAll(frame.keyEvents);
+            _mouseStates.addAll(frame.mouseStates);
+        }
+    }
+
+    /**
+     * Takes events straight off the queue, so one the physical layer only peeked at stays for its next iterator.
+     */
+    private static class QueueIterator<E> implements PeekingIterator<E> {
+        private final LinkedList<E> _queue;
+
+        QueueIterator(final LinkedList<E> queue) {
+            _queue = queue;
+        }
+
+        public boolean hasNext() {
+            return !_queue.isEmpty();
+        }
+
+        public E peek() {
+            return _queue.getFirst();
+        }
+
+        public E next() {
+            return _queue.removeFirst();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static class Frame {
+        private final List<KeyEvent> keyEvents = new ArrayList<KeyEvent>(0);
+        private final List<MouseState> mouseStates = new ArrayList<MouseState>(0);
+        private boolean focusLost;
+        private int micros;
+    }
+}
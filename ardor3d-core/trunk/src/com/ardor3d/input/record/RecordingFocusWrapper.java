@@ -0,0 +1,37 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.record;
+
+import com.ardor3d.input.FocusWrapper;
+
+/**
+ * A focus wrapper passing the focus changes of another one through. As the physical layer asks for them once at the
+ * end of every read, this also ends each frame of the {@link InputRecorder}'s recording.
+ */
+public class RecordingFocusWrapper implements FocusWrapper {
+    private final FocusWrapper _focusWrapper;
+    private final InputRecorder _recorder;
+
+    public RecordingFocusWrapper(final FocusWrapper focusWrapper, final InputRecorder recorder) {
+        _focusWrapper = focusWrapper;
+        _recorder = recorder;
+    }
+
+    public void init() {
+        _focusWrapper.init();
+    }
+
+    public boolean getAndClearFocusLost() {
+        final boolean focusLost = _focusWrapper.getAndClearFocusLost();
+        _recorder.endFrame(focusLost);
+        return focusLost;
+    }
+}
@@ -0,0 +1,44 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.record;
+
+import com.google.common.collect.PeekingIterator;
+
+/**
+ * Passes the events of a wrapper's iterator through, recording each one as it is taken.
+ */
+abstract class RecordingIterator<E> implements PeekingIterator<E> {
+    private final PeekingIterator<E> _events;
+
+    RecordingIterator(final PeekingIterator<E> events) {
+        _events = events;
+    }
+
+    protected abstract void record(E event);
+
+    public boolean hasNext() {
+        return _events.hasNext();
+    }
+
+    public E peek() {
+        return _events.peek();
+    }
+
+    public E next() {
+        final E event = _events.next();
+        record(event);
+        return event;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.record;
+
+import com.ardor3d.input.KeyEvent;
+import com.ardor3d.input.KeyboardWrapper;
+import com.google.common.collect.PeekingIterator;
+
+/**
+ * A keyboard wrapper passing the events of another one through, recording them with an {@link InputRecorder}.
+ */
+public class RecordingKeyboardWrapper implements KeyboardWrapper {
+    private final KeyboardWrapper _keyboardWrapper;
+    private final InputRecorder _recorder;
+
+    public RecordingKeyboardWrapper(final KeyboardWrapper keyboardWrapper, final InputRecorder recorder) {
+        _keyboardWrapper = keyboardWrapper;
+        _recorder = recorder;
+    }
+
+    public void init() {
+        _keyboardWrapper.init();
+    }
+
+    public PeekingIterator<KeyEvent> getEvents() {
+        return new RecordingIterator<KeyEvent>(_keyboardWrapper.getEvents()) {
+            @Override
+            protected void record(final KeyEvent event) {
+                _recorder.recordKey(event);
+            }
+        };
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.record;
+
+import com.ardor3d.input.MouseState;
+import com.ardor3d.input.MouseWrapper;
+import com.google.common.collect.PeekingIterator;
+
+/**
+ * A mouse wrapper passing the states of another one through, recording them with an {@link InputRecorder}.
+ */
+public class RecordingMouseWrapper implements MouseWrapper {
+    private final MouseWrapper _mouseWrapper;
+    private final InputRecorder _recorder;
+
+    public RecordingMouseWrapper(final MouseWrapper mouseWrapper, final InputRecorder recorder) {
+        _mouseWrapper = mouseWrapper;
+        _recorder = recorder;
+    }
+
+    public void init() {
+        _mouseWrapper.init();
+    }
+
+    public PeekingIterator<MouseState> getEvents() {
+        return new RecordingIterator<MouseState>(_mouseWrapper.getEvents()) {
+            @Override
+            protected void record(final MouseState event) {
+                _recorder.recordMouse(event);
+            }
+        };
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.record;
+
+import com.ardor3d.input.FocusWrapper;
+
+/**
+ * A focus wrapper reporting the focus losses of an {@link InputReplay}. As the physical layer asks for them once at the
+ * end of every read, this also moves the replay on to its next frame.
+ */
+public class ReplayFocusWrapper implements FocusWrapper {
+    private final InputReplay _replay;
+
+    public ReplayFocusWrapper(final InputReplay replay) {
+        _replay = replay;
+    }
+
+    public void init() {}
+
+    public boolean getAndClearFocusLost() {
+        return _replay.endFrame();
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.record;
+
+import com.ardor3d.input.KeyEvent;
+import com.ardor3d.input.KeyboardWrapper;
+import com.google.common.collect.PeekingIterator;
+
+/**
+ * A keyboard wrapper giving the physical layer the keyboard input of the current frame of an {@link InputReplay}.
+ */
+public class ReplayKeyboardWrapper implements KeyboardWrapper {
+    private final InputReplay _replay;
+
+    public ReplayKeyboardWrapper(final InputReplay replay) {
+        _replay = replay;
+    }
+
+    public void init() {}
+
+    public PeekingIterator<KeyEvent> getEvents() {
+        return _replay.getKeyEvents();
+    }
+}
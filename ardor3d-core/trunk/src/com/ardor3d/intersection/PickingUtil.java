@@ -10,7 +10,6 @@
 
 package com.ardor3d.intersection;
 
-import java.nio.IntBuffer;
 import java.util.List;
 
 import com.ardor3d.bounding.CollisionTree;
@@ -19,6 +18,7 @@ import com.ardor3d.math.Ray3;
 import com.ardor3d.math.Vector3;
 import com.ardor3d.math.type.ReadOnlyMatrix3;
 import com.ardor3d.math.type.ReadOnlyVector3;
+import com.ardor3d.scenegraph.IndexBufferData;
 import com.ardor3d.scenegraph.Mesh;
 import com.ardor3d.scenegraph.Node;
 import com.ardor3d.scenegraph.Spatial;
@@ -228,7 +228,7 @@ public class PickingUtil {
     public static void getTriangle(final Mesh mesh, final int index, final int[] storage) {
         // FIXME: hard coded section 0
         if (index < mesh.getMeshData().getPrimitiveCount(0) && storage.length >= 3) {
-            final IntBuffer indices = mesh.getMeshData().getIndexBuffer();
+            final IndexBufferData<?> indices = mesh.getMeshData().getIndices();
             storage[0] = indices.get(mesh.getMeshData().getVertexIndex(index, 0, 0));
             storage[1] = indices.get(mesh.getMeshData().getVertexIndex(index, 1, 0));
             storage[2] = indices.get(mesh.getMeshData().getVertexIndex(index, 2, 0));
@@ -251,7 +251,7 @@ public class PickingUtil {
                 }
 
                 BufferUtils.populateFromBuffer(store[x], mesh.getMeshData().getVertexBuffer(), mesh.getMeshData()
-                        .getIndexBuffer().get(mesh.getMeshData().getVertexIndex(index, x, 0)));
+                        .getIndices().get(mesh.getMeshData().getVertexIndex(index, x, 0)));
             }
         }
     }
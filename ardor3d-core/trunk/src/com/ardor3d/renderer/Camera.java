@@ -1121,16 +1121,17 @@ public class Camera implements Savable, Externalizable, Cloneable {
         return store;
     }
 
+    /**
+     * @param position
+     *            a position in world space.
+     * @return the distance from our location to the given position along our direction, ignoring its sign.
+     */
     public double distanceToCam(final ReadOnlyVector3 position) {
-        Vector3 tempVector = Vector3.fetchTempInstance();
-        position.subtract(_location, tempVector);
-
-        final double retval = Math.abs(tempVector.dot(_direction) / _direction.dot(_direction));
-        tempVector = _direction.multiply(retval, tempVector);
-
-        final double distance = tempVector.length();
-        Vector3.releaseTempInstance(tempVector);
-        return distance;
+        // the length of the position's offset projected onto our direction.
+        final double dot = (position.getX() - _location.getX()) * _direction.getX()
+                + (position.getY() - _location.getY()) * _direction.getY()
+                + (position.getZ() - _location.getZ()) * _direction.getZ();
+        return Math.abs(dot) / _direction.length();
     }
 
     /**
@@ -10,6 +10,7 @@
 
 package com.ardor3d.renderer;
 
+import java.util.Arrays;
 import java.util.EnumMap;
 
 import com.ardor3d.renderer.state.RenderState;
@@ -34,6 +35,14 @@ public class RenderContext {
     protected final EnumMap<RenderState.StateType, StateRecord> stateRecords = new EnumMap<RenderState.StateType, StateRecord>(
             RenderState.StateType.class);
 
+    /** Content hashes of the states last applied, valid where currentStateHashValid is set. */
+    protected final int[] currentStateHashes = new int[RenderState.StateType.values.length];
+
+    protected final boolean[] currentStateHashValid = new boolean[RenderState.StateType.values.length];
+
+    /** The states last applied, used to confirm content hash matches. */
+    protected final RenderState[] appliedStates = new RenderState[RenderState.StateType.values.length];
+
     protected final LineRecord lineRecord = new LineRecord();
     protected final RendererRecord rendererRecord = new RendererRecord();
 
@@ -115,6 +124,7 @@ public class RenderContext {
      */
     public void clearCurrentStates() {
         currentStates.clear();
+        invalidateStateHashes();
     }
 
     /**
@@ -123,6 +133,7 @@ public class RenderContext {
      */
     public void clearCurrentState(final RenderState.StateType type) {
         currentStates.remove(type);
+        currentStateHashValid[type.ordinal()] = false;
     }
 
     public RenderState getEnforcedState(final RenderState.StateType type) {
@@ -143,6 +154,66 @@ public class RenderContext {
 
     public void setCurrentState(final StateType type, final RenderState state) {
         currentStates.put(type, state);
+        currentStateHashValid[type.ordinal()] = false;
+    }
+
+    /**
+     * Check if applying the given state would not change anything, because it, or a state with the same content, is
+     * already current. See {@link RenderState#_quickCompare} and {@link RenderState#_hashCompare}.
+     * 
+     * @param state
+     *            the state about to be applied
+     * @return true if applying the state can be skipped.
+     */
+    public boolean isStateCurrent(final RenderState state) {
+        if (state.needsRefresh()) {
+            return false;
+        }
+        final StateType type = state.getType();
+        if (RenderState._quickCompare.contains(type) && state == currentStates.get(type)) {
+            return true;
+        }
+        final int index = type.ordinal();
+        if (!currentStateHashValid[index] || !RenderState._hashCompare.contains(type)
+                || currentStateHashes[index] != state.getContentHash()) {
+            return false;
+        }
+        // hashes may collide, so confirm the match against the state last applied.
+        return state.isContentEqual(appliedStates[index]);
+    }
+
+    /**
+     * Note that the given state was just applied, remembering its content hash for {@link #isStateCurrent(RenderState)}.
+     * 
+     * @param state
+     *            the applied state
+     */
+    public void stateApplied(final RenderState state) {
+        final int index = state.getType().ordinal();
+        if (RenderState._hashCompare.contains(state.getType())) {
+            currentStateHashes[index] = state.getContentHash();
+            currentStateHashValid[index] = true;
+            appliedStates[index] = state;
+        }
+    }
+
+    /**
+     * Forget the content hash of the last applied state of the given type, so that the next state of that type is
+     * applied even if its content matches.
+     * 
+     * @param type
+     *            the state type
+     */
+    public void invalidateStateHash(final StateType type) {
+        currentStateHashValid[type.ordinal()] = false;
+    }
+
+    /**
+     * Forget the content hashes of all last applied states.
+     */
+    public void invalidateStateHashes() {
+        Arrays.fill(currentStateHashValid, false);
+        Arrays.fill(appliedStates, null);
     }
 
     public EnumMap<StateType, RenderState> getEnforcedStates() {
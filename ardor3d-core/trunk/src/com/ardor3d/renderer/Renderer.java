@@ -14,7 +14,6 @@ import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 import java.util.EnumMap;
 import java.util.List;
 
@@ -26,6 +25,7 @@ import com.ardor3d.math.type.ReadOnlyColorRGBA;
 import com.ardor3d.renderer.queue.RenderQueue;
 import com.ardor3d.renderer.state.RenderState;
 import com.ardor3d.renderer.state.RenderState.StateType;
+import com.ardor3d.scenegraph.IndexBufferData;
 import com.ardor3d.scenegraph.Renderable;
 import com.ardor3d.scenegraph.Spatial;
 import com.ardor3d.scenegraph.TexCoords;
@@ -444,12 +444,32 @@ public abstract class Renderer {
     public abstract void setupInterleavedData(final FloatBuffer interleavedBuffer, InterleavedFormat format,
             final VBOInfo vbo);
 
-    public abstract void drawElements(final IntBuffer indices, final VBOInfo vbo, final int[] indexLengths,
+    public abstract void drawElements(final IndexBufferData<?> indices, final VBOInfo vbo, final int[] indexLengths,
             final IndexMode[] indexModes);
 
     public abstract void drawArrays(final FloatBuffer vertexBuffer, final int[] indexLengths,
             final IndexMode[] indexModes);
 
+    /**
+     * <code>drawInstances</code> draws the vertex data set up by the setup methods once for each instance, with the
+     * instance's matrix multiplied onto the current model view matrix.
+     * 
+     * @param indices
+     *            the indices to draw with, as in drawElements, or null to draw the vertices in order, as in drawArrays.
+     * @param vertexBuffer
+     *            the vertex data, used to count vertices if indices is null.
+     * @param instanceMatrices
+     *            column major 4x4 matrices, 16 floats per instance, starting at index 0.
+     * @param instanceColors
+     *            colors, 4 floats per instance, used instead of the default color, or null to keep the color set up by
+     *            setupColorData.
+     * @param instanceCount
+     *            the number of instances to draw.
+     */
+    public abstract void drawInstances(final IndexBufferData<?> indices, final FloatBuffer vertexBuffer,
+            final VBOInfo vbo, final int[] indexLengths, final IndexMode[] indexModes,
+            final FloatBuffer instanceMatrices, final FloatBuffer instanceColors, final int instanceCount);
+
     public abstract void renderDisplayList(final int displayListID);
 
     public abstract void setProjectionMatrix(DoubleBuffer matrix);
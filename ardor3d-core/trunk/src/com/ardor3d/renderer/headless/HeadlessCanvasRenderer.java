@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.renderer.headless;
+
+import com.ardor3d.annotation.MainThread;
+import com.ardor3d.framework.CanvasRenderer;
+import com.ardor3d.framework.DisplaySettings;
+import com.ardor3d.framework.Scene;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.ContextManager;
+import com.ardor3d.renderer.RenderContext;
+import com.ardor3d.renderer.Renderer;
+
+/**
+ * <code>HeadlessCanvasRenderer</code> sets up a {@link RenderContext} and a {@link HeadlessRenderer} for drawing a
+ * Scene without any windowing system or graphics device.
+ */
+public class HeadlessCanvasRenderer implements CanvasRenderer {
+
+    protected Scene _scene;
+    protected Camera _camera;
+    protected HeadlessRenderer _renderer;
+    protected RenderContext _context;
+
+    public HeadlessCanvasRenderer(final Scene scene) {
+        _scene = scene;
+    }
+
+    @MainThread
+    public void init(final DisplaySettings settings, final boolean headless) {
+        final Object contextKey = this;
+        _context = new RenderContext(contextKey, new HeadlessContextCapabilities());
+        ContextManager.addContext(contextKey, _context);
+
+        _renderer = new HeadlessRenderer(settings.getWidth(), settings.getHeight());
+        _renderer.setBackgroundColor(ColorRGBA.BLACK);
+
+        /** Set up how our camera sees. */
+        _camera = new Camera(settings.getWidth(), settings.getHeight());
+        _camera.setFrustumPerspective(45.0f, (float) settings.getWidth() / (float) settings.getHeight(), 1, 1000);
+        _camera.setParallelProjection(false);
+
+        final Vector3 loc = new Vector3(0.0f, 0.0f, 10.0f);
+        final Vector3 left = new Vector3(-1.0f, 0.0f, 0.0f);
+        final Vector3 up = new Vector3(0.0f, 1.0f, 0.0f);
+        final Vector3 dir = new Vector3(0.0f, 0f, -1.0f);
+        /** Move our camera to a correct place and orientation. */
+        _camera.setFrame(loc, left, up, dir);
+    }
+
+    @MainThread
+    public boolean draw() {
+        _renderer.setSize(_camera.getWidth(), _camera.getHeight());
+        setCurrentContext();
+
+        if (ContextManager.getCurrentContext().getCurrentCamera() != _camera) {
+            ContextManager.getCurrentContext().setCurrentCamera(_camera);
+            _camera.update();
+        }
+        _camera.apply(_renderer);
+        _renderer.clearBuffers();
+        final boolean drew = _scene.renderUnto(_renderer);
+        _renderer.displayBackBuffer();
+        return drew;
+    }
+
+    public Camera getCamera() {
+        return _camera;
+    }
+
+    public Scene getScene() {
+        return _scene;
+    }
+
+    public Renderer getRenderer() {
+        return _renderer;
+    }
+
+    /**
+     * @return our renderer, with access to its recorded statistics.
+     */
+    public HeadlessRenderer getHeadlessRenderer() {
+        return _renderer;
+    }
+
+    public RenderContext getRenderContext() {
+        return _context;
+    }
+
+    public void setCurrentContext() {
+        ContextManager.switchContext(this);
+    }
+
+    public void cleanup() {
+        _renderer.cleanup();
+        ContextManager.removeContext(this);
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.renderer.headless;
+
+import com.ardor3d.renderer.ContextCapabilities;
+import com.ardor3d.renderer.state.TextureState;
+
+/**
+ * <code>HeadlessContextCapabilities</code> describes a fictional, reasonably capable OpenGL 2.0 class device for use
+ * with the {@link HeadlessRenderer}. Vertex buffer objects are reported as unsupported so that meshes keep their data
+ * in client side buffers.
+ */
+public class HeadlessContextCapabilities extends ContextCapabilities {
+
+    public HeadlessContextCapabilities() {
+        supportsGL1_2 = true;
+        supportsMultisample = true;
+
+        supportsConstantColor = true;
+        supportsEq = true;
+        supportsSeparateEq = true;
+        supportsSeparateFunc = true;
+        supportsMinMax = true;
+        supportsSubtract = true;
+
+        supportsFogCoords = true;
+
+        supportsFragmentProgram = true;
+        supportsVertexProgram = true;
+
+        glslSupported = true;
+        maxGLSLVertexAttribs = 16;
+
+        twoSidedStencilSupport = true;
+        stencilWrapSupport = true;
+
+        numTotalTexUnits = TextureState.MAX_TEXTURES;
+        numFixedTexUnits = 8;
+        numVertexTexUnits = 8;
+        numFragmentTexUnits = 16;
+        numFragmentTexCoordUnits = 8;
+        maxTextureSize = 4096;
+        maxAnisotropic = 16.0f;
+
+        supportsMultiTexture = true;
+        supportsEnvDot3 = true;
+        supportsEnvCombine = true;
+        supportsAniso = true;
+        supportsNonPowerTwo = true;
+        supportsRectangular = true;
+        supportsS3TCCompression = true;
+        supportsTexture3D = true;
+        supportsTextureCubeMap = true;
+        automaticMipMaps = true;
+        supportsDepthTexture = true;
+        supportsShadow = true;
+
+        supportsMirroredRepeat = true;
+        supportsMirrorClamp = true;
+        supportsBorderClamp = true;
+        supportsEdgeClamp = true;
+    }
+}
@@ -0,0 +1,794 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.renderer.headless;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.logging.Logger;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.bounding.BoundingSphere;
+import com.ardor3d.bounding.BoundingVolume;
+import com.ardor3d.image.Image;
+import com.ardor3d.image.Texture;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.Transform;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.math.type.ReadOnlyColorRGBA;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.ContextManager;
+import com.ardor3d.renderer.IndexMode;
+import com.ardor3d.renderer.InterleavedFormat;
+import com.ardor3d.renderer.NormalsMode;
+import com.ardor3d.renderer.RenderContext;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.queue.RenderBucketType;
+import com.ardor3d.renderer.queue.RenderQueue;
+import com.ardor3d.renderer.state.RenderState;
+import com.ardor3d.renderer.state.TextureState;
+import com.ardor3d.renderer.state.RenderState.StateType;
+import com.ardor3d.scenegraph.IndexBufferData;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.Renderable;
+import com.ardor3d.scenegraph.Spatial;
+import com.ardor3d.scenegraph.TexCoords;
+import com.ardor3d.scenegraph.VBOInfo;
+import com.ardor3d.ui.text.BasicText;
+import com.ardor3d.util.Ardor3dException;
+import com.ardor3d.util.Debug;
+import com.ardor3d.util.stat.StatCollector;
+import com.ardor3d.util.stat.StatType;
+
+/**
+ * <code>HeadlessRenderer</code> is a Renderer that needs no graphics device. Instead of issuing OpenGL calls it
+ * records how many of each kind of command it was handed, how often each type of RenderState was applied or skipped
+ * as redundant, and how many indices and primitives were submitted. Everything on the CPU side of a frame - culling,
+ * queue sorting, state resolution and buffer setup - runs exactly as it would with a real renderer, which makes this
+ * class useful for measuring and regression testing that cost on machines without a GPU.
+ * <p>
+ * A {@link RenderContext} with {@link HeadlessContextCapabilities} must be current in the {@link ContextManager} while
+ * drawing, as {@link HeadlessCanvasRenderer} sets up.
+ * </p>
+ */
+public class HeadlessRenderer extends Renderer {
+    private static final Logger logger = Logger.getLogger(HeadlessRenderer.class.getName());
+
+    /**
+     * The kinds of command recorded by this renderer.
+     */
+    public enum Command {
+        Clear, DisplayBackBuffer, SetOrtho, UnsetOrtho, PushTransform, PopTransform, SetProjection, SetModelView,
+        SetViewport, SetupVertexData, SetupNormalData, SetupColorData, SetupFogData, SetupTextureData,
+        SetupInterleavedData, SetupLineParameters, SetupPointParameters, PolygonOffset, DrawElements, DrawArrays,
+        DrawInstances, DrawDisplayList, DrawText, ApplyState, LoadTexture, DeleteTexture, DeleteVBO, Flush;
+    }
+
+    private static final Command[] COMMANDS = Command.values();
+
+    /** List of default rendering states for this specific renderer type */
+    protected static final EnumMap<RenderState.StateType, RenderState> defaultStateList = new EnumMap<RenderState.StateType, RenderState>(
+            RenderState.StateType.class);
+
+    private boolean _inOrthoMode;
+
+    private final int[] _commandCounts = new int[COMMANDS.length];
+    private final int[] _stateApplies = new int[StateType.values.length];
+    private final int[] _stateSkips = new int[StateType.values.length];
+    private final int[] _stateChanges = new int[StateType.values.length];
+    private long _indexCount;
+    private long _primitiveCount;
+    private long _instanceCount;
+    private int _frameCount;
+
+    private boolean _recordCommands;
+    private byte[] _commandLog = new byte[256];
+    private int _commandLogSize;
+
+    private int _nextTextureId = 1;
+
+    /** Size of the coarse depth grid used to estimate overdraw. */
+    private static final int OVERDRAW_TILES_X = 32, OVERDRAW_TILES_Y = 24;
+
+    private boolean _estimateOverdraw;
+    private final double[] _tileDepths = new double[OVERDRAW_TILES_X * OVERDRAW_TILES_Y];
+    private long _coveredTileCount;
+    private long _overdrawnTileCount;
+
+    public HeadlessRenderer(final int width, final int height) {
+        if (width <= 0 || height <= 0) {
+            logger.warning("Invalid width and/or height values.");
+            throw new Ardor3dException("Invalid width and/or height values.");
+        }
+        this.width = width;
+        this.height = height;
+        setHeadless(true);
+
+        queue = new RenderQueue(this);
+
+        // Create our defaults as needed.
+        synchronized (defaultStateList) {
+            if (defaultStateList.size() == 0) {
+                for (final RenderState.StateType type : RenderState.StateType.values()) {
+                    final RenderState state = RenderState.createState(type);
+                    state.setEnabled(false);
+                    defaultStateList.put(type, state);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reset all recorded counts and empty the command log.
+     */
+    public void resetStatistics() {
+        Arrays.fill(_commandCounts, 0);
+        Arrays.fill(_stateApplies, 0);
+        Arrays.fill(_stateSkips, 0);
+        Arrays.fill(_stateChanges, 0);
+        _indexCount = 0;
+        _primitiveCount = 0;
+        _instanceCount = 0;
+        _frameCount = 0;
+        _commandLogSize = 0;
+        _coveredTileCount = 0;
+        _overdrawnTileCount = 0;
+    }
+
+    /**
+     * @param command
+     *            the command type
+     * @return the number of commands of the given type recorded since the last reset.
+     */
+    public int getCommandCount(final Command command) {
+        return _commandCounts[command.ordinal()];
+    }
+
+    /**
+     * @return the total number of commands recorded since the last reset.
+     */
+    public int getTotalCommandCount() {
+        int total = 0;
+        for (final int count : _commandCounts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * @param type
+     *            the state type
+     * @return the number of times a state of the given type was applied since the last reset.
+     */
+    public int getStateApplyCount(final StateType type) {
+        return _stateApplies[type.ordinal()];
+    }
+
+    /**
+     * @param type
+     *            the state type
+     * @return the number of times applyStates found a state of the given type, or one with the same content, already
+     *         current and skipped it.
+     */
+    public int getStateSkipCount(final StateType type) {
+        return _stateSkips[type.ordinal()];
+    }
+
+    /**
+     * @param type
+     *            the state type
+     * @return the number of times a state of the given type was applied with content differing from the state of
+     *         that type applied before it. Unlike {@link #getStateApplyCount(StateType)}, this does not count state
+     *         types that are always reapplied, such as textures, so it shows how well draws are grouped by state.
+     */
+    public int getStateChangeCount(final StateType type) {
+        return _stateChanges[type.ordinal()];
+    }
+
+    /**
+     * @return the number of indices (or vertices, for array draws) submitted since the last reset.
+     */
+    public long getIndexCount() {
+        return _indexCount;
+    }
+
+    /**
+     * @return the number of points, lines and polygons submitted since the last reset.
+     */
+    public long getPrimitiveCount() {
+        return _primitiveCount;
+    }
+
+    /**
+     * @return the number of instances drawn by drawInstances since the last reset, after culling.
+     */
+    public long getInstanceCount() {
+        return _instanceCount;
+    }
+
+    /**
+     * @return the number of calls to displayBackBuffer since the last reset.
+     */
+    public int getFrameCount() {
+        return _frameCount;
+    }
+
+    /**
+     * @param record
+     *            if true, the sequence of commands, and not only their counts, is recorded. Off by default.
+     */
+    public void setRecordCommands(final boolean record) {
+        _recordCommands = record;
+    }
+
+    public boolean isRecordCommands() {
+        return _recordCommands;
+    }
+
+    /**
+     * @return the number of commands in the command log.
+     */
+    public int getCommandLogSize() {
+        return _commandLogSize;
+    }
+
+    /**
+     * @param index
+     *            position in the command log
+     * @return the recorded command at that position.
+     */
+    public Command getLoggedCommand(final int index) {
+        if (index < 0 || index >= _commandLogSize) {
+            throw new IndexOutOfBoundsException("index: " + index + " size: " + _commandLogSize);
+        }
+        return COMMANDS[_commandLog[index]];
+    }
+
+    /**
+     * @param estimate
+     *            if true, each mesh drawn outside ortho mode is rasterized by its bounds into a coarse grid of screen
+     *            tiles holding the nearest depth drawn so far, to estimate how much drawing order causes overdraw. Off
+     *            by default.
+     */
+    public void setEstimateOverdraw(final boolean estimate) {
+        _estimateOverdraw = estimate;
+        Arrays.fill(_tileDepths, Double.POSITIVE_INFINITY);
+    }
+
+    public boolean isEstimateOverdraw() {
+        return _estimateOverdraw;
+    }
+
+    /**
+     * @return the number of screen tiles covered by the bounds of meshes drawn since the last reset, when estimating
+     *         overdraw.
+     */
+    public long getCoveredTileCount() {
+        return _coveredTileCount;
+    }
+
+    /**
+     * @return the number of those tiles that were already covered by a mesh drawn farther away since the depth buffer
+     *         was cleared: a proxy for overdraw that drawing front to back would have let the depth test reject.
+     */
+    public long getOverdrawnTileCount() {
+        return _overdrawnTileCount;
+    }
+
+    private void estimateOverdraw(final Mesh mesh) {
+        final Camera camera = ContextManager.getCurrentContext().getCurrentCamera();
+        final BoundingVolume bound = mesh.getWorldBound();
+        if (camera == null || bound == null) {
+            return;
+        }
+
+        final double radius;
+        if (bound.getType() == BoundingVolume.Type.Sphere) {
+            radius = ((BoundingSphere) bound).getRadius();
+        } else if (bound.getType() == BoundingVolume.Type.AABB) {
+            final BoundingBox box = (BoundingBox) bound;
+            radius = Math.sqrt(box.getXExtent() * box.getXExtent() + box.getYExtent() * box.getYExtent()
+                    + box.getZExtent() * box.getZExtent());
+        } else {
+            radius = Math.cbrt(bound.getVolume() * 3 / (4 * Math.PI));
+        }
+        final double depth = camera.distanceToCam(bound.getCenter());
+        final double nearest = Math.max(camera.getFrustumNear(), depth - radius);
+
+        // project the bounding sphere to a screen space square.
+        final Vector3 screen = Vector3.fetchTempInstance().set(bound.getCenter());
+        camera.getScreenCoordinates(screen, screen);
+        final double pixelRadius;
+        if (camera.isParallelProjection()) {
+            pixelRadius = radius / Math.abs(camera.getFrustumTop()) * camera.getHeight() / 2;
+        } else {
+            pixelRadius = radius * camera.getFrustumNear() / (Math.max(depth, camera.getFrustumNear()) * Math
+                    .abs(camera.getFrustumTop())) * camera.getHeight() / 2;
+        }
+        final int minX = Math.max(0, (int) ((screen.getX() - pixelRadius) * OVERDRAW_TILES_X / camera.getWidth()));
+        final int maxX = Math.min(OVERDRAW_TILES_X - 1, (int) ((screen.getX() + pixelRadius) * OVERDRAW_TILES_X
+                / camera.getWidth()));
+        final int minY = Math.max(0, (int) ((screen.getY() - pixelRadius) * OVERDRAW_TILES_Y / camera.getHeight()));
+        final int maxY = Math.min(OVERDRAW_TILES_Y - 1, (int) ((screen.getY() + pixelRadius) * OVERDRAW_TILES_Y
+                / camera.getHeight()));
+        Vector3.releaseTempInstance(screen);
+
+        for (int y = minY; y <= maxY; y++) {
+            for (int x = minX; x <= maxX; x++) {
+                final int tile = y * OVERDRAW_TILES_X + x;
+                _coveredTileCount++;
+                if (nearest < _tileDepths[tile]) {
+                    if (_tileDepths[tile] != Double.POSITIVE_INFINITY) {
+                        _overdrawnTileCount++;
+                    }
+                    _tileDepths[tile] = nearest;
+                }
+            }
+        }
+    }
+
+    private void record(final Command command) {
+        _commandCounts[command.ordinal()]++;
+        if (_recordCommands) {
+            if (_commandLogSize == _commandLog.length) {
+                final byte[] temp = new byte[_commandLogSize * 2];
+                System.arraycopy(_commandLog, 0, temp, 0, _commandLogSize);
+                _commandLog = temp;
+            }
+            _commandLog[_commandLogSize++] = (byte) command.ordinal();
+        }
+    }
+
+    private void recordPrimitives(final IndexMode mode, final int count) {
+        _indexCount += count;
+        switch (mode) {
+            case Triangles:
+                _primitiveCount += count / 3;
+                break;
+            case TriangleStrip:
+            case TriangleFan:
+                _primitiveCount += Math.max(0, count - 2);
+                break;
+            case Quads:
+                _primitiveCount += count / 4;
+                break;
+            case QuadStrip:
+                _primitiveCount += Math.max(0, count / 2 - 1);
+                break;
+            case Lines:
+                _primitiveCount += count / 2;
+                break;
+            case LineStrip:
+                _primitiveCount += Math.max(0, count - 1);
+                break;
+            case LineLoop:
+            case Points:
+                _primitiveCount += count;
+                break;
+            case Polygon:
+                _primitiveCount += count > 2 ? 1 : 0;
+                break;
+        }
+    }
+
+    private void recordPrimitives(final int total, final int[] indexLengths, final IndexMode[] indexModes) {
+        if (indexLengths == null) {
+            recordPrimitives(indexModes[0], total);
+        } else {
+            int indexModeCounter = 0;
+            for (int i = 0; i < indexLengths.length; i++) {
+                recordPrimitives(indexModes[indexModeCounter], indexLengths[i]);
+                if (indexModeCounter < indexModes.length - 1) {
+                    indexModeCounter++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void setSize(final int width, final int height) {
+        if (width <= 0 || height <= 0) {
+            logger.warning("Invalid width and/or height values.");
+            throw new Ardor3dException("Invalid width and/or height values.");
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    @Override
+    public void setBackgroundColor(final ReadOnlyColorRGBA color) {
+        backgroundColor.set(color);
+    }
+
+    @Override
+    public void clearZBuffer() {
+        Arrays.fill(_tileDepths, Double.POSITIVE_INFINITY);
+        applyState(defaultStateList.get(RenderState.StateType.ZBuffer));
+        record(Command.Clear);
+    }
+
+    @Override
+    public void clearColorBuffer() {
+        record(Command.Clear);
+    }
+
+    @Override
+    public void clearStencilBuffer() {
+        record(Command.Clear);
+    }
+
+    @Override
+    public void clearBuffers() {
+        Arrays.fill(_tileDepths, Double.POSITIVE_INFINITY);
+        defaultStateList.get(RenderState.StateType.ZBuffer).setNeedsRefresh(true);
+        applyState(defaultStateList.get(RenderState.StateType.ZBuffer));
+        record(Command.Clear);
+
+        // forget what was applied last frame, so view dependent and externally modified state is refreshed.
+        ContextManager.getCurrentContext().invalidateStateHashes();
+    }
+
+    @Override
+    public void clearStrictBuffers() {
+        record(Command.Clear);
+    }
+
+    @Override
+    public void displayBackBuffer() {
+        renderQueue();
+
+        applyState(defaultStateList.get(RenderState.StateType.ColorMask));
+
+        record(Command.DisplayBackBuffer);
+        _frameCount++;
+
+        if (Debug.stats) {
+            StatCollector.addStat(StatType.STAT_FRAMES, 1);
+        }
+    }
+
+    @Override
+    public boolean isInOrthoMode() {
+        return _inOrthoMode;
+    }
+
+    @Override
+    public void setOrtho() {
+        if (_inOrthoMode) {
+            throw new Ardor3dException("Already in Orthographic mode.");
+        }
+        record(Command.SetOrtho);
+        _inOrthoMode = true;
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
+    }
+
+    @Override
+    public void setOrthoCenter() {
+        setOrtho();
+    }
+
+    @Override
+    public void unsetOrtho() {
+        if (!_inOrthoMode) {
+            throw new Ardor3dException("Not in Orthographic mode.");
+        }
+        record(Command.UnsetOrtho);
+        _inOrthoMode = false;
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
+    }
+
+    /**
+     * There is no framebuffer to capture, so this always returns false.
+     */
+    @Override
+    public boolean takeScreenShot(final String filename) {
+        if (null == filename) {
+            throw new Ardor3dException("Screenshot filename cannot be null");
+        }
+        return false;
+    }
+
+    /**
+     * There is no framebuffer to capture, so the requested area is filled with zeros.
+     */
+    @Override
+    public void grabScreenContents(final ByteBuffer buff, final Image.Format format, final int x, final int y,
+            final int w, final int h) {
+        while (buff.hasRemaining()) {
+            buff.put((byte) 0);
+        }
+    }
+
+    @Override
+    public void draw(final Spatial s) {
+        if (s != null) {
+            s.onDraw(this);
+        }
+    }
+
+    @Override
+    public void draw(final BasicText t) {
+        applyStates(t._getWorldRenderStates());
+        record(Command.DrawText);
+    }
+
+    @Override
+    public void draw(final Renderable renderable) {
+        if (_estimateOverdraw && !_inOrthoMode && renderable instanceof Mesh) {
+            estimateOverdraw((Mesh) renderable);
+        }
+        renderable.render(this);
+    }
+
+    @Override
+    public boolean checkAndAdd(final Spatial s) {
+        final RenderBucketType rqMode = s.getRenderBucketType();
+        if (rqMode != RenderBucketType.Skip) {
+            getQueue().addToQueue(s, rqMode);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void flush() {
+        record(Command.Flush);
+    }
+
+    @Override
+    public void finish() {
+        record(Command.Flush);
+    }
+
+    @Override
+    public void setPolygonOffset(final float factor, final float offset) {
+        record(Command.PolygonOffset);
+    }
+
+    @Override
+    public void clearPolygonOffset() {
+        record(Command.PolygonOffset);
+    }
+
+    @Override
+    public void deleteVBO(final Buffer buffer) {}
+
+    @Override
+    public void deleteVBO(final int vboid) {
+        if (vboid > 0) {
+            record(Command.DeleteVBO);
+        }
+    }
+
+    @Override
+    public void clearVBOCache() {}
+
+    @Override
+    public Integer removeFromVBOCache(final Buffer buffer) {
+        return null;
+    }
+
+    @Override
+    public void updateTextureSubImage(final Texture dstTexture, final int dstX, final int dstY, final Image srcImage,
+            final int srcX, final int srcY, final int width, final int height) throws Ardor3dException,
+            UnsupportedOperationException {
+        if (dstTexture.getType() != Texture.Type.TwoDimensional) {
+            throw new UnsupportedOperationException("Unsupported Texture Type: " + dstTexture.getType());
+        }
+        record(Command.LoadTexture);
+    }
+
+    @Override
+    public void checkCardError() throws Ardor3dException {}
+
+    @Override
+    public void cleanup() {}
+
+    @Override
+    public void applyStates(final EnumMap<StateType, RenderState> states) {
+        if (Debug.stats) {
+            StatCollector.startStat(StatType.STAT_STATES_TIMER);
+        }
+
+        final RenderContext context = ContextManager.getCurrentContext();
+
+        RenderState tempState = null;
+        for (final StateType type : StateType.values) {
+            // first look up in enforced states
+            tempState = context.getEnforcedState(type);
+
+            // Not there? Look in the states we receive
+            if (tempState == null) {
+                tempState = states.get(type);
+            }
+
+            // Still missing? Use our default states.
+            if (tempState == null) {
+                tempState = defaultStateList.get(type);
+            }
+
+            if (!context.isStateCurrent(tempState)) {
+                applyState(tempState);
+                tempState.setNeedsRefresh(false);
+                context.stateApplied(tempState);
+            } else {
+                _stateSkips[type.ordinal()]++;
+                if (Debug.stats) {
+                    StatCollector.addStat(StatType.STAT_STATES_AVOIDED, 1);
+                }
+            }
+        }
+
+        if (Debug.stats) {
+            StatCollector.endStat(StatType.STAT_STATES_TIMER);
+        }
+    }
+
+    @Override
+    public void applyState(final RenderState state) {
+        if (state == null) {
+            logger.warning("tried to apply a null state.");
+            return;
+        }
+        final StateType type = state.getType();
+        final RenderState previous = ContextManager.getCurrentContext().getCurrentState(type);
+        if (!state.isContentEqual(previous)) {
+            _stateChanges[type.ordinal()]++;
+        }
+        ContextManager.getCurrentContext().setCurrentState(type, state);
+        record(Command.ApplyState);
+        _stateApplies[type.ordinal()]++;
+
+        if (type == StateType.Texture && state.isEnabled()) {
+            final TextureState ts = (TextureState) state;
+            for (int i = 0, max = ts.getNumberOfSetTextures(); i < max; i++) {
+                final Texture texture = ts.getTexture(i);
+                if (texture == null) {
+                    continue;
+                }
+                if (texture.getTextureId() == 0) {
+                    loadTexture(texture, i);
+                }
+                ts._idCache[i] = texture.getTextureId();
+            }
+        }
+    }
+
+    @Override
+    public boolean doTransforms(final Transform transform) {
+        if (!transform.isIdentity()) {
+            record(Command.PushTransform);
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void undoTransforms(final Transform transform) {
+        record(Command.PopTransform);
+    }
+
+    @Override
+    public void setupVertexData(final FloatBuffer vertexBuffer, final VBOInfo vbo) {
+        record(Command.SetupVertexData);
+    }
+
+    @Override
+    public void setupNormalData(final FloatBuffer normalBuffer, final NormalsMode normalMode,
+            final Transform worldTransform, final VBOInfo vbo) {
+        record(Command.SetupNormalData);
+    }
+
+    @Override
+    public void setupColorData(final FloatBuffer colorBuffer, final VBOInfo vbo, final ColorRGBA defaultColor) {
+        record(Command.SetupColorData);
+    }
+
+    @Override
+    public void setupFogData(final FloatBuffer fogBuffer, final VBOInfo vbo) {
+        record(Command.SetupFogData);
+    }
+
+    @Override
+    public void setupTextureData(final List<TexCoords> textureCoords, final VBOInfo vbo) {
+        record(Command.SetupTextureData);
+    }
+
+    @Override
+    public void setupInterleavedData(final FloatBuffer interleavedBuffer, final InterleavedFormat format,
+            final VBOInfo vbo) {
+        record(Command.SetupInterleavedData);
+    }
+
+    @Override
+    public void drawElements(final IndexBufferData<?> indices, final VBOInfo vbo, final int[] indexLengths,
+            final IndexMode[] indexModes) {
+        if (indices == null) {
+            logger.severe("Missing indices for drawElements call without VBO");
+            return;
+        }
+        record(Command.DrawElements);
+        recordPrimitives(indices.limit(), indexLengths, indexModes);
+    }
+
+    @Override
+    public void drawArrays(final FloatBuffer vertexBuffer, final int[] indexLengths, final IndexMode[] indexModes) {
+        record(Command.DrawArrays);
+        recordPrimitives(vertexBuffer.limit() / 3, indexLengths, indexModes);
+    }
+
+    @Override
+    public void drawInstances(final IndexBufferData<?> indices, final FloatBuffer vertexBuffer, final VBOInfo vbo,
+            final int[] indexLengths, final IndexMode[] indexModes, final FloatBuffer instanceMatrices,
+            final FloatBuffer instanceColors, final int instanceCount) {
+        record(Command.DrawInstances);
+        _instanceCount += instanceCount;
+        for (int i = 0; i < instanceCount; i++) {
+            if (indices != null) {
+                recordPrimitives(indices.limit(), indexLengths, indexModes);
+            } else {
+                recordPrimitives(vertexBuffer.limit() / 3, indexLengths, indexModes);
+            }
+        }
+    }
+
+    @Override
+    public void renderDisplayList(final int displayListID) {
+        record(Command.DrawDisplayList);
+    }
+
+    @Override
+    public void setProjectionMatrix(final DoubleBuffer matrix) {
+        record(Command.SetProjection);
+    }
+
+    @Override
+    public void setModelViewMatrix(final DoubleBuffer matrix) {
+        record(Command.SetModelView);
+
+        // lights are positioned relative to the modelview matrix.
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
+    }
+
+    @Override
+    public void setViewport(final int x, final int y, final int width, final int height) {
+        record(Command.SetViewport);
+    }
+
+    @Override
+    public void setupLineParameters(final float lineWidth, final int stippleFactor, final short stipplePattern,
+            final boolean antialiased) {
+        record(Command.SetupLineParameters);
+    }
+
+    @Override
+    public void setupPointParameters(final float pointSize, final boolean antialiased) {
+        record(Command.SetupPointParameters);
+    }
+
+    /**
+     * Hands out a new, unique texture id. No image data is touched.
+     */
+    @Override
+    public void loadTexture(final Texture texture, final int unit) {
+        texture.setTextureId(_nextTextureId++);
+        record(Command.LoadTexture);
+    }
+
+    @Override
+    public void deleteTextureId(final int textureId) {
+        record(Command.DeleteTexture);
+    }
+}
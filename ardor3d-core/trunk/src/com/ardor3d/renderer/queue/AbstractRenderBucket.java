@@ -32,14 +32,24 @@ public class AbstractRenderBucket implements RenderBucket {
     protected Spatial[] _currentList, _tempList;
     protected int _currentListSize;
 
+    /**
+     * If true, the view depth of each spatial is computed once as it is added, into _currentDepths, and sorting uses
+     * {@link #compareEntries(Spatial, double, Spatial, double)} on those instead of the comparator.
+     */
+    protected boolean _cacheViewDepths = true;
+    protected double[] _currentDepths, _tempDepths;
+
     protected Stack<Spatial[]> _listStack = new Stack<Spatial[]>();
     protected Stack<Spatial[]> _listStackPool = new Stack<Spatial[]>();
     protected Stack<Integer> _listSizeStack = new Stack<Integer>();
+    protected Stack<double[]> _depthStack = new Stack<double[]>();
+    protected Stack<double[]> _depthStackPool = new Stack<double[]>();
 
     public AbstractRenderBucket(final Renderer renderer) {
         _renderer = renderer;
 
         _currentList = new Spatial[32];
+        _currentDepths = new double[32];
     }
 
     public void add(final Spatial spatial) {
@@ -48,9 +58,57 @@ public class AbstractRenderBucket implements RenderBucket {
             System.arraycopy(_currentList, 0, temp, 0, _currentListSize);
             _currentList = temp;
         }
+        if (_cacheViewDepths) {
+            if (_currentDepths.length < _currentList.length) {
+                final double[] temp = new double[_currentList.length];
+                System.arraycopy(_currentDepths, 0, temp, 0, _currentListSize);
+                _currentDepths = temp;
+            }
+            _currentDepths[_currentListSize] = distanceToCam(spatial);
+        }
         _currentList[_currentListSize++] = spatial;
     }
 
+    /**
+     * @param cacheViewDepths
+     *            true to compute the view depth of each spatial once, as it is added, rather than on every comparison
+     *            while sorting. The spatials' bounds and the current camera must then not change between adding and
+     *            sorting, which holds when the queue is filled by drawing the scene and sorted in renderBuckets. On by
+     *            default.
+     */
+    public void setCacheViewDepths(final boolean cacheViewDepths) {
+        if (cacheViewDepths && !_cacheViewDepths) {
+            _currentDepths = new double[_currentList.length];
+            for (int i = 0; i < _currentListSize; i++) {
+                _currentDepths[i] = distanceToCam(_currentList[i]);
+            }
+        }
+        _cacheViewDepths = cacheViewDepths;
+    }
+
+    public boolean isCacheViewDepths() {
+        return _cacheViewDepths;
+    }
+
+    /**
+     * Compare two entries when sorting with cached view depths. Uses the comparator by default; buckets sorting on
+     * depth override this to use the given depths instead.
+     * 
+     * @param s1
+     *            the first spatial.
+     * @param depth1
+     *            the view depth of the first spatial, as given by {@link #distanceToCam(Spatial)} when it was added.
+     * @param s2
+     *            the second spatial.
+     * @param depth2
+     *            the view depth of the second spatial.
+     * @return a negative number, zero or a positive number as the first entry should be drawn before, along with or
+     *         after the second.
+     */
+    protected int compareEntries(final Spatial s1, final double depth1, final Spatial s2, final double depth2) {
+        return _comparator.compare(s1, s2);
+    }
+
     public void clear() {
         for (int i = 0; i < _currentListSize; i++) {
             _currentList[i] = null;
@@ -68,7 +126,17 @@ public class AbstractRenderBucket implements RenderBucket {
     }
 
     public void sort() {
-        if (_currentListSize > 1) {
+        if (_currentListSize > 1 && _cacheViewDepths) {
+            if (_tempList == null || _tempList.length != _currentList.length) {
+                _tempList = new Spatial[_currentList.length];
+            }
+            if (_tempDepths == null || _tempDepths.length < _currentListSize) {
+                _tempDepths = new double[_currentList.length];
+            }
+            System.arraycopy(_currentList, 0, _tempList, 0, _currentListSize);
+            System.arraycopy(_currentDepths, 0, _tempDepths, 0, _currentListSize);
+            msort(_tempList, _tempDepths, _currentList, _currentDepths, 0, _currentListSize);
+        } else if (_currentListSize > 1) {
             // resize or populate our temporary array as necessary
             if (_tempList == null || _tempList.length != _currentList.length) {
                 _tempList = _currentList.clone();
@@ -80,6 +148,48 @@ public class AbstractRenderBucket implements RenderBucket {
         }
     }
 
+    /**
+     * A stable merge sort of entries and their depths, in the manner of {@link SortUtil#msort}: src and dest start out
+     * holding the same entries, which end up sorted in dest.
+     */
+    private void msort(final Spatial[] src, final double[] srcDepths, final Spatial[] dest, final double[] destDepths,
+            final int low, final int high) {
+        if (high - low < 7) {
+            for (int i = low + 1; i < high; i++) {
+                final Spatial spatial = dest[i];
+                final double depth = destDepths[i];
+                int j = i;
+                for (; j > low && compareEntries(dest[j - 1], destDepths[j - 1], spatial, depth) > 0; j--) {
+                    dest[j] = dest[j - 1];
+                    destDepths[j] = destDepths[j - 1];
+                }
+                dest[j] = spatial;
+                destDepths[j] = depth;
+            }
+            return;
+        }
+
+        // sort each half into src, then merge them back into dest.
+        final int mid = (low + high) >>> 1;
+        msort(dest, destDepths, src, srcDepths, low, mid);
+        msort(dest, destDepths, src, srcDepths, mid, high);
+
+        if (compareEntries(src[mid - 1], srcDepths[mid - 1], src[mid], srcDepths[mid]) <= 0) {
+            System.arraycopy(src, low, dest, low, high - low);
+            System.arraycopy(srcDepths, low, destDepths, low, high - low);
+            return;
+        }
+        for (int i = low, p = low, q = mid; i < high; i++) {
+            if (q >= high || p < mid && compareEntries(src[p], srcDepths[p], src[q], srcDepths[q]) <= 0) {
+                dest[i] = src[p];
+                destDepths[i] = srcDepths[p++];
+            } else {
+                dest[i] = src[q];
+                destDepths[i] = srcDepths[q++];
+            }
+        }
+    }
+
     public void pushBucket() {
         _listStack.push(_currentList);
         if (_listStackPool.isEmpty()) {
@@ -87,6 +197,12 @@ public class AbstractRenderBucket implements RenderBucket {
         } else {
             _currentList = _listStackPool.pop();
         }
+        _depthStack.push(_currentDepths);
+        if (_depthStackPool.isEmpty()) {
+            _currentDepths = new double[32];
+        } else {
+            _currentDepths = _depthStackPool.pop();
+        }
 
         _listSizeStack.push(_currentListSize);
         _currentListSize = 0;
@@ -97,26 +213,22 @@ public class AbstractRenderBucket implements RenderBucket {
             _listStackPool.push(_currentList);
         }
         _currentList = _listStack.pop();
+        _depthStackPool.push(_currentDepths);
+        _currentDepths = _depthStack.pop();
         _currentListSize = _listSizeStack.pop();
     }
 
     /**
-     * Calculates the distance from a spatial to the camera. Distance is a squared distance.
+     * Calculates the distance from a spatial to the camera, along the camera's direction. With cached view depths,
+     * this is only called once per spatial added.
      * 
      * @param spat
      *            Spatial to check distance.
      * @return Distance from Spatial to current context's camera.
      */
     protected double distanceToCam(final Spatial spat) {
-        // this optimization should not be stored in the spatial
-        // if (spat.queueDistance != Double.NEGATIVE_INFINITY) {
-        // return spat.queueDistance;
-        // }
-
         final Camera cam = ContextManager.getCurrentContext().getCurrentCamera();
 
-        // spat.queueDistance = 0;
-
         ReadOnlyVector3 spatPosition;
         if (spat.getWorldBound() != null && Vector3.isValid(spat.getWorldBound().getCenter())) {
             spatPosition = spat.getWorldBound().getCenter();
@@ -128,6 +240,5 @@ public class AbstractRenderBucket implements RenderBucket {
         }
 
         return cam.distanceToCam(spatPosition);
-        // return spat.queueDistance;
     }
 }
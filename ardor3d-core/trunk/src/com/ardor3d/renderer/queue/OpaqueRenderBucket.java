@@ -12,64 +12,208 @@ package com.ardor3d.renderer.queue;
 
 import java.util.Comparator;
 
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.ContextManager;
 import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.state.GLSLShaderObjectsState;
 import com.ardor3d.renderer.state.RenderState;
 import com.ardor3d.renderer.state.TextureState;
 import com.ardor3d.scenegraph.Mesh;
 import com.ardor3d.scenegraph.Spatial;
 
+/**
+ * Sorts opaque spatials to keep state changes down and, depending on the {@link SortPolicy}, to draw near things first
+ * so the depth test can reject what they hide before it is shaded.
+ */
 public class OpaqueRenderBucket extends AbstractRenderBucket {
 
+    /**
+     * How opaque spatials are ordered.
+     */
+    public enum SortPolicy {
+        /**
+         * Group meshes by state, front to back within equal states. Fewest state changes. This is the default.
+         */
+        States,
+        /**
+         * Front to back only, ignoring states. Least overdraw, most state changes.
+         */
+        FrontToBack,
+        /**
+         * Split the view depth range into coarse buckets drawn front to back, and group by state within each bucket.
+         * Trades a few state changes per bucket for most of the overdraw savings of FrontToBack.
+         */
+        DepthBuckets;
+    }
+
+    private SortPolicy _sortPolicy = SortPolicy.States;
+    private int _depthBucketCount = 8;
+    private int _textureChangeCost = 1;
+    private int _shaderChangeCost = 1;
+
+    // view depth to depth bucket, set up from the current camera on each sort.
+    private double _bucketNear;
+    private double _bucketScale;
+
     public OpaqueRenderBucket(final Renderer renderer) {
         super(renderer);
 
         _comparator = new OpaqueComparator();
     }
 
-    private class OpaqueComparator implements Comparator<Spatial> {
-        public int compare(final Spatial o1, final Spatial o2) {
-            if (o1 instanceof Mesh && o2 instanceof Mesh) {
-                return compareByStates((Mesh) o1, (Mesh) o2);
+    public SortPolicy getSortPolicy() {
+        return _sortPolicy;
+    }
+
+    public void setSortPolicy(final SortPolicy sortPolicy) {
+        _sortPolicy = sortPolicy;
+    }
+
+    public int getDepthBucketCount() {
+        return _depthBucketCount;
+    }
+
+    /**
+     * @param count
+     *            how many buckets the camera's near to far range is split into by {@link SortPolicy#DepthBuckets}.
+     *            Defaults to 8.
+     */
+    public void setDepthBucketCount(final int count) {
+        _depthBucketCount = Math.max(1, count);
+    }
+
+    /**
+     * Weigh the cost of switching shaders against that of switching textures. States are grouped by the costlier one
+     * first, so it changes least often; with equal costs, the default, textures come first.
+     * 
+     * @param textureChangeCost
+     *            relative cost of a texture change.
+     * @param shaderChangeCost
+     *            relative cost of a GLSL shader change.
+     */
+    public void setStateChangeCosts(final int textureChangeCost, final int shaderChangeCost) {
+        _textureChangeCost = textureChangeCost;
+        _shaderChangeCost = shaderChangeCost;
+    }
+
+    public int getTextureChangeCost() {
+        return _textureChangeCost;
+    }
+
+    public int getShaderChangeCost() {
+        return _shaderChangeCost;
+    }
+
+    @Override
+    public void sort() {
+        if (_sortPolicy == SortPolicy.DepthBuckets && _currentListSize > 1) {
+            final Camera cam = ContextManager.getCurrentContext().getCurrentCamera();
+            _bucketNear = cam.getFrustumNear();
+            final double range = cam.getFrustumFar() - _bucketNear;
+            _bucketScale = range > 0 ? _depthBucketCount / range : 0;
+        }
+        super.sort();
+    }
+
+    /**
+     * Meshes with the same states are also drawn front to back, as cached depths cost nothing to compare and let the
+     * depth test reject more fragments.
+     */
+    @Override
+    protected int compareEntries(final Spatial s1, final double depth1, final Spatial s2, final double depth2) {
+        if (_sortPolicy == SortPolicy.FrontToBack) {
+            return Double.compare(depth1, depth2);
+        }
+        if (_sortPolicy == SortPolicy.DepthBuckets) {
+            final int bucket1 = getDepthBucket(depth1), bucket2 = getDepthBucket(depth2);
+            if (bucket1 != bucket2) {
+                return bucket1 < bucket2 ? -1 : 1;
+            }
+        }
+        if (s1 instanceof Mesh && s2 instanceof Mesh) {
+            final int byStates = compareByStates((Mesh) s1, (Mesh) s2);
+            if (byStates != 0) {
+                return byStates;
             }
+        }
+        return Double.compare(depth1, depth2);
+    }
 
-            final double d1 = distanceToCam(o1);
-            final double d2 = distanceToCam(o2);
-            return Double.compare(d1, d2);
+    private int getDepthBucket(final double depth) {
+        final int bucket = (int) ((depth - _bucketNear) * _bucketScale);
+        return bucket < 0 ? 0 : bucket >= _depthBucketCount ? _depthBucketCount - 1 : bucket;
+    }
+
+    private int compareByStates(final Mesh g1, final Mesh g2) {
+        if (_shaderChangeCost > _textureChangeCost) {
+            final int byShader = compareByShader(g1, g2);
+            return byShader != 0 ? byShader : compareByTextures(g1, g2);
         }
+        final int byTextures = compareByTextures(g1, g2);
+        return byTextures != 0 ? byTextures : compareByShader(g1, g2);
+    }
 
-        /**
-         * Compare opaque items by their texture states - generally the most expensive switch. Later this might expand
-         * to comparisons by other states as well, such as lighting or material.
-         */
-        private int compareByStates(final Mesh g1, final Mesh g2) {
-            final TextureState ts1 = (TextureState) g1._getWorldRenderState(RenderState.StateType.Texture);
-            final TextureState ts2 = (TextureState) g2._getWorldRenderState(RenderState.StateType.Texture);
-            if (ts1 == ts2) {
-                return 0;
-            } else if (ts1 == null && ts2 != null) {
+    private static int compareByShader(final Mesh g1, final Mesh g2) {
+        final GLSLShaderObjectsState s1 = (GLSLShaderObjectsState) g1
+                ._getWorldRenderState(RenderState.StateType.GLSLShader);
+        final GLSLShaderObjectsState s2 = (GLSLShaderObjectsState) g2
+                ._getWorldRenderState(RenderState.StateType.GLSLShader);
+        if (s1 == s2) {
+            return 0;
+        } else if (s1 == null) {
+            return -1;
+        } else if (s2 == null) {
+            return 1;
+        } else if (s1._programID != s2._programID) {
+            return s1._programID < s2._programID ? -1 : 1;
+        }
+        // not yet linked, keep each state's users together.
+        final int h1 = System.identityHashCode(s1), h2 = System.identityHashCode(s2);
+        return h1 < h2 ? -1 : h1 > h2 ? 1 : 0;
+    }
+
+    /**
+     * Compare opaque items by their texture states - generally the most expensive switch. Later this might expand to
+     * comparisons by other states as well, such as lighting or material.
+     */
+    private static int compareByTextures(final Mesh g1, final Mesh g2) {
+        final TextureState ts1 = (TextureState) g1._getWorldRenderState(RenderState.StateType.Texture);
+        final TextureState ts2 = (TextureState) g2._getWorldRenderState(RenderState.StateType.Texture);
+        if (ts1 == ts2) {
+            return 0;
+        } else if (ts1 == null && ts2 != null) {
+            return -1;
+        } else if (ts2 == null && ts1 != null) {
+            return 1;
+        }
+
+        for (int x = 0, nots = Math.min(ts1.getNumberOfSetTextures(), ts2.getNumberOfSetTextures()); x < nots; x++) {
+
+            final int tid1 = ts1.getTextureID(x);
+            final int tid2 = ts2.getTextureID(x);
+            if (tid1 == tid2) {
+                continue;
+            } else if (tid1 < tid2) {
                 return -1;
-            } else if (ts2 == null && ts1 != null) {
+            } else {
                 return 1;
             }
+        }
 
-            for (int x = 0, nots = Math.min(ts1.getNumberOfSetTextures(), ts2.getNumberOfSetTextures()); x < nots; x++) {
-
-                final int tid1 = ts1.getTextureID(x);
-                final int tid2 = ts2.getTextureID(x);
-                if (tid1 == tid2) {
-                    continue;
-                } else if (tid1 < tid2) {
-                    return -1;
-                } else {
-                    return 1;
-                }
-            }
+        if (ts1.getNumberOfSetTextures() != ts2.getNumberOfSetTextures()) {
+            return ts2.getNumberOfSetTextures() - ts1.getNumberOfSetTextures();
+        }
+
+        return 0;
+    }
 
-            if (ts1.getNumberOfSetTextures() != ts2.getNumberOfSetTextures()) {
-                return ts2.getNumberOfSetTextures() - ts1.getNumberOfSetTextures();
+    private class OpaqueComparator implements Comparator<Spatial> {
+        public int compare(final Spatial o1, final Spatial o2) {
+            if (_sortPolicy == SortPolicy.States && o1 instanceof Mesh && o2 instanceof Mesh) {
+                return compareByStates((Mesh) o1, (Mesh) o2);
             }
 
-            return 0;
+            return compareEntries(o1, distanceToCam(o1), o2, distanceToCam(o2));
         }
     }
 
@@ -21,6 +21,8 @@ public class OrthoRenderBucket extends AbstractRenderBucket {
         super(renderer);
 
         _comparator = new OrthoComparator();
+        // sorted by z order alone.
+        setCacheViewDepths(false);
     }
 
     @Override
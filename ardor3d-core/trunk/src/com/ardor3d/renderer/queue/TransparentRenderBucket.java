@@ -76,8 +76,6 @@ public class TransparentRenderBucket extends AbstractRenderBucket {
             } else {
                 spatial.draw(_renderer);
             }
-            // TODO: this optimization should not be in the Spatial
-            // obj.queueDistance = Double.NEGATIVE_INFINITY;
         }
     }
 
@@ -89,6 +87,12 @@ public class TransparentRenderBucket extends AbstractRenderBucket {
         this.twoPassTransparent = twoPassTransparent;
     }
 
+    @Override
+    protected int compareEntries(final Spatial s1, final double depth1, final Spatial s2, final double depth2) {
+        // back to front.
+        return Double.compare(depth2, depth1);
+    }
+
     private class TransparentComparator implements Comparator<Spatial> {
         public int compare(final Spatial o1, final Spatial o2) {
             final double d1 = distanceToCam(o1);
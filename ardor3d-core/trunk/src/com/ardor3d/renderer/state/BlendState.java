@@ -427,6 +427,7 @@ public class BlendState extends RenderState {
             throw new IllegalArgumentException("blendEquation can not be null.");
         }
         blendEquationRGB = blendEquation;
+        setNeedsRefresh(true);
     }
 
     public void setBlendEquationAlpha(final BlendEquation blendEquation) {
@@ -434,6 +435,7 @@ public class BlendState extends RenderState {
             throw new IllegalArgumentException("blendEquation can not be null.");
         }
         blendEquationAlpha = blendEquation;
+        setNeedsRefresh(true);
     }
 
     public BlendEquation getBlendEquationRGB() {
@@ -527,6 +529,7 @@ public class BlendState extends RenderState {
 
     public void setConstantColor(final ColorRGBA constantColor) {
         this.constantColor.set(constantColor);
+        setNeedsRefresh(true);
     }
 
     @Override
@@ -565,6 +568,34 @@ public class BlendState extends RenderState {
         constantColor = (ColorRGBA) capsule.readSavable("constantColor", null);
     }
 
+    @Override
+    protected int computeContentHash() {
+        int result = 17;
+        result = 31 * result + (blendEnabled ? 1 : 0);
+        result = hash(result, constantColor);
+        result = 31 * result + sourceFunctionRGB.ordinal();
+        result = 31 * result + destinationFunctionRGB.ordinal();
+        result = 31 * result + blendEquationRGB.ordinal();
+        result = 31 * result + sourceFunctionAlpha.ordinal();
+        result = 31 * result + destinationFunctionAlpha.ordinal();
+        result = 31 * result + blendEquationAlpha.ordinal();
+        result = 31 * result + (testEnabled ? 1 : 0);
+        result = 31 * result + testFunction.ordinal();
+        result = 31 * result + Float.floatToIntBits(reference);
+        return result;
+    }
+
+    @Override
+    protected boolean isContentEqualTo(final RenderState other) {
+        final BlendState that = (BlendState) other;
+        return blendEnabled == that.blendEnabled && constantColor.equals(that.constantColor)
+                && sourceFunctionRGB == that.sourceFunctionRGB && destinationFunctionRGB == that.destinationFunctionRGB
+                && blendEquationRGB == that.blendEquationRGB && sourceFunctionAlpha == that.sourceFunctionAlpha
+                && destinationFunctionAlpha == that.destinationFunctionAlpha
+                && blendEquationAlpha == that.blendEquationAlpha && testEnabled == that.testEnabled
+                && testFunction == that.testFunction && reference == that.reference;
+    }
+
     @Override
     public StateRecord createStateRecord() {
         return new BlendStateRecord();
@@ -126,6 +126,22 @@ public class ColorMaskState extends RenderState {
         alpha = capsule.readBoolean("alpha", true);
     }
 
+    @Override
+    protected int computeContentHash() {
+        int result = 17;
+        result = 31 * result + (red ? 1 : 0);
+        result = 31 * result + (green ? 1 : 0);
+        result = 31 * result + (blue ? 1 : 0);
+        result = 31 * result + (alpha ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    protected boolean isContentEqualTo(final RenderState other) {
+        final ColorMaskState that = (ColorMaskState) other;
+        return red == that.red && green == that.green && blue == that.blue && alpha == that.alpha;
+    }
+
     @Override
     public StateRecord createStateRecord() {
         return new ColorMaskStateRecord();
@@ -106,6 +106,20 @@ public class CullState extends RenderState {
         polygonWind = capsule.readEnum("polygonWind", PolygonWind.class, PolygonWind.CounterClockWise);
     }
 
+    @Override
+    protected int computeContentHash() {
+        int result = 17;
+        result = 31 * result + cullFace.ordinal();
+        result = 31 * result + polygonWind.ordinal();
+        return result;
+    }
+
+    @Override
+    protected boolean isContentEqualTo(final RenderState other) {
+        final CullState that = (CullState) other;
+        return cullFace == that.cullFace && polygonWind == that.polygonWind;
+    }
+
     @Override
     public StateRecord createStateRecord() {
         return new CullStateRecord();
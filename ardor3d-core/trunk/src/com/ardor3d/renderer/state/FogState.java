@@ -159,6 +159,7 @@ public class FogState extends RenderState {
 
     public void setSource(final CoordinateSource source) {
         this.source = source;
+        setNeedsRefresh(true);
     }
 
     public CoordinateSource getSource() {
@@ -220,6 +221,34 @@ public class FogState extends RenderState {
         source = capsule.readEnum("source", CoordinateSource.class, CoordinateSource.Depth);
     }
 
+    @Override
+    protected int computeContentHash() {
+        int result = 17;
+        result = 31 * result + Float.floatToIntBits(start);
+        result = 31 * result + Float.floatToIntBits(end);
+        result = 31 * result + Float.floatToIntBits(density);
+        result = hash(result, color);
+        result = 31 * result + densityFunction.ordinal();
+        result = 31 * result + quality.ordinal();
+        result = 31 * result + source.ordinal();
+        return result;
+    }
+
+    @Override
+    protected boolean isContentEqualTo(final RenderState other) {
+        final FogState that = (FogState) other;
+        return start == that.start && end == that.end && density == that.density && color.equals(that.color)
+                && densityFunction == that.densityFunction && quality == that.quality && source == that.source;
+    }
+
+    /**
+     * @return false, as the fog color can be changed without notifying this state.
+     */
+    @Override
+    protected boolean isContentHashCached() {
+        return false;
+    }
+
     @Override
     public StateRecord createStateRecord() {
         return new FogStateRecord();
@@ -0,0 +1,448 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.renderer.state;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.bounding.BoundingSphere;
+import com.ardor3d.bounding.BoundingVolume;
+import com.ardor3d.bounding.OrientedBoundingBox;
+import com.ardor3d.light.Light;
+import com.ardor3d.light.PointLight;
+import com.ardor3d.light.SpotLight;
+import com.ardor3d.math.Plane;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.math.type.ReadOnlyVector3;
+import com.ardor3d.scenegraph.Mesh;
+
+/**
+ * <code>LightGrid</code> bins the lights of a scene into a uniform world space grid, so that meshes lit by more than
+ * {@link LightState#MAX_LIGHTS_ALLOWED} lights only have to value the lights near them, instead of sorting all of them.
+ * <p>
+ * Attenuated point and spot lights are put in every cell their range overlaps, where the range is the distance at which
+ * their contribution drops below the minimum contribution. Directional lights, lights without attenuation and lights
+ * whose range covers too many cells are considered by every mesh. The color value of each light is computed once per
+ * update. The grid only spans the region covered by the binned lights, and uses bigger cells if that region would need
+ * too many.
+ * </p>
+ * <p>
+ * Call {@link #update(List)} once per frame, after the lights have moved, with all lights of the scene. Then call
+ * {@link com.ardor3d.scenegraph.Spatial#sortLights(LightGrid)} on the scene, or {@link #selectLights(Mesh, LightState,
+ * LightState)} for single meshes. Selection does not modify the grid, so meshes may be handled on several threads at
+ * once.
+ * </p>
+ */
+public class LightGrid {
+
+    /** Lights overlapping more cells than this are treated as global lights. */
+    private static final int MAX_CELLS_PER_LIGHT = 4096;
+
+    /** Upper bound on the number of cells. Larger grids are built with bigger cells. */
+    private static final int MAX_CELLS = 1 << 18;
+
+    private double _cellSize;
+    private double _minimumContribution = 0.01;
+
+    /** Per light data, indexed by the slot a light was given in the last update. */
+    private Light[] _lights = new Light[0];
+    private double[] _colorValues = new double[0];
+    private double[] _ranges = new double[0];
+    private Plane[] _spotPlanes = new Plane[0];
+    private int _lightCount;
+
+    private final Map<Light, Integer> _slots = new IdentityHashMap<Light, Integer>();
+
+    /** Slots of the lights considered by every mesh. */
+    private int[] _globalSlots = new int[0];
+    private int _globalCount;
+
+    /** The cells of the last update, stored as the start index of each cell's slots in _cellSlots. */
+    private double _gridCellSize;
+    private int _originX, _originY, _originZ;
+    private int _sizeX, _sizeY, _sizeZ;
+    private int[] _cellStarts = new int[1];
+    private int[] _cellSlots = new int[0];
+    private int _filledCells;
+
+    /** Caches, for each source light state, which slots it contains. Cleared on update. */
+    private final Map<LightState, boolean[]> _membership = new IdentityHashMap<LightState, boolean[]>();
+
+    private final ThreadLocal<Scratch> _scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    private static class Scratch {
+        private int[] stamps = new int[0];
+        private int stamp;
+        private final Light[] best = new Light[LightState.MAX_LIGHTS_ALLOWED];
+        private final double[] bestScores = new double[LightState.MAX_LIGHTS_ALLOWED];
+    }
+
+    /**
+     * @param cellSize
+     *            the edge length of a grid cell in world units. A good size is about the range of a typical light.
+     * @throws IllegalArgumentException
+     *             if cellSize is not positive.
+     */
+    public LightGrid(final double cellSize) {
+        setCellSize(cellSize);
+    }
+
+    public double getCellSize() {
+        return _cellSize;
+    }
+
+    /**
+     * @param cellSize
+     *            the edge length of a grid cell in world units. Takes effect on the next update.
+     * @throws IllegalArgumentException
+     *             if cellSize is not positive.
+     */
+    public void setCellSize(final double cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("cellSize must be positive: " + cellSize);
+        }
+        _cellSize = cellSize;
+    }
+
+    public double getMinimumContribution() {
+        return _minimumContribution;
+    }
+
+    /**
+     * @param minimumContribution
+     *            the value, as computed by {@link LightUtil}, below which a light is considered out of range. Larger
+     *            values give smaller ranges and fewer lights per cell. Default is 0.01. Takes effect on the next update.
+     */
+    public void setMinimumContribution(final double minimumContribution) {
+        _minimumContribution = minimumContribution;
+    }
+
+    /**
+     * @return the number of lights binned by the last update.
+     */
+    public int getLightCount() {
+        return _lightCount;
+    }
+
+    /**
+     * @return the number of lights considered by every mesh in the last update.
+     */
+    public int getGlobalLightCount() {
+        return _globalCount;
+    }
+
+    /**
+     * @return the number of non empty cells in the last update.
+     */
+    public int getCellCount() {
+        return _filledCells;
+    }
+
+    /**
+     * Rebuilds the grid from the given lights. Disabled lights are left out.
+     * 
+     * @param lights
+     *            all lights of the scene.
+     */
+    public void update(final List<? extends Light> lights) {
+        _slots.clear();
+        synchronized (_membership) {
+            _membership.clear();
+        }
+
+        final int size = lights.size();
+        if (_lights.length < size) {
+            _lights = new Light[size];
+            _colorValues = new double[size];
+            _ranges = new double[size];
+            final Plane[] planes = new Plane[size];
+            System.arraycopy(_spotPlanes, 0, planes, 0, _spotPlanes.length);
+            for (int i = _spotPlanes.length; i < size; i++) {
+                planes[i] = new Plane();
+            }
+            _spotPlanes = planes;
+            _globalSlots = new int[size];
+        }
+
+        // value each light once, and find the region covered by the binned lights.
+        _lightCount = 0;
+        _globalCount = 0;
+        double minX = Double.POSITIVE_INFINITY, minY = minX, minZ = minX;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+        for (int i = 0; i < size; i++) {
+            final Light light = lights.get(i);
+            if (light == null || !light.isEnabled() || _slots.containsKey(light)) {
+                continue;
+            }
+            final int slot = _lightCount++;
+            _slots.put(light, slot);
+            _lights[slot] = light;
+            _colorValues[slot] = LightUtil.getColorValue(light);
+            if (light.getType() == Light.Type.Spot) {
+                final SpotLight spot = (SpotLight) light;
+                final ReadOnlyVector3 direction = spot.getDirection();
+                _spotPlanes[slot].setNormal(direction);
+                _spotPlanes[slot].setConstant(direction.dot(spot.getLocation()));
+            }
+
+            final double range = light.getType() == Light.Type.Directional || !light.isAttenuate() ? Double.NaN
+                    : getRange(light, _colorValues[slot]);
+            final double cells = 2 * range / _cellSize + 1;
+            if (Double.isNaN(range) || Double.isInfinite(range) || cells * cells * cells > MAX_CELLS_PER_LIGHT) {
+                _ranges[slot] = -1;
+                _globalSlots[_globalCount++] = slot;
+                continue;
+            }
+            _ranges[slot] = range;
+            final ReadOnlyVector3 location = ((PointLight) light).getLocation();
+            minX = Math.min(minX, location.getX() - range);
+            minY = Math.min(minY, location.getY() - range);
+            minZ = Math.min(minZ, location.getZ() - range);
+            maxX = Math.max(maxX, location.getX() + range);
+            maxY = Math.max(maxY, location.getY() + range);
+            maxZ = Math.max(maxZ, location.getZ() + range);
+        }
+        for (int i = _lightCount; i < _lights.length; i++) {
+            _lights[i] = null;
+        }
+
+        if (_globalCount == _lightCount) {
+            _sizeX = _sizeY = _sizeZ = 0;
+            _filledCells = 0;
+            return;
+        }
+
+        // size the grid to the region, with bigger cells if it would have too many.
+        _gridCellSize = _cellSize;
+        do {
+            _originX = toCell(minX);
+            _originY = toCell(minY);
+            _originZ = toCell(minZ);
+            _sizeX = toCell(maxX) - _originX + 1;
+            _sizeY = toCell(maxY) - _originY + 1;
+            _sizeZ = toCell(maxZ) - _originZ + 1;
+            if ((double) _sizeX * _sizeY * _sizeZ <= MAX_CELLS) {
+                break;
+            }
+            _gridCellSize *= 2;
+        } while (true);
+
+        // count the lights per cell, then fill in the slots.
+        final int cellCount = _sizeX * _sizeY * _sizeZ;
+        if (_cellStarts.length < cellCount + 1) {
+            _cellStarts = new int[cellCount + 1];
+        } else {
+            Arrays.fill(_cellStarts, 0, cellCount + 1, 0);
+        }
+        for (int slot = 0; slot < _lightCount; slot++) {
+            if (_ranges[slot] >= 0) {
+                binLight(slot, false);
+            }
+        }
+        _filledCells = 0;
+        int total = 0;
+        for (int i = 0; i < cellCount; i++) {
+            final int count = _cellStarts[i];
+            if (count > 0) {
+                _filledCells++;
+            }
+            _cellStarts[i] = total;
+            total += count;
+        }
+        _cellStarts[cellCount] = total;
+        if (_cellSlots.length < total) {
+            _cellSlots = new int[total];
+        }
+        for (int slot = 0; slot < _lightCount; slot++) {
+            if (_ranges[slot] >= 0) {
+                binLight(slot, true);
+            }
+        }
+        // filling advanced each start to the start of the next cell, shift them back.
+        System.arraycopy(_cellStarts, 0, _cellStarts, 1, cellCount);
+        _cellStarts[0] = 0;
+    }
+
+    /**
+     * Visits the cells overlapped by a light's range, either counting the light in each cell or storing its slot.
+     */
+    private void binLight(final int slot, final boolean fill) {
+        final ReadOnlyVector3 location = ((PointLight) _lights[slot]).getLocation();
+        final double range = _ranges[slot];
+        final int minX = toCell(location.getX() - range) - _originX, maxX = toCell(location.getX() + range) - _originX;
+        final int minY = toCell(location.getY() - range) - _originY, maxY = toCell(location.getY() + range) - _originY;
+        final int minZ = toCell(location.getZ() - range) - _originZ, maxZ = toCell(location.getZ() + range) - _originZ;
+        for (int x = minX; x <= maxX; x++) {
+            for (int y = minY; y <= maxY; y++) {
+                int index = (x * _sizeY + y) * _sizeZ + minZ;
+                for (int z = minZ; z <= maxZ; z++, index++) {
+                    if (fill) {
+                        _cellSlots[_cellStarts[index]++] = slot;
+                    } else {
+                        _cellStarts[index]++;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the distance at which the attenuated value of the light drops to the minimum contribution.
+     */
+    private double getRange(final Light light, final double colorValue) {
+        if (_minimumContribution <= 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // solve color / (constant + linear * d + quadratic * d^2) = minimum for d.
+        final double c = light.getConstant() - colorValue / _minimumContribution;
+        final double l = light.getLinear();
+        final double q = light.getQuadratic();
+        if (c >= 0) {
+            return 0;
+        } else if (q > 0) {
+            return (-l + Math.sqrt(l * l - 4 * q * c)) / (2 * q);
+        } else if (l > 0) {
+            return -c / l;
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Picks the {@link LightState#MAX_LIGHTS_ALLOWED} lights of source with the highest value for the given mesh and
+     * sets them, along with the settings of source, on store. Only lights in the cells overlapped by the mesh's world
+     * bound, and global lights, are valued. Lights of source that were not part of the last update are ignored.
+     * 
+     * @param mesh
+     *            the mesh to light.
+     * @param source
+     *            the state holding all lights for the mesh. Not modified.
+     * @param store
+     *            the state to receive the picked lights.
+     */
+    public void selectLights(final Mesh mesh, final LightState source, final LightState store) {
+        final Scratch scratch = _scratch.get();
+        if (scratch.stamps.length < _lightCount) {
+            scratch.stamps = new int[_lights.length];
+            scratch.stamp = 0;
+        }
+        if (++scratch.stamp == 0) {
+            Arrays.fill(scratch.stamps, 0);
+            scratch.stamp = 1;
+        }
+
+        final boolean[] members = getMembership(source);
+        final BoundingVolume bound = mesh.getWorldBound();
+        int count = 0;
+        for (int i = 0; i < _globalCount; i++) {
+            count = valueLight(_globalSlots[i], members, bound, scratch, count);
+        }
+        if (bound != null && _sizeX > 0) {
+            final ReadOnlyVector3 center = bound.getCenter();
+            final double radius = getRadius(bound);
+            final int minX = Math.max(toCell(center.getX() - radius) - _originX, 0);
+            final int minY = Math.max(toCell(center.getY() - radius) - _originY, 0);
+            final int minZ = Math.max(toCell(center.getZ() - radius) - _originZ, 0);
+            final int maxX = Math.min(toCell(center.getX() + radius) - _originX, _sizeX - 1);
+            final int maxY = Math.min(toCell(center.getY() + radius) - _originY, _sizeY - 1);
+            final int maxZ = Math.min(toCell(center.getZ() + radius) - _originZ, _sizeZ - 1);
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    int index = (x * _sizeY + y) * _sizeZ + minZ;
+                    for (int z = minZ; z <= maxZ; z++, index++) {
+                        for (int i = _cellStarts[index], end = _cellStarts[index + 1]; i < end; i++) {
+                            count = valueLight(_cellSlots[i], members, bound, scratch, count);
+                        }
+                    }
+                }
+            }
+        }
+        LightUtil.setActiveLights(source, scratch.best, count, store);
+        for (int i = 0; i < count; i++) {
+            scratch.best[i] = null;
+        }
+    }
+
+    private int valueLight(final int slot, final boolean[] members, final BoundingVolume bound,
+            final Scratch scratch, final int count) {
+        if (scratch.stamps[slot] == scratch.stamp || !members[slot]) {
+            return count;
+        }
+        scratch.stamps[slot] = scratch.stamp;
+        return LightUtil.insertLight(scratch.best, scratch.bestScores, count, _lights[slot], getValueFor(slot, bound));
+    }
+
+    /**
+     * Same as {@link LightUtil#getValueFor(Light, BoundingVolume)}, using the values precomputed in update.
+     */
+    private double getValueFor(final int slot, final BoundingVolume bound) {
+        final Light light = _lights[slot];
+        if (light.getType() == Light.Type.Directional) {
+            return _colorValues[slot];
+        } else if (bound == null) {
+            return 0;
+        } else if (light.getType() == Light.Type.Spot && bound.whichSide(_spotPlanes[slot]) == Plane.Side.Inside) {
+            return 0;
+        } else if (!light.isAttenuate()) {
+            return _colorValues[slot];
+        }
+        final double dist = bound.distanceTo(((PointLight) light).getLocation());
+        return _colorValues[slot]
+                / (light.getConstant() + light.getLinear() * dist + light.getQuadratic() * dist * dist);
+    }
+
+    private boolean[] getMembership(final LightState source) {
+        synchronized (_membership) {
+            boolean[] members = _membership.get(source);
+            if (members == null) {
+                members = new boolean[_lightCount];
+                final List<Light> lights = source.getLightList();
+                for (int i = 0, max = lights.size(); i < max; i++) {
+                    final Integer slot = _slots.get(lights.get(i));
+                    if (slot != null) {
+                        members[slot] = true;
+                    }
+                }
+                // only shared states are worth remembering, per mesh states change every frame.
+                if (source.isInterned()) {
+                    _membership.put(source, members);
+                }
+            }
+            return members;
+        }
+    }
+
+    private static double getRadius(final BoundingVolume bound) {
+        switch (bound.getType()) {
+            case Sphere:
+                return ((BoundingSphere) bound).getRadius();
+            case AABB:
+                final BoundingBox box = (BoundingBox) bound;
+                return Math.sqrt(box.getXExtent() * box.getXExtent() + box.getYExtent() * box.getYExtent()
+                        + box.getZExtent() * box.getZExtent());
+            case OBB:
+                final Vector3 extent = ((OrientedBoundingBox) bound).getExtent();
+                return extent.length();
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private int toCell(final double value) {
+        return (int) Math.floor(value / _gridCellSize);
+    }
+}
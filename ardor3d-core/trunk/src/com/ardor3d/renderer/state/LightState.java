@@ -15,7 +15,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Stack;
 
+import com.ardor3d.light.DirectionalLight;
 import com.ardor3d.light.Light;
+import com.ardor3d.light.PointLight;
+import com.ardor3d.light.SpotLight;
 import com.ardor3d.math.ColorRGBA;
 import com.ardor3d.math.type.ReadOnlyColorRGBA;
 import com.ardor3d.renderer.state.record.LightStateRecord;
@@ -65,6 +68,14 @@ public class LightState extends RenderState {
      */
     public static final int MASK_GLOBALAMBIENT = 8;
 
+    /** Scratch state used to look up interned states while extracting. */
+    private static final ThreadLocal<LightState> _scratchState = new ThreadLocal<LightState>() {
+        @Override
+        protected LightState initialValue() {
+            return new LightState();
+        }
+    };
+
     // holds the lights
     private List<Light> lightList;
 
@@ -114,6 +125,7 @@ public class LightState extends RenderState {
      * @return true if the light was added successfully, false if there are already eight lights in the queue.
      */
     public boolean attach(final Light light) {
+        checkMutable();
         if (!lightList.contains(light)) {
             lightList.add(light);
             setNeedsRefresh(true);
@@ -130,6 +142,7 @@ public class LightState extends RenderState {
      *            the light to be removed.
      */
     public void detach(final Light light) {
+        checkMutable();
         lightList.remove(light);
         setNeedsRefresh(true);
     }
@@ -140,6 +153,7 @@ public class LightState extends RenderState {
      * 
      */
     public void detachAll() {
+        checkMutable();
         lightList.clear();
         setNeedsRefresh(true);
     }
@@ -183,6 +197,7 @@ public class LightState extends RenderState {
      *            If true, two sided lighting is enabled.
      */
     public void setTwoSidedLighting(final boolean twoSidedOn) {
+        checkMutable();
         this.twoSidedOn = twoSidedOn;
         setNeedsRefresh(true);
     }
@@ -203,6 +218,7 @@ public class LightState extends RenderState {
      *            If true, local viewer mode is enabled.
      */
     public void setLocalViewer(final boolean localViewerOn) {
+        checkMutable();
         this.localViewerOn = localViewerOn;
         setNeedsRefresh(true);
     }
@@ -223,6 +239,7 @@ public class LightState extends RenderState {
      *            If true, separate specular mode is enabled.
      */
     public void setSeparateSpecular(final boolean separateSpecularOn) {
+        checkMutable();
         this.separateSpecularOn = separateSpecularOn;
         setNeedsRefresh(true);
     }
@@ -237,6 +254,7 @@ public class LightState extends RenderState {
     }
 
     public void setGlobalAmbient(final ReadOnlyColorRGBA color) {
+        checkMutable();
         _globalAmbient.set(color);
         setNeedsRefresh(true);
     }
@@ -265,6 +283,7 @@ public class LightState extends RenderState {
      *            The lightMask to set.
      */
     public void setLightMask(final int lightMask) {
+        checkMutable();
         this.lightMask = lightMask;
         setNeedsRefresh(true);
     }
@@ -283,6 +302,7 @@ public class LightState extends RenderState {
      * @see com.ardor3d.renderer.state.LightState#pushLightMask()
      */
     public void popLightMask() {
+        checkMutable();
         lightMask = backLightMask;
     }
 
@@ -319,16 +339,38 @@ public class LightState extends RenderState {
         }
 
         final LightCombineMode mode = spat.getLightCombineMode();
-
         final Mesh mesh = (Mesh) spat;
+
+        if (RenderStateInterner.isEnabled()) {
+            final LightState probe = _scratchState.get();
+            probe.detachAll();
+            combineLights(stack, mode, probe);
+
+            // meshes with more lights than we can apply pick theirs in Mesh.sortLights, without touching this state.
+            RenderState canonical = RenderStateInterner.find(probe);
+            if (canonical == null) {
+                final LightState lightState = new LightState();
+                combineLights(stack, mode, lightState);
+                canonical = RenderStateInterner.intern(probe, lightState);
+                _scratchState.set(new LightState());
+            }
+            mesh.setLightState((LightState) canonical);
+            return canonical;
+        }
+
         LightState lightState = mesh.getLightState();
-        if (lightState == null) {
+        if (lightState == null || lightState.isInterned()) {
             lightState = new LightState();
             mesh.setLightState(lightState);
         }
 
         lightState.detachAll();
+        combineLights(stack, mode, lightState);
+        return lightState;
+    }
 
+    private static void combineLights(final Stack<? extends RenderState> stack, final LightCombineMode mode,
+            final LightState lightState) {
         if (mode == LightCombineMode.Replace || (mode != LightCombineMode.Off && stack.size() == 1)) {
             // todo: use dummy state if off?
 
@@ -371,11 +413,9 @@ public class LightState extends RenderState {
             }
             lightState.setEnabled(foundEnabled);
         }
-
-        return lightState;
     }
 
-    private void copyLightState(final LightState pkLState, final LightState lightState) {
+    private static void copyLightState(final LightState pkLState, final LightState lightState) {
         lightState.setTwoSidedLighting(pkLState.getTwoSidedLighting());
         lightState.setLocalViewer(pkLState.getLocalViewer());
         lightState.setSeparateSpecular(pkLState.getSeparateSpecular());
@@ -388,6 +428,120 @@ public class LightState extends RenderState {
         }
     }
 
+    @Override
+    protected int getStructureHash() {
+        int result = 17;
+        result = 31 * result + (isEnabled() ? 1 : 0);
+        result = 31 * result + lightMask;
+        result = 31 * result + (twoSidedOn ? 1 : 0);
+        result = hash(result, _globalAmbient);
+        result = 31 * result + (localViewerOn ? 1 : 0);
+        result = 31 * result + (separateSpecularOn ? 1 : 0);
+        for (int i = 0, max = lightList.size(); i < max; i++) {
+            result = 31 * result + System.identityHashCode(lightList.get(i));
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean isStructureEqual(final RenderState other) {
+        if (this == other) {
+            return true;
+        }
+        final LightState that = (LightState) other;
+        if (isEnabled() != that.isEnabled() || lightMask != that.lightMask || twoSidedOn != that.twoSidedOn
+                || localViewerOn != that.localViewerOn || separateSpecularOn != that.separateSpecularOn
+                || !_globalAmbient.equals(that._globalAmbient) || lightList.size() != that.lightList.size()) {
+            return false;
+        }
+        for (int i = 0, max = lightList.size(); i < max; i++) {
+            if (lightList.get(i) != that.lightList.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected int computeContentHash() {
+        int result = 17;
+        result = 31 * result + lightMask;
+        result = 31 * result + (twoSidedOn ? 1 : 0);
+        result = hash(result, _globalAmbient);
+        result = 31 * result + (localViewerOn ? 1 : 0);
+        result = 31 * result + (separateSpecularOn ? 1 : 0);
+        for (int i = 0, max = lightList.size(); i < max; i++) {
+            final Light light = lightList.get(i);
+            result = 31 * result + light.getType().ordinal();
+            result = 31 * result + (light.isEnabled() ? 1 : 0);
+            result = 31 * result + light.getLightMask();
+            result = hash(result, light.getAmbient());
+            result = hash(result, light.getDiffuse());
+            result = hash(result, light.getSpecular());
+            result = 31 * result + (light.isAttenuate() ? 1 : 0);
+            result = 31 * result + Float.floatToIntBits(light.getConstant());
+            result = 31 * result + Float.floatToIntBits(light.getLinear());
+            result = 31 * result + Float.floatToIntBits(light.getQuadratic());
+            if (light instanceof PointLight) {
+                result = hash(result, ((PointLight) light).getLocation());
+            }
+            if (light instanceof SpotLight) {
+                final SpotLight spot = (SpotLight) light;
+                result = hash(result, spot.getDirection());
+                result = 31 * result + Float.floatToIntBits(spot.getAngle());
+                result = 31 * result + Float.floatToIntBits(spot.getExponent());
+            } else if (light instanceof DirectionalLight) {
+                result = hash(result, ((DirectionalLight) light).getDirection());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean isContentEqualTo(final RenderState other) {
+        final LightState that = (LightState) other;
+        if (lightMask != that.lightMask || twoSidedOn != that.twoSidedOn || localViewerOn != that.localViewerOn
+                || separateSpecularOn != that.separateSpecularOn || !_globalAmbient.equals(that._globalAmbient)
+                || lightList.size() != that.lightList.size()) {
+            return false;
+        }
+        for (int i = 0, max = lightList.size(); i < max; i++) {
+            final Light a = lightList.get(i), b = that.lightList.get(i);
+            if (a == b) {
+                continue;
+            }
+            if (a.getType() != b.getType() || a.isEnabled() != b.isEnabled() || a.getLightMask() != b.getLightMask()
+                    || !a.getAmbient().equals(b.getAmbient()) || !a.getDiffuse().equals(b.getDiffuse())
+                    || !a.getSpecular().equals(b.getSpecular()) || a.isAttenuate() != b.isAttenuate()
+                    || a.getConstant() != b.getConstant() || a.getLinear() != b.getLinear()
+                    || a.getQuadratic() != b.getQuadratic()) {
+                return false;
+            }
+            if (a instanceof PointLight && !((PointLight) a).getLocation().equals(((PointLight) b).getLocation())) {
+                return false;
+            }
+            if (a instanceof SpotLight) {
+                final SpotLight spotA = (SpotLight) a, spotB = (SpotLight) b;
+                if (!spotA.getDirection().equals(spotB.getDirection()) || spotA.getAngle() != spotB.getAngle()
+                        || spotA.getExponent() != spotB.getExponent()) {
+                    return false;
+                }
+            } else if (a instanceof DirectionalLight
+                    && !((DirectionalLight) a).getDirection().equals(((DirectionalLight) b).getDirection())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false, as lights can be changed without notifying this state.
+     */
+    @Override
+    protected boolean isContentHashCached() {
+        return false;
+    }
+
     @Override
     public StateRecord createStateRecord() {
         return new LightStateRecord();
@@ -10,7 +10,7 @@
 
 package com.ardor3d.renderer.state;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 
@@ -22,29 +22,109 @@ import com.ardor3d.math.ColorRGBA;
 import com.ardor3d.math.Plane;
 import com.ardor3d.math.type.ReadOnlyVector3;
 import com.ardor3d.scenegraph.Mesh;
-import com.ardor3d.scenegraph.Spatial;
 
+/**
+ * <code>LightUtil</code> ranks lights by their estimated contribution to a mesh, based on the light colors, the
+ * attenuation and the distance to the mesh's world bound. It is used to pick the lights applied to meshes lit by more
+ * than {@link LightState#MAX_LIGHTS_ALLOWED} lights. See also {@link LightGrid} for scenes with many lights.
+ */
 public class LightUtil {
-    private static class LightComparator implements Comparator<Light> {
-        private Spatial sp;
 
-        public void setSpatial(final Spatial sp) {
-            this.sp = sp;
+    /** Sorts highest value first. Holds no state, so it can be shared between threads. */
+    private static final Comparator<ScoredLight> scoreComparator = new Comparator<ScoredLight>() {
+        public int compare(final ScoredLight l1, final ScoredLight l2) {
+            return Double.compare(l2.score, l1.score);
         }
+    };
 
-        public int compare(final Light l1, final Light l2) {
-            final double v1 = getValueFor(l1, sp.getWorldBound());
-            final double v2 = getValueFor(l2, sp.getWorldBound());
-            final double cmp = v1 - v2;
-            return Double.compare(0, cmp);
+    private static class ScoredLight {
+        private final Light light;
+        private final double score;
+
+        ScoredLight(final Light light, final double score) {
+            this.light = light;
+            this.score = score;
         }
     }
 
-    private static LightComparator lightComparator = new LightComparator();
-
+    /**
+     * Sorts the given lights by their value for the given mesh, highest first. Each light is valued once, and the sort
+     * may run on several threads at once.
+     */
     public static void sort(final Mesh geometry, final List<Light> lights) {
-        lightComparator.setSpatial(geometry);
-        Collections.sort(lights, lightComparator);
+        final BoundingVolume bound = geometry.getWorldBound();
+        final ScoredLight[] scored = new ScoredLight[lights.size()];
+        for (int i = 0; i < scored.length; i++) {
+            final Light light = lights.get(i);
+            scored[i] = new ScoredLight(light, getValueFor(light, bound));
+        }
+        Arrays.sort(scored, scoreComparator);
+        for (int i = 0; i < scored.length; i++) {
+            lights.set(i, scored[i].light);
+        }
+    }
+
+    /**
+     * Picks the {@link LightState#MAX_LIGHTS_ALLOWED} lights of source with the highest value for the given mesh and
+     * sets them, along with the settings of source, on store. Source is not modified, so it may be shared.
+     * 
+     * @param mesh
+     *            the mesh to light.
+     * @param source
+     *            the state holding all lights for the mesh.
+     * @param store
+     *            the state to receive the picked lights.
+     */
+    public static void selectLights(final Mesh mesh, final LightState source, final LightState store) {
+        final BoundingVolume bound = mesh.getWorldBound();
+        final Light[] best = new Light[LightState.MAX_LIGHTS_ALLOWED];
+        final double[] bestScores = new double[LightState.MAX_LIGHTS_ALLOWED];
+        int count = 0;
+        final List<Light> lights = source.getLightList();
+        for (int i = 0, max = lights.size(); i < max; i++) {
+            final Light light = lights.get(i);
+            count = insertLight(best, bestScores, count, light, getValueFor(light, bound));
+        }
+        setActiveLights(source, best, count, store);
+    }
+
+    /**
+     * Inserts a light into a list of the best lights so far, ordered by score, highest first. Lights with the same
+     * score keep the order they were added in.
+     * 
+     * @return the new number of lights in best.
+     */
+    static int insertLight(final Light[] best, final double[] bestScores, final int count, final Light light,
+            final double score) {
+        int index = count;
+        while (index > 0 && bestScores[index - 1] < score) {
+            index--;
+        }
+        if (index >= best.length) {
+            return count;
+        }
+        final int last = Math.min(count, best.length - 1);
+        System.arraycopy(best, index, best, index + 1, last - index);
+        System.arraycopy(bestScores, index, bestScores, index + 1, last - index);
+        best[index] = light;
+        bestScores[index] = score;
+        return Math.min(count + 1, best.length);
+    }
+
+    /**
+     * Copies the settings of source and the given lights to store.
+     */
+    static void setActiveLights(final LightState source, final Light[] lights, final int count, final LightState store) {
+        store.detachAll();
+        store.setEnabled(source.isEnabled());
+        store.setTwoSidedLighting(source.getTwoSidedLighting());
+        store.setLocalViewer(source.getLocalViewer());
+        store.setSeparateSpecular(source.getSeparateSpecular());
+        store.setGlobalAmbient(source.getGlobalAmbient());
+        store.setLightMask(source.getLightMask());
+        for (int i = 0; i < count; i++) {
+            store.attach(lights[i]);
+        }
     }
 
     protected static double getValueFor(final Light l, final BoundingVolume val) {
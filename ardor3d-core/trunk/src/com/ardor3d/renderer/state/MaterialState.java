@@ -255,6 +255,27 @@ public class MaterialState extends RenderState {
         materialFace = capsule.readEnum("materialFace", MaterialFace.class, DEFAULT_MATERIAL_FACE);
     }
 
+    @Override
+    protected int computeContentHash() {
+        int result = 17;
+        result = hash(result, _ambient);
+        result = hash(result, _diffuse);
+        result = hash(result, _specular);
+        result = hash(result, _emissive);
+        result = 31 * result + Float.floatToIntBits(shininess);
+        result = 31 * result + colorMaterial.ordinal();
+        result = 31 * result + materialFace.ordinal();
+        return result;
+    }
+
+    @Override
+    protected boolean isContentEqualTo(final RenderState other) {
+        final MaterialState that = (MaterialState) other;
+        return _ambient.equals(that._ambient) && _diffuse.equals(that._diffuse) && _specular.equals(that._specular)
+                && _emissive.equals(that._emissive) && shininess == that.shininess
+                && colorMaterial == that.colorMaterial && materialFace == that.materialFace;
+    }
+
     @Override
     public StateRecord createStateRecord() {
         return new MaterialStateRecord();
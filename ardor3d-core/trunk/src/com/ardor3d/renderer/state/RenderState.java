@@ -14,6 +14,8 @@ import java.io.IOException;
 import java.util.EnumSet;
 import java.util.Stack;
 
+import com.ardor3d.math.type.ReadOnlyColorRGBA;
+import com.ardor3d.math.type.ReadOnlyVector3;
 import com.ardor3d.renderer.state.record.StateRecord;
 import com.ardor3d.scenegraph.Spatial;
 import com.ardor3d.util.export.Ardor3DExporter;
@@ -85,10 +87,50 @@ public abstract class RenderState implements Savable {
         _quickCompare.add(StateType.Clip);
     }
 
+    /**
+     * <p>
+     * If a state type is in this set, a renderstate of that type that is not the last applied renderstate of the same
+     * type is still skipped if its content hash (see {@link #getContentHash()}) matches the hash of the state last
+     * applied. This lets separate but equal state objects - such as the per-Spatial TextureStates and LightStates
+     * built by extract - share one application.
+     * </p>
+     * <p>
+     * Hashes of Fog, Light and Texture states are recomputed on each check, as their lights, textures and colors can
+     * be changed without telling the state. Only their identity and ids are considered for textures, so if a Texture
+     * object is modified while a frame is being drawn, call setNeedsRefresh on the states using it. The hashes of the
+     * last applied states are forgotten each time the buffers are cleared and, for lights, whenever the view changes.
+     * </p>
+     * <p>
+     * DEFAULTS: Blend, ColorMask, Cull, Fog, Light, Material, Shading, Stencil, Texture, ZBuffer
+     * </p>
+     */
+    public static final EnumSet<StateType> _hashCompare = EnumSet.noneOf(StateType.class);
+    static {
+        _hashCompare.add(StateType.Blend);
+        _hashCompare.add(StateType.ColorMask);
+        _hashCompare.add(StateType.Cull);
+        _hashCompare.add(StateType.Fog);
+        _hashCompare.add(StateType.Light);
+        _hashCompare.add(StateType.Material);
+        _hashCompare.add(StateType.Shading);
+        _hashCompare.add(StateType.Stencil);
+        _hashCompare.add(StateType.Texture);
+        _hashCompare.add(StateType.ZBuffer);
+    }
+
+    /** Content hash reported for every disabled state, as they all have the same effect. */
+    private static final int DISABLED_HASH = 0x7fc00000;
+
     private boolean enabled = true;
 
     private boolean needsRefresh = false;
 
+    private transient int contentHash;
+
+    private transient boolean contentHashValid = false;
+
+    private transient boolean interned = false;
+
     /**
      * Constructs a new RenderState. The state is enabled by default.
      */
@@ -116,6 +158,7 @@ public abstract class RenderState implements Savable {
      *            False if the state is to be disabled, true otherwise.
      */
     public void setEnabled(final boolean value) {
+        checkMutable();
         enabled = value;
         setNeedsRefresh(true);
     }
@@ -170,6 +213,110 @@ public abstract class RenderState implements Savable {
      */
     public void setNeedsRefresh(final boolean refresh) {
         needsRefresh = refresh;
+        if (refresh) {
+            contentHashValid = false;
+        }
+    }
+
+    /**
+     * @return a hash of everything about this state that affects rendering. States of the same type with equal content
+     *         hashes are treated as interchangeable by the renderer, if their type is in {@link #_hashCompare}. The
+     *         hash is cached until the state is next modified (see {@link #setNeedsRefresh(boolean)}).
+     */
+    public int getContentHash() {
+        if (!enabled) {
+            return DISABLED_HASH;
+        }
+        if (!contentHashValid || !isContentHashCached()) {
+            contentHash = computeContentHash();
+            contentHashValid = true;
+        }
+        return contentHash;
+    }
+
+    /**
+     * Calculate the content hash of this state. The default uses the identity of the state, so that only the same
+     * instance matches.
+     * 
+     * @return the hash
+     * @see #getContentHash()
+     */
+    protected int computeContentHash() {
+        return System.identityHashCode(this);
+    }
+
+    /**
+     * Add a color to a content hash. The color's own hashCode is not used, as it maps many common colors, such as pure
+     * red and green, to the same value.
+     * 
+     * @param result
+     *            the hash so far
+     * @param color
+     *            the color to add
+     * @return the new hash
+     */
+    protected static int hash(final int result, final ReadOnlyColorRGBA color) {
+        int hash = 31 * result + Float.floatToIntBits(color.getRed());
+        hash = 31 * hash + Float.floatToIntBits(color.getGreen());
+        hash = 31 * hash + Float.floatToIntBits(color.getBlue());
+        return 31 * hash + Float.floatToIntBits(color.getAlpha());
+    }
+
+    /**
+     * Add a vector to a content hash.
+     * 
+     * @param result
+     *            the hash so far
+     * @param vector
+     *            the vector to add
+     * @return the new hash
+     * @see #hash(int, ReadOnlyColorRGBA)
+     */
+    protected static int hash(final int result, final ReadOnlyVector3 vector) {
+        final long x = Double.doubleToLongBits(vector.getX());
+        final long y = Double.doubleToLongBits(vector.getY());
+        final long z = Double.doubleToLongBits(vector.getZ());
+        int hash = 31 * result + (int) (x ^ x >>> 32);
+        hash = 31 * hash + (int) (y ^ y >>> 32);
+        return 31 * hash + (int) (z ^ z >>> 32);
+    }
+
+    /**
+     * Confirm that the given state renders exactly like this one. Equal content hashes do not guarantee this, as hashes
+     * may collide.
+     * 
+     * @param other
+     *            another state, may be null.
+     * @return true if the given state is this state, or is a state of the same type with the same content. All disabled
+     *         states of a type are considered equal.
+     * @see #getContentHash()
+     */
+    public boolean isContentEqual(final RenderState other) {
+        if (this == other) {
+            return true;
+        }
+        if (other == null || other.getType() != getType() || other.enabled != enabled) {
+            return false;
+        }
+        return !enabled || isContentEqualTo(other);
+    }
+
+    /**
+     * @param other
+     *            an enabled state of the same type as this enabled state.
+     * @return true if the given state has the same content as this one. The default only accepts this state itself,
+     *         matching {@link #computeContentHash()}.
+     */
+    protected boolean isContentEqualTo(final RenderState other) {
+        return this == other;
+    }
+
+    /**
+     * @return false if the content of this state can change without setNeedsRefresh being called, so the content hash
+     *         must be recomputed on each call.
+     */
+    protected boolean isContentHashCached() {
+        return true;
     }
 
     /**
@@ -183,6 +330,59 @@ public abstract class RenderState implements Savable {
         }
     }
 
+    /**
+     * @return true if this state is a canonical instance shared through the {@link RenderStateInterner}. Interned
+     *         states can not be modified.
+     */
+    public boolean isInterned() {
+        return interned;
+    }
+
+    void setInterned() {
+        interned = true;
+    }
+
+    /**
+     * Called by setters of states that may be interned.
+     * 
+     * @throws IllegalStateException
+     *             if this state is interned.
+     */
+    protected void checkMutable() {
+        if (interned) {
+            throw new IllegalStateException("Interned render states are shared and can not be modified.");
+        }
+    }
+
+    /**
+     * @return a hash of the structure of this state, its settings and the objects it references, for use by the
+     *         {@link RenderStateInterner}. The default uses the identity of the state.
+     */
+    protected int getStructureHash() {
+        return System.identityHashCode(this);
+    }
+
+    /**
+     * @param other
+     *            a state of the same type
+     * @return true if the given state has the same settings and references the same objects as this state, so that
+     *         either can be used in place of the other. The default only accepts this state itself.
+     */
+    protected boolean isStructureEqual(final RenderState other) {
+        return this == other;
+    }
+
+    /**
+     * @see #_hashCompare
+     * @param enabled
+     */
+    public static void setHashCompares(final boolean enabled) {
+        _hashCompare.clear();
+        if (enabled) {
+            _hashCompare.addAll(EnumSet.allOf(StateType.class));
+        }
+    }
+
     public static RenderState createState(final StateType type) {
         switch (type) {
             case Blend:
@@ -0,0 +1,176 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.renderer.state;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <code>RenderStateInterner</code> keeps a canonical instance for each distinct structure of the render states built
+ * by {@link RenderState#extract(java.util.Stack, com.ardor3d.scenegraph.Spatial)}, so that meshes under the same
+ * combination of lights or textures share a single state object. Sharing lets the renderer skip redundant states and
+ * the render queue sort states by reference, and saves one state object per mesh.
+ * <p>
+ * Two states have the same structure if they are of the same type, have the same settings and reference the same
+ * Light or Texture objects, see {@link RenderState#isStructureEqual(RenderState)}. Canonical states are marked as
+ * interned and may not be modified. They are only weakly held here and are dropped once no mesh uses them.
+ * </p>
+ */
+public class RenderStateInterner {
+
+    private static boolean enabled = true;
+
+    /** Maps a private template state to a weak reference to the canonical, shared state. */
+    private static final Map<Key, CanonicalReference> canonicalStates = new HashMap<Key, CanonicalReference>();
+
+    private static final ReferenceQueue<RenderState> refQueue = new ReferenceQueue<RenderState>();
+
+    /** Reused for lookups. */
+    private static final Key probe = new Key();
+
+    private static long hits, misses;
+
+    /**
+     * @return true if extracted states should be interned. Default is true.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param enable
+     *            if false, extract builds a separate state for each mesh, as before interning was added. Takes effect
+     *            on the next render state update.
+     */
+    public static void setEnabled(final boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Look for a canonical state with the same structure as the given state.
+     * 
+     * @param state
+     *            a state to match. Not retained.
+     * @return the canonical state, or null if there is none.
+     */
+    public static synchronized RenderState find(final RenderState state) {
+        expunge();
+        probe.set(state);
+        final CanonicalReference ref = canonicalStates.get(probe);
+        probe.set(null);
+        final RenderState canonical = ref != null ? ref.get() : null;
+        if (canonical != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return canonical;
+    }
+
+    /**
+     * Register a canonical state. Nothing is registered if an equal state is already known.
+     * 
+     * @param template
+     *            a state describing the structure. It is held by the interner and must not be modified or used anywhere
+     *            else afterwards.
+     * @param canonical
+     *            the state to share, with the same structure as template. It is marked as interned.
+     * @return the canonical state for the structure, which is the given state unless one was already registered.
+     */
+    public static synchronized RenderState intern(final RenderState template, final RenderState canonical) {
+        expunge();
+        final Key key = new Key();
+        key.set(template);
+        final CanonicalReference existing = canonicalStates.get(key);
+        if (existing != null && existing.get() != null) {
+            return existing.get();
+        }
+        canonical.setInterned();
+        canonicalStates.put(key, new CanonicalReference(canonical, key));
+        return canonical;
+    }
+
+    /**
+     * @return the number of canonical states currently known.
+     */
+    public static synchronized int size() {
+        expunge();
+        return canonicalStates.size();
+    }
+
+    /**
+     * @return the number of lookups that found a canonical state since the last reset.
+     */
+    public static synchronized long getHitCount() {
+        return hits;
+    }
+
+    /**
+     * @return the number of lookups that found no canonical state since the last reset.
+     */
+    public static synchronized long getMissCount() {
+        return misses;
+    }
+
+    /**
+     * Forget all canonical states and reset the lookup counts. States already shared by meshes stay interned, but new
+     * extractions will not return them.
+     */
+    public static synchronized void clear() {
+        canonicalStates.clear();
+        hits = misses = 0;
+    }
+
+    private static void expunge() {
+        CanonicalReference ref;
+        while ((ref = (CanonicalReference) refQueue.poll()) != null) {
+            if (canonicalStates.get(ref._key) == ref) {
+                canonicalStates.remove(ref._key);
+            }
+        }
+    }
+
+    private static class Key {
+        private RenderState _template;
+        private int _hash;
+
+        void set(final RenderState template) {
+            _template = template;
+            _hash = template != null ? 31 * template.getType().ordinal() + template.getStructureHash() : 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return _hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return _hash == other._hash && _template.getType() == other._template.getType()
+                    && _template.isStructureEqual(other._template);
+        }
+    }
+
+    private static class CanonicalReference extends WeakReference<RenderState> {
+        private final Key _key;
+
+        CanonicalReference(final RenderState state, final Key key) {
+            super(state, refQueue);
+            _key = key;
+        }
+    }
+}
@@ -88,6 +88,18 @@ public class ShadingState extends RenderState {
         shadeMode = capsule.readEnum("shadeMode", ShadingMode.class, ShadingMode.Smooth);
     }
 
+    @Override
+    protected int computeContentHash() {
+        int result = 17;
+        result = 31 * result + shadeMode.ordinal();
+        return result;
+    }
+
+    @Override
+    protected boolean isContentEqualTo(final RenderState other) {
+        return shadeMode == ((ShadingState) other).shadeMode;
+    }
+
     @Override
     public StateRecord createStateRecord() {
         return new ShadingStateRecord();
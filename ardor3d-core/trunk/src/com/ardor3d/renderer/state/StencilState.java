@@ -524,6 +524,7 @@ public class StencilState extends RenderState {
 
     public void setUseTwoSided(final boolean useTwoSided) {
         this.useTwoSided = useTwoSided;
+        setNeedsRefresh(true);
     }
 
     @Override
@@ -570,6 +571,42 @@ public class StencilState extends RenderState {
         stencilOpZPassBack = capsule.readEnum("stencilOpZPassBack", StencilOperation.class, StencilOperation.Keep);
     }
 
+    @Override
+    protected int computeContentHash() {
+        int result = 17;
+        result = 31 * result + (useTwoSided ? 1 : 0);
+        result = 31 * result + stencilFunctionFront.ordinal();
+        result = 31 * result + stencilReferenceFront;
+        result = 31 * result + stencilFuncMaskFront;
+        result = 31 * result + stencilWriteMaskFront;
+        result = 31 * result + stencilOpFailFront.ordinal();
+        result = 31 * result + stencilOpZFailFront.ordinal();
+        result = 31 * result + stencilOpZPassFront.ordinal();
+        result = 31 * result + stencilFunctionBack.ordinal();
+        result = 31 * result + stencilReferenceBack;
+        result = 31 * result + stencilFuncMaskBack;
+        result = 31 * result + stencilWriteMaskBack;
+        result = 31 * result + stencilOpFailBack.ordinal();
+        result = 31 * result + stencilOpZFailBack.ordinal();
+        result = 31 * result + stencilOpZPassBack.ordinal();
+        return result;
+    }
+
+    @Override
+    protected boolean isContentEqualTo(final RenderState other) {
+        final StencilState that = (StencilState) other;
+        return useTwoSided == that.useTwoSided && stencilFunctionFront == that.stencilFunctionFront
+                && stencilReferenceFront == that.stencilReferenceFront
+                && stencilFuncMaskFront == that.stencilFuncMaskFront
+                && stencilWriteMaskFront == that.stencilWriteMaskFront
+                && stencilOpFailFront == that.stencilOpFailFront && stencilOpZFailFront == that.stencilOpZFailFront
+                && stencilOpZPassFront == that.stencilOpZPassFront && stencilFunctionBack == that.stencilFunctionBack
+                && stencilReferenceBack == that.stencilReferenceBack
+                && stencilFuncMaskBack == that.stencilFuncMaskBack
+                && stencilWriteMaskBack == that.stencilWriteMaskBack && stencilOpFailBack == that.stencilOpFailBack
+                && stencilOpZFailBack == that.stencilOpZFailBack && stencilOpZPassBack == that.stencilOpZPassBack;
+    }
+
     @Override
     public StateRecord createStateRecord() {
         return new StencilStateRecord();
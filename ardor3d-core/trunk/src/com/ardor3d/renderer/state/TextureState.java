@@ -99,6 +99,7 @@ public class TextureState extends RenderState {
      *            the texture to set.
      */
     public void setTexture(final Texture texture) {
+        checkMutable();
         if (this.texture.size() == 0) {
             this.texture.add(texture);
         } else {
@@ -131,6 +132,7 @@ public class TextureState extends RenderState {
      *            the texture unit this texture will fill.
      */
     public void setTexture(final Texture texture, final int textureUnit) {
+        checkMutable();
         if (textureUnit >= 0 && textureUnit < MAX_TEXTURES) {
             while (textureUnit >= this.texture.size()) {
                 this.texture.add(null);
@@ -156,6 +158,7 @@ public class TextureState extends RenderState {
     }
 
     public boolean removeTexture(final Texture tex) {
+        checkMutable();
 
         final int index = texture.indexOf(tex);
         if (index == -1) {
@@ -168,6 +171,7 @@ public class TextureState extends RenderState {
     }
 
     public boolean removeTexture(final int textureUnit) {
+        checkMutable();
         if (textureUnit < 0 || textureUnit >= MAX_TEXTURES || textureUnit >= texture.size()) {
             return false;
         }
@@ -201,6 +205,7 @@ public class TextureState extends RenderState {
      *             if type is null
      */
     public void setCorrectionType(final CorrectionType type) {
+        checkMutable();
         if (type == null) {
             throw new IllegalArgumentException("type can not be null.");
         }
@@ -238,6 +243,10 @@ public class TextureState extends RenderState {
      */
     public final int getTextureID(final int textureUnit) {
         if (textureUnit < _idCache.length && textureUnit >= 0) {
+            // states skipped as equal to the current state are never applied, so fill their cache on demand.
+            if (_idCache[textureUnit] == 0 && textureUnit < texture.size() && texture.get(textureUnit) != null) {
+                _idCache[textureUnit] = texture.get(textureUnit).getTextureId();
+            }
             return _idCache[textureUnit];
         }
 
@@ -252,6 +261,7 @@ public class TextureState extends RenderState {
      *            the offset (default 0).
      */
     public void setTextureCoordinateOffset(final int offset) {
+        checkMutable();
         this.offset = offset;
         setNeedsRefresh(true);
     }
@@ -293,6 +303,78 @@ public class TextureState extends RenderState {
         return defaultTexture;
     }
 
+    /**
+     * Hashes the identity and id of each texture.
+     */
+    @Override
+    protected int computeContentHash() {
+        int result = 17;
+        result = 31 * result + correctionType.ordinal();
+        result = 31 * result + offset;
+        for (int i = 0, max = texture.size(); i < max; i++) {
+            final Texture tex = texture.get(i);
+            if (tex == null) {
+                result = 31 * result;
+                continue;
+            }
+            result = 31 * result + System.identityHashCode(tex);
+            result = 31 * result + tex.getTextureId();
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean isContentEqualTo(final RenderState other) {
+        final TextureState that = (TextureState) other;
+        if (correctionType != that.correctionType || offset != that.offset || texture.size() != that.texture.size()) {
+            return false;
+        }
+        for (int i = 0, max = texture.size(); i < max; i++) {
+            if (texture.get(i) != that.texture.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected int getStructureHash() {
+        int result = 17;
+        result = 31 * result + (isEnabled() ? 1 : 0);
+        result = 31 * result + correctionType.ordinal();
+        result = 31 * result + offset;
+        for (int i = 0, max = texture.size(); i < max; i++) {
+            result = 31 * result + System.identityHashCode(texture.get(i));
+        }
+        return result;
+    }
+
+    @Override
+    protected boolean isStructureEqual(final RenderState other) {
+        if (this == other) {
+            return true;
+        }
+        final TextureState that = (TextureState) other;
+        if (isEnabled() != that.isEnabled() || correctionType != that.correctionType || offset != that.offset
+                || texture.size() != that.texture.size()) {
+            return false;
+        }
+        for (int i = 0, max = texture.size(); i < max; i++) {
+            if (texture.get(i) != that.texture.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false, as textures can be changed without notifying this state.
+     */
+    @Override
+    protected boolean isContentHashCached() {
+        return false;
+    }
+
     @Override
     public StateRecord createStateRecord() {
         return new TextureStateRecord();
@@ -312,6 +394,23 @@ public class TextureState extends RenderState {
 
         // accumulate the textures in the stack into a single TextureState object
         final TextureState newTState = new TextureState();
+        combineTextures(stack, mode, newTState);
+        if (!RenderStateInterner.isEnabled()) {
+            return newTState;
+        }
+
+        // share one state between all meshes with the same combination of textures
+        final RenderState canonical = RenderStateInterner.find(newTState);
+        if (canonical != null) {
+            return canonical;
+        }
+        final TextureState sharedTState = new TextureState();
+        combineTextures(stack, mode, sharedTState);
+        return RenderStateInterner.intern(newTState, sharedTState);
+    }
+
+    private static void combineTextures(final Stack<? extends RenderState> stack, final TextureCombineMode mode,
+            final TextureState newTState) {
         boolean foundEnabled = false;
         final Object states[] = stack.toArray();
         switch (mode) {
@@ -356,6 +455,5 @@ public class TextureState extends RenderState {
                 break;
         }
         newTState.setEnabled(foundEnabled);
-        return newTState;
     }
 }
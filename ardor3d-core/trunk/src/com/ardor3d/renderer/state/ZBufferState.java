@@ -139,6 +139,20 @@ public class ZBufferState extends RenderState {
         writable = capsule.readBoolean("writable", true);
     }
 
+    @Override
+    protected int computeContentHash() {
+        int result = 17;
+        result = 31 * result + function.ordinal();
+        result = 31 * result + (writable ? 1 : 0);
+        return result;
+    }
+
+    @Override
+    protected boolean isContentEqualTo(final RenderState other) {
+        final ZBufferState that = (ZBufferState) other;
+        return function == that.function && writable == that.writable;
+    }
+
     @Override
     public StateRecord createStateRecord() {
         return new ZBufferStateRecord();
@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.ardor3d.util.export.Ardor3DExporter;
+import com.ardor3d.util.export.Ardor3DImporter;
+import com.ardor3d.util.export.InputCapsule;
+import com.ardor3d.util.export.OutputCapsule;
+import com.ardor3d.util.geom.BufferUtils;
+
+/**
+ * Index data stored as unsigned bytes.
+ */
+public class ByteBufferData extends IndexBufferData<ByteBuffer> {
+
+    /**
+     * Instantiates a new ByteBufferData with no buffer set. Used mainly by the import system.
+     */
+    public ByteBufferData() {}
+
+    /**
+     * Instantiates a new ByteBufferData with a new direct buffer of the given size.
+     * 
+     * @param size
+     *            the number of indices to hold.
+     */
+    public ByteBufferData(final int size) {
+        this(BufferUtils.createByteBuffer(size));
+    }
+
+    /**
+     * Instantiates a new ByteBufferData wrapping the given buffer.
+     * 
+     * @param buffer
+     *            the buffer holding our index data.
+     */
+    public ByteBufferData(final ByteBuffer buffer) {
+        _buffer = buffer;
+    }
+
+    @Override
+    public int get() {
+        return _buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int get(final int index) {
+        return _buffer.get(index) & 0xFF;
+    }
+
+    @Override
+    public ByteBufferData put(final int value) {
+        _buffer.put((byte) value);
+        return this;
+    }
+
+    @Override
+    public ByteBufferData put(final int index, final int value) {
+        _buffer.put(index, (byte) value);
+        return this;
+    }
+
+    @Override
+    public int getByteCount() {
+        return 1;
+    }
+
+    @Override
+    public int getMaxIndex() {
+        return 0xFF;
+    }
+
+    @Override
+    public ByteBufferData makeCopy() {
+        return new ByteBufferData(BufferUtils.clone(_buffer));
+    }
+
+    // /////////////////
+    // Methods for Savable
+    // /////////////////
+
+    public Class<? extends ByteBufferData> getClassTag() {
+        return getClass();
+    }
+
+    public void read(final Ardor3DImporter im) throws IOException {
+        final InputCapsule cap = im.getCapsule(this);
+        _buffer = cap.readByteBuffer("buffer", null);
+    }
+
+    public void write(final Ardor3DExporter ex) throws IOException {
+        final OutputCapsule cap = ex.getCapsule(this);
+        cap.write(_buffer, "buffer", null);
+    }
+}
@@ -75,6 +75,17 @@ public abstract class Controller implements Serializable, Savable {
      */
     private boolean active = true;
 
+    /**
+     * True if this controller does not read or write state touched by other controllers, so that it may be updated
+     * concurrently with them.
+     */
+    private boolean independent = false;
+
+    /**
+     * The scheduler updating this controller, or null if it is updated by its Spatial.
+     */
+    private transient ControllerScheduler scheduler;
+
     private static final long serialVersionUID = 1;
 
     /**
@@ -173,6 +184,54 @@ public abstract class Controller implements Serializable, Savable {
         return active;
     }
 
+    /**
+     * Sets whether this controller is independent of all other controllers. A ControllerScheduler may update
+     * independent controllers on other threads, concurrently with each other and with dependent controllers, so an
+     * independent controller must only modify objects that no other controller reads or writes. Moving or otherwise
+     * marking its own Spatial dirty is fine, the scheduler applies such marks once all controllers are done, but
+     * attaching or detaching spatials is not.
+     * 
+     * @param independent
+     *            true if this controller may be updated concurrently with others.
+     */
+    public void setIndependent(final boolean independent) {
+        if (this.independent != independent) {
+            this.independent = independent;
+            if (scheduler != null) {
+                scheduler.independenceChanged();
+            }
+        }
+    }
+
+    /**
+     * @return true if this controller may be updated concurrently with other controllers. False by default.
+     * @see #setIndependent(boolean)
+     */
+    public boolean isIndependent() {
+        return independent;
+    }
+
+    /**
+     * @return the scheduler updating this controller, or null if it is updated by the Spatial it is attached to.
+     */
+    public ControllerScheduler getScheduler() {
+        return scheduler;
+    }
+
+    void setScheduler(final ControllerScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Called by a ControllerScheduler using a fixed time step, after its steps for the frame have run. Controllers that
+     * keep their previous and current state may blend between them here to hide the difference between the fixed step
+     * and the frame time. Does nothing by default.
+     * 
+     * @param alpha
+     *            how far the frame time lies between the last step and the next one, from 0 to 1.
+     */
+    public void interpolate(final double alpha) {}
+
     /**
      * Defined by extending classes, <code>update</code> is a signal to Controller that it should update whatever
      * object(s) it is controlling.
@@ -189,6 +248,7 @@ public abstract class Controller implements Serializable, Savable {
         capsule.write(maxTime, "maxTime", 0);
         capsule.write(speed, "speed", 1);
         capsule.write(active, "active", true);
+        capsule.write(independent, "independent", false);
     }
 
     public void read(final Ardor3DImporter e) throws IOException {
@@ -198,6 +258,7 @@ public abstract class Controller implements Serializable, Savable {
         maxTime = capsule.readDouble("maxTime", 0);
         speed = capsule.readDouble("speed", 1);
         active = capsule.readBoolean("active", true);
+        independent = capsule.readBoolean("independent", false);
     }
 
     public Class<? extends Controller> getClassTag() {
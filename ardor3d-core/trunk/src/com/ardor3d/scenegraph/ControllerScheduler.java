@@ -0,0 +1,524 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ardor3d.scenegraph.Spatial.DirtyMark;
+
+/**
+ * <code>ControllerScheduler</code> updates a set of Controllers outside of the scene graph walk. Registered controllers
+ * are skipped by {@link Spatial#updateControllers(double)}; call {@link #update(double)} once per frame, before
+ * updating the geometric state of the scene, to run them instead. Controllers removed from their Spatial, or detached
+ * from the scene along with it, are unregistered automatically.
+ * <p>
+ * Controllers flagged as {@link Controller#isIndependent() independent} are split into batches and run on a pool of
+ * worker threads while the remaining controllers run, in registration order, on the calling thread. Dirty marks made
+ * on the workers, for example by moving a Spatial, are recorded and applied on the calling thread once all batches are
+ * done, and controllers removed during an update are only unregistered once it is done. Optionally the
+ * scheduler runs controllers with a fixed time step, sub-stepping as needed to catch up with the frame time, and then
+ * hands each controller the leftover fraction of a step through {@link Controller#interpolate(double)}.
+ * </p>
+ * <p>
+ * Each controller's update time is tracked in a {@link ControllerStats}, along with an optional time budget.
+ * Controllers can not be interrupted, so running over budget is only counted and logged.
+ * </p>
+ */
+public class ControllerScheduler {
+    private static final Logger logger = Logger.getLogger(ControllerScheduler.class.getName());
+
+    /**
+     * Update statistics and time budget of a single scheduled controller.
+     */
+    public static class ControllerStats {
+        private final Controller _controller;
+        private long _budgetNanos;
+        private long _updates;
+        private long _overruns;
+        private long _lastNanos;
+        private long _maxNanos;
+        private long _totalNanos;
+
+        ControllerStats(final Controller controller) {
+            _controller = controller;
+        }
+
+        void record(final long nanos) {
+            _updates++;
+            _lastNanos = nanos;
+            _totalNanos += nanos;
+            if (nanos > _maxNanos) {
+                _maxNanos = nanos;
+            }
+            if (_budgetNanos > 0 && nanos > _budgetNanos) {
+                if (_overruns++ == 0 && logger.isLoggable(Level.WARNING)) {
+                    logger.warning(_controller + " took " + nanos / 1e6 + "ms, over its budget of " + _budgetNanos
+                            / 1e6 + "ms. Further overruns are only counted.");
+                }
+            }
+        }
+
+        public Controller getController() {
+            return _controller;
+        }
+
+        /**
+         * @return the time budget for a single update of this controller, in seconds. 0 means no budget.
+         */
+        public double getBudget() {
+            return _budgetNanos / 1e9;
+        }
+
+        /**
+         * @param seconds
+         *            the time budget for a single update of this controller. 0 means no budget.
+         */
+        public void setBudget(final double seconds) {
+            _budgetNanos = (long) (seconds * 1e9);
+        }
+
+        /**
+         * @return the number of updates run since the last reset.
+         */
+        public long getUpdateCount() {
+            return _updates;
+        }
+
+        /**
+         * @return the number of updates that took longer than the budget since the last reset.
+         */
+        public long getOverrunCount() {
+            return _overruns;
+        }
+
+        /**
+         * @return duration of the most recent update, in seconds.
+         */
+        public double getLastTime() {
+            return _lastNanos / 1e9;
+        }
+
+        /**
+         * @return duration of the longest update since the last reset, in seconds.
+         */
+        public double getMaxTime() {
+            return _maxNanos / 1e9;
+        }
+
+        /**
+         * @return total time spent updating since the last reset, in seconds.
+         */
+        public double getTotalTime() {
+            return _totalNanos / 1e9;
+        }
+
+        /**
+         * @return average duration of an update since the last reset, in seconds.
+         */
+        public double getAverageTime() {
+            return _updates == 0 ? 0 : _totalNanos / 1e9 / _updates;
+        }
+
+        public void reset() {
+            _updates = 0;
+            _overruns = 0;
+            _lastNanos = 0;
+            _maxNanos = 0;
+            _totalNanos = 0;
+        }
+    }
+
+    private final List<ControllerStats> _entries = new ArrayList<ControllerStats>();
+    private final Map<Controller, ControllerStats> _lookup = new HashMap<Controller, ControllerStats>();
+
+    /** Set while updating, when removals are queued in _pendingRemovals rather than applied. */
+    private volatile boolean _updating;
+    private final List<Controller> _pendingRemovals = new ArrayList<Controller>();
+
+    /** Entries split by independence, rebuilt lazily after registration or independence changes. */
+    private ControllerStats[] _dependent, _independent;
+
+    private final int _threads;
+    private ExecutorService _executor;
+    private int _minBatchSize = 32;
+
+    private double _fixedTimeStep = 0;
+    private int _maxSubSteps = 5;
+    private double _accumulator;
+    private double _interpolation;
+    private long _steps;
+
+    /**
+     * Create a scheduler using one worker thread per available processor.
+     */
+    public ControllerScheduler() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threads
+     *            the number of threads, including the calling thread, that independent controllers may run on. 1 runs
+     *            everything on the calling thread.
+     */
+    public ControllerScheduler(final int threads) {
+        _threads = Math.max(1, threads);
+    }
+
+    /**
+     * Start updating the given controller from this scheduler rather than from its Spatial.
+     * 
+     * @param controller
+     *            the controller to schedule
+     * @return the stats of the controller
+     * @throws IllegalArgumentException
+     *             if the controller is already registered with another scheduler.
+     */
+    public ControllerStats addController(final Controller controller) {
+        ControllerStats stats = _lookup.get(controller);
+        if (stats != null) {
+            return stats;
+        }
+        if (controller.getScheduler() != null) {
+            throw new IllegalArgumentException("Controller is already registered with another scheduler.");
+        }
+        stats = new ControllerStats(controller);
+        controller.setScheduler(this);
+        _entries.add(stats);
+        _lookup.put(controller, stats);
+        _dependent = _independent = null;
+        return stats;
+    }
+
+    /**
+     * Register every controller found on the given spatial and its descendants.
+     * 
+     * @param spatial
+     *            the root of the branch to scan.
+     */
+    public void addControllers(final Spatial spatial) {
+        for (int i = 0, max = spatial.getControllerCount(); i < max; i++) {
+            final Controller controller = spatial.getController(i);
+            if (controller != null && controller.getScheduler() == null) {
+                addController(controller);
+            }
+        }
+        if (spatial instanceof Node) {
+            final Node node = (Node) spatial;
+            for (int i = 0, max = node.getNumberOfChildren(); i < max; i++) {
+                addControllers(node.getChild(i));
+            }
+        }
+    }
+
+    /**
+     * Stop scheduling the given controller. It will be updated by its Spatial again.
+     * 
+     * @param controller
+     *            the controller to remove
+     * @return true if the controller was registered with this scheduler.
+     */
+    public boolean removeController(final Controller controller) {
+        if (_updating) {
+            // may be called from a worker thread, leave the registration alone until the update is done.
+            synchronized (_pendingRemovals) {
+                _pendingRemovals.add(controller);
+            }
+            return _lookup.containsKey(controller);
+        }
+        final ControllerStats stats = _lookup.remove(controller);
+        if (stats == null) {
+            return false;
+        }
+        _entries.remove(stats);
+        controller.setScheduler(null);
+        _dependent = _independent = null;
+        return true;
+    }
+
+    /**
+     * Stop scheduling all controllers.
+     */
+    public void clearControllers() {
+        if (_updating) {
+            synchronized (_pendingRemovals) {
+                for (final ControllerStats stats : _entries) {
+                    _pendingRemovals.add(stats.getController());
+                }
+            }
+            return;
+        }
+        for (final ControllerStats stats : _entries) {
+            stats.getController().setScheduler(null);
+        }
+        _entries.clear();
+        _lookup.clear();
+        _dependent = _independent = null;
+    }
+
+    /**
+     * Called by a registered controller when its independent flag changes.
+     */
+    void independenceChanged() {
+        _dependent = _independent = null;
+    }
+
+    /**
+     * @param controller
+     *            a scheduled controller
+     * @return the controller's stats, or null if it is not registered with this scheduler.
+     */
+    public ControllerStats getStats(final Controller controller) {
+        return _lookup.get(controller);
+    }
+
+    /**
+     * @return the stats of all scheduled controllers, in registration order.
+     */
+    public List<ControllerStats> getStats() {
+        return _entries;
+    }
+
+    public double getFixedTimeStep() {
+        return _fixedTimeStep;
+    }
+
+    /**
+     * @param step
+     *            the time, in seconds, to advance controllers by in each step. 0 (the default) passes the frame time
+     *            straight through, running a single step per update.
+     */
+    public void setFixedTimeStep(final double step) {
+        _fixedTimeStep = Math.max(0, step);
+        _accumulator = 0;
+        _interpolation = 0;
+    }
+
+    public int getMaxSubSteps() {
+        return _maxSubSteps;
+    }
+
+    /**
+     * @param maxSubSteps
+     *            the maximum number of fixed steps run in a single update. Time beyond that is dropped, so that a slow
+     *            frame can not cause ever longer catch up frames.
+     */
+    public void setMaxSubSteps(final int maxSubSteps) {
+        _maxSubSteps = Math.max(1, maxSubSteps);
+    }
+
+    /**
+     * @param size
+     *            the smallest number of independent controllers worth handing to a worker thread.
+     */
+    public void setMinBatchSize(final int size) {
+        _minBatchSize = Math.max(1, size);
+    }
+
+    /**
+     * @return with a fixed time step, how far the frame time lies between the last step run and the next one, from 0 to
+     *         1. Always 0 without a fixed time step.
+     */
+    public double getInterpolation() {
+        return _interpolation;
+    }
+
+    /**
+     * @return the number of steps run since this scheduler was created.
+     */
+    public long getStepCount() {
+        return _steps;
+    }
+
+    /**
+     * Advance all scheduled controllers by the given frame time.
+     * 
+     * @param tpf
+     *            the time in seconds since the last update.
+     * @return the number of steps run.
+     */
+    public int update(final double tpf) {
+        if (_fixedTimeStep <= 0) {
+            runStep(tpf);
+            return 1;
+        }
+
+        _accumulator += tpf;
+        int steps = 0;
+        while (_accumulator >= _fixedTimeStep && steps < _maxSubSteps) {
+            runStep(_fixedTimeStep);
+            _accumulator -= _fixedTimeStep;
+            steps++;
+        }
+        if (_accumulator >= _fixedTimeStep) {
+            // hit the sub step limit, drop the whole steps we could not run.
+            _accumulator %= _fixedTimeStep;
+        }
+
+        _interpolation = _accumulator / _fixedTimeStep;
+        // controllers may add or remove others while interpolating.
+        final ControllerStats[] entries = _entries.toArray(new ControllerStats[_entries.size()]);
+        for (final ControllerStats stats : entries) {
+            final Controller controller = stats.getController();
+            if (controller.isActive() && controller.getScheduler() == this) {
+                controller.interpolate(_interpolation);
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Shut down the worker threads. They are recreated if this scheduler is updated again.
+     */
+    public void shutdown() {
+        if (_executor != null) {
+            _executor.shutdown();
+            _executor = null;
+        }
+    }
+
+    private void runStep(final double time) {
+        _updating = true;
+        try {
+            runBatches(time);
+        } finally {
+            _updating = false;
+            applyRemovals();
+        }
+    }
+
+    private void applyRemovals() {
+        synchronized (_pendingRemovals) {
+            for (final Controller controller : _pendingRemovals) {
+                removeController(controller);
+            }
+            _pendingRemovals.clear();
+        }
+    }
+
+    private void runBatches(final double time) {
+        if (_dependent == null) {
+            splitEntries();
+        }
+        _steps++;
+
+        // controllers may change their independence while running, keep using this step's split.
+        final ControllerStats[] dependent = _dependent;
+        final ControllerStats[] independent = _independent;
+        final int batches = Math.min(_threads, independent.length / _minBatchSize);
+        if (batches <= 1) {
+            run(dependent, 0, dependent.length, time);
+            run(independent, 0, independent.length, time);
+            return;
+        }
+
+        // hand all but the first batch of independent controllers to the workers, run the rest here.
+        final int batchSize = (independent.length + batches - 1) / batches;
+        final List<Future<List<DirtyMark>>> futures = new ArrayList<Future<List<DirtyMark>>>(batches - 1);
+        for (int start = batchSize; start < independent.length; start += batchSize) {
+            final int from = start, to = Math.min(independent.length, start + batchSize);
+            futures.add(getExecutor().submit(new Callable<List<DirtyMark>>() {
+                public List<DirtyMark> call() {
+                    final List<DirtyMark> marks = new ArrayList<DirtyMark>();
+                    Spatial.deferDirtyMarks(marks);
+                    try {
+                        ControllerScheduler.run(independent, from, to, time);
+                    } finally {
+                        Spatial.deferDirtyMarks(null);
+                    }
+                    return marks;
+                }
+            }));
+        }
+
+        RuntimeException failure = null;
+        try {
+            run(dependent, 0, dependent.length, time);
+            run(independent, 0, batchSize, time);
+        } catch (final RuntimeException e) {
+            failure = e;
+        }
+
+        // always wait for every batch, the workers may still be touching the scene.
+        boolean interrupted = false;
+        for (final Future<List<DirtyMark>> future : futures) {
+            while (true) {
+                try {
+                    Spatial.applyDirtyMarks(future.get());
+                    break;
+                } catch (final InterruptedException e) {
+                    interrupted = true;
+                } catch (final ExecutionException e) {
+                    if (failure == null) {
+                        failure = new RuntimeException("Independent controller failed to update.", e.getCause());
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void run(final ControllerStats[] entries, final int from, final int to, final double time) {
+        for (int i = from; i < to; i++) {
+            final ControllerStats stats = entries[i];
+            final Controller controller = stats.getController();
+            if (controller.isActive()) {
+                final long start = System.nanoTime();
+                controller.update(time);
+                stats.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void splitEntries() {
+        final List<ControllerStats> dependent = new ArrayList<ControllerStats>();
+        final List<ControllerStats> independent = new ArrayList<ControllerStats>();
+        for (final ControllerStats stats : _entries) {
+            if (stats.getController().isIndependent()) {
+                independent.add(stats);
+            } else {
+                dependent.add(stats);
+            }
+        }
+        _dependent = dependent.toArray(new ControllerStats[dependent.size()]);
+        _independent = independent.toArray(new ControllerStats[independent.size()]);
+    }
+
+    private ExecutorService getExecutor() {
+        if (_executor == null) {
+            _executor = Executors.newFixedThreadPool(_threads - 1, new ThreadFactory() {
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(r, "ControllerScheduler worker");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return _executor;
+    }
+}
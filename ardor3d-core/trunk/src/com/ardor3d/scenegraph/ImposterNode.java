@@ -72,11 +72,15 @@ public class ImposterNode extends Node {
 
     protected final Vector3 worldUpVector = new Vector3(0, 1, 0);
 
-    public ImposterNode() {}
+    public ImposterNode() {
+        // we count our elapsed time on every update.
+        setAlwaysUpdated(true);
+    }
 
     public ImposterNode(final String name, final double size, final int twidth, final int theight,
             final Renderer renderer) {
         super(name);
+        setAlwaysUpdated(true);
         final DisplaySettings settings = new DisplaySettings(twidth, theight, 0, 0, 0, 8, 0, 0, false);
         tRenderer = TextureRendererFactory.INSTANCE.createTextureRenderer(settings, renderer,
                 TextureRenderer.Target.Texture2D);
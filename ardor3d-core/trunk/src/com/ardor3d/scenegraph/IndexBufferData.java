@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import java.nio.Buffer;
+
+import com.ardor3d.util.export.Savable;
+
+/**
+ * IndexBufferData wraps the nio buffer holding the indices of a MeshData. Concrete subclasses store the indices as
+ * unsigned bytes, unsigned shorts or ints so that meshes with few vertices do not pay for 32 bit indices. All reads and
+ * writes go through int values, regardless of the storage type.
+ * 
+ * @see com.ardor3d.util.geom.BufferUtils#createIndexBufferData(int, int)
+ */
+public abstract class IndexBufferData<T extends Buffer> implements Savable {
+
+    /** Buffer holding the index data. */
+    protected T _buffer;
+
+    /**
+     * @return the underlying nio buffer.
+     */
+    public T getBuffer() {
+        return _buffer;
+    }
+
+    /**
+     * @param buffer
+     *            the nio buffer to use for index storage.
+     */
+    public void setBuffer(final T buffer) {
+        _buffer = buffer;
+    }
+
+    /**
+     * @return the next index, read relative to the buffer's current position.
+     */
+    public abstract int get();
+
+    /**
+     * @param index
+     *            the absolute position in the buffer to read from.
+     * @return the index value at the given position.
+     */
+    public abstract int get(int index);
+
+    /**
+     * Write the given value at the buffer's current position and advance the position.
+     * 
+     * @param value
+     *            the index value to store.
+     * @return this object, for chaining.
+     */
+    public abstract IndexBufferData<T> put(int value);
+
+    /**
+     * Write the given value at the given absolute position.
+     * 
+     * @param index
+     *            the position in the buffer to write to.
+     * @param value
+     *            the index value to store.
+     * @return this object, for chaining.
+     */
+    public abstract IndexBufferData<T> put(int index, int value);
+
+    /**
+     * @return the number of bytes used to store a single index.
+     */
+    public abstract int getByteCount();
+
+    /**
+     * @return the largest index value this storage type can hold.
+     */
+    public abstract int getMaxIndex();
+
+    /**
+     * @return a new IndexBufferData of the same storage type with a copy of our index data.
+     */
+    public abstract IndexBufferData<T> makeCopy();
+
+    /**
+     * Write the given values, starting at the buffer's current position.
+     * 
+     * @param array
+     *            the index values to store.
+     * @return this object, for chaining.
+     */
+    public IndexBufferData<T> put(final int[] array) {
+        for (int i = 0; i < array.length; i++) {
+            put(array[i]);
+        }
+        return this;
+    }
+
+    /**
+     * Copy the remaining contents of the given index data into this buffer, starting at our current position.
+     * 
+     * @param buf
+     *            the source index data
+     * @return this object, for chaining.
+     */
+    public IndexBufferData<T> put(final IndexBufferData<?> buf) {
+        while (buf.remaining() > 0) {
+            put(buf.get());
+        }
+        return this;
+    }
+
+    /**
+     * @return a new int array holding the contents of this buffer, from 0 to limit.
+     */
+    public int[] toArray() {
+        final int[] rVal = new int[_buffer.limit()];
+        for (int i = 0; i < rVal.length; i++) {
+            rVal[i] = get(i);
+        }
+        return rVal;
+    }
+
+    public int position() {
+        return _buffer.position();
+    }
+
+    public void position(final int newPosition) {
+        _buffer.position(newPosition);
+    }
+
+    public int limit() {
+        return _buffer.limit();
+    }
+
+    public void limit(final int newLimit) {
+        _buffer.limit(newLimit);
+    }
+
+    public int capacity() {
+        return _buffer.capacity();
+    }
+
+    public int remaining() {
+        return _buffer.remaining();
+    }
+
+    public void rewind() {
+        _buffer.rewind();
+    }
+
+    public void clear() {
+        _buffer.clear();
+    }
+
+    public void flip() {
+        _buffer.flip();
+    }
+}
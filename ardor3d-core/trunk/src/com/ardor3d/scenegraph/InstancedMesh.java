@@ -0,0 +1,477 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.bounding.BoundingSphere;
+import com.ardor3d.math.Matrix4;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.math.type.ReadOnlyColorRGBA;
+import com.ardor3d.math.type.ReadOnlyMatrix3;
+import com.ardor3d.math.type.ReadOnlyTransform;
+import com.ardor3d.math.type.ReadOnlyVector3;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.ContextManager;
+import com.ardor3d.renderer.RenderContext;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.scenegraph.event.DirtyType;
+import com.ardor3d.util.export.Ardor3DExporter;
+import com.ardor3d.util.export.Ardor3DImporter;
+import com.ardor3d.util.export.InputCapsule;
+import com.ardor3d.util.export.OutputCapsule;
+import com.ardor3d.util.geom.BufferUtils;
+
+/**
+ * <code>InstancedMesh</code> draws its MeshData once for each of a list of instances, each with its own transform and,
+ * optionally, its own color, for example the trees of a forest or the members of a crowd. The instances are drawn
+ * with one set up of the vertex data and states, and a single {@link Renderer#drawInstances} call.
+ * <p>
+ * Instance transforms are relative to this mesh, and are kept packed as 4x4 matrices. When drawn, each instance is
+ * tested against the camera frustum using the bounding sphere of the mesh data, and the visible instances are copied
+ * together before drawing. The model bound of this mesh covers all instances. Per instance colors replace the default
+ * color, so they have no effect on mesh data with a color buffer. Instances with non uniform scales need a normals mode
+ * that normalizes normals. Display lists are not used.
+ * </p>
+ */
+public class InstancedMesh extends Mesh {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Column major 4x4 matrices, 16 floats per instance. */
+    private float[] _instanceMatrices = new float[0];
+
+    /** Colors, 4 floats per instance, or null if no instance color has been set. */
+    private float[] _instanceColors;
+
+    /** Bounding spheres in the space of this mesh, 4 floats (center and radius) per instance. */
+    private float[] _instanceSpheres = new float[0];
+
+    private int _instanceCount;
+
+    private boolean _instanceCulling = true;
+
+    /** The bound of the mesh data, shared by all instances. */
+    private final BoundingSphere _dataBound = new BoundingSphere();
+    private boolean _instanceBoundsDirty;
+
+    /** The visible instances found by the last cull. */
+    private transient FloatBuffer _visibleMatrices;
+    private transient FloatBuffer _visibleColors;
+    private transient int _visibleCount;
+
+    private final Matrix4 _matrix = new Matrix4();
+    private final BoundingSphere _cullSphere = new BoundingSphere();
+
+    public InstancedMesh() {
+        super();
+    }
+
+    /**
+     * @param name
+     *            the name of the mesh.
+     */
+    public InstancedMesh(final String name) {
+        super(name);
+    }
+
+    /**
+     * @param name
+     *            the name of the mesh.
+     * @param meshData
+     *            the mesh data drawn for each instance. It may be shared with other meshes.
+     */
+    public InstancedMesh(final String name, final MeshData meshData) {
+        super(name);
+        setMeshData(meshData);
+        updateModelBound();
+    }
+
+    /**
+     * Adds an instance with the default color.
+     * 
+     * @param transform
+     *            the transform of the instance, relative to this mesh.
+     * @return the index of the new instance.
+     */
+    public int addInstance(final ReadOnlyTransform transform) {
+        ensureCapacity(_instanceCount + 1);
+        final int index = _instanceCount++;
+        if (_instanceColors != null) {
+            setColor(index, _defaultColor);
+        }
+        setInstanceTransform(index, transform);
+        return index;
+    }
+
+    /**
+     * Adds an instance with its own color.
+     * 
+     * @param transform
+     *            the transform of the instance, relative to this mesh.
+     * @param color
+     *            the color of the instance.
+     * @return the index of the new instance.
+     */
+    public int addInstance(final ReadOnlyTransform transform, final ReadOnlyColorRGBA color) {
+        final int index = addInstance(transform);
+        setInstanceColor(index, color);
+        return index;
+    }
+
+    /**
+     * @param index
+     *            the instance to change.
+     * @param transform
+     *            the new transform of the instance, relative to this mesh.
+     * @throws IndexOutOfBoundsException
+     *             if there is no instance at index.
+     */
+    public void setInstanceTransform(final int index, final ReadOnlyTransform transform) {
+        checkIndex(index);
+        // the homogeneous matrix is stored transposed, so its rows are the columns OpenGL expects.
+        transform.getHomogeneousMatrix(_matrix);
+        final int offset = index * 16;
+        for (int row = 0; row < 4; row++) {
+            for (int column = 0; column < 4; column++) {
+                _instanceMatrices[offset + row * 4 + column] = (float) _matrix.getValue(row, column);
+            }
+        }
+        updateInstanceSphere(index);
+        _instanceBoundsDirty = true;
+        markDirty(DirtyType.Bounding);
+    }
+
+    /**
+     * @param index
+     *            the instance to change.
+     * @param color
+     *            the new color of the instance.
+     * @throws IndexOutOfBoundsException
+     *             if there is no instance at index.
+     */
+    public void setInstanceColor(final int index, final ReadOnlyColorRGBA color) {
+        checkIndex(index);
+        if (_instanceColors == null) {
+            _instanceColors = new float[_instanceMatrices.length / 4];
+            for (int i = 0; i < _instanceCount; i++) {
+                setColor(i, _defaultColor);
+            }
+        }
+        setColor(index, color);
+    }
+
+    /**
+     * Removes an instance. The last instance takes its place, so its index changes.
+     * 
+     * @param index
+     *            the instance to remove.
+     * @throws IndexOutOfBoundsException
+     *             if there is no instance at index.
+     */
+    public void removeInstance(final int index) {
+        checkIndex(index);
+        final int last = --_instanceCount;
+        if (index != last) {
+            System.arraycopy(_instanceMatrices, last * 16, _instanceMatrices, index * 16, 16);
+            System.arraycopy(_instanceSpheres, last * 4, _instanceSpheres, index * 4, 4);
+            if (_instanceColors != null) {
+                System.arraycopy(_instanceColors, last * 4, _instanceColors, index * 4, 4);
+            }
+        }
+        _instanceBoundsDirty = true;
+        markDirty(DirtyType.Bounding);
+    }
+
+    /**
+     * Removes all instances.
+     */
+    public void clearInstances() {
+        _instanceCount = 0;
+        _instanceColors = null;
+        _instanceBoundsDirty = true;
+        markDirty(DirtyType.Bounding);
+    }
+
+    public int getInstanceCount() {
+        return _instanceCount;
+    }
+
+    /**
+     * @return the number of instances found visible by the last cull.
+     */
+    public int getVisibleInstanceCount() {
+        return _visibleCount;
+    }
+
+    public boolean isInstanceCulling() {
+        return _instanceCulling;
+    }
+
+    /**
+     * @param instanceCulling
+     *            if false, all instances are drawn whenever this mesh is. Default is true.
+     */
+    public void setInstanceCulling(final boolean instanceCulling) {
+        _instanceCulling = instanceCulling;
+    }
+
+    /**
+     * Finds the instances in view of the given camera, and copies their matrices and colors together for drawing.
+     * Uses the world transform of this mesh, so call after updateGeometricState.
+     * 
+     * @param camera
+     *            the camera to test against, or null to keep all instances.
+     * @return the number of visible instances.
+     */
+    public int cullInstances(final Camera camera) {
+        if (_visibleMatrices == null || _visibleMatrices.capacity() < _instanceCount * 16) {
+            _visibleMatrices = BufferUtils.createFloatBuffer(Math.max(_instanceCount, 1) * 16);
+        }
+        if (_instanceColors != null && (_visibleColors == null || _visibleColors.capacity() < _instanceCount * 4)) {
+            _visibleColors = BufferUtils.createFloatBuffer(Math.max(_instanceCount, 1) * 4);
+        }
+        _visibleMatrices.clear();
+        if (_visibleColors != null) {
+            _visibleColors.clear();
+        }
+
+        // nothing to test if culling is off or the whole mesh is in view.
+        if (camera == null || !_instanceCulling || _frustrumIntersects == Camera.FrustumIntersect.Inside) {
+            _visibleMatrices.put(_instanceMatrices, 0, _instanceCount * 16);
+            if (_instanceColors != null) {
+                _visibleColors.put(_instanceColors, 0, _instanceCount * 4);
+            }
+            _visibleCount = _instanceCount;
+            return _visibleCount;
+        }
+
+        final double worldScale = getMaxScale(_worldTransform);
+        final Vector3 center = Vector3.fetchTempInstance();
+        final int planeState = camera.getPlaneState();
+        _visibleCount = 0;
+        for (int i = 0; i < _instanceCount; i++) {
+            final int sphere = i * 4;
+            center.set(_instanceSpheres[sphere], _instanceSpheres[sphere + 1], _instanceSpheres[sphere + 2]);
+            _worldTransform.applyForward(center);
+            _cullSphere.setCenter(center);
+            _cullSphere.setRadius(_instanceSpheres[sphere + 3] * worldScale);
+
+            camera.setPlaneState(planeState);
+            if (camera.contains(_cullSphere) != Camera.FrustumIntersect.Outside) {
+                _visibleMatrices.put(_instanceMatrices, i * 16, 16);
+                if (_instanceColors != null) {
+                    _visibleColors.put(_instanceColors, sphere, 4);
+                }
+                _visibleCount++;
+            }
+        }
+        camera.setPlaneState(planeState);
+        Vector3.releaseTempInstance(center);
+        return _visibleCount;
+    }
+
+    /**
+     * @return the matrices of the instances found visible by the last cull, 16 floats per instance.
+     */
+    public FloatBuffer getVisibleMatrices() {
+        return _visibleMatrices;
+    }
+
+    /**
+     * @return the colors of the instances found visible by the last cull, 4 floats per instance, or null if no
+     *         instance color has been set.
+     */
+    public FloatBuffer getVisibleColors() {
+        return _instanceColors != null ? _visibleColors : null;
+    }
+
+    @Override
+    public void render(final Renderer renderer) {
+        final RenderContext context = ContextManager.getCurrentContext();
+        cullInstances(context != null ? context.getCurrentCamera() : null);
+        if (_visibleCount == 0) {
+            return;
+        }
+
+        renderer.applyStates(_states);
+
+        final boolean transformed = renderer.doTransforms(_worldTransform);
+
+        setupRenderData(renderer);
+        renderer.drawInstances(_meshData.getIndices(), _meshData.getVertexBuffer(), _vboInfo, _meshData
+                .getIndexLengths(), _meshData.getIndexModes(), _visibleMatrices, getVisibleColors(), _visibleCount);
+
+        if (transformed) {
+            renderer.undoTransforms(_worldTransform);
+        }
+    }
+
+    /**
+     * Recomputes the bound of the mesh data and, from it, the bounds of all instances.
+     */
+    @Override
+    public void updateModelBound() {
+        if (_meshData.getVertexBuffer() != null) {
+            _dataBound.computeFromPoints(_meshData.getVertexBuffer());
+        }
+        for (int i = 0; i < _instanceCount; i++) {
+            updateInstanceSphere(i);
+        }
+        _instanceBoundsDirty = true;
+        markDirty(DirtyType.Bounding);
+    }
+
+    @Override
+    public void updateWorldBound(final boolean recurse) {
+        if (_instanceBoundsDirty) {
+            updateInstanceBounds();
+        }
+        super.updateWorldBound(recurse);
+    }
+
+    /**
+     * Fits the model bound around the bounds of all instances. Boxes and spheres are kept, other bound types are
+     * replaced by a box.
+     */
+    private void updateInstanceBounds() {
+        _instanceBoundsDirty = false;
+        if (_instanceCount == 0) {
+            _modelBound = null;
+            return;
+        }
+
+        double minX = Double.POSITIVE_INFINITY, minY = minX, minZ = minX;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = maxX, maxZ = maxX;
+        for (int i = 0; i < _instanceCount; i++) {
+            final int sphere = i * 4;
+            final float radius = _instanceSpheres[sphere + 3];
+            minX = Math.min(minX, _instanceSpheres[sphere] - radius);
+            minY = Math.min(minY, _instanceSpheres[sphere + 1] - radius);
+            minZ = Math.min(minZ, _instanceSpheres[sphere + 2] - radius);
+            maxX = Math.max(maxX, _instanceSpheres[sphere] + radius);
+            maxY = Math.max(maxY, _instanceSpheres[sphere + 1] + radius);
+            maxZ = Math.max(maxZ, _instanceSpheres[sphere + 2] + radius);
+        }
+
+        final double extentX = (maxX - minX) / 2, extentY = (maxY - minY) / 2, extentZ = (maxZ - minZ) / 2;
+        final Vector3 center = Vector3.fetchTempInstance().set(minX + extentX, minY + extentY, minZ + extentZ);
+        if (_modelBound instanceof BoundingSphere) {
+            _modelBound.setCenter(center);
+            ((BoundingSphere) _modelBound).setRadius(Math.sqrt(extentX * extentX + extentY * extentY + extentZ
+                    * extentZ));
+        } else {
+            if (!(_modelBound instanceof BoundingBox)) {
+                _modelBound = new BoundingBox();
+            }
+            final BoundingBox box = (BoundingBox) _modelBound;
+            box.setCenter(center);
+            box.setXExtent(extentX);
+            box.setYExtent(extentY);
+            box.setZExtent(extentZ);
+        }
+        Vector3.releaseTempInstance(center);
+    }
+
+    private void updateInstanceSphere(final int index) {
+        final int matrix = index * 16;
+        final int sphere = index * 4;
+        final ReadOnlyVector3 center = _dataBound.getCenter();
+        for (int row = 0; row < 3; row++) {
+            _instanceSpheres[sphere + row] = (float) (_instanceMatrices[matrix + row] * center.getX()
+                    + _instanceMatrices[matrix + 4 + row] * center.getY() + _instanceMatrices[matrix + 8 + row]
+                    * center.getZ() + _instanceMatrices[matrix + 12 + row]);
+        }
+        double scale = 0;
+        for (int column = 0; column < 3; column++) {
+            final int offset = matrix + column * 4;
+            scale = Math.max(scale, Math.sqrt(_instanceMatrices[offset] * _instanceMatrices[offset]
+                    + _instanceMatrices[offset + 1] * _instanceMatrices[offset + 1] + _instanceMatrices[offset + 2]
+                    * _instanceMatrices[offset + 2]));
+        }
+        _instanceSpheres[sphere + 3] = (float) (_dataBound.getRadius() * scale);
+    }
+
+    private static double getMaxScale(final ReadOnlyTransform transform) {
+        if (transform.isRotationMatrix()) {
+            final ReadOnlyVector3 scale = transform.getScale();
+            return Math.max(Math.abs(scale.getX()), Math.max(Math.abs(scale.getY()), Math.abs(scale.getZ())));
+        }
+        final ReadOnlyMatrix3 matrix = transform.getMatrix();
+        double scale = 0;
+        for (int column = 0; column < 3; column++) {
+            final double x = matrix.getValue(0, column), y = matrix.getValue(1, column), z = matrix.getValue(2, column);
+            scale = Math.max(scale, Math.sqrt(x * x + y * y + z * z));
+        }
+        return scale;
+    }
+
+    private void setColor(final int index, final ReadOnlyColorRGBA color) {
+        final int offset = index * 4;
+        _instanceColors[offset] = color.getRed();
+        _instanceColors[offset + 1] = color.getGreen();
+        _instanceColors[offset + 2] = color.getBlue();
+        _instanceColors[offset + 3] = color.getAlpha();
+    }
+
+    private void ensureCapacity(final int count) {
+        if (_instanceSpheres.length >= count * 4) {
+            return;
+        }
+        final int capacity = Math.max(count, _instanceSpheres.length / 4 * 2);
+        _instanceMatrices = grow(_instanceMatrices, capacity * 16);
+        _instanceSpheres = grow(_instanceSpheres, capacity * 4);
+        if (_instanceColors != null) {
+            _instanceColors = grow(_instanceColors, capacity * 4);
+        }
+    }
+
+    private static float[] grow(final float[] array, final int length) {
+        final float[] grown = new float[length];
+        System.arraycopy(array, 0, grown, 0, array.length);
+        return grown;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= _instanceCount) {
+            throw new IndexOutOfBoundsException("index: " + index + " count: " + _instanceCount);
+        }
+    }
+
+    @Override
+    public void write(final Ardor3DExporter e) throws IOException {
+        super.write(e);
+        final OutputCapsule capsule = e.getCapsule(this);
+        final float[] matrices = new float[_instanceCount * 16];
+        System.arraycopy(_instanceMatrices, 0, matrices, 0, matrices.length);
+        capsule.write(matrices, "instanceMatrices", null);
+        if (_instanceColors != null) {
+            final float[] colors = new float[_instanceCount * 4];
+            System.arraycopy(_instanceColors, 0, colors, 0, colors.length);
+            capsule.write(colors, "instanceColors", null);
+        }
+        capsule.write(_instanceCulling, "instanceCulling", true);
+    }
+
+    @Override
+    public void read(final Ardor3DImporter e) throws IOException {
+        super.read(e);
+        final InputCapsule capsule = e.getCapsule(this);
+        _instanceMatrices = capsule.readFloatArray("instanceMatrices", new float[0]);
+        _instanceColors = capsule.readFloatArray("instanceColors", null);
+        _instanceCulling = capsule.readBoolean("instanceCulling", true);
+        _instanceCount = _instanceMatrices.length / 16;
+        _instanceSpheres = new float[_instanceCount * 4];
+        updateModelBound();
+    }
+}
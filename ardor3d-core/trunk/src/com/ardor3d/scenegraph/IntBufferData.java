@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+
+import com.ardor3d.util.export.Ardor3DExporter;
+import com.ardor3d.util.export.Ardor3DImporter;
+import com.ardor3d.util.export.InputCapsule;
+import com.ardor3d.util.export.OutputCapsule;
+import com.ardor3d.util.geom.BufferUtils;
+
+/**
+ * Index data stored as ints.
+ */
+public class IntBufferData extends IndexBufferData<IntBuffer> {
+
+    /**
+     * Instantiates a new IntBufferData with no buffer set. Used mainly by the import system.
+     */
+    public IntBufferData() {}
+
+    /**
+     * Instantiates a new IntBufferData with a new direct buffer of the given size.
+     * 
+     * @param size
+     *            the number of indices to hold.
+     */
+    public IntBufferData(final int size) {
+        this(BufferUtils.createIntBuffer(size));
+    }
+
+    /**
+     * Instantiates a new IntBufferData wrapping the given buffer.
+     * 
+     * @param buffer
+     *            the buffer holding our index data.
+     */
+    public IntBufferData(final IntBuffer buffer) {
+        _buffer = buffer;
+    }
+
+    @Override
+    public int get() {
+        return _buffer.get();
+    }
+
+    @Override
+    public int get(final int index) {
+        return _buffer.get(index);
+    }
+
+    @Override
+    public IntBufferData put(final int value) {
+        _buffer.put(value);
+        return this;
+    }
+
+    @Override
+    public IntBufferData put(final int index, final int value) {
+        _buffer.put(index, value);
+        return this;
+    }
+
+    @Override
+    public int getByteCount() {
+        return 4;
+    }
+
+    @Override
+    public int getMaxIndex() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public IntBufferData makeCopy() {
+        return new IntBufferData(BufferUtils.clone(_buffer));
+    }
+
+    // /////////////////
+    // Methods for Savable
+    // /////////////////
+
+    public Class<? extends IntBufferData> getClassTag() {
+        return getClass();
+    }
+
+    public void read(final Ardor3DImporter im) throws IOException {
+        final InputCapsule cap = im.getCapsule(this);
+        _buffer = cap.readIntBuffer("buffer", null);
+    }
+
+    public void write(final Ardor3DExporter ex) throws IOException {
+        final OutputCapsule cap = ex.getCapsule(this);
+        cap.write(_buffer, "buffer", null);
+    }
+}
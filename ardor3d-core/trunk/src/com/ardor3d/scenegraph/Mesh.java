@@ -12,7 +12,6 @@ package com.ardor3d.scenegraph;
 
 import java.io.IOException;
 import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 import java.util.EnumMap;
 import java.util.Map;
 import java.util.Stack;
@@ -24,6 +23,7 @@ import com.ardor3d.math.MathUtils;
 import com.ardor3d.math.Vector3;
 import com.ardor3d.math.type.ReadOnlyColorRGBA;
 import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.state.LightGrid;
 import com.ardor3d.renderer.state.LightState;
 import com.ardor3d.renderer.state.LightUtil;
 import com.ardor3d.renderer.state.RenderState;
@@ -56,6 +56,9 @@ public class Mesh extends Spatial implements Renderable {
     /** The compiled lightState for this mesh */
     protected LightState _lightState;
 
+    /** Holds the lights picked by sortLights, if the world light state has more than can be applied. */
+    protected LightState _activeLightState;
+
     /** The mesh's VBO information. */
     protected transient VBOInfo _vboInfo;
 
@@ -104,6 +107,19 @@ public class Mesh extends Spatial implements Renderable {
         _meshData = meshData;
     }
 
+    /**
+     * Retrieves the mesh data object used by this mesh, to change it. If the data is shared through the
+     * {@link com.ardor3d.util.geom.GeometryCache}, it is first replaced by a copy used by this mesh alone.
+     * 
+     * @return the mesh data object, safe to change
+     */
+    public MeshData getWritableMeshData() {
+        if (_meshData.isShared()) {
+            _meshData = _meshData.makeCopy();
+        }
+        return _meshData;
+    }
+
     /**
      * Retrieves the local bounding volume for this mesh.
      * 
@@ -124,8 +140,25 @@ public class Mesh extends Spatial implements Renderable {
      *            the bounding volume
      */
     public void setModelBound(final BoundingVolume modelBound) {
+        setModelBound(modelBound, true);
+    }
+
+    /**
+     * Sets the local bounding volume for this mesh. This will mark the spatial as having dirty bounds.
+     * 
+     * @param modelBound
+     *            the bounding volume, copied.
+     * @param compute
+     *            true to fit the bound to our vertices, false to take it as is, for example when it was already
+     *            computed for the mesh data we share with another mesh.
+     */
+    public void setModelBound(final BoundingVolume modelBound, final boolean compute) {
         _modelBound = modelBound != null ? modelBound.clone(_modelBound) : null;
-        updateModelBound();
+        if (compute) {
+            updateModelBound();
+        } else {
+            markDirty(DirtyType.Bounding);
+        }
     }
 
     /**
@@ -139,6 +172,23 @@ public class Mesh extends Spatial implements Renderable {
         }
     }
 
+    /**
+     * Grows the model bound to contain a range of vertices, for example after those vertices were edited. This is much
+     * cheaper than a full {@link #updateModelBound()} but never shrinks the bound, so call the full version now and
+     * then if vertices tend to move inward.
+     * 
+     * @param startVertex
+     *            the first vertex changed.
+     * @param count
+     *            the number of vertices changed.
+     */
+    public void updateModelBound(final int startVertex, final int count) {
+        if (_modelBound != null && _meshData.getVertexBuffer() != null) {
+            _modelBound.expandToContain(_meshData.getVertexBuffer(), startVertex, count);
+            markDirty(DirtyType.Bounding);
+        }
+    }
+
     @Override
     public void updateWorldBound(final boolean recurse) {
         if (_modelBound != null) {
@@ -204,18 +254,10 @@ public class Mesh extends Spatial implements Renderable {
         if (getDisplayListID() != -1) {
             renderer.renderDisplayList(getDisplayListID());
         } else {
-            if (_meshData.getInterleavedBuffer() != null) {
-                renderer.setupInterleavedData(_meshData.getInterleavedBuffer(), _meshData.getInterleavedFormat(),
-                        _vboInfo);
-            } else {
-                renderer.setupVertexData(_meshData.getVertexBuffer(), _vboInfo);
-                renderer.setupNormalData(_meshData.getNormalBuffer(), getNormalsMode(), _worldTransform, _vboInfo);
-                renderer.setupColorData(_meshData.getColorBuffer(), _vboInfo, _defaultColor);
-                renderer.setupTextureData(_meshData.getTextureCoords(), _vboInfo);
-            }
+            setupRenderData(renderer);
 
-            if (_meshData.getIndexBuffer() != null) {
-                renderer.drawElements(_meshData.getIndexBuffer(), _vboInfo, _meshData.getIndexLengths(), _meshData
+            if (_meshData.getIndices() != null) {
+                renderer.drawElements(_meshData.getIndices(), _vboInfo, _meshData.getIndexLengths(), _meshData
                         .getIndexModes());
             } else {
                 renderer
@@ -228,6 +270,20 @@ public class Mesh extends Spatial implements Renderable {
         }
     }
 
+    /**
+     * Sets up the vertex, normal, color and texture data of this mesh for drawing.
+     */
+    protected void setupRenderData(final Renderer renderer) {
+        if (_meshData.getInterleavedBuffer() != null) {
+            renderer.setupInterleavedData(_meshData.getInterleavedBuffer(), _meshData.getInterleavedFormat(), _vboInfo);
+        } else {
+            renderer.setupVertexData(_meshData.getVertexBuffer(), _vboInfo);
+            renderer.setupNormalData(_meshData.getNormalBuffer(), getNormalsMode(), _worldTransform, _vboInfo);
+            renderer.setupColorData(_meshData.getColorBuffer(), _vboInfo, _defaultColor);
+            renderer.setupTextureData(_meshData.getTextureCoords(), _vboInfo);
+        }
+    }
+
     @Override
     protected void applyWorldRenderStates(final boolean recurse,
             final Map<RenderState.StateType, Stack<RenderState>> states) {
@@ -275,10 +331,11 @@ public class Mesh extends Spatial implements Renderable {
     public void reconstruct(final FloatBuffer vertices, final FloatBuffer normals, final FloatBuffer colors,
             final TexCoords coords) {
 
-        _meshData.setVertexBuffer(vertices);
-        _meshData.setNormalBuffer(normals);
-        _meshData.setColorBuffer(colors);
-        _meshData.setTextureCoords(coords, 0);
+        final MeshData meshData = getWritableMeshData();
+        meshData.setVertexBuffer(vertices);
+        meshData.setNormalBuffer(normals);
+        meshData.setColorBuffer(colors);
+        meshData.setTextureCoords(coords, 0);
 
         if (getVBOInfo() != null) {
             resizeTextureIds(1);
@@ -298,10 +355,10 @@ public class Mesh extends Spatial implements Renderable {
      *            the new texture coordinates to use (position 0).
      */
     public void reconstruct(final FloatBuffer vertices, final FloatBuffer normals, final FloatBuffer colors,
-            final TexCoords coords, final IntBuffer indices) {
+            final TexCoords coords, final IndexBufferData<?> indices) {
 
         reconstruct(vertices, normals, colors, coords);
-        _meshData.setIndexBuffer(indices);
+        getWritableMeshData().setIndices(indices);
     }
 
     public void resizeTextureIds(final int i) {
@@ -323,13 +380,30 @@ public class Mesh extends Spatial implements Renderable {
     }
 
     /**
-     * Sorts the lights based on distance to mesh bounding volume
+     * Picks the lights with the highest value for this mesh, based on their distance to the mesh bounding volume, if
+     * this mesh is lit by more lights than can be applied. The world light state, which may be shared, is not modified.
      */
     @Override
     public void sortLights() {
         if (_lightState != null && _lightState.getLightList().size() > LightState.MAX_LIGHTS_ALLOWED) {
-            LightUtil.sort(this, _lightState.getLightList());
+            LightUtil.selectLights(this, _lightState, getActiveLightState());
+            _states.put(StateType.Light, _activeLightState);
+        }
+    }
+
+    @Override
+    public void sortLights(final LightGrid grid) {
+        if (_lightState != null && _lightState.getLightList().size() > LightState.MAX_LIGHTS_ALLOWED) {
+            grid.selectLights(this, _lightState, getActiveLightState());
+            _states.put(StateType.Light, _activeLightState);
+        }
+    }
+
+    private LightState getActiveLightState() {
+        if (_activeLightState == null) {
+            _activeLightState = new LightState();
         }
+        return _activeLightState;
     }
 
     public LightState getLightState() {
@@ -404,10 +478,11 @@ public class Mesh extends Spatial implements Renderable {
      *            the color to set.
      */
     public void setSolidColor(final ReadOnlyColorRGBA color) {
-        FloatBuffer colorBuf = _meshData.getColorBuffer();
+        final MeshData meshData = getWritableMeshData();
+        FloatBuffer colorBuf = meshData.getColorBuffer();
         if (colorBuf == null) {
-            colorBuf = BufferUtils.createColorBuffer(_meshData.getVertexCount());
-            _meshData.setColorBuffer(colorBuf);
+            colorBuf = BufferUtils.createColorBuffer(meshData.getVertexCount());
+            meshData.setColorBuffer(colorBuf);
         }
 
         colorBuf.rewind();
@@ -424,10 +499,11 @@ public class Mesh extends Spatial implements Renderable {
      * Sets every color of this geometry's color array to a random color.
      */
     public void setRandomColors() {
-        FloatBuffer colorBuf = _meshData.getColorBuffer();
+        final MeshData meshData = getWritableMeshData();
+        FloatBuffer colorBuf = meshData.getColorBuffer();
         if (colorBuf == null) {
-            colorBuf = BufferUtils.createColorBuffer(_meshData.getVertexCount());
-            _meshData.setColorBuffer(colorBuf);
+            colorBuf = BufferUtils.createColorBuffer(meshData.getVertexCount());
+            meshData.setColorBuffer(colorBuf);
         }
 
         for (int x = 0, cLength = colorBuf.limit(); x < cLength; x += 4) {
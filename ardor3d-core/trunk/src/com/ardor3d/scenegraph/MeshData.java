@@ -11,8 +11,11 @@
 package com.ardor3d.scenegraph;
 
 import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -56,10 +59,13 @@ public class MeshData implements Cloneable, Savable {
     protected transient FloatBuffer _tangentBuffer;
 
     /** Index data */
-    protected transient IntBuffer _indexBuffer;
+    protected transient IndexBufferData<?> _indexBuffer;
     protected transient int[] _indexLengths;
     protected transient IndexMode[] _indexModes = new IndexMode[] { IndexMode.Triangles };
 
+    /** Set if this data is shared through the {@link com.ardor3d.util.geom.GeometryCache}. */
+    protected transient boolean _shared;
+
     /**
      * Retrieves the interleaved buffer, if set or created through packInterleaved.
      * 
@@ -277,21 +283,76 @@ public class MeshData implements Cloneable, Savable {
 
     /**
      * 
-     * @return
+     * @return the index data of this mesh, or null if the mesh is not indexed.
      */
-    public IntBuffer getIndexBuffer() {
+    public IndexBufferData<?> getIndices() {
         return _indexBuffer;
     }
 
     /**
      * 
      * @param indices
+     *            the new index data, or null to draw the vertices in order.
      */
-    public void setIndexBuffer(final IntBuffer indices) {
+    public void setIndices(final IndexBufferData<?> indices) {
         _indexBuffer = indices;
         updatePrimitiveCounts();
     }
 
+    /**
+     * 
+     * @return the nio buffer backing our index data, or null if the mesh is not indexed. The concrete type depends on
+     *         the storage picked for the indices; use {@link #getIndices()} to read and write index values.
+     */
+    public Buffer getIndexBuffer() {
+        if (_indexBuffer == null) {
+            return null;
+        }
+        return _indexBuffer.getBuffer();
+    }
+
+    /**
+     * 
+     * @param indices
+     */
+    public void setIndexBuffer(final IntBuffer indices) {
+        setIndices(indices != null ? new IntBufferData(indices) : null);
+    }
+
+    /**
+     * 
+     * @param indices
+     */
+    public void setIndexBuffer(final ShortBuffer indices) {
+        setIndices(indices != null ? new ShortBufferData(indices) : null);
+    }
+
+    /**
+     * 
+     * @param indices
+     */
+    public void setIndexBuffer(final ByteBuffer indices) {
+        setIndices(indices != null ? new ByteBufferData(indices) : null);
+    }
+
+    /**
+     * Replace our index data with the narrowest storage type able to hold our vertex count. Useful for meshes whose
+     * indices were handed to us as an IntBuffer.
+     */
+    public void compactIndices() {
+        if (_indexBuffer == null) {
+            return;
+        }
+        final IndexBufferData<?> compact = BufferUtils.createIndexBufferData(_indexBuffer.limit(), _vertexCount - 1);
+        if (compact.getByteCount() >= _indexBuffer.getByteCount()) {
+            return;
+        }
+        _indexBuffer.rewind();
+        compact.put(_indexBuffer);
+        compact.flip();
+        _indexBuffer = compact;
+    }
+
     /**
      * 
      * @return
@@ -453,9 +514,9 @@ public class MeshData implements Cloneable, Savable {
             case TriangleStrip:
             case Quads:
             case QuadStrip: {
-                final int pntA = getIndexBuffer().get(getVertexIndex(primitiveIndex, 0, section));
-                final int pntB = getIndexBuffer().get(getVertexIndex(primitiveIndex, 1, section));
-                final int pntC = getIndexBuffer().get(getVertexIndex(primitiveIndex, 2, section));
+                final int pntA = getIndices().get(getVertexIndex(primitiveIndex, 0, section));
+                final int pntB = getIndices().get(getVertexIndex(primitiveIndex, 1, section));
+                final int pntC = getIndices().get(getVertexIndex(primitiveIndex, 2, section));
 
                 double b = MathUtils.nextRandomDouble();
                 double c = MathUtils.nextRandomDouble();
@@ -486,15 +547,15 @@ public class MeshData implements Cloneable, Savable {
                 break;
             }
             case Points: {
-                final int pnt = getIndexBuffer().get(getVertexIndex(primitiveIndex, 0, section));
+                final int pnt = getIndices().get(getVertexIndex(primitiveIndex, 0, section));
                 BufferUtils.populateFromBuffer(result, getVertexBuffer(), pnt);
                 break;
             }
             case Lines:
             case LineLoop:
             case LineStrip: {
-                final int pntA = getIndexBuffer().get(getVertexIndex(primitiveIndex, 0, section));
-                final int pntB = getIndexBuffer().get(getVertexIndex(primitiveIndex, 1, section));
+                final int pntA = getIndices().get(getVertexIndex(primitiveIndex, 0, section));
+                final int pntB = getIndices().get(getVertexIndex(primitiveIndex, 1, section));
 
                 final Vector3 work = Vector3.fetchTempInstance();
                 BufferUtils.populateFromBuffer(result, getVertexBuffer(), pntA);
@@ -651,6 +712,60 @@ public class MeshData implements Cloneable, Savable {
         }
     }
 
+    /**
+     * @return true if this data is handed out by the {@link com.ardor3d.util.geom.GeometryCache} to any number of
+     *         meshes, and must not be changed. Use {@link Mesh#getWritableMeshData()} to get a copy to change.
+     */
+    public boolean isShared() {
+        return _shared;
+    }
+
+    /**
+     * @param shared
+     *            true if this data is shared between meshes and must not be changed. Set by the
+     *            {@link com.ardor3d.util.geom.GeometryCache}.
+     */
+    public void setShared(final boolean shared) {
+        _shared = shared;
+    }
+
+    /**
+     * @return a copy of this data with copies of all its buffers. The copy is not shared.
+     */
+    public MeshData makeCopy() {
+        final MeshData copy = clone();
+        copy._shared = false;
+        copy._primitiveCounts = _primitiveCounts.clone();
+        copy._vertexBuffer = copyBuffer(_vertexBuffer);
+        copy._normalBuffer = copyBuffer(_normalBuffer);
+        copy._colorBuffer = copyBuffer(_colorBuffer);
+        copy._tangentBuffer = copyBuffer(_tangentBuffer);
+        copy._interleavedBuffer = copyBuffer(_interleavedBuffer);
+        copy._textureCoords = new ArrayList<TexCoords>(_textureCoords.size());
+        for (final TexCoords coords : _textureCoords) {
+            copy._textureCoords.add(coords != null ? new TexCoords(copyBuffer(coords.coords), coords.perVert) : null);
+        }
+        if (_indexBuffer != null) {
+            _indexBuffer.rewind();
+            copy._indexBuffer = _indexBuffer.makeCopy();
+            copy._indexBuffer.rewind();
+            _indexBuffer.rewind();
+        }
+        copy._indexLengths = _indexLengths != null ? _indexLengths.clone() : null;
+        copy._indexModes = _indexModes.clone();
+        return copy;
+    }
+
+    private static FloatBuffer copyBuffer(final FloatBuffer buffer) {
+        if (buffer == null) {
+            return null;
+        }
+        final FloatBuffer copy = BufferUtils.clone(buffer);
+        buffer.rewind();
+        copy.rewind();
+        return copy;
+    }
+
     // /////////////////
     // Method for Cloneable
     // /////////////////
@@ -680,7 +795,7 @@ public class MeshData implements Cloneable, Savable {
         capsule.write(_normalBuffer, "normalBuffer", null);
         capsule.write(_colorBuffer, "colorBuffer", null);
         capsule.writeSavableList(_textureCoords, "textureCoords", new ArrayList<TexCoords>(1));
-        capsule.write(_indexBuffer, "indexBuffer", null);
+        capsule.write(_indexBuffer, "indices", null);
         capsule.write(_interleavedBuffer, "interleavedBuffer", null);
         capsule.write(_tangentBuffer, "tangentBuffer", null);
         capsule.write(_indexLengths, "indexLengths", null);
@@ -695,7 +810,14 @@ public class MeshData implements Cloneable, Savable {
         _normalBuffer = capsule.readFloatBuffer("normalBuffer", null);
         _colorBuffer = capsule.readFloatBuffer("colorBuffer", null);
         _textureCoords = capsule.readSavableList("textureCoords", new ArrayList<TexCoords>(1));
-        _indexBuffer = capsule.readIntBuffer("indexBuffer", null);
+        _indexBuffer = (IndexBufferData<?>) capsule.readSavable("indices", null);
+        if (_indexBuffer == null) {
+            // files written before narrow index storage was added
+            final IntBuffer indexBuffer = capsule.readIntBuffer("indexBuffer", null);
+            if (indexBuffer != null) {
+                _indexBuffer = new IntBufferData(indexBuffer);
+            }
+        }
         _interleavedBuffer = capsule.readFloatBuffer("interleavedBuffer", null);
         _tangentBuffer = capsule.readFloatBuffer("tangentBuffer", null);
         _indexLengths = capsule.readIntArray("indexLengths", null);
@@ -15,6 +15,7 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
@@ -23,6 +24,7 @@ import java.util.logging.Logger;
 
 import com.ardor3d.bounding.BoundingVolume;
 import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.state.LightGrid;
 import com.ardor3d.renderer.state.RenderState;
 import com.ardor3d.scenegraph.event.DirtyType;
 import com.ardor3d.util.export.Ardor3DExporter;
@@ -40,6 +42,9 @@ public class Node extends Spatial {
     /** This node's children. */
     protected List<Spatial> _children;
 
+    /** Marks made for the whole subtree below this node, handed to the children on the next updateGeometricState. */
+    protected final EnumSet<DirtyType> _dirtyDownMark = EnumSet.noneOf(DirtyType.class);
+
     /**
      * Constructs a new Spatial.
      */
@@ -190,6 +195,7 @@ public class Node extends Spatial {
         final Spatial child = _children.remove(index);
         if (child != null) {
             child.setParent(null);
+            child.unscheduleControllers(true);
             markDirty(child, DirtyType.Detached);
             if (child.getListener() != null) {
                 child.setListener(null);
@@ -201,6 +207,16 @@ public class Node extends Spatial {
         return child;
     }
 
+    @Override
+    void unscheduleControllers(final boolean recurse) {
+        super.unscheduleControllers(recurse);
+        if (recurse && _children != null) {
+            for (int i = 0, max = _children.size(); i < max; i++) {
+                _children.get(i).unscheduleControllers(true);
+            }
+        }
+    }
+
     /**
      * 
      * <code>detachAllChildren</code> removes all children attached to this node.
@@ -330,14 +346,28 @@ public class Node extends Spatial {
         return _children.size();
     }
 
+    /**
+     * Marks this node and, from the next updateGeometricState on, the whole subtree below it as dirty. The mark is only
+     * recorded here and handed to each level below as the update reaches it, rather than walking the subtree now.
+     */
     @Override
     public void propagateDirtyDown(final DirtyType dirtyType) {
         super.propagateDirtyDown(dirtyType);
+        if (_dirtyDownMark.add(dirtyType)) {
+            downMarksChanged();
+        }
+    }
 
-        for (int i = 0, max = getNumberOfChildren(); i < max; i++) {
-            final Spatial child = _children.get(i);
+    @Override
+    boolean isUpdateNeeded() {
+        return super.isUpdateNeeded() || !_dirtyDownMark.isEmpty();
+    }
 
-            child.propagateDirtyDown(dirtyType);
+    @Override
+    void addDirtyBelow(final EnumSet<DirtyType> marks) {
+        super.addDirtyBelow(marks);
+        if (_dirtyDownMark.addAll(marks)) {
+            downMarksChanged();
         }
     }
 
@@ -394,6 +424,7 @@ public class Node extends Spatial {
     @Override
     public void updateWorldBound(final boolean recurse) {
         if (_children == null) {
+            clearDirty(DirtyType.Bounding);
             return;
         }
         BoundingVolume worldBound = null;
@@ -416,7 +447,10 @@ public class Node extends Spatial {
             }
         }
         _worldBound = worldBound;
-        clearDirty(DirtyType.Bounding);
+        // if something below was marked since our last update, our bound is not final yet.
+        if (!_dirtyBelow) {
+            clearDirty(DirtyType.Bounding);
+        }
     }
 
     /**
@@ -451,6 +485,20 @@ public class Node extends Spatial {
         }
     }
 
+    @Override
+    public void sortLights(final LightGrid grid) {
+        if (_children == null) {
+            return;
+        }
+
+        for (int i = 0, cSize = _children.size(); i < cSize; i++) {
+            final Spatial pkChild = getChild(i);
+            if (pkChild != null) {
+                pkChild.sortLights(grid);
+            }
+        }
+    }
+
     // /////////////////
     // Method for Cloneable
     // /////////////////
@@ -497,7 +545,7 @@ public class Node extends Spatial {
         if (_children != null) {
             for (int x = 0, cSize = _children.size(); x < cSize; x++) {
                 final Spatial child = _children.get(x);
-                child._parent = this;
+                child.setParent(this);
             }
         }
     }
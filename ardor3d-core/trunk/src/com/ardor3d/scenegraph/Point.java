@@ -89,14 +89,15 @@ public class Point extends Mesh {
     }
 
     public void generateIndices() {
-        if (_meshData.getIndexBuffer() == null || _meshData.getIndexBuffer().limit() != _meshData.getVertexCount()) {
-            _meshData.setIndexBuffer(BufferUtils.createIntBuffer(_meshData.getVertexCount()));
+        if (_meshData.getIndexBuffer() == null || _meshData.getIndices().limit() != _meshData.getVertexCount()) {
+            _meshData.setIndices(BufferUtils.createIndexBufferData(_meshData.getVertexCount(), _meshData
+                    .getVertexCount() - 1));
         } else {
-            _meshData.getIndexBuffer().rewind();
+            _meshData.getIndices().rewind();
         }
 
         for (int x = 0; x < _meshData.getVertexCount(); x++) {
-            _meshData.getIndexBuffer().put(x);
+            _meshData.getIndices().put(x);
         }
 
         _meshData.setIndexMode(IndexMode.Points);
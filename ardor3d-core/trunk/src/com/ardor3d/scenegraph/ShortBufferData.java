@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import java.io.IOException;
+import java.nio.ShortBuffer;
+
+import com.ardor3d.util.export.Ardor3DExporter;
+import com.ardor3d.util.export.Ardor3DImporter;
+import com.ardor3d.util.export.InputCapsule;
+import com.ardor3d.util.export.OutputCapsule;
+import com.ardor3d.util.geom.BufferUtils;
+
+/**
+ * Index data stored as unsigned shorts.
+ */
+public class ShortBufferData extends IndexBufferData<ShortBuffer> {
+
+    /**
+     * Instantiates a new ShortBufferData with no buffer set. Used mainly by the import system.
+     */
+    public ShortBufferData() {}
+
+    /**
+     * Instantiates a new ShortBufferData with a new direct buffer of the given size.
+     * 
+     * @param size
+     *            the number of indices to hold.
+     */
+    public ShortBufferData(final int size) {
+        this(BufferUtils.createShortBuffer(size));
+    }
+
+    /**
+     * Instantiates a new ShortBufferData wrapping the given buffer.
+     * 
+     * @param buffer
+     *            the buffer holding our index data.
+     */
+    public ShortBufferData(final ShortBuffer buffer) {
+        _buffer = buffer;
+    }
+
+    @Override
+    public int get() {
+        return _buffer.get() & 0xFFFF;
+    }
+
+    @Override
+    public int get(final int index) {
+        return _buffer.get(index) & 0xFFFF;
+    }
+
+    @Override
+    public ShortBufferData put(final int value) {
+        _buffer.put((short) value);
+        return this;
+    }
+
+    @Override
+    public ShortBufferData put(final int index, final int value) {
+        _buffer.put(index, (short) value);
+        return this;
+    }
+
+    @Override
+    public int getByteCount() {
+        return 2;
+    }
+
+    @Override
+    public int getMaxIndex() {
+        return 0xFFFF;
+    }
+
+    @Override
+    public ShortBufferData makeCopy() {
+        return new ShortBufferData(BufferUtils.clone(_buffer));
+    }
+
+    // /////////////////
+    // Methods for Savable
+    // /////////////////
+
+    public Class<? extends ShortBufferData> getClassTag() {
+        return getClass();
+    }
+
+    public void read(final Ardor3DImporter im) throws IOException {
+        final InputCapsule cap = im.getCapsule(this);
+        _buffer = cap.readShortBuffer("buffer", null);
+    }
+
+    public void write(final Ardor3DExporter ex) throws IOException {
+        final OutputCapsule cap = ex.getCapsule(this);
+        cap.write(_buffer, "buffer", null);
+    }
+}
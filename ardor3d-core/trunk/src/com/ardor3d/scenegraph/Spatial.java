@@ -20,6 +20,7 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Stack;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.ardor3d.bounding.BoundingVolume;
 import com.ardor3d.math.Matrix3;
@@ -35,6 +36,7 @@ import com.ardor3d.renderer.ContextManager;
 import com.ardor3d.renderer.NormalsMode;
 import com.ardor3d.renderer.Renderer;
 import com.ardor3d.renderer.queue.RenderBucketType;
+import com.ardor3d.renderer.state.LightGrid;
 import com.ardor3d.renderer.state.RenderState;
 import com.ardor3d.renderer.state.RenderState.StateType;
 import com.ardor3d.scenegraph.event.DirtyEventListener;
@@ -76,6 +78,37 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
     /** Field for accumulating dirty marks. */
     protected EnumSet<DirtyType> _dirtyMark = EnumSet.allOf(DirtyType.class);
 
+    /**
+     * True if something below this spatial was marked dirty since its last updateGeometricState. Set on every ancestor
+     * of a marked spatial, so the marks can stop climbing at the first ancestor that already has it.
+     */
+    protected boolean _dirtyBelow = true;
+
+    /**
+     * How many controllers this spatial and the spatials below it hold, plus how many of them are always updated. A
+     * clean branch where this is 0 is skipped by updateGeometricState.
+     */
+    protected int _subtreeUpdaters;
+
+    /** True if updateGeometricState should visit this spatial even when it and its subtree are clean. */
+    private boolean _alwaysUpdated;
+
+    /** How many spatials have a dirty event listener, so marking can skip looking for one when there are none. */
+    private static final AtomicInteger _listenerCount = new AtomicInteger();
+
+    /** Changed whenever a subtree mark is added or handed down, or a spatial changes parent. */
+    private static final AtomicInteger _downMarkVersion = new AtomicInteger();
+
+    /** How many threads are deferring their dirty marks, so marking can skip the thread local when there are none. */
+    private static final AtomicInteger _deferringThreads = new AtomicInteger();
+
+    /** Dirty marks recorded on the current thread instead of being applied, see {@link #deferDirtyMarks(List)}. */
+    private static final ThreadLocal<List<DirtyMark>> _deferredMarks = new ThreadLocal<List<DirtyMark>>();
+
+    /** The subtree marks of our ancestors, as of _inheritedVersion, so isDirty need not walk up on every call. */
+    private final EnumSet<DirtyType> _inheritedMark = EnumSet.noneOf(DirtyType.class);
+    private int _inheritedVersion = -1;
+
     /** Field for user data. Note: If this object is not explicitly of type Savable, it will be ignored during save. */
     protected Object _userData = null;
 
@@ -165,7 +198,58 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
      *            the parent of this node.
      */
     protected void setParent(final Node parent) {
+        if (_parent != null) {
+            _parent.addSubtreeUpdaters(-_subtreeUpdaters);
+        }
         _parent = parent;
+        if (parent != null) {
+            parent.addSubtreeUpdaters(_subtreeUpdaters);
+        }
+        downMarksChanged();
+    }
+
+    /**
+     * Adjust the updater count of this spatial and all its ancestors.
+     */
+    void addSubtreeUpdaters(final int delta) {
+        if (delta == 0) {
+            return;
+        }
+        for (Spatial spatial = this; spatial != null; spatial = spatial._parent) {
+            spatial._subtreeUpdaters += delta;
+        }
+    }
+
+    /**
+     * @return true if this spatial, or something below it, holds a controller or is always updated.
+     */
+    public boolean hasUpdatersBelow() {
+        return _subtreeUpdaters > 0;
+    }
+
+    /**
+     * @param alwaysUpdated
+     *            true if updateGeometricState should visit this spatial every time, even when nothing in its branch is
+     *            dirty and no controllers are attached. Needed by subclasses doing per update work of their own.
+     */
+    public void setAlwaysUpdated(final boolean alwaysUpdated) {
+        if (alwaysUpdated != _alwaysUpdated) {
+            _alwaysUpdated = alwaysUpdated;
+            addSubtreeUpdaters(alwaysUpdated ? 1 : -1);
+        }
+    }
+
+    public boolean isAlwaysUpdated() {
+        return _alwaysUpdated;
+    }
+
+    /**
+     * @return true if updateGeometricState has anything to do for this spatial or below it: a controller or always
+     *         updated spatial in its branch, or a transform, render state or bounding mark on it or below it.
+     */
+    boolean isUpdateNeeded() {
+        return _subtreeUpdaters > 0 || _dirtyBelow || _dirtyMark.contains(DirtyType.Transform)
+                || _dirtyMark.contains(DirtyType.RenderState) || _dirtyMark.contains(DirtyType.Bounding);
     }
 
     /**
@@ -214,6 +298,11 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
      *            listener to use.
      */
     public void setListener(final DirtyEventListener listener) {
+        if (_listener == null && listener != null) {
+            _listenerCount.incrementAndGet();
+        } else if (_listener != null && listener == null) {
+            _listenerCount.decrementAndGet();
+        }
         _listener = listener;
     }
 
@@ -228,22 +317,33 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
 
     /**
      * Mark this node as dirty. Can be marked as Transform, Bounding, Attached, Detached, Destroyed or RenderState
+     * <p>
+     * Marks meant for the whole subtree below this spatial are only recorded here and handed down a level at a time by
+     * updateGeometricState, and marks meant for our ancestors stop climbing at the first ancestor already carrying
+     * them, so marking many spatials costs little more than marking one.
+     * </p>
      * 
      * @param caller
      * @param dirtyType
      */
     protected void markDirty(final Spatial caller, final DirtyType dirtyType) {
+        if (_deferringThreads.get() > 0) {
+            final List<DirtyMark> deferred = _deferredMarks.get();
+            if (deferred != null) {
+                deferred.add(new DirtyMark(this, caller, dirtyType));
+                return;
+            }
+        }
+
         switch (dirtyType) {
             case Transform:
-                // XXX: Can we pass multiples at one time?
-                propagateDirtyUp(DirtyType.Transform);
                 propagateDirtyDown(DirtyType.Transform);
-                propagateDirtyUp(DirtyType.Bounding);
                 propagateDirtyDown(DirtyType.Bounding);
+                propagateDirtyUp(DirtyType.Bounding);
                 break;
             case RenderState:
-                propagateDirtyUp(DirtyType.RenderState);
                 propagateDirtyDown(DirtyType.RenderState);
+                propagateDirtyBelowUp(null);
                 break;
             case Bounding:
                 propagateDirtyUp(DirtyType.Bounding);
@@ -251,8 +351,8 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
             case Attached:
                 propagateDirtyDown(DirtyType.Transform);
                 propagateDirtyDown(DirtyType.RenderState);
-                propagateDirtyUp(DirtyType.Bounding);
                 propagateDirtyDown(DirtyType.Bounding);
+                propagateDirtyUp(DirtyType.Bounding);
                 break;
             case Detached:
             case Destroyed:
@@ -262,18 +362,89 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
                 break;
         }
 
-        propageEventUp(caller, dirtyType);
+        if (_listenerCount.get() > 0) {
+            propageEventUp(caller, dirtyType);
+        }
+    }
+
+    /**
+     * A dirty mark recorded by a thread deferring its marks.
+     */
+    static final class DirtyMark {
+        private final Spatial _spatial;
+        private final Spatial _caller;
+        private final DirtyType _type;
+
+        DirtyMark(final Spatial spatial, final Spatial caller, final DirtyType type) {
+            _spatial = spatial;
+            _caller = caller;
+            _type = type;
+        }
+    }
+
+    /**
+     * Start or stop deferring the dirty marks made on the current thread. Marking writes to the ancestors of the marked
+     * spatial, so threads updating parts of the same scene concurrently record their marks and leave them to a single
+     * thread to apply afterwards with {@link #applyDirtyMarks(List)}.
+     * 
+     * @param marks
+     *            the list to record marks in, or null to apply marks directly again.
+     */
+    static void deferDirtyMarks(final List<DirtyMark> marks) {
+        final boolean deferring = _deferredMarks.get() != null;
+        if (marks != null) {
+            if (!deferring) {
+                _deferringThreads.incrementAndGet();
+            }
+            _deferredMarks.set(marks);
+        } else if (deferring) {
+            _deferringThreads.decrementAndGet();
+            _deferredMarks.remove();
+        }
+    }
+
+    /**
+     * Apply dirty marks recorded by {@link #deferDirtyMarks(List)}, in the order they were made.
+     * 
+     * @param marks
+     *            the recorded marks
+     */
+    static void applyDirtyMarks(final List<DirtyMark> marks) {
+        for (int i = 0, max = marks.size(); i < max; i++) {
+            final DirtyMark mark = marks.get(i);
+            mark._spatial.markDirty(mark._caller, mark._type);
+        }
     }
 
     /**
-     * Test if this spatial is marked as dirty in respect to the supplied DirtyType
+     * Test if this spatial is marked as dirty in respect to the supplied DirtyType, either itself or through a mark
+     * made on one of its ancestors for the whole subtree below it.
      * 
      * @param dirtyType
      *            dirty type to test against
      * @return true if spatial marked dirty against the supplied dirty type
      */
     public boolean isDirty(final DirtyType dirtyType) {
-        return _dirtyMark.contains(dirtyType);
+        if (_dirtyMark.contains(dirtyType)) {
+            return true;
+        }
+        final int version = _downMarkVersion.get();
+        if (_inheritedVersion != version) {
+            _inheritedMark.clear();
+            for (Node parent = _parent; parent != null; parent = parent._parent) {
+                _inheritedMark.addAll(parent._dirtyDownMark);
+            }
+            _inheritedVersion = version;
+        }
+        return _inheritedMark.contains(dirtyType);
+    }
+
+    /**
+     * Called when the subtree marks of any node, or the parent of any spatial, change, so that the ancestor marks
+     * cached by isDirty are gathered again.
+     */
+    static void downMarksChanged() {
+        _downMarkVersion.incrementAndGet();
     }
 
     /**
@@ -286,6 +457,13 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
         _dirtyMark.remove(dirtyType);
     }
 
+    /**
+     * @return true if something below this spatial was marked dirty since its last updateGeometricState.
+     */
+    public boolean isDirtyBelow() {
+        return _dirtyBelow;
+    }
+
     /**
      * Propagate the dirty mark up the tree hierarchy
      * 
@@ -293,14 +471,32 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
      */
     protected void propagateDirtyUp(final DirtyType dirtyType) {
         _dirtyMark.add(dirtyType);
+        propagateDirtyBelowUp(dirtyType);
+    }
 
-        if (_parent != null) {
-            _parent.propagateDirtyUp(dirtyType);
+    /**
+     * Flag every ancestor as having something dirty below it, also giving it the supplied mark. Stops at the first
+     * ancestor already flagged and marked: the climb that did so went on to the root, and an updateGeometricState
+     * clearing either on the way down leaves the mark in place when something below is marked again in the meantime.
+     * 
+     * @param dirtyType
+     *            the mark to add to each ancestor, or null to only flag them.
+     */
+    protected void propagateDirtyBelowUp(final DirtyType dirtyType) {
+        for (Node parent = _parent; parent != null; parent = parent._parent) {
+            if (parent._dirtyBelow && (dirtyType == null || parent._dirtyMark.contains(dirtyType))) {
+                return;
+            }
+            parent._dirtyBelow = true;
+            if (dirtyType != null) {
+                parent._dirtyMark.add(dirtyType);
+            }
         }
     }
 
     /**
-     * Propagate the dirty mark down the tree hierarchy
+     * Propagate the dirty mark down the tree hierarchy. Nodes only record the mark for their subtree, it reaches their
+     * children on the next updateGeometricState.
      * 
      * @param dirtyType
      */
@@ -553,7 +749,9 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
     }
 
     /**
-     * <code>updateGeometricState</code> updates all the geometry information for the node.
+     * <code>updateGeometricState</code> updates all the geometry information for the node. Children are only visited
+     * when they are dirty, have something dirty below them or have controllers or always updated spatials in their
+     * branch, so static branches cost nothing.
      * 
      * @param time
      *            the frame time.
@@ -561,13 +759,21 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
      *            true if this node started the update process.
      */
     public void updateGeometricState(final double time, final boolean initiator) {
+        _dirtyBelow = false;
+        if (initiator) {
+            // take the marks made on our ancestors for their whole subtree, and pass them on to our own subtree.
+            for (Node parent = _parent; parent != null; parent = parent._parent) {
+                addDirtyBelow(parent._dirtyDownMark);
+            }
+        }
+
         updateControllers(time);
 
-        if (isDirty(DirtyType.Transform)) {
+        if (_dirtyMark.contains(DirtyType.Transform)) {
             updateWorldTransform(false);
         }
 
-        if (isDirty(DirtyType.RenderState)) {
+        if (_dirtyMark.contains(DirtyType.RenderState)) {
             updateWorldRenderStates(false);
             clearDirty(DirtyType.RenderState);
         }
@@ -575,15 +781,26 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
         // update children
         if (this instanceof Node) {
             final Node thisNode = (Node) this;
+            final EnumSet<DirtyType> downMark = thisNode._dirtyDownMark;
+            final boolean handDown = !downMark.isEmpty();
             for (int i = 0, cSize = thisNode.getNumberOfChildren(); i < cSize; i++) {
                 final Spatial pkChild = thisNode.getChild(i);
                 if (pkChild != null) {
+                    if (handDown) {
+                        pkChild.addDirtyBelow(downMark);
+                    } else if (!pkChild.isUpdateNeeded()) {
+                        continue;
+                    }
                     pkChild.updateGeometricState(time, false);
                 }
             }
+            if (handDown) {
+                downMark.clear();
+                downMarksChanged();
+            }
         }
 
-        if (isDirty(DirtyType.Bounding)) {
+        if (_dirtyMark.contains(DirtyType.Bounding)) {
             updateWorldBound(false);
             if (initiator) {
                 propagateBoundToRoot();
@@ -591,12 +808,20 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
         }
     }
 
+    /**
+     * Take the given marks made on an ancestor for its whole subtree.
+     */
+    void addDirtyBelow(final EnumSet<DirtyType> marks) {
+        _dirtyMark.addAll(marks);
+    }
+
     public void updateControllers(final double time) {
         if (_controllers != null) {
             for (int i = 0, gSize = _controllers.size(); i < gSize; i++) {
                 try {
                     final Controller controller = _controllers.get(i);
-                    if (controller != null) {
+                    // controllers registered with a ControllerScheduler are updated by it instead.
+                    if (controller != null && controller.getScheduler() == null) {
                         if (controller.isActive()) {
                             controller.update(time);
                         }
@@ -723,6 +948,15 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
      */
     public void sortLights() {}
 
+    /**
+     * Pick the lights applied to this spatial from a light grid, which must have been updated with the lights of the
+     * scene.
+     * 
+     * @param grid
+     *            the grid to pick lights from.
+     */
+    public void sortLights(final LightGrid grid) {}
+
     /**
      * Retrieves the complete renderstate list.
      * 
@@ -1026,6 +1260,7 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
             _controllers = new ArrayList<Controller>(1);
         }
         _controllers.add(controller);
+        addSubtreeUpdaters(1);
     }
 
     /**
@@ -1037,10 +1272,12 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
      * @see com.ardor3d.scenegraph.Controller
      */
     public boolean removeController(final Controller controller) {
-        if (_controllers == null) {
+        if (_controllers == null || !_controllers.remove(controller)) {
             return false;
         }
-        return _controllers.remove(controller);
+        unschedule(controller);
+        addSubtreeUpdaters(-1);
+        return true;
     }
 
     /**
@@ -1055,7 +1292,10 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
         if (_controllers == null) {
             return null;
         }
-        return _controllers.remove(index);
+        final Controller removed = _controllers.remove(index);
+        unschedule(removed);
+        addSubtreeUpdaters(-1);
+        return removed;
     }
 
     /**
@@ -1065,10 +1305,33 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
      */
     public void clearControllers() {
         if (_controllers != null) {
+            addSubtreeUpdaters(-_controllers.size());
+            unscheduleControllers(false);
             _controllers.clear();
         }
     }
 
+    /**
+     * Removes this spatial's controllers from the ControllerSchedulers updating them, so that they are updated by the
+     * scene graph again.
+     * 
+     * @param recurse
+     *            true to also unschedule the controllers of all descendants, as done when a branch is detached.
+     */
+    void unscheduleControllers(final boolean recurse) {
+        if (_controllers != null) {
+            for (int i = 0, max = _controllers.size(); i < max; i++) {
+                unschedule(_controllers.get(i));
+            }
+        }
+    }
+
+    private static void unschedule(final Controller controller) {
+        if (controller != null && controller.getScheduler() != null) {
+            controller.getScheduler().removeController(controller);
+        }
+    }
+
     /**
      * Returns the controller in this list of controllers at index i.
      * 
@@ -1085,7 +1348,9 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
     }
 
     /**
-     * Returns the ArrayList that contains this spatial's Controllers.
+     * Returns the ArrayList that contains this spatial's Controllers. Use addController and removeController to change
+     * it: controllers added to the list directly are not counted for this spatial's branch, and are not updated while
+     * the branch is otherwise clean.
      * 
      * @return This spatial's _controllers.
      */
@@ -1192,7 +1457,10 @@ public abstract class Spatial implements Cloneable, Savable, Externalizable {
             _userData = userData;
         }
 
+        addSubtreeUpdaters(-getControllerCount());
+        unscheduleControllers(false);
         _controllers = capsule.readSavableList("controllers", null);
+        addSubtreeUpdaters(getControllerCount());
     }
 
     public void write(final Ardor3DExporter ex) throws IOException {
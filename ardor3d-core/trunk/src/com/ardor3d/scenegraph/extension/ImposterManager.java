@@ -0,0 +1,495 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph.extension;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import com.ardor3d.bounding.BoundingSphere;
+import com.ardor3d.image.Texture;
+import com.ardor3d.image.Texture2D;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.MathUtils;
+import com.ardor3d.math.Matrix3;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.math.type.ReadOnlyVector3;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.ContextManager;
+import com.ardor3d.renderer.IndexMode;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.TextureRenderer;
+import com.ardor3d.renderer.queue.RenderBucketType;
+import com.ardor3d.renderer.state.BlendState;
+import com.ardor3d.renderer.state.TextureState;
+import com.ardor3d.renderer.state.ZBufferState;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.Spatial;
+import com.ardor3d.scenegraph.shape.Quad;
+import com.ardor3d.util.geom.BufferUtils;
+
+/**
+ * Draws any number of subtrees as imposters: camera facing quads textured with an image of the subtree, as an
+ * {@link com.ardor3d.scenegraph.ImposterNode} does, but sharing one texture renderer between all of them.
+ * <p>
+ * The images are packed into the tiles of atlas pages, textures the size of the texture renderer, and all stand-ins on
+ * a page are drawn as one mesh. Each frame, the imposters whose image was rendered from a direction more than the angle
+ * threshold away from the current one, or that were never rendered or marked dirty, are re-rendered in order of their
+ * angular error times their size on screen, up to the render budget; the rest wait for a later frame and keep showing
+ * their old image. Imposters outside the view are not re-rendered.
+ * </p>
+ * <p>
+ * The subtrees are not part of the scene; the manager updates their geometric state with the time passed since they
+ * were last rendered, just before rendering them. Imposters are not saved when the manager is exported.
+ * </p>
+ */
+public class ImposterManager extends Node {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * One subtree drawn by an {@link ImposterManager}. Create with
+     * {@link ImposterManager#addImposter(Spatial, ReadOnlyVector3, double)}.
+     */
+    public static class Imposter {
+        private final Spatial _scene;
+        private final Vector3 _center = new Vector3();
+        private double _radius;
+        private final BoundingSphere _bound = new BoundingSphere();
+
+        // direction from the center to the eye the image was rendered from.
+        private final Vector3 _renderedDirection = new Vector3();
+        private double _renderedTime;
+        private boolean _rendered;
+        private boolean _dirty;
+
+        private Page _page;
+        private int _tile;
+        private double _priority;
+
+        Imposter(final Spatial scene, final ReadOnlyVector3 center, final double radius) {
+            _scene = scene;
+            _center.set(center);
+            _radius = radius;
+            updateBound();
+        }
+
+        public Spatial getScene() {
+            return _scene;
+        }
+
+        public ReadOnlyVector3 getCenter() {
+            return _center;
+        }
+
+        /**
+         * @param center
+         *            the world position of the middle of the stand-in, and the point the images are rendered looking
+         *            at.
+         */
+        public void setCenter(final ReadOnlyVector3 center) {
+            _center.set(center);
+            updateBound();
+        }
+
+        public double getRadius() {
+            return _radius;
+        }
+
+        /**
+         * @param radius
+         *            half the width of the stand-in, which should enclose the subtree from any direction.
+         */
+        public void setRadius(final double radius) {
+            _radius = radius;
+            updateBound();
+        }
+
+        /**
+         * Have the image rendered again, for instance after the subtree changed.
+         */
+        public void markDirty() {
+            _dirty = true;
+        }
+
+        /**
+         * @return true once an image of the subtree was rendered, and the stand-in is drawn.
+         */
+        public boolean isRendered() {
+            return _rendered;
+        }
+
+        private void updateBound() {
+            _bound.setCenter(_center);
+            _bound.setRadius(_radius);
+        }
+    }
+
+    private static class Page {
+        private final Texture2D _texture = new Texture2D();
+        private final Mesh _mesh;
+        private final Imposter[] _tiles;
+        private int _used;
+
+        Page(final Mesh mesh, final int tiles) {
+            _mesh = mesh;
+            _tiles = new Imposter[tiles];
+        }
+    }
+
+    private static final Comparator<Imposter> BY_PRIORITY = new Comparator<Imposter>() {
+        public int compare(final Imposter a, final Imposter b) {
+            return Double.compare(b._priority, a._priority);
+        }
+    };
+
+    private final TextureRenderer _textureRenderer;
+    private final int _tilesAcross;
+
+    private final List<Imposter> _imposters = new ArrayList<Imposter>();
+    private final List<Page> _pages = new ArrayList<Page>();
+
+    private int _renderBudget = 8;
+    private double _angleThreshold = 2 * MathUtils.DEG_TO_RAD;
+    private double _time;
+
+    private int _renderedCount;
+    private int _pendingCount;
+
+    private final List<Imposter> _candidates = new ArrayList<Imposter>();
+    // drawn before each subtree, so only the tile being rendered to is cleared.
+    private final Quad _clearQuad = new Quad("imposter_clear", 2, 2);
+    private final List<Spatial> _renderList = new ArrayList<Spatial>(2);
+    private final List<Texture> _renderTextures = new ArrayList<Texture>(1);
+    private final Vector3 _direction = new Vector3();
+    private final Vector3 _right = new Vector3();
+    private final Matrix3 _axes = new Matrix3();
+
+    /**
+     * @param name
+     *            the name of the scene element.
+     * @param textureRenderer
+     *            the renderer to render the images with. Its size is the size of the atlas pages.
+     * @param tilesAcross
+     *            how many tiles an atlas page is split into across and down.
+     */
+    public ImposterManager(final String name, final TextureRenderer textureRenderer, final int tilesAcross) {
+        super(name);
+        // we count our elapsed time on every update, to hand it to the imposters' scenes.
+        setAlwaysUpdated(true);
+        _textureRenderer = textureRenderer;
+        _tilesAcross = tilesAcross;
+        _textureRenderer.setMultipleTargets(true);
+        _textureRenderer.setBackgroundColor(new ColorRGBA(0, 0, 0, 0));
+
+        // writes transparent black and the farthest depth over the tile.
+        final ZBufferState zState = new ZBufferState();
+        zState.setFunction(ZBufferState.TestFunction.Always);
+        zState.setWritable(true);
+        _clearQuad.setRenderState(zState);
+        _clearQuad.setDefaultColor(new ColorRGBA(0, 0, 0, 0));
+        _clearQuad.setLightCombineMode(Spatial.LightCombineMode.Off);
+        _clearQuad.setTextureCombineMode(Spatial.TextureCombineMode.Off);
+        _clearQuad.setRenderBucketType(RenderBucketType.Skip);
+        _clearQuad.setCullHint(Spatial.CullHint.Never);
+        _renderList.add(_clearQuad);
+        _renderList.add(null);
+        _renderTextures.add(null);
+    }
+
+    /**
+     * @param scene
+     *            the subtree to draw as an imposter. It should not be part of the scene.
+     * @param center
+     *            the world position of the middle of the stand-in.
+     * @param radius
+     *            half the width of the stand-in, which should enclose the subtree from any direction.
+     * @return the new imposter. It is drawn once its image was rendered.
+     */
+    public Imposter addImposter(final Spatial scene, final ReadOnlyVector3 center, final double radius) {
+        final Imposter imposter = new Imposter(scene, center, radius);
+        assignTile(imposter);
+        _imposters.add(imposter);
+        return imposter;
+    }
+
+    /**
+     * Remove the given imposter, freeing its tile for another one.
+     *
+     * @return true if the imposter was drawn by this manager.
+     */
+    public boolean removeImposter(final Imposter imposter) {
+        if (!_imposters.remove(imposter)) {
+            return false;
+        }
+        final Page page = imposter._page;
+        page._tiles[imposter._tile] = null;
+        page._used--;
+        clearStandIn(page, imposter._tile);
+        imposter._page = null;
+        return true;
+    }
+
+    public List<Imposter> getImposters() {
+        return _imposters;
+    }
+
+    /**
+     * @return the number of atlas pages created so far.
+     */
+    public int getPageCount() {
+        return _pages.size();
+    }
+
+    /**
+     * @return the atlas page texture holding the given imposter's image, or null if it is not drawn by this manager.
+     */
+    public Texture2D getTexture(final Imposter imposter) {
+        return imposter._page != null ? imposter._page._texture : null;
+    }
+
+    public int getRenderBudget() {
+        return _renderBudget;
+    }
+
+    /**
+     * @param renderBudget
+     *            the most images to render in one frame. Defaults to 8.
+     */
+    public void setRenderBudget(final int renderBudget) {
+        _renderBudget = renderBudget;
+    }
+
+    public double getAngleThreshold() {
+        return _angleThreshold;
+    }
+
+    /**
+     * @param angleThreshold
+     *            how far, in radians, the direction to the eye may move from the one an image was rendered from
+     *            before it is rendered again. Defaults to 2 degrees.
+     */
+    public void setAngleThreshold(final double angleThreshold) {
+        _angleThreshold = angleThreshold;
+    }
+
+    /**
+     * @return the number of images rendered by the last update.
+     */
+    public int getRenderedCount() {
+        return _renderedCount;
+    }
+
+    /**
+     * @return the number of images due for rendering that the last update left for later, for lack of budget.
+     */
+    public int getPendingCount() {
+        return _pendingCount;
+    }
+
+    @Override
+    public void updateGeometricState(final double time, final boolean initiator) {
+        super.updateGeometricState(time, initiator);
+        _time += time;
+    }
+
+    @Override
+    public void draw(final Renderer r) {
+        update(ContextManager.getCurrentContext().getCurrentCamera());
+        super.draw(r);
+    }
+
+    /**
+     * Render the images due for the given camera, within the budget, and turn all stand-ins to face it. Called when
+     * the manager is drawn.
+     */
+    public void update(final Camera camera) {
+        final ReadOnlyVector3 eye = camera.getLocation();
+        final int planeState = camera.getPlaneState();
+        _candidates.clear();
+        for (int i = 0, max = _imposters.size(); i < max; i++) {
+            final Imposter imposter = _imposters.get(i);
+            final double distance = eye.distance(imposter._center);
+            if (distance <= imposter._radius) {
+                continue;
+            }
+            camera.setPlaneState(0);
+            if (camera.contains(imposter._bound) == Camera.FrustumIntersect.Outside) {
+                continue;
+            }
+
+            final double error;
+            if (!imposter._rendered) {
+                error = MathUtils.TWO_PI;
+            } else if (imposter._dirty) {
+                error = MathUtils.PI;
+            } else {
+                eye.subtract(imposter._center, _direction).divideLocal(distance);
+                error = Math.acos(Math.max(-1, Math.min(1, _direction.dot(imposter._renderedDirection))));
+                if (error < _angleThreshold) {
+                    continue;
+                }
+            }
+            imposter._priority = error * imposter._radius / distance;
+            _candidates.add(imposter);
+        }
+        camera.setPlaneState(planeState);
+
+        Collections.sort(_candidates, BY_PRIORITY);
+        _renderedCount = Math.min(_renderBudget, _candidates.size());
+        _pendingCount = _candidates.size() - _renderedCount;
+        for (int i = 0; i < _renderedCount; i++) {
+            render(_candidates.get(i), camera);
+        }
+        _candidates.clear();
+
+        updateStandIns(camera);
+    }
+
+    private void render(final Imposter imposter, final Camera viewer) {
+        final ReadOnlyVector3 eye = viewer.getLocation();
+        final double distance = eye.distance(imposter._center);
+        eye.subtract(imposter._center, _direction).divideLocal(distance);
+
+        // frame the stand-in exactly, from where the viewer is.
+        final double near = Math.max(distance - imposter._radius * 2, distance * 0.01);
+        final double far = distance + imposter._radius * 2;
+        final double halfAngle = Math.atan(imposter._radius / distance);
+        final Camera camera = _textureRenderer.getCamera();
+        camera.setFrustumPerspective(2 * halfAngle * MathUtils.RAD_TO_DEG, 1, near, far);
+        camera.setLocation(eye);
+        camera.lookAt(imposter._center, viewer.getUp());
+        final double tileSize = 1.0 / _tilesAcross;
+        final double left = imposter._tile % _tilesAcross * tileSize;
+        final double bottom = imposter._tile / _tilesAcross * tileSize;
+        camera.setViewPort(left, left + tileSize, bottom, bottom + tileSize);
+
+        // cover the whole tile just inside the far plane.
+        final double clearDistance = far * 0.999;
+        final Vector3 position = eye.subtract(_direction.multiply(clearDistance, _right), _right);
+        _clearQuad.setTranslation(position);
+        _axes.fromAxes(camera.getLeft().negate(_right), camera.getUp(), _direction);
+        _clearQuad.setRotation(_axes);
+        _clearQuad.setScale(clearDistance * Math.tan(halfAngle) * 1.01);
+        _clearQuad.updateGeometricState(0, true);
+
+        imposter._scene.updateGeometricState(_time - imposter._renderedTime, true);
+        _renderList.set(1, imposter._scene);
+        _renderTextures.set(0, imposter._page._texture);
+        _textureRenderer.render(_renderList, _renderTextures, false);
+        _renderList.set(1, null);
+
+        imposter._renderedDirection.set(_direction);
+        imposter._renderedTime = _time;
+        imposter._rendered = true;
+        imposter._dirty = false;
+    }
+
+    private void updateStandIns(final Camera camera) {
+        final ReadOnlyVector3 up = camera.getUp();
+        camera.getLeft().negate(_right);
+        for (int p = 0, maxP = _pages.size(); p < maxP; p++) {
+            final Page page = _pages.get(p);
+            final FloatBuffer vertices = page._mesh.getMeshData().getVertexBuffer();
+            for (int t = 0; t < page._tiles.length; t++) {
+                final Imposter imposter = page._tiles[t];
+                if (imposter == null || !imposter._rendered) {
+                    continue;
+                }
+                final ReadOnlyVector3 c = imposter._center;
+                final double r = imposter._radius;
+                final double rx = _right.getX() * r, ry = _right.getY() * r, rz = _right.getZ() * r;
+                final double ux = up.getX() * r, uy = up.getY() * r, uz = up.getZ() * r;
+                vertices.position(t * 12);
+                vertices.put((float) (c.getX() - rx - ux)).put((float) (c.getY() - ry - uy)).put(
+                        (float) (c.getZ() - rz - uz));
+                vertices.put((float) (c.getX() + rx - ux)).put((float) (c.getY() + ry - uy)).put(
+                        (float) (c.getZ() + rz - uz));
+                vertices.put((float) (c.getX() + rx + ux)).put((float) (c.getY() + ry + uy)).put(
+                        (float) (c.getZ() + rz + uz));
+                vertices.put((float) (c.getX() - rx + ux)).put((float) (c.getY() - ry + uy)).put(
+                        (float) (c.getZ() - rz + uz));
+            }
+            vertices.rewind();
+        }
+    }
+
+    private void assignTile(final Imposter imposter) {
+        Page page = null;
+        for (int i = 0, max = _pages.size(); i < max && page == null; i++) {
+            if (_pages.get(i)._used < _pages.get(i)._tiles.length) {
+                page = _pages.get(i);
+            }
+        }
+        if (page == null) {
+            page = createPage();
+        }
+        int tile = 0;
+        while (page._tiles[tile] != null) {
+            tile++;
+        }
+        page._tiles[tile] = imposter;
+        page._used++;
+        imposter._page = page;
+        imposter._tile = tile;
+        clearStandIn(page, tile);
+    }
+
+    private void clearStandIn(final Page page, final int tile) {
+        final FloatBuffer vertices = page._mesh.getMeshData().getVertexBuffer();
+        vertices.position(tile * 12);
+        for (int i = 0; i < 12; i++) {
+            vertices.put(0);
+        }
+        vertices.rewind();
+    }
+
+    private Page createPage() {
+        final int tiles = _tilesAcross * _tilesAcross;
+        final Mesh mesh = new Mesh(getName() + "_page" + _pages.size());
+        mesh.getMeshData().setIndexMode(IndexMode.Quads);
+        mesh.getMeshData().setVertexBuffer(BufferUtils.createVector3Buffer(tiles * 4));
+        final FloatBuffer texCoords = BufferUtils.createVector2Buffer(tiles * 4);
+        final float tileSize = 1f / _tilesAcross;
+        for (int t = 0; t < tiles; t++) {
+            final float u = t % _tilesAcross * tileSize, v = t / _tilesAcross * tileSize;
+            texCoords.put(u).put(v).put(u + tileSize).put(v).put(u + tileSize).put(v + tileSize).put(u).put(
+                    v + tileSize);
+        }
+        texCoords.rewind();
+        mesh.getMeshData().setTextureBuffer(texCoords, 0);
+        mesh.setCullHint(Spatial.CullHint.Never);
+        mesh.setLightCombineMode(Spatial.LightCombineMode.Off);
+
+        final Page page = new Page(mesh, tiles);
+        // mipmaps would bleed neighbouring tiles into each other.
+        page._texture.setMinificationFilter(Texture.MinificationFilter.BilinearNoMipMaps);
+        _textureRenderer.setupTexture(page._texture);
+        final TextureState ts = new TextureState();
+        ts.setTexture(page._texture, 0);
+        mesh.setRenderState(ts);
+
+        // the same blending as ImposterNode, so the background of the images is transparent.
+        final BlendState blend = new BlendState();
+        blend.setBlendEnabled(true);
+        blend.setSourceFunction(BlendState.SourceFunction.SourceAlpha);
+        blend.setDestinationFunction(BlendState.DestinationFunction.OneMinusSourceAlpha);
+        blend.setTestEnabled(true);
+        blend.setTestFunction(BlendState.TestFunction.GreaterThan);
+        mesh.setRenderState(blend);
+
+        _pages.add(page);
+        attachChild(mesh);
+        return page;
+    }
+}
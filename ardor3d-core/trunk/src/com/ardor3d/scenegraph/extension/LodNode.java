@@ -0,0 +1,216 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph.extension;
+
+import java.io.IOException;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.bounding.BoundingSphere;
+import com.ardor3d.bounding.BoundingVolume;
+import com.ardor3d.bounding.OrientedBoundingBox;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.ContextManager;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.util.export.Ardor3DExporter;
+import com.ardor3d.util.export.Ardor3DImporter;
+import com.ardor3d.util.export.InputCapsule;
+import com.ardor3d.util.export.OutputCapsule;
+
+/**
+ * <code>LodNode</code> draws only one of its children, picked from the size its bounds project to on screen. Child 0
+ * is the most detailed level, each following child a coarser one. The levels of a mesh can be built with
+ * {@link com.ardor3d.util.geom.MeshSimplifier#buildLevels(MeshData, int, double)}.
+ * <p>
+ * Switching uses hysteresis: a level is only left once the projected size moves past its threshold by the hysteresis
+ * fraction, so objects sitting right on a threshold do not flicker between two levels.
+ * </p>
+ */
+public class LodNode extends Node {
+    private static final long serialVersionUID = 1L;
+
+    private double[] _screenSizes = new double[0];
+
+    private double _hysteresis = 0.1;
+
+    private int _currentLevel = 0;
+
+    private double _lastScreenSize;
+
+    public LodNode() {}
+
+    /**
+     * @param name
+     *            the name of the node.
+     * @param screenSizes
+     *            see {@link #setScreenSizes(double...)}
+     */
+    public LodNode(final String name, final double... screenSizes) {
+        super(name);
+        setScreenSizes(screenSizes);
+    }
+
+    /**
+     * Convenience constructor attaching one mesh per level, each bounded by a box. Render states set on this node
+     * apply to every level.
+     * 
+     * @param name
+     *            the name of the node.
+     * @param levels
+     *            the mesh data of each level, finest first.
+     * @param screenSizes
+     *            see {@link #setScreenSizes(double...)}
+     */
+    public LodNode(final String name, final MeshData[] levels, final double... screenSizes) {
+        this(name, screenSizes);
+        for (int i = 0; i < levels.length; i++) {
+            final Mesh mesh = new Mesh(name + "_lod" + i);
+            mesh.setMeshData(levels[i]);
+            mesh.setModelBound(new BoundingBox());
+            attachChild(mesh);
+        }
+    }
+
+    /**
+     * @param screenSizes
+     *            the projected size in pixels of the diameter of our world bound below which each next level is used.
+     *            Level i is drawn while the size is between screenSizes[i] and screenSizes[i - 1]. Must be in
+     *            decreasing order.
+     */
+    public void setScreenSizes(final double... screenSizes) {
+        for (int i = 1; i < screenSizes.length; i++) {
+            if (screenSizes[i] > screenSizes[i - 1]) {
+                throw new IllegalArgumentException("screen sizes must be in decreasing order.");
+            }
+        }
+        _screenSizes = screenSizes.clone();
+    }
+
+    public double[] getScreenSizes() {
+        return _screenSizes.clone();
+    }
+
+    /**
+     * @param hysteresis
+     *            the fraction of a threshold the projected size has to move past it before the level changes, eg. 0.1
+     *            for 10%.
+     */
+    public void setHysteresis(final double hysteresis) {
+        _hysteresis = hysteresis;
+    }
+
+    public double getHysteresis() {
+        return _hysteresis;
+    }
+
+    /**
+     * @return the level used for the last draw.
+     */
+    public int getCurrentLevel() {
+        return _currentLevel;
+    }
+
+    /**
+     * @return the projected size in pixels found on the last draw.
+     */
+    public double getLastScreenSize() {
+        return _lastScreenSize;
+    }
+
+    @Override
+    public void draw(final Renderer r) {
+        final int level = selectLevel(ContextManager.getCurrentContext().getCurrentCamera());
+        if (level < getNumberOfChildren()) {
+            getChild(level).onDraw(r);
+        }
+    }
+
+    /**
+     * Pick the level to draw for the given camera, moving at most past the thresholds that were crossed by more than
+     * our hysteresis.
+     * 
+     * @param camera
+     *            the camera we are drawn with.
+     * @return the new current level.
+     */
+    public int selectLevel(final Camera camera) {
+        final int maxLevel = Math.max(0, Math.min(_screenSizes.length, getNumberOfChildren() - 1));
+        int level = Math.min(_currentLevel, maxLevel);
+        final BoundingVolume bound = getWorldBound();
+        if (camera == null || bound == null) {
+            _currentLevel = level;
+            return level;
+        }
+
+        final double size = getScreenSize(bound, camera);
+        while (level > 0 && size > _screenSizes[level - 1] * (1 + _hysteresis)) {
+            level--;
+        }
+        while (level < maxLevel && size < _screenSizes[level] * (1 - _hysteresis)) {
+            level++;
+        }
+        _lastScreenSize = size;
+        _currentLevel = level;
+        return level;
+    }
+
+    /**
+     * @return the size in pixels the diameter of the given bound projects to on the given camera's viewport.
+     *         {@link Double#POSITIVE_INFINITY} if the camera is inside the bound.
+     */
+    public static double getScreenSize(final BoundingVolume bound, final Camera camera) {
+        final double radius = getRadius(bound);
+        if (camera.isParallelProjection()) {
+            return 2 * radius * camera.getHeight() / (camera.getFrustumTop() - camera.getFrustumBottom());
+        }
+        final double distance = bound.getCenter().distance(camera.getLocation());
+        if (distance <= radius) {
+            return Double.POSITIVE_INFINITY;
+        }
+        // the frustum height at the near plane maps to our viewport height.
+        return 2 * radius * camera.getFrustumNear() * camera.getHeight()
+                / (distance * (camera.getFrustumTop() - camera.getFrustumBottom()));
+    }
+
+    private static double getRadius(final BoundingVolume bound) {
+        switch (bound.getType()) {
+            case Sphere:
+                return ((BoundingSphere) bound).getRadius();
+            case AABB: {
+                final BoundingBox box = (BoundingBox) bound;
+                return Math.sqrt(box.getXExtent() * box.getXExtent() + box.getYExtent() * box.getYExtent()
+                        + box.getZExtent() * box.getZExtent());
+            }
+            case OBB:
+                return ((OrientedBoundingBox) bound).getExtent().length();
+            default:
+                return Math.cbrt(bound.getVolume() * 3 / (4 * Math.PI));
+        }
+    }
+
+    @Override
+    public void write(final Ardor3DExporter e) throws IOException {
+        super.write(e);
+        final OutputCapsule capsule = e.getCapsule(this);
+        capsule.write(_screenSizes, "screenSizes", new double[0]);
+        capsule.write(_hysteresis, "hysteresis", 0.1);
+    }
+
+    @Override
+    public void read(final Ardor3DImporter e) throws IOException {
+        super.read(e);
+        final InputCapsule capsule = e.getCapsule(this);
+        _screenSizes = capsule.readDoubleArray("screenSizes", new double[0]);
+        _hysteresis = capsule.readDouble("hysteresis", 0.1);
+    }
+}
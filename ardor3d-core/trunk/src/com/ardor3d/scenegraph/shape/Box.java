@@ -249,7 +249,7 @@ public class Box extends Mesh implements Savable {
         if (_meshData.getIndexBuffer() == null) {
             final int[] indices = { 2, 1, 0, 3, 2, 0, 6, 5, 4, 7, 6, 4, 10, 9, 8, 11, 10, 8, 14, 13, 12, 15, 14, 12,
                     18, 17, 16, 19, 18, 16, 22, 21, 20, 23, 22, 20 };
-            _meshData.setIndexBuffer(BufferUtils.createIntBuffer(indices));
+            _meshData.setIndices(BufferUtils.createIndexBufferData(indices));
         }
     }
 
@@ -12,17 +12,20 @@ package com.ardor3d.scenegraph.shape;
 
 import java.io.IOException;
 import java.nio.FloatBuffer;
+import java.util.List;
 
 import com.ardor3d.math.MathUtils;
 import com.ardor3d.math.Matrix3;
 import com.ardor3d.math.Vector3;
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.TexCoords;
 import com.ardor3d.util.export.Ardor3DExporter;
 import com.ardor3d.util.export.Ardor3DImporter;
 import com.ardor3d.util.export.InputCapsule;
 import com.ardor3d.util.export.OutputCapsule;
 import com.ardor3d.util.geom.BufferUtils;
+import com.ardor3d.util.geom.GeometryCache;
 
 /**
  * <code>Capsule</code> provides an extension of <code>Mesh</code>. A <code>Capsule</code> is defined by a height and a
@@ -42,7 +45,8 @@ public class Capsule extends Mesh {
      * looking cylinder, but at the cost of more vertex information. <br>
      * If the cylinder is closed the texture is split into axisSamples parts: top most and bottom most part is used for
      * top and bottom of the cylinder, rest of the texture for the cylinder wall. The middle of the top is mapped to
-     * texture coordinates (0.5, 1), bottom to (0.5, 0). Thus you need a suited distorted texture.
+     * texture coordinates (0.5, 1), bottom to (0.5, 0). Thus you need a suited distorted texture. While the
+     * {@link GeometryCache} is enabled, the geometry is shared with other capsules created with the same values.
      * 
      * @param name
      *            The name of this Cylinder.
@@ -100,10 +104,22 @@ public class Capsule extends Mesh {
      */
     public void setRadius(final double radius) {
         this.radius = radius;
+        getWritableMeshData();
         setGeometryData();
     }
 
     private void recreateBuffers() {
+        final List<Object> key = GeometryCache.createKey(Capsule.class, axisSamples, radialSamples, sphereSamples,
+                radius, height);
+        final MeshData shared = GeometryCache.get(key);
+        if (shared != null) {
+            _meshData = shared;
+            return;
+        }
+        if (GeometryCache.isEnabled() || _meshData.isShared()) {
+            _meshData = new MeshData();
+        }
+
         // determine vert quantity - first the sphere caps
         final int sampleLines = (2 * sphereSamples - 1 + axisSamples);
         final int verts = (radialSamples + 1) * sampleLines + 2;
@@ -119,10 +135,12 @@ public class Capsule extends Mesh {
         // determine tri quantity
         final int tris = 2 * radialSamples * sampleLines;
 
-        _meshData.setIndexBuffer(BufferUtils.createIntBuffer(_meshData.getIndexBuffer(), 3 * tris));
+        _meshData.setIndices(BufferUtils.createIndexBufferData(_meshData.getIndices(), 3 * tris, _meshData
+                .getVertexCount() - 1));
 
         setGeometryData();
         setIndexData();
+        GeometryCache.put(key, _meshData);
     }
 
     private void setGeometryData() {
@@ -226,21 +244,21 @@ public class Capsule extends Mesh {
     private void setIndexData() {
         // start with top of top dome.
         for (int samples = 1; samples <= radialSamples; samples++) {
-            _meshData.getIndexBuffer().put(samples + 1);
-            _meshData.getIndexBuffer().put(samples);
-            _meshData.getIndexBuffer().put(0);
+            _meshData.getIndices().put(samples + 1);
+            _meshData.getIndices().put(samples);
+            _meshData.getIndices().put(0);
         }
 
         for (int plane = 1; plane < (sphereSamples); plane++) {
             final int topPlaneStart = plane * (radialSamples + 1);
             final int bottomPlaneStart = (plane - 1) * (radialSamples + 1);
             for (int sample = 1; sample <= radialSamples; sample++) {
-                _meshData.getIndexBuffer().put(bottomPlaneStart + sample);
-                _meshData.getIndexBuffer().put(bottomPlaneStart + sample + 1);
-                _meshData.getIndexBuffer().put(topPlaneStart + sample);
-                _meshData.getIndexBuffer().put(bottomPlaneStart + sample + 1);
-                _meshData.getIndexBuffer().put(topPlaneStart + sample + 1);
-                _meshData.getIndexBuffer().put(topPlaneStart + sample);
+                _meshData.getIndices().put(bottomPlaneStart + sample);
+                _meshData.getIndices().put(bottomPlaneStart + sample + 1);
+                _meshData.getIndices().put(topPlaneStart + sample);
+                _meshData.getIndices().put(bottomPlaneStart + sample + 1);
+                _meshData.getIndices().put(topPlaneStart + sample + 1);
+                _meshData.getIndices().put(topPlaneStart + sample);
             }
         }
 
@@ -251,12 +269,12 @@ public class Capsule extends Mesh {
             final int topPlaneStart = start + plane * (radialSamples + 1);
             final int bottomPlaneStart = start + (plane - 1) * (radialSamples + 1);
             for (int sample = 1; sample <= radialSamples; sample++) {
-                _meshData.getIndexBuffer().put(bottomPlaneStart + sample);
-                _meshData.getIndexBuffer().put(bottomPlaneStart + sample + 1);
-                _meshData.getIndexBuffer().put(topPlaneStart + sample);
-                _meshData.getIndexBuffer().put(bottomPlaneStart + sample + 1);
-                _meshData.getIndexBuffer().put(topPlaneStart + sample + 1);
-                _meshData.getIndexBuffer().put(topPlaneStart + sample);
+                _meshData.getIndices().put(bottomPlaneStart + sample);
+                _meshData.getIndices().put(bottomPlaneStart + sample + 1);
+                _meshData.getIndices().put(topPlaneStart + sample);
+                _meshData.getIndices().put(bottomPlaneStart + sample + 1);
+                _meshData.getIndices().put(topPlaneStart + sample + 1);
+                _meshData.getIndices().put(topPlaneStart + sample);
             }
         }
 
@@ -267,21 +285,21 @@ public class Capsule extends Mesh {
             final int topPlaneStart = start + plane * (radialSamples + 1);
             final int bottomPlaneStart = start + (plane - 1) * (radialSamples + 1);
             for (int sample = 1; sample <= radialSamples; sample++) {
-                _meshData.getIndexBuffer().put(bottomPlaneStart + sample);
-                _meshData.getIndexBuffer().put(bottomPlaneStart + sample + 1);
-                _meshData.getIndexBuffer().put(topPlaneStart + sample);
-                _meshData.getIndexBuffer().put(bottomPlaneStart + sample + 1);
-                _meshData.getIndexBuffer().put(topPlaneStart + sample + 1);
-                _meshData.getIndexBuffer().put(topPlaneStart + sample);
+                _meshData.getIndices().put(bottomPlaneStart + sample);
+                _meshData.getIndices().put(bottomPlaneStart + sample + 1);
+                _meshData.getIndices().put(topPlaneStart + sample);
+                _meshData.getIndices().put(bottomPlaneStart + sample + 1);
+                _meshData.getIndices().put(topPlaneStart + sample + 1);
+                _meshData.getIndices().put(topPlaneStart + sample);
             }
         }
 
         start += ((sphereSamples - 1) * (radialSamples + 1));
         // Finally the bottom of bottom dome.
         for (int samples = 1; samples <= radialSamples; samples++) {
-            _meshData.getIndexBuffer().put(start + samples);
-            _meshData.getIndexBuffer().put(start + samples + 1);
-            _meshData.getIndexBuffer().put(start + radialSamples + 2);
+            _meshData.getIndices().put(start + samples);
+            _meshData.getIndices().put(start + samples + 1);
+            _meshData.getIndices().put(start + radialSamples + 2);
         }
     }
 
@@ -293,6 +311,7 @@ public class Capsule extends Mesh {
         // first make the capsule the right shape
         height = top.distance(bottom);
         this.radius = radius;
+        getWritableMeshData();
         setGeometryData();
 
         // now orient it in space.
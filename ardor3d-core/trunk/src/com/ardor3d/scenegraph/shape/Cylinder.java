@@ -11,16 +11,19 @@
 package com.ardor3d.scenegraph.shape;
 
 import java.io.IOException;
+import java.util.List;
 
 import com.ardor3d.math.MathUtils;
 import com.ardor3d.math.Vector3;
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.TexCoords;
 import com.ardor3d.util.export.Ardor3DExporter;
 import com.ardor3d.util.export.Ardor3DImporter;
 import com.ardor3d.util.export.InputCapsule;
 import com.ardor3d.util.export.OutputCapsule;
 import com.ardor3d.util.geom.BufferUtils;
+import com.ardor3d.util.geom.GeometryCache;
 
 /**
  * <code>Cylinder</code> provides an extension of <code>Mesh</code>. A <code>Cylinder</code> is defined by a height and
@@ -117,7 +120,8 @@ public class Cylinder extends Mesh {
 
         this.axisSamples = axisSamples + (closed ? 2 : 0);
         this.radialSamples = radialSamples;
-        setRadius(radius);
+        this.radius = radius;
+        radius2 = radius;
         this.height = height;
         this.closed = closed;
         this.inverted = inverted;
@@ -213,7 +217,21 @@ public class Cylinder extends Mesh {
         return radialSamples;
     }
 
+    /**
+     * Generate the geometry, or take it from the {@link GeometryCache} while enabled.
+     */
     private void allocateVertices() {
+        final List<Object> key = GeometryCache.createKey(Cylinder.class, axisSamples, radialSamples, radius, radius2,
+                height, closed, inverted);
+        final MeshData shared = GeometryCache.get(key);
+        if (shared != null) {
+            _meshData = shared;
+            return;
+        }
+        if (GeometryCache.isEnabled() || _meshData.isShared()) {
+            _meshData = new MeshData();
+        }
+
         // allocate vertices
         final int verts = axisSamples * (radialSamples + 1) + (closed ? 2 : 0);
         _meshData.setVertexBuffer(BufferUtils.createVector3Buffer(_meshData.getVertexBuffer(), verts));
@@ -225,10 +243,12 @@ public class Cylinder extends Mesh {
         _meshData.setTextureCoords(new TexCoords(BufferUtils.createVector2Buffer(verts)), 0);
 
         final int count = ((closed ? 2 : 0) + 2 * (axisSamples - 1)) * radialSamples;
-        _meshData.setIndexBuffer(BufferUtils.createIntBuffer(_meshData.getIndexBuffer(), 3 * count));
+        _meshData.setIndices(BufferUtils.createIndexBufferData(_meshData.getIndices(), 3 * count, _meshData
+                .getVertexCount() - 1));
 
         setGeometryData();
         setIndexData();
+        GeometryCache.put(key, _meshData);
     }
 
     private void setGeometryData() {
@@ -333,39 +353,39 @@ public class Cylinder extends Mesh {
             for (int i = 0; i < radialSamples; i++) {
                 if (closed && axisCount == 0) {
                     if (!inverted) {
-                        _meshData.getIndexBuffer().put(i0++);
-                        _meshData.getIndexBuffer().put(_meshData.getVertexCount() - 2);
-                        _meshData.getIndexBuffer().put(i1++);
+                        _meshData.getIndices().put(i0++);
+                        _meshData.getIndices().put(_meshData.getVertexCount() - 2);
+                        _meshData.getIndices().put(i1++);
                     } else {
-                        _meshData.getIndexBuffer().put(i0++);
-                        _meshData.getIndexBuffer().put(i1++);
-                        _meshData.getIndexBuffer().put(_meshData.getVertexCount() - 2);
+                        _meshData.getIndices().put(i0++);
+                        _meshData.getIndices().put(i1++);
+                        _meshData.getIndices().put(_meshData.getVertexCount() - 2);
                     }
                 } else if (closed && axisCount == axisSamples - 2) {
                     if (!inverted) {
-                        _meshData.getIndexBuffer().put(i2++);
-                        _meshData.getIndexBuffer().put(i3++);
-                        _meshData.getIndexBuffer().put(_meshData.getVertexCount() - 1);
+                        _meshData.getIndices().put(i2++);
+                        _meshData.getIndices().put(i3++);
+                        _meshData.getIndices().put(_meshData.getVertexCount() - 1);
                     } else {
-                        _meshData.getIndexBuffer().put(i2++);
-                        _meshData.getIndexBuffer().put(_meshData.getVertexCount() - 1);
-                        _meshData.getIndexBuffer().put(i3++);
+                        _meshData.getIndices().put(i2++);
+                        _meshData.getIndices().put(_meshData.getVertexCount() - 1);
+                        _meshData.getIndices().put(i3++);
                     }
                 } else {
                     if (!inverted) {
-                        _meshData.getIndexBuffer().put(i0++);
-                        _meshData.getIndexBuffer().put(i1);
-                        _meshData.getIndexBuffer().put(i2);
-                        _meshData.getIndexBuffer().put(i1++);
-                        _meshData.getIndexBuffer().put(i3++);
-                        _meshData.getIndexBuffer().put(i2++);
+                        _meshData.getIndices().put(i0++);
+                        _meshData.getIndices().put(i1);
+                        _meshData.getIndices().put(i2);
+                        _meshData.getIndices().put(i1++);
+                        _meshData.getIndices().put(i3++);
+                        _meshData.getIndices().put(i2++);
                     } else {
-                        _meshData.getIndexBuffer().put(i0++);
-                        _meshData.getIndexBuffer().put(i2);
-                        _meshData.getIndexBuffer().put(i1);
-                        _meshData.getIndexBuffer().put(i1++);
-                        _meshData.getIndexBuffer().put(i2++);
-                        _meshData.getIndexBuffer().put(i3++);
+                        _meshData.getIndices().put(i0++);
+                        _meshData.getIndices().put(i2);
+                        _meshData.getIndices().put(i1);
+                        _meshData.getIndices().put(i1++);
+                        _meshData.getIndices().put(i2++);
+                        _meshData.getIndices().put(i3++);
                     }
                 }
             }
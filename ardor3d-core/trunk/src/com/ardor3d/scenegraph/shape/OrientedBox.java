@@ -94,15 +94,16 @@ public class OrientedBox extends Mesh {
      * Sets the correct indices array for the box.
      */
     private void setIndexData() {
-        _meshData.setIndexBuffer(BufferUtils.createIntBuffer(_meshData.getIndexBuffer(), 36));
+        _meshData.setIndices(BufferUtils.createIndexBufferData(_meshData.getIndices(), 36, _meshData
+                .getVertexCount() - 1));
 
         for (int i = 0; i < 6; i++) {
-            _meshData.getIndexBuffer().put(i * 4 + 0);
-            _meshData.getIndexBuffer().put(i * 4 + 1);
-            _meshData.getIndexBuffer().put(i * 4 + 3);
-            _meshData.getIndexBuffer().put(i * 4 + 1);
-            _meshData.getIndexBuffer().put(i * 4 + 2);
-            _meshData.getIndexBuffer().put(i * 4 + 3);
+            _meshData.getIndices().put(i * 4 + 0);
+            _meshData.getIndices().put(i * 4 + 1);
+            _meshData.getIndices().put(i * 4 + 3);
+            _meshData.getIndices().put(i * 4 + 1);
+            _meshData.getIndices().put(i * 4 + 2);
+            _meshData.getIndices().put(i * 4 + 3);
         }
     }
 
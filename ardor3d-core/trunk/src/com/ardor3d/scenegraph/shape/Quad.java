@@ -94,7 +94,7 @@ public class Quad extends Mesh {
         _meshData.setTextureBuffer(tbuf, 0);
 
         final int tris = 2;
-        _meshData.setIndexBuffer(BufferUtils.createIntBuffer(tris * 3));
+        _meshData.setIndices(BufferUtils.createIndexBufferData(tris * 3, _meshData.getVertexCount() - 1));
 
         _meshData.getVertexBuffer().put((float) (-width / 2)).put((float) (height / 2)).put(0);
         _meshData.getVertexBuffer().put((float) (-width / 2)).put((float) (-height / 2)).put(0);
@@ -111,12 +111,12 @@ public class Quad extends Mesh {
         tbuf.put(1).put(0);
         tbuf.put(1).put(1);
 
-        _meshData.getIndexBuffer().put(0);
-        _meshData.getIndexBuffer().put(1);
-        _meshData.getIndexBuffer().put(2);
-        _meshData.getIndexBuffer().put(0);
-        _meshData.getIndexBuffer().put(2);
-        _meshData.getIndexBuffer().put(3);
+        _meshData.getIndices().put(0);
+        _meshData.getIndices().put(1);
+        _meshData.getIndices().put(2);
+        _meshData.getIndices().put(0);
+        _meshData.getIndices().put(2);
+        _meshData.getIndices().put(3);
     }
 
     public double getWidth() {
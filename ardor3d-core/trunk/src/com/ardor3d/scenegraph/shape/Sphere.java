@@ -11,17 +11,21 @@
 package com.ardor3d.scenegraph.shape;
 
 import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.List;
 
 import com.ardor3d.math.MathUtils;
 import com.ardor3d.math.Vector3;
 import com.ardor3d.math.type.ReadOnlyVector3;
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.TexCoords;
 import com.ardor3d.util.export.Ardor3DExporter;
 import com.ardor3d.util.export.Ardor3DImporter;
 import com.ardor3d.util.export.InputCapsule;
 import com.ardor3d.util.export.OutputCapsule;
 import com.ardor3d.util.geom.BufferUtils;
+import com.ardor3d.util.geom.GeometryCache;
 
 /**
  * Sphere represents a 3D object with all points equi-distance from a center point.
@@ -96,7 +100,8 @@ public class Sphere extends Mesh {
     }
 
     /**
-     * Changes the information of the sphere into the given values.
+     * Changes the information of the sphere into the given values. While the {@link GeometryCache} is enabled, the
+     * geometry is shared with other spheres created with the same values.
      * 
      * @param center
      *            The new center of the sphere.
@@ -113,8 +118,19 @@ public class Sphere extends Mesh {
         this.radialSamples = radialSamples;
         this.radius = radius;
 
+        final List<Object> key = GeometryCache.createKey(Sphere.class, new Vector3(center), zSamples, radialSamples,
+                radius, textureMode);
+        final MeshData shared = GeometryCache.get(key);
+        if (shared != null) {
+            _meshData = shared;
+            return;
+        }
+        if (GeometryCache.isEnabled() || _meshData.isShared()) {
+            _meshData = new MeshData();
+        }
         setGeometryData();
         setIndexData();
+        GeometryCache.put(key, _meshData);
     }
 
     /**
@@ -147,65 +163,46 @@ public class Sphere extends Mesh {
         afSin[radialSamples] = afSin[0];
         afCos[radialSamples] = afCos[0];
 
-        // generate the sphere itself
-        int i = 0;
-        final Vector3 tempVa = Vector3.fetchTempInstance();
-        final Vector3 tempVb = Vector3.fetchTempInstance();
-        final Vector3 tempVc = Vector3.fetchTempInstance();
+        // generate the sphere itself, a slice at a time.
+        final FloatBuffer vertices = _meshData.getVertexBuffer();
+        final FloatBuffer normals = _meshData.getNormalBuffer();
+        final FloatBuffer texCoords = _meshData.getTextureCoords(0).coords;
+        final float[] sliceVertices = new float[(radialSamples + 1) * 3];
+        final float[] sliceNormals = new float[(radialSamples + 1) * 3];
+        final float[] sliceTexCoords = new float[(radialSamples + 1) * 2];
+        final double invRadius = radius != 0 ? 1.0 / radius : 0;
         for (int iZ = 1; iZ < (zSamples - 1); iZ++) {
             final double fZFraction = -1.0 + fZFactor * iZ; // in (-1,1)
             final double fZ = radius * fZFraction;
 
-            // compute center of slice
-            final Vector3 kSliceCenter = tempVb.set(center);
-            kSliceCenter.setZ(kSliceCenter.getZ() + fZ);
-
             // compute radius of slice
             final double fSliceRadius = Math.sqrt(Math.abs(radius * radius - fZ * fZ));
-
-            // compute slice vertices with duplication at end point
-            Vector3 kNormal;
-            final int iSave = i;
-            for (int iR = 0; iR < radialSamples; iR++) {
-                final double fRadialFraction = iR * fInvRS; // in [0,1)
-                final Vector3 kRadial = tempVc.set(afCos[iR], afSin[iR], 0);
-                kRadial.multiply(fSliceRadius, tempVa);
-                _meshData.getVertexBuffer().put((float) (kSliceCenter.getX() + tempVa.getX())).put(
-                        (float) (kSliceCenter.getY() + tempVa.getY())).put(
-                        (float) (kSliceCenter.getZ() + tempVa.getZ()));
-
-                BufferUtils.populateFromBuffer(tempVa, _meshData.getVertexBuffer(), i);
-                kNormal = tempVa.subtractLocal(center);
-                kNormal.normalizeLocal();
-                if (true) {
-                    _meshData.getNormalBuffer().put(kNormal.getXf()).put(kNormal.getYf()).put(kNormal.getZf());
-                } else {
-                    _meshData.getNormalBuffer().put(-kNormal.getXf()).put(-kNormal.getYf()).put(-kNormal.getZf());
-                }
-
-                if (textureMode == TEX_ORIGINAL) {
-                    _meshData.getTextureCoords(0).coords.put((float) fRadialFraction).put(
-                            (float) (0.5 * (fZFraction + 1.0)));
-                } else if (textureMode == TEX_PROJECTED) {
-                    _meshData.getTextureCoords(0).coords.put((float) fRadialFraction).put(
-                            (float) (MathUtils.INV_PI * (MathUtils.HALF_PI + Math.asin(fZFraction))));
-                }
-
-                i++;
+            final double normalRadius = fSliceRadius * invRadius;
+            final float sliceZ = (float) (center.getZ() + fZ);
+            final float normalZ = (float) (fZ * invRadius);
+            final float v;
+            if (textureMode == TEX_PROJECTED) {
+                v = (float) (MathUtils.INV_PI * (MathUtils.HALF_PI + Math.asin(fZFraction)));
+            } else {
+                v = (float) (0.5 * (fZFraction + 1.0));
             }
 
-            BufferUtils.copyInternalVector3(_meshData.getVertexBuffer(), iSave, i);
-            BufferUtils.copyInternalVector3(_meshData.getNormalBuffer(), iSave, i);
-
-            if (textureMode == TEX_ORIGINAL) {
-                _meshData.getTextureCoords(0).coords.put(1.0f).put((float) (0.5 * (fZFraction + 1.0)));
-            } else if (textureMode == TEX_PROJECTED) {
-                _meshData.getTextureCoords(0).coords.put(1.0f).put(
-                        (float) (MathUtils.INV_PI * (MathUtils.HALF_PI + Math.asin(fZFraction))));
+            // compute slice vertices with duplication at end point
+            for (int iR = 0; iR <= radialSamples; iR++) {
+                sliceVertices[iR * 3] = (float) (center.getX() + afCos[iR] * fSliceRadius);
+                sliceVertices[iR * 3 + 1] = (float) (center.getY() + afSin[iR] * fSliceRadius);
+                sliceVertices[iR * 3 + 2] = sliceZ;
+                sliceNormals[iR * 3] = (float) (afCos[iR] * normalRadius);
+                sliceNormals[iR * 3 + 1] = (float) (afSin[iR] * normalRadius);
+                sliceNormals[iR * 3 + 2] = normalZ;
+                sliceTexCoords[iR * 2] = iR < radialSamples ? (float) (iR * fInvRS) : 1.0f;
+                sliceTexCoords[iR * 2 + 1] = v;
             }
-
-            i++;
+            vertices.put(sliceVertices);
+            normals.put(sliceNormals);
+            texCoords.put(sliceTexCoords);
         }
+        int i = (zSamples - 2) * (radialSamples + 1);
 
         // south pole
         _meshData.getVertexBuffer().position(i * 3);
@@ -234,9 +231,6 @@ public class Sphere extends Mesh {
         }
 
         _meshData.getTextureCoords(0).coords.put(0.5f).put(1);
-        Vector3.releaseTempInstance(tempVa);
-        Vector3.releaseTempInstance(tempVb);
-        Vector3.releaseTempInstance(tempVc);
     }
 
     /**
@@ -245,7 +239,7 @@ public class Sphere extends Mesh {
     private void setIndexData() {
         // allocate connectivity
         final int tris = 2 * (zSamples - 2) * radialSamples;
-        _meshData.setIndexBuffer(BufferUtils.createIntBuffer(3 * tris));
+        _meshData.setIndices(BufferUtils.createIndexBufferData(3 * tris, _meshData.getVertexCount() - 1));
 
         // generate connectivity
         int index = 0;
@@ -257,20 +251,20 @@ public class Sphere extends Mesh {
             int i3 = i2 + 1;
             for (int i = 0; i < radialSamples; i++, index += 6) {
                 if (true) {
-                    _meshData.getIndexBuffer().put(i0++);
-                    _meshData.getIndexBuffer().put(i1);
-                    _meshData.getIndexBuffer().put(i2);
-                    _meshData.getIndexBuffer().put(i1++);
-                    _meshData.getIndexBuffer().put(i3++);
-                    _meshData.getIndexBuffer().put(i2++);
+                    _meshData.getIndices().put(i0++);
+                    _meshData.getIndices().put(i1);
+                    _meshData.getIndices().put(i2);
+                    _meshData.getIndices().put(i1++);
+                    _meshData.getIndices().put(i3++);
+                    _meshData.getIndices().put(i2++);
                 } else // inside view
                 {
-                    _meshData.getIndexBuffer().put(i0++);
-                    _meshData.getIndexBuffer().put(i2);
-                    _meshData.getIndexBuffer().put(i1);
-                    _meshData.getIndexBuffer().put(i1++);
-                    _meshData.getIndexBuffer().put(i2++);
-                    _meshData.getIndexBuffer().put(i3++);
+                    _meshData.getIndices().put(i0++);
+                    _meshData.getIndices().put(i2);
+                    _meshData.getIndices().put(i1);
+                    _meshData.getIndices().put(i1++);
+                    _meshData.getIndices().put(i2++);
+                    _meshData.getIndices().put(i3++);
                 }
             }
         }
@@ -278,14 +272,14 @@ public class Sphere extends Mesh {
         // south pole triangles
         for (int i = 0; i < radialSamples; i++, index += 3) {
             if (true) {
-                _meshData.getIndexBuffer().put(i);
-                _meshData.getIndexBuffer().put(_meshData.getVertexCount() - 2);
-                _meshData.getIndexBuffer().put(i + 1);
+                _meshData.getIndices().put(i);
+                _meshData.getIndices().put(_meshData.getVertexCount() - 2);
+                _meshData.getIndices().put(i + 1);
             } else // inside view
             {
-                _meshData.getIndexBuffer().put(i);
-                _meshData.getIndexBuffer().put(i + 1);
-                _meshData.getIndexBuffer().put(_meshData.getVertexCount() - 2);
+                _meshData.getIndices().put(i);
+                _meshData.getIndices().put(i + 1);
+                _meshData.getIndices().put(_meshData.getVertexCount() - 2);
             }
         }
 
@@ -293,14 +287,14 @@ public class Sphere extends Mesh {
         final int iOffset = (zSamples - 3) * (radialSamples + 1);
         for (int i = 0; i < radialSamples; i++, index += 3) {
             if (true) {
-                _meshData.getIndexBuffer().put(i + iOffset);
-                _meshData.getIndexBuffer().put(i + 1 + iOffset);
-                _meshData.getIndexBuffer().put(_meshData.getVertexCount() - 1);
+                _meshData.getIndices().put(i + iOffset);
+                _meshData.getIndices().put(i + 1 + iOffset);
+                _meshData.getIndices().put(_meshData.getVertexCount() - 1);
             } else // inside view
             {
-                _meshData.getIndexBuffer().put(i + iOffset);
-                _meshData.getIndexBuffer().put(_meshData.getVertexCount() - 1);
-                _meshData.getIndexBuffer().put(i + 1 + iOffset);
+                _meshData.getIndices().put(i + iOffset);
+                _meshData.getIndices().put(_meshData.getVertexCount() - 1);
+                _meshData.getIndices().put(i + 1 + iOffset);
             }
         }
     }
@@ -339,7 +333,11 @@ public class Sphere extends Mesh {
      */
     public void setTextureMode(final int textureMode) {
         this.textureMode = textureMode;
-        setGeometryData();
+        if (GeometryCache.isEnabled() || _meshData.isShared()) {
+            setData(center, zSamples, radialSamples, radius);
+        } else {
+            setGeometryData();
+        }
     }
 
     public double getRadius() {
@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.ui.text;
+
+import com.ardor3d.math.Vector2;
+import com.ardor3d.renderer.state.TextureState;
+
+/**
+ * A font as a single texture holding all its glyphs, plus the metrics needed to lay out and measure text with it. Used
+ * by {@link TextBatch} to write the text of many labels into one mesh.
+ * <p>
+ * Glyph positions are in pixels, with y going up from the baseline of the line. Texture coordinates are 0 to 1 over
+ * the whole texture, with v going up, as for any other texture.
+ * </p>
+ */
+public class GlyphAtlas {
+
+    /**
+     * Where a character is found in the atlas texture, and how it is placed relative to the pen.
+     */
+    public static class Glyph {
+        private final float _u0, _v0, _u1, _v1;
+        private final double _xOffset, _yOffset;
+        private final double _width, _height;
+        private final double _advance;
+
+        public Glyph(final float u0, final float v0, final float u1, final float v1, final double xOffset,
+                final double yOffset, final double width, final double height, final double advance) {
+            _u0 = u0;
+            _v0 = v0;
+            _u1 = u1;
+            _v1 = v1;
+            _xOffset = xOffset;
+            _yOffset = yOffset;
+            _width = width;
+            _height = height;
+            _advance = advance;
+        }
+
+        public float getU0() {
+            return _u0;
+        }
+
+        public float getV0() {
+            return _v0;
+        }
+
+        public float getU1() {
+            return _u1;
+        }
+
+        public float getV1() {
+            return _v1;
+        }
+
+        /**
+         * @return how far right of the pen the glyph's quad starts.
+         */
+        public double getXOffset() {
+            return _xOffset;
+        }
+
+        /**
+         * @return how far above the baseline the glyph's quad starts.
+         */
+        public double getYOffset() {
+            return _yOffset;
+        }
+
+        public double getWidth() {
+            return _width;
+        }
+
+        public double getHeight() {
+            return _height;
+        }
+
+        /**
+         * @return how far the pen moves right after this glyph.
+         */
+        public double getAdvance() {
+            return _advance;
+        }
+    }
+
+    private final TextureState _textureState;
+    private Glyph[] _glyphs = new Glyph[128];
+    private double _lineHeight;
+    private double _defaultAdvance;
+
+    /**
+     * @param textureState
+     *            the state holding the font texture.
+     * @param lineHeight
+     *            the distance in pixels between the baselines of two lines.
+     */
+    public GlyphAtlas(final TextureState textureState, final double lineHeight) {
+        _textureState = textureState;
+        _lineHeight = lineHeight;
+    }
+
+    /**
+     * Create an atlas for a font texture laid out as a grid of equally sized cells, filled row by row from the top
+     * left with consecutive characters.
+     *
+     * @param textureState
+     *            the state holding the font texture.
+     * @param columns
+     *            the number of cells across the texture.
+     * @param rows
+     *            the number of cells down the texture.
+     * @param firstChar
+     *            the character in the top left cell.
+     * @param cellSize
+     *            the size of a cell in pixels, and of the quads drawn for each glyph.
+     * @param advance
+     *            how far the pen moves right after each glyph, in pixels.
+     * @return the new atlas, with a line height of cellSize.
+     */
+    public static GlyphAtlas createGrid(final TextureState textureState, final int columns, final int rows,
+            final char firstChar, final double cellSize, final double advance) {
+        final GlyphAtlas atlas = new GlyphAtlas(textureState, cellSize);
+        atlas.setDefaultAdvance(advance);
+        final float cellU = 1f / columns, cellV = 1f / rows;
+        for (int i = 0; i < columns * rows; i++) {
+            final float u = i % columns * cellU;
+            final float v = 1 - (i / columns + 1) * cellV;
+            atlas.setGlyph((char) (firstChar + i), new Glyph(u, v, u + cellU, v + cellV, 0, 0, cellSize, cellSize,
+                    advance));
+        }
+        return atlas;
+    }
+
+    /**
+     * @return an atlas for {@link BasicText#DEFAULT_FONT}, matching the way BasicText draws it: 16 pixel glyphs for
+     *         the characters from ' ' on, 10 pixels apart. The second, italic, half of the font is left out.
+     */
+    public static GlyphAtlas createDefault() {
+        final GlyphAtlas atlas = createGrid(BasicText.getDefaultFontTextureState(), 16, 16, ' ', 16, 10);
+        // the font holds two sets of 128 characters; keep only the normal one.
+        for (int c = ' ' + 128; c < ' ' + 256; c++) {
+            atlas.setGlyph((char) c, null);
+        }
+        return atlas;
+    }
+
+    public TextureState getTextureState() {
+        return _textureState;
+    }
+
+    public double getLineHeight() {
+        return _lineHeight;
+    }
+
+    public void setLineHeight(final double lineHeight) {
+        _lineHeight = lineHeight;
+    }
+
+    /**
+     * @return how far the pen moves for characters without a glyph. Defaults to 0.
+     */
+    public double getDefaultAdvance() {
+        return _defaultAdvance;
+    }
+
+    public void setDefaultAdvance(final double defaultAdvance) {
+        _defaultAdvance = defaultAdvance;
+    }
+
+    /**
+     * @param c
+     *            the character
+     * @param glyph
+     *            its glyph, or null to remove it.
+     */
+    public void setGlyph(final char c, final Glyph glyph) {
+        if (c >= _glyphs.length) {
+            if (glyph == null) {
+                return;
+            }
+            final Glyph[] glyphs = new Glyph[Math.max(c + 1, _glyphs.length * 2)];
+            System.arraycopy(_glyphs, 0, glyphs, 0, _glyphs.length);
+            _glyphs = glyphs;
+        }
+        _glyphs[c] = glyph;
+    }
+
+    /**
+     * @return the glyph of the given character, or null if the atlas has none.
+     */
+    public Glyph getGlyph(final char c) {
+        return c < _glyphs.length ? _glyphs[c] : null;
+    }
+
+    /**
+     * @return how far the pen moves after the given character.
+     */
+    public double getAdvance(final char c) {
+        final Glyph glyph = getGlyph(c);
+        return glyph != null ? glyph.getAdvance() : _defaultAdvance;
+    }
+
+    /**
+     * @return the width in pixels of the widest line of the given text, at a scale of 1.
+     */
+    public double getWidth(final CharSequence text) {
+        double width = 0, line = 0;
+        for (int i = 0, max = text.length(); i < max; i++) {
+            final char c = text.charAt(i);
+            if (c == '\n') {
+                width = Math.max(width, line);
+                line = 0;
+            } else {
+                line += getAdvance(c);
+            }
+        }
+        return Math.max(width, line);
+    }
+
+    /**
+     * @return the height in pixels of the given text's lines, at a scale of 1.
+     */
+    public double getHeight(final CharSequence text) {
+        int lines = 1;
+        for (int i = 0, max = text.length(); i < max; i++) {
+            if (text.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines * _lineHeight;
+    }
+
+    /**
+     * @param text
+     *            the text to measure
+     * @param store
+     *            the vector to store the result in, or null to create one.
+     * @return the width and height in pixels of the given text, at a scale of 1.
+     */
+    public Vector2 measure(final CharSequence text, final Vector2 store) {
+        final Vector2 result = store != null ? store : new Vector2();
+        return result.set(getWidth(text), getHeight(text));
+    }
+}
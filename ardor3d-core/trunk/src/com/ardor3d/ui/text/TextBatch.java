@@ -0,0 +1,350 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.ui.text;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ardor3d.math.type.ReadOnlyColorRGBA;
+import com.ardor3d.renderer.IndexMode;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.queue.RenderBucketType;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.Spatial;
+import com.ardor3d.util.geom.BufferUtils;
+
+/**
+ * Draws the text of any number of {@link TextLabel}s sharing one {@link GlyphAtlas} as a single mesh of textured quads,
+ * one per character, so all of it takes one draw call rather than one per string as with {@link BasicText}.
+ * <p>
+ * Each label keeps a range of quads in the mesh's buffers. Changing a label only rewrites its own range when the batch
+ * is next drawn; the vertices rewritten by the last such update are given by {@link #getDirtyVertexStart()} and
+ * {@link #getDirtyVertexCount()}, for code that uploads the buffers itself. A label whose text outgrows its range moves
+ * to a larger one, and the buffers grow as needed.
+ * </p>
+ * <p>
+ * Like BasicText, the batch is drawn in the ortho bucket, so label positions are in pixels. Labels are not saved when
+ * the batch is exported.
+ * </p>
+ */
+public class TextBatch extends Mesh {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int MIN_LABEL_CAPACITY = 4;
+
+    private GlyphAtlas _atlas;
+
+    private final List<TextLabel> _labels = new ArrayList<TextLabel>();
+    private final List<TextLabel> _dirtyLabels = new ArrayList<TextLabel>();
+
+    // free quad ranges below _usedQuads, as start and count pairs ordered by start.
+    private final List<int[]> _freeRanges = new ArrayList<int[]>();
+    private int _usedQuads;
+    private int _quadCapacity;
+
+    private int _dirtyStart;
+    private int _dirtyEnd;
+    // quads to clear on the next update, as start and count pairs.
+    private final List<int[]> _clearRanges = new ArrayList<int[]>();
+
+    public TextBatch() {}
+
+    /**
+     * @param name
+     *            the name of the scene element.
+     * @param atlas
+     *            the font to draw all labels of this batch with.
+     */
+    public TextBatch(final String name, final GlyphAtlas atlas) {
+        super(name);
+        _atlas = atlas;
+        setCullHint(Spatial.CullHint.Never);
+        setRenderBucketType(RenderBucketType.Ortho);
+        setLightCombineMode(Spatial.LightCombineMode.Off);
+        setRenderState(atlas.getTextureState());
+        setRenderState(BasicText.getFontBlend());
+        _meshData.setIndexMode(IndexMode.Quads);
+        allocateBuffers(64);
+    }
+
+    public GlyphAtlas getAtlas() {
+        return _atlas;
+    }
+
+    /**
+     * Add a white label at a scale of 1.
+     *
+     * @param text
+     *            the text of the label.
+     * @param x
+     *            where its first line starts, in pixels from the left of the batch.
+     * @param y
+     *            the baseline of its first line, in pixels from the bottom of the batch.
+     * @return the new label.
+     */
+    public TextLabel addLabel(final CharSequence text, final double x, final double y) {
+        final TextLabel label = new TextLabel(this, text, x, y);
+        _labels.add(label);
+        markDirty(label);
+        return label;
+    }
+
+    /**
+     * Remove the given label, freeing its quads for other labels.
+     *
+     * @return true if the label was in this batch.
+     */
+    public boolean removeLabel(final TextLabel label) {
+        if (label.getBatch() != this || label._removed) {
+            return false;
+        }
+        _labels.remove(label);
+        label._removed = true;
+        if (label._dirty) {
+            label._dirty = false;
+            _dirtyLabels.remove(label);
+        }
+        release(label);
+        return true;
+    }
+
+    public List<TextLabel> getLabels() {
+        return _labels;
+    }
+
+    void markDirty(final TextLabel label) {
+        if (!label._dirty && !label._removed) {
+            label._dirty = true;
+            _dirtyLabels.add(label);
+        }
+    }
+
+    /**
+     * Write the changed labels into the mesh. Called when the batch is drawn; call it directly to have the buffers up
+     * to date before then.
+     */
+    public void update() {
+        if (_dirtyLabels.isEmpty() && _clearRanges.isEmpty()) {
+            return;
+        }
+        _dirtyStart = Integer.MAX_VALUE;
+        _dirtyEnd = 0;
+        _meshData.getVertexBuffer().clear();
+
+        // make room first, so every label is written into the final buffers.
+        for (int i = 0, max = _dirtyLabels.size(); i < max; i++) {
+            final TextLabel label = _dirtyLabels.get(i);
+            if (label.getText().length() > label._capacity) {
+                release(label);
+                label._capacity = Math.max(MIN_LABEL_CAPACITY, Math.max(label.getText().length(),
+                        label._capacity * 2));
+                label._start = allocate(label._capacity);
+            }
+        }
+
+        for (int i = 0, max = _clearRanges.size(); i < max; i++) {
+            final int[] range = _clearRanges.get(i);
+            // ranges at or above the used count were trimmed off and are not drawn.
+            final int count = Math.min(range[1], _usedQuads - range[0]);
+            if (count > 0) {
+                clearQuads(range[0], count);
+            }
+        }
+        _clearRanges.clear();
+
+        for (int i = 0, max = _dirtyLabels.size(); i < max; i++) {
+            final TextLabel label = _dirtyLabels.get(i);
+            writeLabel(label);
+            label._dirty = false;
+        }
+        _dirtyLabels.clear();
+
+        final FloatBuffer vertices = _meshData.getVertexBuffer();
+        vertices.limit(_usedQuads * 12);
+        vertices.rewind();
+        // refresh the vertex count.
+        _meshData.setVertexBuffer(vertices);
+        _meshData.getTextureBuffer(0).rewind();
+        _meshData.getColorBuffer().rewind();
+    }
+
+    /**
+     * @return the first vertex rewritten by the last update that changed anything.
+     */
+    public int getDirtyVertexStart() {
+        return _dirtyStart < _dirtyEnd ? _dirtyStart * 4 : 0;
+    }
+
+    /**
+     * @return the number of vertices rewritten by the last update that changed anything, from
+     *         {@link #getDirtyVertexStart()}. 0 if nothing was written yet.
+     */
+    public int getDirtyVertexCount() {
+        return _dirtyStart < _dirtyEnd ? (_dirtyEnd - _dirtyStart) * 4 : 0;
+    }
+
+    @Override
+    public void draw(final Renderer r) {
+        update();
+        super.draw(r);
+    }
+
+    private void writeLabel(final TextLabel label) {
+        final FloatBuffer vertices = _meshData.getVertexBuffer();
+        final FloatBuffer texCoords = _meshData.getTextureBuffer(0);
+        final FloatBuffer colors = _meshData.getColorBuffer();
+        final CharSequence text = label.getText();
+        final double scale = label.getScale();
+        final ReadOnlyColorRGBA color = label.getColor();
+        final float r = color.getRed(), g = color.getGreen(), b = color.getBlue(), a = color.getAlpha();
+
+        int quad = label._start;
+        if (label.isVisible()) {
+            double penX = 0, baseline = 0;
+            for (int i = 0, max = text.length(); i < max; i++) {
+                final char c = text.charAt(i);
+                if (c == '\n') {
+                    penX = 0;
+                    baseline -= _atlas.getLineHeight();
+                    continue;
+                }
+                final GlyphAtlas.Glyph glyph = _atlas.getGlyph(c);
+                if (glyph == null) {
+                    penX += _atlas.getDefaultAdvance();
+                    continue;
+                }
+                final float x0 = (float) (label.getX() + (penX + glyph.getXOffset()) * scale);
+                final float y0 = (float) (label.getY() + (baseline + glyph.getYOffset()) * scale);
+                final float x1 = (float) (x0 + glyph.getWidth() * scale);
+                final float y1 = (float) (y0 + glyph.getHeight() * scale);
+                vertices.position(quad * 12);
+                vertices.put(x0).put(y0).put(0).put(x1).put(y0).put(0).put(x1).put(y1).put(0).put(x0).put(y1).put(0);
+                texCoords.position(quad * 8);
+                texCoords.put(glyph.getU0()).put(glyph.getV0()).put(glyph.getU1()).put(glyph.getV0());
+                texCoords.put(glyph.getU1()).put(glyph.getV1()).put(glyph.getU0()).put(glyph.getV1());
+                colors.position(quad * 16);
+                for (int v = 0; v < 4; v++) {
+                    colors.put(r).put(g).put(b).put(a);
+                }
+                penX += glyph.getAdvance();
+                quad++;
+            }
+        }
+
+        // unused quads of the range collapse to nothing.
+        final int end = label._start + label._capacity;
+        if (quad < end) {
+            clearQuads(quad, end - quad);
+        }
+        markWritten(label._start, end);
+    }
+
+    private void clearQuads(final int start, final int count) {
+        final FloatBuffer vertices = _meshData.getVertexBuffer();
+        vertices.position(start * 12);
+        for (int i = 0, max = count * 12; i < max; i++) {
+            vertices.put(0);
+        }
+        markWritten(start, start + count);
+    }
+
+    private void markWritten(final int start, final int end) {
+        _dirtyStart = Math.min(_dirtyStart, start);
+        _dirtyEnd = Math.max(_dirtyEnd, end);
+    }
+
+    private void release(final TextLabel label) {
+        if (label._capacity == 0) {
+            return;
+        }
+        final int[] range = new int[] { label._start, label._capacity };
+        _clearRanges.add(range);
+        label._capacity = 0;
+
+        // insert in order, merging with neighbouring free ranges.
+        int index = 0;
+        while (index < _freeRanges.size() && _freeRanges.get(index)[0] < range[0]) {
+            index++;
+        }
+        _freeRanges.add(index, range);
+        if (index + 1 < _freeRanges.size()) {
+            final int[] next = _freeRanges.get(index + 1);
+            if (range[0] + range[1] == next[0]) {
+                range[1] += next[1];
+                _freeRanges.remove(index + 1);
+            }
+        }
+        if (index > 0) {
+            final int[] previous = _freeRanges.get(index - 1);
+            if (previous[0] + previous[1] == range[0]) {
+                previous[1] += range[1];
+                _freeRanges.remove(index);
+            }
+        }
+
+        // give a free range at the end back, so it is not drawn.
+        if (!_freeRanges.isEmpty()) {
+            final int[] last = _freeRanges.get(_freeRanges.size() - 1);
+            if (last[0] + last[1] == _usedQuads) {
+                _usedQuads = last[0];
+                _freeRanges.remove(_freeRanges.size() - 1);
+            }
+        }
+    }
+
+    private int allocate(final int count) {
+        for (int i = 0, max = _freeRanges.size(); i < max; i++) {
+            final int[] range = _freeRanges.get(i);
+            if (range[1] >= count) {
+                final int start = range[0];
+                range[0] += count;
+                range[1] -= count;
+                if (range[1] == 0) {
+                    _freeRanges.remove(i);
+                }
+                return start;
+            }
+        }
+        if (_usedQuads + count > _quadCapacity) {
+            allocateBuffers(Math.max(_usedQuads + count, _quadCapacity * 2));
+        }
+        final int start = _usedQuads;
+        _usedQuads += count;
+        return start;
+    }
+
+    private void allocateBuffers(final int quads) {
+        final FloatBuffer vertices = BufferUtils.createVector3Buffer(quads * 4);
+        final FloatBuffer texCoords = BufferUtils.createVector2Buffer(quads * 4);
+        final FloatBuffer colors = BufferUtils.createColorBuffer(quads * 4);
+        if (_quadCapacity > 0) {
+            copy(_meshData.getVertexBuffer(), vertices, _usedQuads * 12);
+            copy(_meshData.getTextureBuffer(0), texCoords, _usedQuads * 8);
+            copy(_meshData.getColorBuffer(), colors, _usedQuads * 16);
+            // new buffers have to be sent in full.
+            markWritten(0, _usedQuads);
+        }
+        _quadCapacity = quads;
+        _meshData.setVertexBuffer(vertices);
+        _meshData.setTextureBuffer(texCoords, 0);
+        _meshData.setColorBuffer(colors);
+    }
+
+    private static void copy(final FloatBuffer from, final FloatBuffer to, final int count) {
+        from.clear();
+        from.limit(count);
+        to.clear();
+        to.put(from);
+        from.clear();
+    }
+}
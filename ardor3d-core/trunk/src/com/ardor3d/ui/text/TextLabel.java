@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.ui.text;
+
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.type.ReadOnlyColorRGBA;
+
+/**
+ * One string of text in a {@link TextBatch}. Changing it only marks it for rewriting; the batch writes all changed
+ * labels into its mesh the next time it is drawn. Create labels with {@link TextBatch#addLabel(CharSequence, double,
+ * double)}.
+ */
+public class TextLabel {
+    private final TextBatch _batch;
+    private final StringBuilder _text = new StringBuilder();
+    private double _x, _y;
+    private double _scale = 1;
+    private final ColorRGBA _color = new ColorRGBA(ColorRGBA.WHITE);
+    private boolean _visible = true;
+
+    // quads reserved in the batch's buffers.
+    int _start;
+    int _capacity;
+    boolean _dirty;
+    // set once removed from the batch, after which changes are ignored.
+    boolean _removed;
+
+    TextLabel(final TextBatch batch, final CharSequence text, final double x, final double y) {
+        _batch = batch;
+        _text.append(text);
+        _x = x;
+        _y = y;
+    }
+
+    public TextBatch getBatch() {
+        return _batch;
+    }
+
+    /**
+     * @return the text. Do not modify it directly; use {@link #setText(CharSequence)}.
+     */
+    public CharSequence getText() {
+        return _text;
+    }
+
+    /**
+     * @param text
+     *            the new text. Nothing is rewritten if it equals the current text.
+     */
+    public void setText(final CharSequence text) {
+        if (contentEquals(text)) {
+            return;
+        }
+        _text.setLength(0);
+        _text.append(text);
+        _batch.markDirty(this);
+    }
+
+    private boolean contentEquals(final CharSequence text) {
+        if (text.length() != _text.length()) {
+            return false;
+        }
+        for (int i = 0, max = text.length(); i < max; i++) {
+            if (text.charAt(i) != _text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public double getX() {
+        return _x;
+    }
+
+    public double getY() {
+        return _y;
+    }
+
+    /**
+     * @param x
+     *            where the first line starts, in pixels from the left of the batch.
+     * @param y
+     *            the baseline of the first line, in pixels from the bottom of the batch.
+     */
+    public void setPosition(final double x, final double y) {
+        if (x != _x || y != _y) {
+            _x = x;
+            _y = y;
+            _batch.markDirty(this);
+        }
+    }
+
+    public double getScale() {
+        return _scale;
+    }
+
+    public void setScale(final double scale) {
+        if (scale != _scale) {
+            _scale = scale;
+            _batch.markDirty(this);
+        }
+    }
+
+    public ReadOnlyColorRGBA getColor() {
+        return _color;
+    }
+
+    public void setColor(final ReadOnlyColorRGBA color) {
+        if (!_color.equals(color)) {
+            _color.set(color);
+            _batch.markDirty(this);
+        }
+    }
+
+    public boolean isVisible() {
+        return _visible;
+    }
+
+    public void setVisible(final boolean visible) {
+        if (visible != _visible) {
+            _visible = visible;
+            _batch.markDirty(this);
+        }
+    }
+
+    /**
+     * @return the width in pixels of the widest line of this label, as drawn.
+     */
+    public double getWidth() {
+        return _batch.getAtlas().getWidth(_text) * _scale;
+    }
+
+    /**
+     * @return the height in pixels of all lines of this label, as drawn.
+     */
+    public double getHeight() {
+        return _batch.getAtlas().getHeight(_text) * _scale;
+    }
+
+    /**
+     * Remove this label from its batch. A removed label can not be added back; changing it has no further effect.
+     */
+    public void remove() {
+        _batch.removeLabel(this);
+    }
+}
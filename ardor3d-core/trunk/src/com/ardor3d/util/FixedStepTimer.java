@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util;
+
+/**
+ * A timer that does not look at the clock: every {@link #update()} advances it by the same fixed time per frame. Any
+ * time based logic driven by it, such as controllers and camera paths, then does the same thing on frame N of every
+ * run, which makes it useful for repeatable benchmarks, especially along with a
+ * {@link com.ardor3d.input.record.InputReplay}.
+ */
+public class FixedStepTimer extends Timer {
+
+    private final long timePerFrame;
+    private long frames;
+
+    /**
+     * @param timePerFrame
+     *            the time in seconds each frame advances the timer by.
+     * @throws IllegalArgumentException
+     *             if timePerFrame is not positive.
+     */
+    public FixedStepTimer(final double timePerFrame) {
+        if (!(timePerFrame > 0)) {
+            throw new IllegalArgumentException("timePerFrame must be positive: " + timePerFrame);
+        }
+        this.timePerFrame = Math.round(timePerFrame * getResolution());
+    }
+
+    /**
+     * @return the number of frames since this timer was created or reset.
+     */
+    public long getFrameCount() {
+        return frames;
+    }
+
+    @Override
+    public long getTime() {
+        return frames * timePerFrame;
+    }
+
+    @Override
+    public double getFrameRate() {
+        return (double) getResolution() / timePerFrame;
+    }
+
+    @Override
+    public double getTimePerFrame() {
+        return (double) timePerFrame / getResolution();
+    }
+
+    @Override
+    public void update() {
+        frames++;
+    }
+
+    @Override
+    public void reset() {
+        frames = 0;
+    }
+}
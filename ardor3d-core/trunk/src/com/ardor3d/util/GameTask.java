@@ -15,6 +15,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -28,6 +29,14 @@ public class GameTask<V> implements Future<V> {
 
     private final Callable<V> callable;
 
+    private final int priority;
+    private final long deadlineNanos;
+
+    /** When the task was queued, and its place in line among tasks of the same priority. Set by GameTaskQueue. */
+    long enqueueNanos;
+    long sequence;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
     private V result;
     private ExecutionException exception;
     private boolean cancelled, finished;
@@ -35,7 +44,45 @@ public class GameTask<V> implements Future<V> {
     private final Condition finishedCondition = stateLock.newCondition();
 
     public GameTask(final Callable<V> callable) {
+        this(callable, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param callable
+     *            the work to do.
+     * @param priority
+     *            tasks of higher priority are run first.
+     * @param deadlineNanos
+     *            the {@link System#nanoTime()} by which the task should be run, even if the queue it is in has used up
+     *            its time budget; or Long.MAX_VALUE for no deadline.
+     */
+    public GameTask(final Callable<V> callable, final int priority, final long deadlineNanos) {
         this.callable = callable;
+        this.priority = priority;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    public boolean hasDeadline() {
+        return deadlineNanos != Long.MAX_VALUE;
+    }
+
+    /**
+     * @return true the first time this is called, so a task reachable from more than one place is only run once.
+     */
+    boolean claim() {
+        return claimed.compareAndSet(false, true);
+    }
+
+    boolean isClaimed() {
+        return claimed.get();
     }
 
     public boolean cancel(final boolean mayInterruptIfRunning) {
@@ -10,14 +10,27 @@
 
 package com.ardor3d.util;
 
+import java.util.Comparator;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ardor3d.util.stat.StatCollector;
+import com.ardor3d.util.stat.StatHistogram;
+import com.ardor3d.util.stat.StatType;
 
 /**
  * <code>GameTaskQueue</code> is a simple queueing system to enqueue tasks that need to be accomplished in the OpenGL
  * thread and get back a Future object to be able to retrieve a return from the Callable that was passed in.
+ * <p>
+ * Tasks run in order of priority, then in the order they were enqueued. Each call to {@link #execute()} runs one task,
+ * all of them (see {@link #setExecuteAll(boolean)}), or as many as fit in a time budget (see
+ * {@link #setExecutionBudget(double)}), so a burst of uploads or scene edits can be spread over several frames. Tasks
+ * enqueued with a deadline are run once it has passed, whatever the budget.
+ * </p>
  * 
  * @see Future
  * @see Callable
@@ -27,8 +40,70 @@ public class GameTaskQueue {
     public static final String RENDER = "render";
     public static final String UPDATE = "update";
 
-    private final ConcurrentLinkedQueue<GameTask<?>> queue = new ConcurrentLinkedQueue<GameTask<?>>();
+    private static final Comparator<GameTask<?>> PRIORITY_ORDER = new Comparator<GameTask<?>>() {
+        public int compare(final GameTask<?> o1, final GameTask<?> o2) {
+            if (o1.getPriority() != o2.getPriority()) {
+                return o1.getPriority() > o2.getPriority() ? -1 : 1;
+            }
+            return o1.sequence < o2.sequence ? -1 : o1.sequence == o2.sequence ? 0 : 1;
+        }
+    };
+
+    private static final Comparator<GameTask<?>> DEADLINE_ORDER = new Comparator<GameTask<?>>() {
+        public int compare(final GameTask<?> o1, final GameTask<?> o2) {
+            final long d1 = o1.getDeadlineNanos(), d2 = o2.getDeadlineNanos();
+            return d1 < d2 ? -1 : d1 == d2 ? 0 : 1;
+        }
+    };
+
+    private final PriorityBlockingQueue<GameTask<?>> queue = new PriorityBlockingQueue<GameTask<?>>(11, PRIORITY_ORDER);
+    /** The tasks with a deadline, also found in queue. Whichever of the two reaches a task first runs it. */
+    private final PriorityBlockingQueue<GameTask<?>> deadlines = new PriorityBlockingQueue<GameTask<?>>(11,
+            DEADLINE_ORDER);
     private final AtomicBoolean executeAll = new AtomicBoolean();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger backlog = new AtomicInteger();
+    private volatile double executionBudgetMS = 0;
+
+    private volatile String name;
+    private StatType backlogStat, timeStat;
+
+    /** Guards the stats below, only contended when they are read. */
+    private final Object statsLock = new Object();
+    private final StatHistogram latency = new StatHistogram();
+    private final StatHistogram executionTime = new StatHistogram();
+    private long executedCount, overdueCount;
+
+    public GameTaskQueue() {}
+
+    /**
+     * @param name
+     *            see {@link #setName(String)}
+     */
+    public GameTaskQueue(final String name) {
+        setName(name);
+    }
+
+    /**
+     * @return the name of this queue, or null if it was not given one.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name
+     *            the name of this queue, which is also used for the stats it adds to the StatCollector when
+     *            {@link Debug#stats} is on: the average backlog per frame and the milliseconds per frame spent running
+     *            tasks.
+     */
+    public void setName(final String name) {
+        synchronized (statsLock) {
+            this.name = name;
+            backlogStat = name != null ? new StatType("_taskBacklog_" + name) : null;
+            timeStat = name != null ? new StatType("_taskTime_" + name) : null;
+        }
+    }
 
     /**
      * The state of this <code>GameTaskQueue</code> if it will execute all enqueued Callables on an execute invokation.
@@ -49,6 +124,22 @@ public class GameTaskQueue {
         this.executeAll.set(executeAll);
     }
 
+    public double getExecutionBudget() {
+        return executionBudgetMS;
+    }
+
+    /**
+     * Sets how long each call to execute() may keep running tasks, unless executeAll is set. At least one task is run
+     * per call, and tasks whose deadline has passed are run beyond the budget. Defaults to 0, running one task per
+     * call.
+     * 
+     * @param budgetMS
+     *            the time budget in milliseconds.
+     */
+    public void setExecutionBudget(final double budgetMS) {
+        executionBudgetMS = budgetMS;
+    }
+
     /**
      * Adds the Callable to the internal queue to invoked and returns a Future that wraps the return. This is useful for
      * checking the status of the task as well as being able to retrieve the return object from Callable asynchronously.
@@ -58,8 +149,46 @@ public class GameTaskQueue {
      * @return
      */
     public <V> Future<V> enqueue(final Callable<V> callable) {
-        final GameTask<V> task = new GameTask<V>(callable);
+        return enqueue(new GameTask<V>(callable));
+    }
+
+    /**
+     * Adds the Callable to the internal queue, to be invoked before any task of a lower priority.
+     * 
+     * @param <V>
+     * @param callable
+     * @param priority
+     *            tasks of higher priority are run first. Tasks added without one have priority 0.
+     * @return a Future wrapping the return of the callable.
+     */
+    public <V> Future<V> enqueue(final Callable<V> callable, final int priority) {
+        return enqueue(new GameTask<V>(callable, priority, Long.MAX_VALUE));
+    }
+
+    /**
+     * Adds the Callable to the internal queue, to be invoked before any task of a lower priority, and no later than the
+     * first call to execute() once the given time has passed.
+     * 
+     * @param <V>
+     * @param callable
+     * @param priority
+     *            tasks of higher priority are run first. Tasks added without one have priority 0.
+     * @param deadlineMS
+     *            how many milliseconds from now the task may wait before it is run regardless of the time budget.
+     * @return a Future wrapping the return of the callable.
+     */
+    public <V> Future<V> enqueue(final Callable<V> callable, final int priority, final double deadlineMS) {
+        return enqueue(new GameTask<V>(callable, priority, System.nanoTime() + (long) (deadlineMS * 1000000)));
+    }
+
+    private <V> GameTask<V> enqueue(final GameTask<V> task) {
+        task.enqueueNanos = System.nanoTime();
+        task.sequence = sequence.getAndIncrement();
+        backlog.incrementAndGet();
         queue.add(task);
+        if (task.hasDeadline()) {
+            deadlines.add(task);
+        }
         return task;
     }
 
@@ -68,18 +197,115 @@ public class GameTaskQueue {
      * invoked in the OpenGL thread.
      */
     public void execute() {
-        GameTask<?> task = queue.poll();
-        do {
-            if (task == null) {
-                return;
+        final long start = System.nanoTime();
+        final long budgetEnd = start + (long) (executionBudgetMS * 1000000);
+        GameTask<?> task;
+        while ((task = queue.poll()) != null) {
+            if (!run(task, false)) {
+                continue;
+            }
+            if (!executeAll.get() && System.nanoTime() >= budgetEnd) {
+                break;
+            }
+        }
+
+        // whatever is past its deadline runs, budget or not.
+        while ((task = deadlines.peek()) != null
+                && (task.isClaimed() || task.getDeadlineNanos() <= System.nanoTime())) {
+            // the head can only have moved to an earlier deadline since we peeked.
+            run(deadlines.poll(), true);
+        }
+
+        if (Debug.stats) {
+            final StatType backlogType, timeType;
+            synchronized (statsLock) {
+                backlogType = backlogStat;
+                timeType = timeStat;
             }
-            while (task.isCancelled()) {
-                task = queue.poll();
-                if (task == null) {
-                    return;
-                }
+            if (backlogType != null) {
+                StatCollector.addStat(backlogType, backlog.get());
+                StatCollector.addStat(timeType, (System.nanoTime() - start) / 1000000.0);
             }
-            task.invoke();
-        } while ((executeAll.get()) && ((task = queue.poll()) != null));
+        }
+    }
+
+    /**
+     * @return true if the task was run, false if it was cancelled or already run.
+     */
+    private boolean run(final GameTask<?> task, final boolean overdue) {
+        if (!task.claim()) {
+            return false;
+        }
+        backlog.decrementAndGet();
+        if (task.isCancelled()) {
+            return false;
+        }
+        final long start = System.nanoTime();
+        task.invoke();
+        final long end = System.nanoTime();
+        synchronized (statsLock) {
+            latency.record((start - task.enqueueNanos) / 1000000.0);
+            executionTime.record((end - start) / 1000000.0);
+            executedCount++;
+            if (overdue) {
+                overdueCount++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of tasks waiting to be run.
+     */
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * @return the number of tasks run since the last call to {@link #resetStats()}.
+     */
+    public long getExecutedCount() {
+        synchronized (statsLock) {
+            return executedCount;
+        }
+    }
+
+    /**
+     * @return the number of tasks run beyond the time budget because their deadline had passed, since the last call
+     *         to {@link #resetStats()}.
+     */
+    public long getOverdueCount() {
+        synchronized (statsLock) {
+            return overdueCount;
+        }
+    }
+
+    /**
+     * @return a copy of the histogram of milliseconds between enqueuing and running a task, since the last call to
+     *         {@link #resetStats()}.
+     */
+    public StatHistogram getLatencyHistogram() {
+        synchronized (statsLock) {
+            return new StatHistogram(latency);
+        }
+    }
+
+    /**
+     * @return a copy of the histogram of milliseconds spent running a task, since the last call to
+     *         {@link #resetStats()}.
+     */
+    public StatHistogram getExecutionTimeHistogram() {
+        synchronized (statsLock) {
+            return new StatHistogram(executionTime);
+        }
+    }
+
+    public void resetStats() {
+        synchronized (statsLock) {
+            latency.reset();
+            executionTime.reset();
+            executedCount = 0;
+            overdueCount = 0;
+        }
     }
 }
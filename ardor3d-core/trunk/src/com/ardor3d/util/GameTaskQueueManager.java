@@ -10,6 +10,8 @@
 
 package com.ardor3d.util;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -33,7 +35,13 @@ public final class GameTaskQueueManager {
         addQueue(GameTaskQueue.UPDATE, new GameTaskQueue());
     }
 
+    /**
+     * Add a queue under the given name, which it is also given if it has no name yet.
+     */
     public void addQueue(final String name, final GameTaskQueue queue) {
+        if (queue.getName() == null) {
+            queue.setName(name);
+        }
         managedQueues.put(name, queue);
     }
 
@@ -41,6 +49,13 @@ public final class GameTaskQueueManager {
         return managedQueues.get(name);
     }
 
+    /**
+     * @return a read only view of the managed queues by name, eg. to report their backlog and latency stats.
+     */
+    public Map<String, GameTaskQueue> getQueues() {
+        return Collections.unmodifiableMap(managedQueues);
+    }
+
     /**
      * This method adds <code>callable</code> to the queue to be invoked in the update() method in the OpenGL thread.
      * The Future returned may be utilized to cancel the task or wait for the return object.
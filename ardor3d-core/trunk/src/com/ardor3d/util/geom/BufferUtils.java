@@ -31,6 +31,10 @@ import com.ardor3d.math.type.ReadOnlyColorRGBA;
 import com.ardor3d.math.type.ReadOnlyVector2;
 import com.ardor3d.math.type.ReadOnlyVector3;
 import com.ardor3d.math.type.ReadOnlyVector4;
+import com.ardor3d.scenegraph.ByteBufferData;
+import com.ardor3d.scenegraph.IndexBufferData;
+import com.ardor3d.scenegraph.IntBufferData;
+import com.ardor3d.scenegraph.ShortBufferData;
 import com.ardor3d.util.Debug;
 
 /**
@@ -1141,6 +1145,106 @@ public final class BufferUtils {
         return copy;
     }
 
+    // // -- INDEX BUFFER DATA METHODS -- ////
+
+    /**
+     * Create a new IndexBufferData of the specified size. The storage type is picked from the largest index value that
+     * needs to be stored: unsigned bytes for values below 256, unsigned shorts for values below 65536 and ints
+     * otherwise. For a mesh this is normally its vertex count minus one.
+     * 
+     * @param size
+     *            required number of indices to store.
+     * @param maxIndex
+     *            the largest index value that will be put in the buffer.
+     * @return the new IndexBufferData
+     */
+    public static IndexBufferData<?> createIndexBufferData(final int size, final int maxIndex) {
+        if (maxIndex <= 0xFF) {
+            return new ByteBufferData(size);
+        } else if (maxIndex <= 0xFFFF) {
+            return new ShortBufferData(size);
+        } else {
+            return new IntBufferData(size);
+        }
+    }
+
+    /**
+     * Create a new IndexBufferData of an appropriate size and type only if the given buffer is not already the right
+     * size or can not hold the given max index.
+     * 
+     * @param buf
+     *            the buffer to first check and rewind
+     * @param size
+     *            required number of indices to store.
+     * @param maxIndex
+     *            the largest index value that will be put in the buffer.
+     * @return the requested IndexBufferData
+     */
+    public static IndexBufferData<?> createIndexBufferData(final IndexBufferData<?> buf, final int size,
+            final int maxIndex) {
+        if (buf != null && buf.limit() == size && buf.getMaxIndex() >= maxIndex) {
+            buf.rewind();
+            return buf;
+        }
+
+        return createIndexBufferData(size, maxIndex);
+    }
+
+    /**
+     * Generate a new IndexBufferData using the given array of ints. The storage type is picked from the largest value
+     * found in the array.
+     * 
+     * @param data
+     *            array of index values to place into a new IndexBufferData
+     * @return the new IndexBufferData
+     */
+    public static IndexBufferData<?> createIndexBufferData(final int[] data) {
+        if (data == null) {
+            return null;
+        }
+        int max = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] > max) {
+                max = data[i];
+            }
+        }
+        final IndexBufferData<?> buff = createIndexBufferData(data.length, max);
+        buff.put(data);
+        buff.flip();
+        return buff;
+    }
+
+    /**
+     * Create a new int[] array and populate it with the given IndexBufferData's contents.
+     * 
+     * @param buff
+     *            the IndexBufferData to read from
+     * @return a new int array populated from the IndexBufferData
+     */
+    public static int[] getIntArray(final IndexBufferData<?> buff) {
+        if (buff == null) {
+            return null;
+        }
+        buff.clear();
+        return buff.toArray();
+    }
+
+    /**
+     * Creates a new IndexBufferData with the same contents and storage type as the given IndexBufferData.
+     * 
+     * @param buf
+     *            the IndexBufferData to copy
+     * @return the copy
+     */
+    public static IndexBufferData<?> clone(final IndexBufferData<?> buf) {
+        if (buf == null) {
+            return null;
+        }
+        buf.rewind();
+
+        return buf.makeCopy();
+    }
+
     /**
      * Ensures there is at least the <code>required</code> number of entries left after the current position of the
      * buffer. If the buffer is too small a larger one is created and the old one copied to the new buffer.
@@ -11,7 +11,6 @@
 package com.ardor3d.util.geom;
 
 import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 
 import com.ardor3d.bounding.BoundingBox;
 import com.ardor3d.bounding.BoundingSphere;
@@ -36,6 +35,7 @@ import com.ardor3d.renderer.state.RenderState;
 import com.ardor3d.renderer.state.TextureState;
 import com.ardor3d.renderer.state.WireframeState;
 import com.ardor3d.renderer.state.ZBufferState;
+import com.ardor3d.scenegraph.IndexBufferData;
 import com.ardor3d.scenegraph.Line;
 import com.ardor3d.scenegraph.Mesh;
 import com.ardor3d.scenegraph.Node;
@@ -269,11 +269,13 @@ public final class Debugger {
                     lineColors.clear();
                 }
 
-                IntBuffer lineInds = normalLines.getMeshData().getIndexBuffer();
-                if (lineInds == null || lineInds.capacity() < (normalLines.getMeshData().getVertexCount())) {
-                    normalLines.getMeshData().setIndexBuffer(null);
-                    lineInds = BufferUtils.createIntBuffer(geom.getMeshData().getVertexCount() * 2);
-                    normalLines.getMeshData().setIndexBuffer(lineInds);
+                IndexBufferData<?> lineInds = normalLines.getMeshData().getIndices();
+                if (lineInds == null || lineInds.capacity() < (normalLines.getMeshData().getVertexCount())
+                        || lineInds.getMaxIndex() < normalLines.getMeshData().getVertexCount() - 1) {
+                    normalLines.getMeshData().setIndices(null);
+                    lineInds = BufferUtils.createIndexBufferData(geom.getMeshData().getVertexCount() * 2, geom
+                            .getMeshData().getVertexCount() * 2 - 1);
+                    normalLines.getMeshData().setIndices(lineInds);
                 } else {
                     lineInds.clear();
                     lineInds.limit(normalLines.getMeshData().getVertexCount());
@@ -383,11 +385,13 @@ public final class Debugger {
                     lineColors.clear();
                 }
 
-                IntBuffer lineInds = normalLines.getMeshData().getIndexBuffer();
-                if (lineInds == null || lineInds.capacity() < (normalLines.getMeshData().getVertexCount())) {
-                    normalLines.getMeshData().setIndexBuffer(null);
-                    lineInds = BufferUtils.createIntBuffer(geom.getMeshData().getVertexCount() * 2);
-                    normalLines.getMeshData().setIndexBuffer(lineInds);
+                IndexBufferData<?> lineInds = normalLines.getMeshData().getIndices();
+                if (lineInds == null || lineInds.capacity() < (normalLines.getMeshData().getVertexCount())
+                        || lineInds.getMaxIndex() < normalLines.getMeshData().getVertexCount() - 1) {
+                    normalLines.getMeshData().setIndices(null);
+                    lineInds = BufferUtils.createIndexBufferData(geom.getMeshData().getVertexCount() * 2, geom
+                            .getMeshData().getVertexCount() * 2 - 1);
+                    normalLines.getMeshData().setIndices(lineInds);
                 } else {
                     lineInds.clear();
                     lineInds.limit(normalLines.getMeshData().getVertexCount());
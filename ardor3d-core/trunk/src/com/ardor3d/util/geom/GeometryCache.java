@@ -0,0 +1,125 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util.geom;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ardor3d.scenegraph.MeshData;
+
+/**
+ * Shares the mesh data of parametric shapes between all shapes of the same type created with the same parameters, so
+ * scenes made of many alike shapes generate and allocate their geometry once. Off by default; while enabled, shapes
+ * such as {@link com.ardor3d.scenegraph.shape.Sphere} look their geometry up here when created, and add it if it was
+ * not found.
+ * <p>
+ * Shared data is marked with {@link MeshData#isShared()} and must not be changed: use
+ * {@link com.ardor3d.scenegraph.Mesh#getWritableMeshData()} to give a mesh its own copy first. The shapes' own setters
+ * do this. Entries are weakly held, so data no mesh uses any more can be collected.
+ * </p>
+ */
+public final class GeometryCache {
+
+    private static class Entry extends WeakReference<MeshData> {
+        private final List<Object> _key;
+
+        Entry(final List<Object> key, final MeshData meshData, final ReferenceQueue<MeshData> queue) {
+            super(meshData, queue);
+            _key = key;
+        }
+    }
+
+    private static final Map<List<Object>, Entry> _cache = new HashMap<List<Object>, Entry>();
+    private static final ReferenceQueue<MeshData> _collected = new ReferenceQueue<MeshData>();
+
+    private static boolean _enabled;
+
+    private GeometryCache() {}
+
+    public static synchronized boolean isEnabled() {
+        return _enabled;
+    }
+
+    /**
+     * @param enabled
+     *            true to share the geometry of shapes created from now on. Turning the cache off also empties it; mesh
+     *            data already shared stays shared.
+     */
+    public static synchronized void setEnabled(final boolean enabled) {
+        _enabled = enabled;
+        if (!enabled) {
+            _cache.clear();
+        }
+    }
+
+    /**
+     * @param type
+     *            the class of the shape.
+     * @param parameters
+     *            everything the shape's geometry depends on. Must have value based equals and hashCode methods, and
+     *            not be changed afterwards.
+     * @return a key for the geometry of the given shape.
+     */
+    public static List<Object> createKey(final Class<?> type, final Object... parameters) {
+        final List<Object> key = new ArrayList<Object>(parameters.length + 1);
+        key.add(type);
+        key.addAll(Arrays.asList(parameters));
+        return key;
+    }
+
+    /**
+     * @return the shared mesh data for the given key, or null if there is none or the cache is off.
+     */
+    public static synchronized MeshData get(final List<Object> key) {
+        if (!_enabled) {
+            return null;
+        }
+        final Entry entry = _cache.get(key);
+        return entry != null ? entry.get() : null;
+    }
+
+    /**
+     * Share the given mesh data under the given key, marking it as shared. Does nothing if the cache is off.
+     */
+    public static synchronized void put(final List<Object> key, final MeshData meshData) {
+        if (!_enabled) {
+            return;
+        }
+        // drop the entries of collected data first.
+        Entry collected;
+        while ((collected = (Entry) _collected.poll()) != null) {
+            if (_cache.get(collected._key) == collected) {
+                _cache.remove(collected._key);
+            }
+        }
+        meshData.setShared(true);
+        _cache.put(key, new Entry(key, meshData, _collected));
+    }
+
+    /**
+     * @return the number of entries in the cache, including any whose data was collected but not yet dropped.
+     */
+    public static synchronized int size() {
+        return _cache.size();
+    }
+
+    /**
+     * Remove all entries. Mesh data already shared stays shared.
+     */
+    public static synchronized void clear() {
+        _cache.clear();
+    }
+}
@@ -19,6 +19,7 @@ import com.ardor3d.math.ColorRGBA;
 import com.ardor3d.math.Vector2;
 import com.ardor3d.math.Vector3;
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.TexCoords;
 
 /**
@@ -60,7 +61,7 @@ public class GeometryTool {
                 }
             }
 
-            final int[] inds = BufferUtils.getIntArray(mesh.getMeshData().getIndexBuffer());
+            final int[] inds = BufferUtils.getIntArray(mesh.getMeshData().getIndices());
 
             final HashMap<VertKey, Integer> store = new HashMap<VertKey, Integer>();
             int good = 0;
@@ -122,24 +123,25 @@ public class GeometryTool {
                 }
             }
 
-            mesh.getMeshData().setVertexBuffer(BufferUtils.createFloatBuffer(newVects.toArray(new Vector3[0])));
+            // the index buffer is refilled in place, so make sure it is ours.
+            final MeshData meshData = mesh.getWritableMeshData();
+            meshData.setVertexBuffer(BufferUtils.createFloatBuffer(newVects.toArray(new Vector3[0])));
             if (norms != null) {
-                mesh.getMeshData().setNormalBuffer(BufferUtils.createFloatBuffer(newNorms.toArray(new Vector3[0])));
+                meshData.setNormalBuffer(BufferUtils.createFloatBuffer(newNorms.toArray(new Vector3[0])));
             }
             if (colors != null) {
-                mesh.getMeshData().setColorBuffer(BufferUtils.createFloatBuffer(newColors.toArray(new ColorRGBA[0])));
+                meshData.setColorBuffer(BufferUtils.createFloatBuffer(newColors.toArray(new ColorRGBA[0])));
             }
 
             for (int x = 0; x < newTexs.length; x++) {
-                if (mesh.getMeshData().getTextureCoords(x) != null) {
-                    mesh.getMeshData().setTextureCoords(
-                            TexCoords.makeNew((Vector2[]) newTexs[x].toArray(new Vector2[0])), x);
+                if (meshData.getTextureCoords(x) != null) {
+                    meshData.setTextureCoords(TexCoords.makeNew((Vector2[]) newTexs[x].toArray(new Vector2[0])), x);
                 }
             }
 
-            mesh.getMeshData().getIndexBuffer().clear();
-            mesh.getMeshData().getIndexBuffer().put(inds);
-            newCount = mesh.getMeshData().getVertexCount();
+            meshData.getIndices().clear();
+            meshData.getIndices().put(inds);
+            newCount = meshData.getVertexCount();
         }
         logger.info("mesh: " + mesh + " old: " + oldCount + " new: " + newCount);
 
@@ -0,0 +1,597 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util.geom;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import com.ardor3d.renderer.IndexMode;
+import com.ardor3d.scenegraph.IndexBufferData;
+import com.ardor3d.scenegraph.MeshData;
+import com.ardor3d.scenegraph.TexCoords;
+
+/**
+ * <code>MeshSimplifier</code> reduces the triangle count of a MeshData by collapsing edges in order of their quadric
+ * error (Garland and Heckbert). It is meant to be run offline, eg. to build the levels of a
+ * {@link com.ardor3d.scenegraph.extension.LodNode}.
+ * <p>
+ * Vertices sharing a position are welded before simplifying, so texture and normal seams do not open up. Each collapse
+ * keeps one of the two end points of the edge, so the reduced mesh only uses vertices of the source, with their
+ * normals, colors and texture coordinates untouched. Open borders are held in place by extra planes weighted with
+ * {@link #setBorderWeight(double)}.
+ * </p>
+ */
+public class MeshSimplifier {
+
+    private double _borderWeight = 1000;
+
+    private double _maximumError = Double.POSITIVE_INFINITY;
+
+    /**
+     * @return the weight of the planes holding open borders in place, relative to the planes of the triangles.
+     */
+    public double getBorderWeight() {
+        return _borderWeight;
+    }
+
+    /**
+     * @param weight
+     *            the weight of the planes holding open borders in place. 0 lets borders shrink like any other edge.
+     */
+    public void setBorderWeight(final double weight) {
+        _borderWeight = weight;
+    }
+
+    /**
+     * @return the largest quadric error a single collapse may introduce.
+     */
+    public double getMaximumError() {
+        return _maximumError;
+    }
+
+    /**
+     * @param error
+     *            the largest quadric error (squared distance, in model units) a single collapse may introduce.
+     *            Simplification stops early once every remaining collapse is more expensive than this.
+     */
+    public void setMaximumError(final double error) {
+        _maximumError = error;
+    }
+
+    /**
+     * Build a chain of reduced versions of the given mesh data, each one simplified from the one before it.
+     * 
+     * @param source
+     *            the full detail mesh data, which is returned as the first level.
+     * @param levels
+     *            the number of levels wanted, including the source.
+     * @param reduction
+     *            the fraction of triangles each level keeps of the level before it, eg. 0.5
+     * @return the levels, finest first. Fewer levels than asked for are returned if a level could not be reduced any
+     *         further.
+     */
+    public MeshData[] buildLevels(final MeshData source, final int levels, final double reduction) {
+        if (reduction <= 0 || reduction >= 1) {
+            throw new IllegalArgumentException("reduction must be between 0 and 1: " + reduction);
+        }
+        final List<MeshData> chain = new ArrayList<MeshData>();
+        chain.add(source);
+        MeshData previous = source;
+        while (chain.size() < levels) {
+            final int triangles = previous.getTotalPrimitiveCount();
+            final MeshData next = simplify(previous, (int) (triangles * reduction));
+            if (next.getTotalPrimitiveCount() >= triangles || next.getTotalPrimitiveCount() == 0) {
+                break;
+            }
+            chain.add(next);
+            previous = next;
+        }
+        return chain.toArray(new MeshData[chain.size()]);
+    }
+
+    /**
+     * Simplify the given mesh data.
+     * 
+     * @param source
+     *            the mesh data to simplify. Must hold a single section of {@link IndexMode#Triangles}. It is not
+     *            modified.
+     * @param targetTriangles
+     *            the number of triangles to stop at.
+     * @return new mesh data holding the used vertices of the source and the remaining triangles.
+     */
+    public MeshData simplify(final MeshData source, final int targetTriangles) {
+        if (source.getIndexModes().length != 1 || source.getIndexMode() != IndexMode.Triangles) {
+            throw new IllegalArgumentException("only a single section of IndexMode.Triangles can be simplified.");
+        }
+
+        final FloatBuffer vertices = source.getVertexBuffer();
+        final IndexBufferData<?> indices = source.getIndices();
+        final int vertexCount = source.getVertexCount();
+        final int triCount = source.getPrimitiveCount(0);
+        final int[] corners = new int[triCount * 3];
+        for (int i = 0; i < corners.length; i++) {
+            corners[i] = indices != null ? indices.get(i) : i;
+        }
+
+        // weld vertices by position
+        final HashMap<PositionKey, Integer> welded = new HashMap<PositionKey, Integer>();
+        final int[] vertexGroup = new int[vertexCount];
+        final double[] positions = new double[vertexCount * 3];
+        int groupCount = 0;
+        for (int v = 0; v < vertexCount; v++) {
+            final PositionKey key = new PositionKey(vertices.get(v * 3), vertices.get(v * 3 + 1), vertices
+                    .get(v * 3 + 2));
+            final Integer group = welded.get(key);
+            if (group != null) {
+                vertexGroup[v] = group;
+            } else {
+                vertexGroup[v] = groupCount;
+                positions[groupCount * 3] = key.x;
+                positions[groupCount * 3 + 1] = key.y;
+                positions[groupCount * 3 + 2] = key.z;
+                welded.put(key, groupCount++);
+            }
+        }
+
+        final State state = new State(groupCount, triCount, positions);
+        for (int t = 0; t < triCount; t++) {
+            state.addTriangle(t, vertexGroup[corners[t * 3]], vertexGroup[corners[t * 3 + 1]],
+                    vertexGroup[corners[t * 3 + 2]]);
+        }
+        state.addBorderPlanes(_borderWeight);
+        state.collapse(targetTriangles, _maximumError);
+
+        return buildResult(source, corners, vertexGroup, state);
+    }
+
+    private MeshData buildResult(final MeshData source, final int[] corners, final int[] vertexGroup,
+            final State state) {
+        // vertices whose group survived, listed per group, to remap the vertices of collapsed groups onto.
+        final int[] firstMember = new int[state.groupCount];
+        final int[] nextMember = new int[vertexGroup.length];
+        Arrays.fill(firstMember, -1);
+        for (int v = vertexGroup.length - 1; v >= 0; v--) {
+            nextMember[v] = firstMember[vertexGroup[v]];
+            firstMember[vertexGroup[v]] = v;
+        }
+
+        final int[] remap = new int[vertexGroup.length];
+        Arrays.fill(remap, -1);
+        final int[] newIndex = new int[vertexGroup.length];
+        Arrays.fill(newIndex, -1);
+        final int[] used = new int[vertexGroup.length];
+        int usedCount = 0;
+        final int[] newCorners = new int[state.liveCount * 3];
+        int corner = 0;
+        for (int t = 0; t < state.live.length; t++) {
+            if (!state.live[t]) {
+                continue;
+            }
+            for (int k = 0; k < 3; k++) {
+                final int v = corners[t * 3 + k];
+                if (remap[v] == -1) {
+                    final int group = state.find(vertexGroup[v]);
+                    if (group == vertexGroup[v]) {
+                        remap[v] = v;
+                    } else {
+                        // keep the attributes closest to the ones we had, eg. the same side of a normal seam
+                        double best = Double.POSITIVE_INFINITY;
+                        for (int w = firstMember[group]; w != -1; w = nextMember[w]) {
+                            final double distance = attributeDistance(source, v, w);
+                            if (distance < best) {
+                                best = distance;
+                                remap[v] = w;
+                            }
+                        }
+                    }
+                }
+                final int w = remap[v];
+                if (newIndex[w] == -1) {
+                    newIndex[w] = usedCount;
+                    used[usedCount++] = w;
+                }
+                newCorners[corner++] = newIndex[w];
+            }
+        }
+
+        final MeshData result = new MeshData();
+        result.setVertexBuffer(copy(source.getVertexBuffer(), source.getVertexCount(), used, usedCount));
+        result.setNormalBuffer(copy(source.getNormalBuffer(), source.getVertexCount(), used, usedCount));
+        result.setColorBuffer(copy(source.getColorBuffer(), source.getVertexCount(), used, usedCount));
+        result.setTangentBuffer(copy(source.getTangentBuffer(), source.getVertexCount(), used, usedCount));
+        for (int unit = 0; unit < source.getNumberOfUnits(); unit++) {
+            final TexCoords coords = source.getTextureCoords(unit);
+            if (coords != null) {
+                result.setTextureCoords(new TexCoords(copy(coords.coords, source.getVertexCount(), used, usedCount),
+                        coords.perVert), unit);
+            }
+        }
+        result.setIndices(BufferUtils.createIndexBufferData(newCorners));
+        return result;
+    }
+
+    private static FloatBuffer copy(final FloatBuffer buffer, final int vertexCount, final int[] used,
+            final int usedCount) {
+        if (buffer == null || vertexCount == 0) {
+            return null;
+        }
+        final int components = buffer.limit() / vertexCount;
+        final FloatBuffer copy = BufferUtils.createFloatBuffer(usedCount * components);
+        for (int i = 0; i < usedCount; i++) {
+            for (int c = 0; c < components; c++) {
+                copy.put(buffer.get(used[i] * components + c));
+            }
+        }
+        copy.flip();
+        return copy;
+    }
+
+    private static double attributeDistance(final MeshData data, final int a, final int b) {
+        double distance = 0;
+        distance += attributeDistance(data.getNormalBuffer(), data.getVertexCount(), a, b);
+        distance += attributeDistance(data.getColorBuffer(), data.getVertexCount(), a, b);
+        for (int unit = 0; unit < data.getNumberOfUnits(); unit++) {
+            final TexCoords coords = data.getTextureCoords(unit);
+            if (coords != null) {
+                distance += attributeDistance(coords.coords, data.getVertexCount(), a, b);
+            }
+        }
+        return distance;
+    }
+
+    private static double attributeDistance(final FloatBuffer buffer, final int vertexCount, final int a, final int b) {
+        if (buffer == null) {
+            return 0;
+        }
+        final int components = buffer.limit() / vertexCount;
+        double distance = 0;
+        for (int c = 0; c < components; c++) {
+            final double delta = buffer.get(a * components + c) - buffer.get(b * components + c);
+            distance += delta * delta;
+        }
+        return distance;
+    }
+
+    private static class PositionKey {
+        final float x, y, z;
+
+        PositionKey(final float x, final float y, final float z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 17;
+            result = 31 * result + Float.floatToIntBits(x);
+            result = 31 * result + Float.floatToIntBits(y);
+            result = 31 * result + Float.floatToIntBits(z);
+            return result;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof PositionKey)) {
+                return false;
+            }
+            final PositionKey other = (PositionKey) o;
+            return Float.floatToIntBits(x) == Float.floatToIntBits(other.x)
+                    && Float.floatToIntBits(y) == Float.floatToIntBits(other.y)
+                    && Float.floatToIntBits(z) == Float.floatToIntBits(other.z);
+        }
+    }
+
+    private static class Collapse implements Comparable<Collapse> {
+        final int from, to;
+        final int fromStamp, toStamp;
+        final double cost;
+
+        Collapse(final int from, final int to, final int fromStamp, final int toStamp, final double cost) {
+            this.from = from;
+            this.to = to;
+            this.fromStamp = fromStamp;
+            this.toStamp = toStamp;
+            this.cost = cost;
+        }
+
+        public int compareTo(final Collapse o) {
+            return Double.compare(cost, o.cost);
+        }
+    }
+
+    /**
+     * The welded mesh being simplified. Quadrics are stored as the 10 unique values of a symmetric 4x4 matrix.
+     */
+    private static class State {
+        final int groupCount;
+        final double[] positions;
+        final double[] quadrics;
+        final int[] collapsedInto;
+        final int[] stamps;
+
+        final int[] triGroups;
+        final boolean[] live;
+        int liveCount;
+
+        /** live triangles using each group. May hold stale entries, which are dropped on collapse. */
+        final int[][] groupTris;
+        final int[] groupTriCount;
+
+        final PriorityQueue<Collapse> queue = new PriorityQueue<Collapse>();
+
+        State(final int groupCount, final int triCount, final double[] positions) {
+            this.groupCount = groupCount;
+            this.positions = positions;
+            quadrics = new double[groupCount * 10];
+            collapsedInto = new int[groupCount];
+            Arrays.fill(collapsedInto, -1);
+            stamps = new int[groupCount];
+            triGroups = new int[triCount * 3];
+            live = new boolean[triCount];
+            groupTris = new int[groupCount][];
+            groupTriCount = new int[groupCount];
+        }
+
+        int find(int group) {
+            while (collapsedInto[group] != -1) {
+                group = collapsedInto[group];
+            }
+            return group;
+        }
+
+        void addTriangle(final int t, final int a, final int b, final int c) {
+            triGroups[t * 3] = a;
+            triGroups[t * 3 + 1] = b;
+            triGroups[t * 3 + 2] = c;
+            if (a == b || b == c || a == c) {
+                return;
+            }
+            final double[] plane = new double[4];
+            final double area = facePlane(a, b, c, plane);
+            if (area == 0) {
+                return;
+            }
+            live[t] = true;
+            liveCount++;
+            addTriangleTo(a, t);
+            addTriangleTo(b, t);
+            addTriangleTo(c, t);
+            addPlane(a, plane, area);
+            addPlane(b, plane, area);
+            addPlane(c, plane, area);
+        }
+
+        /**
+         * Add a plane perpendicular to every edge used by a single triangle, then queue the cheapest collapse of every
+         * edge.
+         */
+        void addBorderPlanes(final double weight) {
+            final HashMap<Long, int[]> edges = new HashMap<Long, int[]>();
+            for (int t = 0; t < live.length; t++) {
+                if (!live[t]) {
+                    continue;
+                }
+                for (int k = 0; k < 3; k++) {
+                    final int a = triGroups[t * 3 + k], b = triGroups[t * 3 + (k + 1) % 3];
+                    final Long key = Long.valueOf(Math.min(a, b) * (long) groupCount + Math.max(a, b));
+                    final int[] edge = edges.get(key);
+                    if (edge == null) {
+                        edges.put(key, new int[] { a, b, t, 1 });
+                    } else {
+                        edge[3]++;
+                    }
+                }
+            }
+
+            final double[] plane = new double[4];
+            for (final int[] edge : edges.values()) {
+                if (edge[3] == 1 && weight > 0) {
+                    final int t = edge[2];
+                    facePlane(triGroups[t * 3], triGroups[t * 3 + 1], triGroups[t * 3 + 2], plane);
+                    final int a = edge[0], b = edge[1];
+                    final double ex = positions[b * 3] - positions[a * 3];
+                    final double ey = positions[b * 3 + 1] - positions[a * 3 + 1];
+                    final double ez = positions[b * 3 + 2] - positions[a * 3 + 2];
+                    // edge x normal
+                    double nx = ey * plane[2] - ez * plane[1];
+                    double ny = ez * plane[0] - ex * plane[2];
+                    double nz = ex * plane[1] - ey * plane[0];
+                    final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+                    if (length > 0) {
+                        nx /= length;
+                        ny /= length;
+                        nz /= length;
+                        final double[] border = new double[] { nx, ny, nz,
+                                -(nx * positions[a * 3] + ny * positions[a * 3 + 1] + nz * positions[a * 3 + 2]) };
+                        final double edgeWeight = weight * (ex * ex + ey * ey + ez * ez);
+                        addPlane(a, border, edgeWeight);
+                        addPlane(b, border, edgeWeight);
+                    }
+                }
+            }
+            for (final int[] edge : edges.values()) {
+                queueCollapse(edge[0], edge[1]);
+            }
+        }
+
+        void collapse(final int targetTriangles, final double maximumError) {
+            while (liveCount > targetTriangles && !queue.isEmpty()) {
+                final Collapse collapse = queue.poll();
+                if (collapsedInto[collapse.from] != -1 || collapsedInto[collapse.to] != -1
+                        || stamps[collapse.from] != collapse.fromStamp || stamps[collapse.to] != collapse.toStamp) {
+                    continue;
+                }
+                if (collapse.cost > maximumError) {
+                    break;
+                }
+                if (flips(collapse.from, collapse.to)) {
+                    continue;
+                }
+                apply(collapse.from, collapse.to);
+            }
+        }
+
+        private void apply(final int from, final int to) {
+            for (int i = 0; i < 10; i++) {
+                quadrics[to * 10 + i] += quadrics[from * 10 + i];
+            }
+            collapsedInto[from] = to;
+            stamps[to]++;
+
+            final int[] tris = groupTris[from];
+            for (int i = 0, max = groupTriCount[from]; i < max; i++) {
+                final int t = tris[i];
+                if (!live[t]) {
+                    continue;
+                }
+                if (uses(t, to)) {
+                    live[t] = false;
+                    liveCount--;
+                    continue;
+                }
+                for (int k = 0; k < 3; k++) {
+                    if (triGroups[t * 3 + k] == from) {
+                        triGroups[t * 3 + k] = to;
+                    }
+                }
+                addTriangleTo(to, t);
+            }
+            groupTris[from] = null;
+            groupTriCount[from] = 0;
+
+            // drop dead triangles from the survivor, then requeue the edges around it.
+            final int[] survivorTris = groupTris[to];
+            int count = 0;
+            for (int i = 0, max = groupTriCount[to]; i < max; i++) {
+                if (live[survivorTris[i]]) {
+                    survivorTris[count++] = survivorTris[i];
+                }
+            }
+            groupTriCount[to] = count;
+            for (int i = 0; i < count; i++) {
+                final int t = survivorTris[i];
+                for (int k = 0; k < 3; k++) {
+                    final int neighbor = triGroups[t * 3 + k];
+                    if (neighbor != to) {
+                        queueCollapse(to, neighbor);
+                    }
+                }
+            }
+        }
+
+        /**
+         * @return true if moving group from onto group to would turn any of the remaining triangles around from over.
+         */
+        private boolean flips(final int from, final int to) {
+            final double[] before = new double[4];
+            final double[] after = new double[4];
+            final int[] tris = groupTris[from];
+            for (int i = 0, max = groupTriCount[from]; i < max; i++) {
+                final int t = tris[i];
+                if (!live[t] || uses(t, to)) {
+                    continue;
+                }
+                final int a = triGroups[t * 3], b = triGroups[t * 3 + 1], c = triGroups[t * 3 + 2];
+                facePlane(a, b, c, before);
+                final double area = facePlane(a == from ? to : a, b == from ? to : b, c == from ? to : c, after);
+                if (area == 0 || before[0] * after[0] + before[1] * after[1] + before[2] * after[2] < 0.2) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean uses(final int t, final int group) {
+            return triGroups[t * 3] == group || triGroups[t * 3 + 1] == group || triGroups[t * 3 + 2] == group;
+        }
+
+        private void queueCollapse(final int a, final int b) {
+            final double toB = error(a, b, b), toA = error(a, b, a);
+            if (toB <= toA) {
+                queue.add(new Collapse(a, b, stamps[a], stamps[b], toB));
+            } else {
+                queue.add(new Collapse(b, a, stamps[b], stamps[a], toA));
+            }
+        }
+
+        /**
+         * @return the error of the summed quadrics of groups a and b at the position of group at.
+         */
+        private double error(final int a, final int b, final int at) {
+            final double x = positions[at * 3], y = positions[at * 3 + 1], z = positions[at * 3 + 2];
+            final int qa = a * 10, qb = b * 10;
+            final double[] q = quadrics;
+            return (q[qa] + q[qb]) * x * x + 2 * (q[qa + 1] + q[qb + 1]) * x * y + 2 * (q[qa + 2] + q[qb + 2]) * x * z
+                    + 2 * (q[qa + 3] + q[qb + 3]) * x + (q[qa + 4] + q[qb + 4]) * y * y + 2 * (q[qa + 5] + q[qb + 5])
+                    * y * z + 2 * (q[qa + 6] + q[qb + 6]) * y + (q[qa + 7] + q[qb + 7]) * z * z + 2
+                    * (q[qa + 8] + q[qb + 8]) * z + (q[qa + 9] + q[qb + 9]);
+        }
+
+        private void addPlane(final int group, final double[] plane, final double weight) {
+            final double a = plane[0], b = plane[1], c = plane[2], d = plane[3];
+            final int q = group * 10;
+            quadrics[q] += weight * a * a;
+            quadrics[q + 1] += weight * a * b;
+            quadrics[q + 2] += weight * a * c;
+            quadrics[q + 3] += weight * a * d;
+            quadrics[q + 4] += weight * b * b;
+            quadrics[q + 5] += weight * b * c;
+            quadrics[q + 6] += weight * b * d;
+            quadrics[q + 7] += weight * c * c;
+            quadrics[q + 8] += weight * c * d;
+            quadrics[q + 9] += weight * d * d;
+        }
+
+        private void addTriangleTo(final int group, final int t) {
+            int[] tris = groupTris[group];
+            if (tris == null) {
+                tris = groupTris[group] = new int[8];
+            } else if (groupTriCount[group] == tris.length) {
+                final int[] grown = new int[tris.length * 2];
+                System.arraycopy(tris, 0, grown, 0, tris.length);
+                tris = groupTris[group] = grown;
+            }
+            tris[groupTriCount[group]++] = t;
+        }
+
+        /**
+         * Store the unit normal and distance of the plane through the given groups.
+         * 
+         * @return the area of the triangle.
+         */
+        private double facePlane(final int a, final int b, final int c, final double[] store) {
+            final double ax = positions[a * 3], ay = positions[a * 3 + 1], az = positions[a * 3 + 2];
+            final double e1x = positions[b * 3] - ax, e1y = positions[b * 3 + 1] - ay, e1z = positions[b * 3 + 2] - az;
+            final double e2x = positions[c * 3] - ax, e2y = positions[c * 3 + 1] - ay, e2z = positions[c * 3 + 2] - az;
+            double nx = e1y * e2z - e1z * e2y;
+            double ny = e1z * e2x - e1x * e2z;
+            double nz = e1x * e2y - e1y * e2x;
+            final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length == 0) {
+                store[0] = store[1] = store[2] = store[3] = 0;
+                return 0;
+            }
+            nx /= length;
+            ny /= length;
+            nz /= length;
+            store[0] = nx;
+            store[1] = ny;
+            store[2] = nz;
+            store[3] = -(nx * ax + ny * ay + nz * az);
+            return length * 0.5;
+        }
+    }
+}
@@ -11,7 +11,6 @@
 package com.ardor3d.util.geom;
 
 import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedList;
@@ -24,7 +23,9 @@ import com.ardor3d.math.MathUtils;
 import com.ardor3d.math.Vector2;
 import com.ardor3d.math.Vector3;
 import com.ardor3d.renderer.IndexMode;
+import com.ardor3d.scenegraph.IndexBufferData;
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.TexCoords;
 
 /**
@@ -108,7 +109,7 @@ public class NormalGenerator {
         }
 
         // Get the data of the mesh as arrays
-        sourceInds = BufferUtils.getIntArray(mesh.getMeshData().getIndexBuffer());
+        sourceInds = BufferUtils.getIntArray(mesh.getMeshData().getIndices());
         sourceVerts = BufferUtils.getVector3Array(mesh.getMeshData().getVertexBuffer());
         if (mesh.getMeshData().getColorBuffer() != null) {
             sourceColors = BufferUtils.getColorArray(mesh.getMeshData().getColorBuffer());
@@ -167,8 +168,11 @@ public class NormalGenerator {
 
         // Set up the buffers for the mesh
 
+        // the buffers are refilled in place where they are large enough, so make sure they are ours.
+        final MeshData meshData = mesh.getWritableMeshData();
+
         // Vertex buffer:
-        FloatBuffer vertices = mesh.getMeshData().getVertexBuffer();
+        FloatBuffer vertices = meshData.getVertexBuffer();
         if (vertices.capacity() < splitVerts.length * 3) {
             vertices = BufferUtils.createFloatBuffer(splitVerts);
         } else {
@@ -180,7 +184,7 @@ public class NormalGenerator {
         }
 
         // Normal buffer:
-        FloatBuffer normals = mesh.getMeshData().getNormalBuffer();
+        FloatBuffer normals = meshData.getNormalBuffer();
         if (normals == null || normals.capacity() < splitNormals.length * 3) {
             normals = BufferUtils.createFloatBuffer(splitNormals);
         } else {
@@ -194,7 +198,7 @@ public class NormalGenerator {
         // Color buffer:
         FloatBuffer colors = null;
         if (splitColors != null) {
-            colors = mesh.getMeshData().getColorBuffer();
+            colors = meshData.getColorBuffer();
             if (colors.capacity() < splitColors.length * 4) {
                 colors = BufferUtils.createFloatBuffer(splitColors);
             } else {
@@ -209,7 +213,7 @@ public class NormalGenerator {
         // Tex coord buffer:
         FloatBuffer texCoords = null;
         if (splitTexCoords != null) {
-            texCoords = mesh.getMeshData().getTextureCoords(0).coords;
+            texCoords = meshData.getTextureCoords(0).coords;
             if (texCoords.capacity() < splitTexCoords.length * 2) {
                 texCoords = BufferUtils.createFloatBuffer(splitTexCoords);
             } else {
@@ -222,9 +226,11 @@ public class NormalGenerator {
         }
 
         // Index buffer:
-        IntBuffer indices = mesh.getMeshData().getIndexBuffer();
-        if (indices.capacity() < splitIndices.length) {
-            indices = BufferUtils.createIntBuffer(splitIndices);
+        IndexBufferData<?> indices = meshData.getIndices();
+        if (indices.capacity() < splitIndices.length || indices.getMaxIndex() < splitVerts.length - 1) {
+            indices = BufferUtils.createIndexBufferData(splitIndices.length, splitVerts.length - 1);
+            indices.put(splitIndices);
+            indices.flip();
         } else {
             indices.clear();
             indices.put(splitIndices);
@@ -232,12 +238,12 @@ public class NormalGenerator {
         }
 
         // Apply the buffers to the mesh
-        mesh.getMeshData().setVertexBuffer(vertices);
-        mesh.getMeshData().setNormalBuffer(normals);
-        mesh.getMeshData().setColorBuffer(colors);
-        mesh.getMeshData().getTextureCoords().clear();
-        mesh.getMeshData().setTextureCoords(new TexCoords(texCoords), 0);
-        mesh.getMeshData().setIndexBuffer(indices);
+        meshData.setVertexBuffer(vertices);
+        meshData.setNormalBuffer(normals);
+        meshData.setColorBuffer(colors);
+        meshData.getTextureCoords().clear();
+        meshData.setTextureCoords(new TexCoords(texCoords), 0);
+        meshData.setIndices(indices);
     }
 
     /**
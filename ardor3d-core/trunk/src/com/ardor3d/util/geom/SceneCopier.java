@@ -10,6 +10,14 @@
 
 package com.ardor3d.util.geom;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.ardor3d.scenegraph.Node;
@@ -17,6 +25,9 @@ import com.ardor3d.scenegraph.Spatial;
 
 public class SceneCopier {
 
+    /** The default number of spatials copied by each task of a parallel copy. */
+    public static final int DEFAULT_TASK_SIZE = 512;
+
     public static Spatial makeCopy(final Spatial source, final CopyLogic logic) {
         return makeCopy(source, null, logic);
     }
@@ -36,4 +47,151 @@ public class SceneCopier {
         return result;
     }
 
+    /**
+     * Copy a scene, handing the copying of its subtrees to the given executor in tasks of about
+     * {@link #DEFAULT_TASK_SIZE} spatials.
+     * 
+     * @see #makeCopy(Spatial, CopyLogic, ExecutorService, int)
+     */
+    public static Spatial makeCopy(final Spatial source, final CopyLogic logic, final ExecutorService executor) {
+        return makeCopy(source, logic, executor, DEFAULT_TASK_SIZE);
+    }
+
+    /**
+     * Copy a scene, handing the copying of its subtrees to the given executor. Branches larger than the task size are
+     * split up on the calling thread, and the rest is batched into tasks of about the task size, each copying whole
+     * subtrees. The copied subtrees are attached on the calling thread once all tasks are done, so the result is the
+     * same as that of {@link #makeCopy(Spatial, CopyLogic)}. The copy logic must be safe to use from several threads,
+     * as the ones in this package are, and the source must not change while it is copied.
+     * 
+     * @param source
+     *            the scene to copy.
+     * @param logic
+     *            the logic used to copy each spatial.
+     * @param executor
+     *            the executor to run the copy tasks on. Tasks never wait on other tasks, so any executor will do.
+     * @param taskSize
+     *            about how many spatials each task should copy.
+     * @return the copy.
+     */
+    public static Spatial makeCopy(final Spatial source, final CopyLogic logic, final ExecutorService executor,
+            final int taskSize) {
+        final Map<Spatial, Integer> sizes = new IdentityHashMap<Spatial, Integer>();
+        if (countSpatials(source, sizes) <= taskSize) {
+            return makeCopy(source, logic);
+        }
+
+        final List<PendingChildren> pending = new ArrayList<PendingChildren>();
+        final Spatial result = splitCopy(source, logic, executor, Math.max(1, taskSize), sizes, pending);
+
+        // pending is in post order, so each branch gets its children before it is itself attached.
+        for (final PendingChildren children : pending) {
+            children.attach();
+        }
+        return result;
+    }
+
+    private static Spatial splitCopy(final Spatial source, final CopyLogic logic, final ExecutorService executor,
+            final int taskSize, final Map<Spatial, Integer> sizes, final List<PendingChildren> pending) {
+        final AtomicBoolean recurse = new AtomicBoolean();
+        final Spatial result = logic.copy(source, recurse);
+        if (!recurse.get() || !(source instanceof Node) || !(result instanceof Node)
+                || ((Node) source).getNumberOfChildren() == 0) {
+            return result;
+        }
+
+        final List<Spatial> sourceChildren = ((Node) source).getChildren();
+        final Spatial[] children = sourceChildren.toArray(new Spatial[sourceChildren.size()]);
+        final PendingChildren copies = new PendingChildren((Node) result, children.length);
+        int batchStart = 0, batchSize = 0;
+        for (int i = 0; i < children.length; i++) {
+            final Spatial child = children[i];
+            final int size = child != null ? sizes.get(child) : 0;
+            if (size > taskSize && child instanceof Node) {
+                // too big for one task, split it up further here.
+                copies.submit(executor, children, batchStart, i, logic);
+                copies._copies[i] = splitCopy(child, logic, executor, taskSize, sizes, pending);
+                batchStart = i + 1;
+                batchSize = 0;
+            } else {
+                batchSize += size;
+                if (batchSize >= taskSize) {
+                    copies.submit(executor, children, batchStart, i + 1, logic);
+                    batchStart = i + 1;
+                    batchSize = 0;
+                }
+            }
+        }
+        copies.submit(executor, children, batchStart, children.length, logic);
+        pending.add(copies);
+        return result;
+    }
+
+    private static int countSpatials(final Spatial spatial, final Map<Spatial, Integer> sizes) {
+        int count = 1;
+        if (spatial instanceof Node) {
+            final Node node = (Node) spatial;
+            for (int i = 0, n = node.getNumberOfChildren(); i < n; i++) {
+                final Spatial child = node.getChild(i);
+                if (child != null) {
+                    count += countSpatials(child, sizes);
+                }
+            }
+        }
+        sizes.put(spatial, count);
+        return count;
+    }
+
+    /**
+     * The copies of a node's children, some made on the calling thread and some still being made by tasks.
+     */
+    private static class PendingChildren {
+        private final Node _parent;
+        private final Spatial[] _copies;
+        private final List<Future<Spatial[]>> _futures = new ArrayList<Future<Spatial[]>>();
+        private final List<Integer> _starts = new ArrayList<Integer>();
+
+        PendingChildren(final Node parent, final int count) {
+            _parent = parent;
+            _copies = new Spatial[count];
+        }
+
+        void submit(final ExecutorService executor, final Spatial[] children, final int from, final int to,
+                final CopyLogic logic) {
+            if (from >= to) {
+                return;
+            }
+            _starts.add(from);
+            _futures.add(executor.submit(new Callable<Spatial[]>() {
+                public Spatial[] call() throws Exception {
+                    final Spatial[] result = new Spatial[to - from];
+                    for (int i = from; i < to; i++) {
+                        if (children[i] != null) {
+                            result[i - from] = makeCopy(children[i], logic);
+                        }
+                    }
+                    return result;
+                }
+            }));
+        }
+
+        void attach() {
+            for (int i = 0; i < _futures.size(); i++) {
+                try {
+                    final Spatial[] batch = _futures.get(i).get();
+                    System.arraycopy(batch, 0, _copies, _starts.get(i), batch.length);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while copying scene.", e);
+                } catch (final ExecutionException e) {
+                    throw new RuntimeException("Scene copy task failed.", e.getCause());
+                }
+            }
+            for (final Spatial copy : _copies) {
+                if (copy != null) {
+                    _parent.attachChild(copy);
+                }
+            }
+        }
+    }
 }
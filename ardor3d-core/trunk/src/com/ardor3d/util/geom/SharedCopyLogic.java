@@ -18,6 +18,13 @@ import com.ardor3d.scenegraph.Mesh;
 import com.ardor3d.scenegraph.Node;
 import com.ardor3d.scenegraph.Spatial;
 
+/**
+ * Copies a scene for instancing: meshes share the mesh data of the original, along with everything computed from it
+ * alone. The model bound is copied rather than recomputed, VBO and display list information is shared, and collision
+ * trees are copied from the original's by the CollisionTreeManager when first asked for. This makes a copy cost about
+ * as much as creating an empty mesh, whatever the size of the geometry. Stateless, so one instance can be used from
+ * several threads at once.
+ */
 public class SharedCopyLogic implements CopyLogic {
     public Spatial copy(final Spatial source, final AtomicBoolean recurse) {
         recurse.set(false);
@@ -25,9 +32,13 @@ public class SharedCopyLogic implements CopyLogic {
             recurse.set(true);
             return clone((Node) source);
         } else if (source instanceof Mesh) {
-            final Mesh result = clone((Mesh) source);
-            result.setMeshData(((Mesh) source).getMeshData());
-            result.updateModelBound();
+            final Mesh original = (Mesh) source;
+            final Mesh result = clone(original);
+            result.setMeshData(original.getMeshData());
+            // the bound only depends on the mesh data we share.
+            result.setModelBound(original.getModelBound(null), false);
+            result.setVBOInfo(original.getVBOInfo());
+            result.setDisplayListID(original.getDisplayListID());
             return result;
         }
         return source.clone();
@@ -41,6 +52,8 @@ public class SharedCopyLogic implements CopyLogic {
         copy.setRenderBucketType(original.getLocalRenderBucketType());
         copy.setTextureCombineMode(original.getLocalTextureCombineMode());
         copy.setZOrder(original.getZOrder());
+        copy.setDefaultColor(original.getDefaultColor());
+        copy.setCastsShadows(original.isCastsShadows());
 
         for (final StateType type : StateType.values()) {
             final RenderState state = original.getLocalRenderState(type);
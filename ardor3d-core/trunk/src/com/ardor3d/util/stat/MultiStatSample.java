@@ -14,8 +14,28 @@ import java.util.HashMap;
 
 public class MultiStatSample {
     public HashMap<StatType, StatValue> values = new HashMap<StatType, StatValue>();
+    /** Frame and timed stat durations in milliseconds, recorded within this sample. */
+    public HashMap<StatType, StatHistogram> histograms = new HashMap<StatType, StatHistogram>();
     public double actualTime = 0.0;
 
+    /**
+     * @param current
+     *            the values to copy into the new sample.
+     * @param histograms
+     *            the histograms to add to the new sample. Kept as is rather than copied; empty ones are left out.
+     */
+    public static MultiStatSample createNew(final HashMap<StatType, StatValue> current,
+            final HashMap<StatType, StatHistogram> histograms) {
+        final MultiStatSample rVal = createNew(current);
+        for (final StatType type : histograms.keySet()) {
+            final StatHistogram histogram = histograms.get(type);
+            if (histogram.getCount() != 0) {
+                rVal.histograms.put(type, histogram);
+            }
+        }
+        return rVal;
+    }
+
     public static MultiStatSample createNew(final HashMap<StatType, StatValue> current) {
         final MultiStatSample rVal = new MultiStatSample();
         final double frames = current.containsKey(StatType.STAT_FRAMES) ? current.get(StatType.STAT_FRAMES).val : 0;
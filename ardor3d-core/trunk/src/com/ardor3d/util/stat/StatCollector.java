@@ -18,7 +18,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Stack;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
 import com.ardor3d.util.Timer;
@@ -26,6 +26,12 @@ import com.ardor3d.util.Timer;
 /**
  * This class acts as a centralized data store for statistics. As data is added to the collector, a sum total is kept as
  * well as the total number of data samples given for the particular stat.
+ * <p>
+ * Stats may be added and timed from any number of threads. Each thread gathers into its own accumulator and keeps its
+ * own stack of timed stats, guarded by a lock only that thread and {@link #update()} ever take, so the hot path never
+ * waits on another thread. The accumulators are merged into one aggregate sample on update. Durations of timed stats
+ * and of frames ({@link StatType#STAT_FRAMES}) are also kept in {@link StatHistogram}s, per sample and in total.
+ * </p>
  */
 public class StatCollector {
     private static final Logger logger = Logger.getLogger(StatCollector.class.getName());
@@ -40,10 +46,17 @@ public class StatCollector {
 
     /**
      * Our map of current stat values. Current means values that have been collected within the current time sample. For
-     * example, if sampleRate = 1.0, then current will hold values collected since the last 1 second ping.
+     * example, if sampleRate = 1.0, then current will hold values collected since the last 1 second ping. The values of
+     * all threads are merged in here on update.
      */
     protected static HashMap<StatType, StatValue> current = new HashMap<StatType, StatValue>();
 
+    /** The histograms of all threads merged on the last update, handed on to the sample. */
+    protected static HashMap<StatType, StatHistogram> currentHistograms = new HashMap<StatType, StatHistogram>();
+
+    /** The histograms of every sample since the last call to {@link #resetHistograms()}. */
+    protected static HashMap<StatType, StatHistogram> totalHistograms = new HashMap<StatType, StatHistogram>();
+
     protected static List<MultiStatSample> historical = Collections.synchronizedList(new LinkedList<MultiStatSample>());
 
     /**
@@ -53,17 +66,16 @@ public class StatCollector {
 
     protected static double lastSampleTime = 0;
 
-    protected static double lastTimeCheckMS = 0;
-
     protected static List<WeakReference<StatListener>> listeners = new ArrayList<WeakReference<StatListener>>();
 
     protected static double startOffset = 0;
 
-    protected static boolean ignoreStats = false;
+    protected static volatile boolean ignoreStats = false;
 
-    protected static Stack<StatType> timeStatStack = new Stack<StatType>();
+    protected static volatile boolean recordHistograms = true;
 
-    protected static HashSet<StatType> timedStats = new HashSet<StatType>();
+    /** Replaced rather than modified, so threads timing stats can read it without locking. */
+    protected static volatile HashSet<StatType> timedStats = new HashSet<StatType>();
 
     protected static Timer timer = new Timer();
 
@@ -71,6 +83,20 @@ public class StatCollector {
 
     private static long pausedStartTime;
 
+    /** The thread calling update; time outside of any timed stat is only counted as unspecified on this thread. */
+    private static volatile Thread updateThread;
+
+    private static final List<ThreadStats> threadStats = new CopyOnWriteArrayList<ThreadStats>();
+
+    private static final ThreadLocal<ThreadStats> localStats = new ThreadLocal<ThreadStats>() {
+        @Override
+        protected ThreadStats initialValue() {
+            final ThreadStats stats = new ThreadStats(Thread.currentThread());
+            threadStats.add(stats);
+            return stats;
+        }
+    };
+
     protected StatCollector() {}
 
     /**
@@ -89,14 +115,19 @@ public class StatCollector {
             return;
         }
 
-        synchronized (current) {
-            StatValue val = current.get(type);
-            if (val == null) {
-                val = new StatValue(0, 0);
-                current.put(type, val);
-            }
+        final ThreadStats stats = localStats.get();
+        synchronized (stats) {
+            final StatValue val = stats.getValue(type, 0);
             val.val += statValue;
             val.iterations++;
+
+            if (recordHistograms && StatType.STAT_FRAMES.equals(type)) {
+                final double timeMS = timer.getTime() * TO_MS;
+                if (stats.lastFrameMS >= 0) {
+                    stats.getHistogram(type).record(timeMS - stats.lastFrameMS);
+                }
+                stats.lastFrameMS = timeMS;
+            }
         }
     }
 
@@ -105,33 +136,15 @@ public class StatCollector {
             return;
         }
 
-        synchronized (current) {
-            final StatType top = !timeStatStack.isEmpty() ? timeStatStack.peek() : null;
-
+        final ThreadStats stats = localStats.get();
+        synchronized (stats) {
             final double timeMS = timer.getTime() * TO_MS;
-            if (top != null) {
-                // tally timer and include in stats.
-                final StatValue val = current.get(top);
-                val.val += (timeMS - lastTimeCheckMS);
-            } else {
-                StatValue val = current.get(StatType.STAT_UNSPECIFIED_TIMER);
-                if (val == null) {
-                    val = new StatValue(0, 1);
-                    current.put(StatType.STAT_UNSPECIFIED_TIMER, val);
-                }
-                val.val += (timeMS - lastTimeCheckMS);
-            }
-
-            lastTimeCheckMS = timeMS;
-            timeStatStack.push(type);
+            // tally timer and include in stats.
+            stats.tally(timeMS);
+            stats.push(type, timeMS);
 
             if (type != null) {
-                StatValue val = current.get(type);
-                if (val == null) {
-                    val = new StatValue(0, 0);
-                    current.put(type, val);
-                }
-                val.iterations++;
+                stats.getValue(type, 0).iterations++;
             }
         }
     }
@@ -141,27 +154,32 @@ public class StatCollector {
             return;
         }
 
-        synchronized (current) {
-            // This will throw error if called out of turn.
-            StatType top = timeStatStack.pop();
+        final ThreadStats stats = localStats.get();
+        synchronized (stats) {
+            if (stats.depth == 0) {
+                logger.warning("endStat called for '" + type + "' without a matching startStat.");
+                return;
+            }
 
             final double timeMS = timer.getTime() * TO_MS;
 
             // tally timer and include in stats.
-            final StatValue val = current.get(top);
-            val.val += (timeMS - lastTimeCheckMS);
-
-            lastTimeCheckMS = timeMS;
+            stats.tally(timeMS);
 
             // Pop until we find our stat type
-            while (!top.equals(type)) {
+            StatType top = stats.pop();
+            while (!top.equals(type) && stats.depth > 0) {
                 logger.warning("Mismatched endStat, found " + top + ".  Expected '" + type + "'");
-                top = timeStatStack.pop();
+                top = stats.pop();
+            }
+            if (recordHistograms && top.equals(type)) {
+                stats.getHistogram(type).record(timeMS - stats.stackStartMS[stats.depth]);
             }
         }
     }
 
     public static synchronized void update() {
+        updateThread = Thread.currentThread();
         final double timeMS = timer.getTime() * TO_MS;
         final double elapsed = timeMS - lastSampleTime;
 
@@ -171,28 +189,10 @@ public class StatCollector {
         }
 
         synchronized (current) {
-            // Check if we have a timed stat in tracking... if so, add it in
-            if (!timeStatStack.isEmpty()) {
-                // tally timer and include in stats.
-                final StatValue val = current.get(timeStatStack.peek());
-                val.val += (timeMS - lastTimeCheckMS);
-                lastTimeCheckMS = timeMS;
-                // reset iterations of all stack to 0
-                for (int x = timeStatStack.size(); --x >= 0;) {
-                    final StatValue val2 = current.get(timeStatStack.get(x));
-                    if (val2 != null) {
-                        val2.iterations = 0;
-                    }
-                }
-
-                // current iterations is 1 (for the current call.)
-                val.iterations = 1;
-            } else {
-                final StatValue val = current.get(StatType.STAT_UNSPECIFIED_TIMER);
-                if (val != null) {
-                    val.val += (timeMS - lastTimeCheckMS);
-                    lastTimeCheckMS = timeMS;
-                    val.iterations = 1;
+            for (final ThreadStats stats : threadStats) {
+                stats.merge(timeMS, current, currentHistograms);
+                if (!stats.isAlive()) {
+                    threadStats.remove(stats);
                 }
             }
 
@@ -202,16 +202,26 @@ public class StatCollector {
             }
 
             // Add "current" hash into historical stat list
-            final MultiStatSample sample = MultiStatSample.createNew(current);
+            final MultiStatSample sample = MultiStatSample.createNew(current, currentHistograms);
             sample.actualTime = elapsed - (pausedTime * TO_MS);
             historical.add(sample); // adds onto tail
 
+            for (final StatType type : sample.histograms.keySet()) {
+                StatHistogram total = totalHistograms.get(type);
+                if (total == null) {
+                    total = new StatHistogram();
+                    totalHistograms.put(type, total);
+                }
+                total.add(sample.histograms.get(type));
+            }
+
             // reset the "current" hash... basically set things to 0 to decrease
-            // object recreation
+            // object recreation. The histograms now belong to the sample.
             for (final StatValue value : current.values()) {
                 value.iterations = 0;
                 value.val = 0;
             }
+            currentHistograms = new HashMap<StatType, StatHistogram>();
         }
 
         // reset startOffset
@@ -250,7 +260,13 @@ public class StatCollector {
      *            the listener to remove
      */
     public static boolean removeStatListener(final StatListener listener) {
-        return listeners.remove(new WeakReference<StatListener>(listener));
+        for (final Iterator<WeakReference<StatListener>> it = listeners.iterator(); it.hasNext();) {
+            if (it.next().get() == listener) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -266,8 +282,10 @@ public class StatCollector {
      * @param type
      *            the listener to add
      */
-    public static void addTimedStat(final StatType type) {
-        timedStats.add(type);
+    public static synchronized void addTimedStat(final StatType type) {
+        final HashSet<StatType> stats = new HashSet<StatType>(timedStats);
+        stats.add(type);
+        timedStats = stats;
     }
 
     /**
@@ -276,15 +294,18 @@ public class StatCollector {
      * @param type
      *            the listener to remove
      */
-    public static boolean removeTimedStat(final StatType type) {
-        return timedStats.remove(type);
+    public static synchronized boolean removeTimedStat(final StatType type) {
+        final HashSet<StatType> stats = new HashSet<StatType>(timedStats);
+        final boolean removed = stats.remove(type);
+        timedStats = stats;
+        return removed;
     }
 
     /**
      * Cleans the set of stat types we paid attention to when doing timed stat checking.
      */
-    public static void removeAllTimedStats() {
-        timedStats.clear();
+    public static synchronized void removeAllTimedStats() {
+        timedStats = new HashSet<StatType>();
     }
 
     /**
@@ -344,14 +365,52 @@ public class StatCollector {
         return false;
     }
 
+    public static boolean isRecordHistograms() {
+        return recordHistograms;
+    }
+
+    /**
+     * @param recordHistograms
+     *            true (the default) to keep histograms of frame and timed stat durations.
+     */
+    public static void setRecordHistograms(final boolean recordHistograms) {
+        StatCollector.recordHistograms = recordHistograms;
+    }
+
+    /**
+     * @param type
+     *            a timed stat type, or {@link StatType#STAT_FRAMES}
+     * @return a copy of the histogram of the durations of the given type in milliseconds, over every sample since the
+     *         last call to {@link #resetHistograms()}, or null if none were recorded.
+     */
+    public static StatHistogram getHistogram(final StatType type) {
+        synchronized (current) {
+            final StatHistogram total = totalHistograms.get(type);
+            return total != null ? new StatHistogram(total) : null;
+        }
+    }
+
+    /**
+     * Forget the durations recorded in the total histograms.
+     */
+    public static void resetHistograms() {
+        synchronized (current) {
+            totalHistograms.clear();
+        }
+    }
+
     /**
-     * Call this if you've caught an error, etc and you need to reset timed stats collecting.
+     * Call this if you've caught an error, etc and you need to reset timed stats collecting. Only the timed stats
+     * started on the calling thread are reset.
      * 
      * NOTE: You must ensure you are not inside a START/END timed block, (or you recreate any necessary start calls)
-     * otherwise when endStat is called a stack exception will occur.
+     * otherwise when endStat is called a warning will be logged.
      */
     public static void resetTimedStack() {
-        timeStatStack.clear();
+        final ThreadStats stats = localStats.get();
+        synchronized (stats) {
+            stats.depth = 0;
+        }
     }
 
     /**
@@ -365,5 +424,142 @@ public class StatCollector {
     public static void resume() {
         setIgnoreStats(false);
         pausedTime += (timer.getTime() - pausedStartTime);
+        // the time spent paused is not a frame.
+        for (final ThreadStats stats : threadStats) {
+            synchronized (stats) {
+                stats.lastFrameMS = -1;
+            }
+        }
+    }
+
+    /**
+     * The stats gathered by one thread since the last update. Only touched by that thread, and by update when merging.
+     */
+    private static final class ThreadStats {
+        private final WeakReference<Thread> owner;
+        private final HashMap<StatType, StatValue> values = new HashMap<StatType, StatValue>();
+        private final HashMap<StatType, StatHistogram> histograms = new HashMap<StatType, StatHistogram>();
+
+        private StatType[] stack = new StatType[8];
+        private double[] stackStartMS = new double[8];
+        private int depth;
+
+        private double lastTimeCheckMS = timer.getTime() * TO_MS;
+        private double lastFrameMS = -1;
+
+        private ThreadStats(final Thread thread) {
+            owner = new WeakReference<Thread>(thread);
+        }
+
+        private StatValue getValue(final StatType type, final long iterations) {
+            StatValue val = values.get(type);
+            if (val == null) {
+                val = new StatValue(0, iterations);
+                values.put(type, val);
+            }
+            return val;
+        }
+
+        private StatHistogram getHistogram(final StatType type) {
+            StatHistogram histogram = histograms.get(type);
+            if (histogram == null) {
+                histogram = new StatHistogram();
+                histograms.put(type, histogram);
+            }
+            return histogram;
+        }
+
+        private boolean isUpdateThread() {
+            final Thread thread = updateThread;
+            return thread == null || thread == owner.get();
+        }
+
+        private boolean isAlive() {
+            final Thread thread = owner.get();
+            return thread != null && thread.isAlive();
+        }
+
+        /**
+         * Add the time since the last check to the innermost timed stat, or to the unspecified timer.
+         */
+        private void tally(final double timeMS) {
+            if (depth > 0) {
+                getValue(stack[depth - 1], 0).val += (timeMS - lastTimeCheckMS);
+            } else if (isUpdateThread()) {
+                getValue(StatType.STAT_UNSPECIFIED_TIMER, 1).val += (timeMS - lastTimeCheckMS);
+            }
+            lastTimeCheckMS = timeMS;
+        }
+
+        private void push(final StatType type, final double timeMS) {
+            if (depth == stack.length) {
+                final StatType[] newStack = new StatType[depth * 2];
+                System.arraycopy(stack, 0, newStack, 0, depth);
+                stack = newStack;
+                final double[] newStart = new double[depth * 2];
+                System.arraycopy(stackStartMS, 0, newStart, 0, depth);
+                stackStartMS = newStart;
+            }
+            stack[depth] = type;
+            stackStartMS[depth] = timeMS;
+            depth++;
+        }
+
+        private StatType pop() {
+            final StatType type = stack[--depth];
+            stack[depth] = null;
+            return type;
+        }
+
+        /**
+         * Add our stats to the given aggregate, then start over.
+         */
+        private synchronized void merge(final double timeMS, final HashMap<StatType, StatValue> store,
+                final HashMap<StatType, StatHistogram> histogramStore) {
+            // Check if we have a timed stat in tracking... if so, add it in
+            if (depth > 0) {
+                tally(timeMS);
+                // reset iterations of all stack to 0
+                for (int x = depth; --x >= 0;) {
+                    getValue(stack[x], 0).iterations = 0;
+                }
+
+                // current iterations is 1 (for the current call.)
+                getValue(stack[depth - 1], 0).iterations = 1;
+            } else if (values.containsKey(StatType.STAT_UNSPECIFIED_TIMER)) {
+                tally(timeMS);
+                values.get(StatType.STAT_UNSPECIFIED_TIMER).iterations = 1;
+            }
+
+            for (final StatType type : values.keySet()) {
+                final StatValue val = values.get(type);
+                if (val.iterations == 0 && val.val == 0) {
+                    continue;
+                }
+                StatValue total = store.get(type);
+                if (total == null) {
+                    total = new StatValue(0, 0);
+                    store.put(type, total);
+                }
+                total.val += val.val;
+                total.iterations += val.iterations;
+                val.val = 0;
+                val.iterations = 0;
+            }
+
+            for (final StatType type : histograms.keySet()) {
+                final StatHistogram histogram = histograms.get(type);
+                if (histogram.getCount() == 0) {
+                    continue;
+                }
+                StatHistogram total = histogramStore.get(type);
+                if (total == null) {
+                    total = new StatHistogram();
+                    histogramStore.put(type, total);
+                }
+                total.add(histogram);
+                histogram.reset();
+            }
+        }
     }
 }
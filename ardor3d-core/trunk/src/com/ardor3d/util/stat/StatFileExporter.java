@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util.stat;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A StatListener writing each new aggregate sample of the {@link StatCollector} to a file, as CSV or as JSON lines, so
+ * stats gathered in production can be looked at later with other tools.
+ * <p>
+ * CSV files get one row per stat per sample:
+ * <code>time,stat,value,iterations,average,count,mean,p50,p90,p99,max</code>, where the last six columns are filled in
+ * for stats with a histogram. JSON lines files get one object per sample, with a "stats" and a "histograms" object
+ * keyed by stat name. Times are in milliseconds; "time" is the wall clock time the sample was written at.
+ * </p>
+ * <p>
+ * The collector only keeps weak references to its listeners, so keep a reference to the exporter for as long as it
+ * should write, and {@link #close()} it when done.
+ * </p>
+ */
+public class StatFileExporter implements StatListener {
+    private static final Logger logger = Logger.getLogger(StatFileExporter.class.getName());
+
+    public enum Format {
+        CSV, JsonLines;
+    }
+
+    private final Format _format;
+    private Writer _writer;
+
+    /**
+     * Create an exporter writing to the given file and register it with the StatCollector.
+     * 
+     * @param file
+     *            the file to write to.
+     * @param format
+     *            the format to write in.
+     * @param append
+     *            true to add to the end of an existing file rather than replacing it.
+     * @throws IOException
+     *             if the file can not be opened.
+     */
+    public StatFileExporter(final File file, final Format format, final boolean append) throws IOException {
+        this(new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), "UTF-8")), format,
+                !append || file.length() == 0);
+    }
+
+    /**
+     * Create an exporter writing to the given writer and register it with the StatCollector.
+     * 
+     * @param writer
+     *            the writer to write to. Flushed after every sample and closed on {@link #close()}.
+     * @param format
+     *            the format to write in.
+     * @param writeHeader
+     *            true to start a CSV file with its column names.
+     * @throws IOException
+     *             if the header can not be written.
+     */
+    public StatFileExporter(final Writer writer, final Format format, final boolean writeHeader) throws IOException {
+        _writer = writer;
+        _format = format;
+        if (writeHeader && format == Format.CSV) {
+            _writer.write("time,stat,value,iterations,average,count,mean,p50,p90,p99,max\n");
+            _writer.flush();
+        }
+        StatCollector.addStatListener(this);
+    }
+
+    public Format getFormat() {
+        return _format;
+    }
+
+    /**
+     * Write the newest sample of the StatCollector.
+     */
+    public void statsUpdated() {
+        if (_writer == null) {
+            return;
+        }
+        final MultiStatSample sample;
+        synchronized (StatCollector.getHistorical()) {
+            final int size = StatCollector.getHistorical().size();
+            if (size == 0) {
+                return;
+            }
+            sample = StatCollector.getHistorical().get(size - 1);
+        }
+        try {
+            write(sample, System.currentTimeMillis());
+        } catch (final IOException e) {
+            logger.log(Level.WARNING, "Unable to write stats, exporting stopped.", e);
+            close();
+        }
+    }
+
+    /**
+     * Write the given sample and flush.
+     * 
+     * @param sample
+     *            the sample to write.
+     * @param time
+     *            the time to stamp the sample with.
+     * @throws IOException
+     *             if writing fails.
+     */
+    public void write(final MultiStatSample sample, final long time) throws IOException {
+        if (_format == Format.CSV) {
+            writeCSV(sample, time);
+        } else {
+            writeJson(sample, time);
+        }
+        _writer.flush();
+    }
+
+    private void writeCSV(final MultiStatSample sample, final long time) throws IOException {
+        final Set<StatType> types = new TreeSet<StatType>(sample.values.keySet());
+        types.addAll(sample.histograms.keySet());
+        final StringBuilder line = new StringBuilder();
+        for (final StatType type : types) {
+            line.setLength(0);
+            line.append(time).append(',');
+            final String name = type.getStatName();
+            if (name.indexOf(',') >= 0 || name.indexOf('"') >= 0) {
+                line.append('"').append(name.replace("\"", "\"\"")).append('"');
+            } else {
+                line.append(name);
+            }
+            final StatValue value = sample.values.get(type);
+            if (value != null) {
+                line.append(',').append(value.val).append(',').append(value.iterations).append(',').append(
+                        value.average);
+            } else {
+                line.append(",,,");
+            }
+            final StatHistogram histogram = sample.histograms.get(type);
+            if (histogram != null) {
+                line.append(',').append(histogram.getCount()).append(',').append(histogram.getMean());
+                line.append(',').append(histogram.getValueAtPercentile(50));
+                line.append(',').append(histogram.getValueAtPercentile(90));
+                line.append(',').append(histogram.getValueAtPercentile(99));
+                line.append(',').append(histogram.getMax());
+            } else {
+                line.append(",,,,,,");
+            }
+            line.append('\n');
+            _writer.write(line.toString());
+        }
+    }
+
+    private void writeJson(final MultiStatSample sample, final long time) throws IOException {
+        final StringBuilder line = new StringBuilder();
+        line.append("{\"time\":").append(time).append(",\"actualTime\":").append(sample.actualTime);
+        line.append(",\"stats\":{");
+        boolean first = true;
+        for (final StatType type : new TreeSet<StatType>(sample.values.keySet())) {
+            final StatValue value = sample.values.get(type);
+            if (!first) {
+                line.append(',');
+            }
+            first = false;
+            appendName(line, type);
+            line.append("{\"value\":").append(value.val).append(",\"iterations\":").append(value.iterations);
+            line.append(",\"average\":").append(value.average).append('}');
+        }
+        line.append("},\"histograms\":{");
+        first = true;
+        for (final StatType type : new TreeSet<StatType>(sample.histograms.keySet())) {
+            final StatHistogram histogram = sample.histograms.get(type);
+            if (!first) {
+                line.append(',');
+            }
+            first = false;
+            appendName(line, type);
+            line.append("{\"count\":").append(histogram.getCount());
+            line.append(",\"mean\":").append(histogram.getMean());
+            line.append(",\"p50\":").append(histogram.getValueAtPercentile(50));
+            line.append(",\"p90\":").append(histogram.getValueAtPercentile(90));
+            line.append(",\"p99\":").append(histogram.getValueAtPercentile(99));
+            line.append(",\"max\":").append(histogram.getMax()).append('}');
+        }
+        line.append("}}\n");
+        _writer.write(line.toString());
+    }
+
+    private static void appendName(final StringBuilder line, final StatType type) {
+        line.append('"');
+        final String name = type.getStatName();
+        for (int i = 0; i < name.length(); i++) {
+            final char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append("\":");
+    }
+
+    /**
+     * Stop listening to the StatCollector and close our file.
+     */
+    public void close() {
+        StatCollector.removeStatListener(this);
+        if (_writer != null) {
+            try {
+                _writer.close();
+            } catch (final IOException e) {
+                logger.log(Level.WARNING, "Unable to close stats file.", e);
+            }
+            _writer = null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util.stat;
+
+/**
+ * A histogram of times in milliseconds, kept at microsecond resolution in log-linear buckets: below 64 microseconds
+ * every microsecond has its own bucket, above that each power of two is split into 32 buckets. Any recorded time is
+ * therefore reported within about 3% of its value, for anything from a microsecond to hours, in a few hundred longs.
+ * <p>
+ * Not thread safe; {@link StatCollector} keeps one per thread and merges them when a sample is taken.
+ * </p>
+ */
+public class StatHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+
+    private long[] _counts = new long[LINEAR_LIMIT];
+    private long _count;
+    private double _sumMS;
+    private long _minMicros = Long.MAX_VALUE;
+    private long _maxMicros;
+
+    public StatHistogram() {}
+
+    public StatHistogram(final StatHistogram source) {
+        add(source);
+    }
+
+    /**
+     * @param timeMS
+     *            a time in milliseconds. Negative times are recorded as 0.
+     */
+    public void record(final double timeMS) {
+        final long micros = Math.max(0, Math.round(timeMS * 1000));
+        final int index = getIndex(micros);
+        if (index >= _counts.length) {
+            grow(index + 1);
+        }
+        _counts[index]++;
+        _count++;
+        _sumMS += Math.max(0, timeMS);
+        _minMicros = Math.min(_minMicros, micros);
+        _maxMicros = Math.max(_maxMicros, micros);
+    }
+
+    /**
+     * Add all the times recorded in the given histogram to this one.
+     */
+    public void add(final StatHistogram other) {
+        if (other._count == 0) {
+            return;
+        }
+        if (other._counts.length > _counts.length) {
+            grow(other._counts.length);
+        }
+        for (int i = 0; i < other._counts.length; i++) {
+            _counts[i] += other._counts[i];
+        }
+        _count += other._count;
+        _sumMS += other._sumMS;
+        _minMicros = Math.min(_minMicros, other._minMicros);
+        _maxMicros = Math.max(_maxMicros, other._maxMicros);
+    }
+
+    public void reset() {
+        for (int i = 0; i < _counts.length; i++) {
+            _counts[i] = 0;
+        }
+        _count = 0;
+        _sumMS = 0;
+        _minMicros = Long.MAX_VALUE;
+        _maxMicros = 0;
+    }
+
+    public long getCount() {
+        return _count;
+    }
+
+    public double getMean() {
+        return _count == 0 ? 0 : _sumMS / _count;
+    }
+
+    public double getMin() {
+        return _count == 0 ? 0 : _minMicros / 1000.0;
+    }
+
+    public double getMax() {
+        return _maxMicros / 1000.0;
+    }
+
+    /**
+     * @param percentile
+     *            the percentage of recorded times, 0 to 100, that should be at or below the returned time.
+     * @return the highest time in milliseconds of the bucket holding the given percentile, but no more than the
+     *         largest time recorded. 0 if nothing was recorded.
+     */
+    public double getValueAtPercentile(final double percentile) {
+        if (_count == 0) {
+            return 0;
+        }
+        final long target = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100.0 * _count));
+        long seen = 0;
+        for (int i = 0; i < _counts.length; i++) {
+            seen += _counts[i];
+            if (seen >= target) {
+                return Math.min(getHighestValue(i), _maxMicros) / 1000.0;
+            }
+        }
+        return getMax();
+    }
+
+    private void grow(final int size) {
+        final long[] counts = new long[Math.max(size, _counts.length + SUB_BUCKETS)];
+        System.arraycopy(_counts, 0, counts, 0, _counts.length);
+        _counts = counts;
+    }
+
+    private static int getIndex(final long micros) {
+        if (micros < LINEAR_LIMIT) {
+            return (int) micros;
+        }
+        final int highestBit = 63 - Long.numberOfLeadingZeros(micros);
+        final int shift = highestBit - SUB_BUCKET_BITS;
+        final int subBucket = (int) (micros >> shift) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (highestBit - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long getHighestValue(final int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        final int offset = index - LINEAR_LIMIT;
+        final int shift = offset / SUB_BUCKETS + 1;
+        final long lowest = (long) (SUB_BUCKETS + offset % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
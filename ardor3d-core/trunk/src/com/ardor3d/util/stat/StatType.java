@@ -22,6 +22,7 @@ public class StatType implements Comparable<StatType> {
     public static final StatType STAT_MESH_COUNT = new StatType("_meshCount");
     public static final StatType STAT_TEXTURE_BINDS = new StatType("_texBind");
     public static final StatType STAT_SHADER_BINDS = new StatType("_shaderBind");
+    public static final StatType STAT_STATES_AVOIDED = new StatType("_statesAvoided");
 
     public static final StatType STAT_UNSPECIFIED_TIMER = new StatType("_timedOther");
     public static final StatType STAT_RENDER_TIMER = new StatType("_timedRenderer");
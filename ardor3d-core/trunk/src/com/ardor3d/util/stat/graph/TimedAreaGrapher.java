@@ -173,7 +173,7 @@ public class TimedAreaGrapher extends AbstractStatGrapher implements TableLinkab
             fb.rewind();
             entry.area.getMeshData().setVertexBuffer(fb);
             entry.area.setScale(new Vector3(scaleWidth, scaleHeight, 1));
-            entry.area.getMeshData().getIndexBuffer().limit(entry.verts.size());
+            entry.area.getMeshData().getIndices().limit(entry.verts.size());
 
             // - attach to root as needed
             if (!graphRoot.equals(entry.area.getParent())) {
@@ -273,11 +273,12 @@ public class TimedAreaGrapher extends AbstractStatGrapher implements TableLinkab
 
             area = new Mesh("a");
             area.getMeshData().setVertexBuffer(BufferUtils.createVector3Buffer(maxSamples * 2));
-            area.getMeshData().setIndexBuffer(BufferUtils.createIntBuffer(maxSamples * 2));
+            area.getMeshData().setIndices(BufferUtils.createIndexBufferData(maxSamples * 2, area.getMeshData()
+                    .getVertexCount() - 1));
             for (int i = 0; i < maxSamples * 2; i++) {
-                area.getMeshData().getIndexBuffer().put(i);
+                area.getMeshData().getIndices().put(i);
             }
-            area.getMeshData().getIndexBuffer().rewind();
+            area.getMeshData().getIndices().rewind();
             area.setRenderBucketType(RenderBucketType.Ortho);
             area.getMeshData().setIndexMode(IndexMode.LineStrip);
 
@@ -13,6 +13,7 @@ package com.ardor3d.extension.effect.particle;
 import com.ardor3d.math.Plane;
 import com.ardor3d.math.Quaternion;
 import com.ardor3d.math.Vector3;
+import com.ardor3d.math.type.ReadOnlyVector3;
 
 public class FloorInfluence extends ParticleInfluence {
 
@@ -34,6 +35,8 @@ public class FloorInfluence extends ParticleInfluence {
 
     private Plane floor;
 
+    private final Vector3 _position = new Vector3(), _velocity = new Vector3();
+
     /**
      * @param pos
      *            The position vector for the (imaginary) center of the floor.
@@ -52,34 +55,57 @@ public class FloorInfluence extends ParticleInfluence {
 
     @Override
     public void apply(final double dt, final Particle particle, final int index) {
-
         if (particle.getStatus() == Particle.Status.Alive && floor.pseudoDistance(particle.getPosition()) <= 0) {
+            bounce(particle.getPosition(), particle.getVelocity());
+        }
+    }
 
-            final Vector3 tempVect1 = Vector3.fetchTempInstance();
-            final Vector3 tempVect2 = Vector3.fetchTempInstance();
-            final double t = (floor.getNormal().dot(particle.getPosition()) - floor.getConstant())
-                    / floor.getNormal().dot(particle.getVelocity());
-            final Vector3 s = particle.getPosition().subtract(particle.getVelocity().multiply(t, tempVect1), tempVect1);
-
-            normal.normalizeLocal();
-            final Vector3 v1 = normal.cross(s.subtract(pos, s), tempVect1);
-            final Vector3 v2 = normal.cross(v1, tempVect2);
-            v1.normalizeLocal();
-            v2.normalizeLocal();
-
-            final Vector3 newVel = new Vector3(particle.getVelocity());
-            newVel.setY(newVel.getY() * -bouncyness);
-            final Quaternion q = new Quaternion();
-            q.fromAxes(v1, normal, v2);
-            q.apply(newVel, newVel);
-
-            particle.setVelocity(newVel);
-
-            Vector3.releaseTempInstance(tempVect1);
-            Vector3.releaseTempInstance(tempVect2);
+    @Override
+    public void applyBatch(final double dt, final ParticleSystem system, final int from, final int to) {
+        final ParticleData data = system.getParticleData();
+        final float[] positions = data.getPositions();
+        final float[] velocities = data.getVelocities();
+        final ReadOnlyVector3 floorNormal = floor.getNormal();
+        final double nx = floorNormal.getX(), ny = floorNormal.getY(), nz = floorNormal.getZ();
+        final double constant = floor.getConstant();
+        for (int i = from; i < to; i++) {
+            final int i3 = i * 3;
+            // only particles at or below the floor need the full bounce
+            if (data.getStatus(i) != Particle.Status.Alive
+                    || nx * positions[i3] + ny * positions[i3 + 1] + nz * positions[i3 + 2] - constant > 0) {
+                continue;
+            }
+            _position.set(positions[i3], positions[i3 + 1], positions[i3 + 2]);
+            _velocity.set(velocities[i3], velocities[i3 + 1], velocities[i3 + 2]);
+            bounce(_position, _velocity);
+            velocities[i3] = _velocity.getXf();
+            velocities[i3 + 1] = _velocity.getYf();
+            velocities[i3 + 2] = _velocity.getZf();
         }
     }
 
+    private void bounce(final ReadOnlyVector3 position, final Vector3 velocity) {
+        final Vector3 tempVect1 = Vector3.fetchTempInstance();
+        final Vector3 tempVect2 = Vector3.fetchTempInstance();
+        final double t = (floor.getNormal().dot(position) - floor.getConstant()) / floor.getNormal().dot(velocity);
+        final Vector3 s = position.subtract(velocity.multiply(t, tempVect1), tempVect1);
+
+        normal.normalizeLocal();
+        final Vector3 v1 = normal.cross(s.subtract(pos, s), tempVect1);
+        final Vector3 v2 = normal.cross(v1, tempVect2);
+        v1.normalizeLocal();
+        v2.normalizeLocal();
+
+        final Quaternion q = Quaternion.fetchTempInstance();
+        q.fromAxes(v1, normal, v2);
+        velocity.setY(velocity.getY() * -bouncyness);
+        q.apply(velocity, velocity);
+
+        Quaternion.releaseTempInstance(q);
+        Vector3.releaseTempInstance(tempVect1);
+        Vector3.releaseTempInstance(tempVect2);
+    }
+
     public double getBouncyness() {
         return bouncyness;
     }
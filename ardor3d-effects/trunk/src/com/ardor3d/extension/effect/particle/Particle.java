@@ -421,6 +421,13 @@ public class Particle implements Savable {
         startIndex = index;
     }
 
+    /**
+     * @return the life span of this particle in ms.
+     */
+    public double getLifeSpan() {
+        return lifeSpan;
+    }
+
     /**
      * @return the mass of this particle. Only used by ParticleInfluences such as drag.
      */
@@ -428,13 +435,25 @@ public class Particle implements Savable {
         return values[VAL_CURRENT_MASS];
     }
 
+    void setMass(final double mass) {
+        values[VAL_CURRENT_MASS] = mass;
+    }
+
     /**
      * @return the inverse mass of this particle. Often useful for skipping constant division by mass calculations. If
      *         the mass is 0, the inverse mass is considered to be positive infinity. Conversely, if the mass is
      *         positive infinity, the inverse is 0. The inverse of negative infinity is considered to be -0.
      */
     public double getInvMass() {
-        final double mass = values[VAL_CURRENT_MASS];
+        return getInvMass(values[VAL_CURRENT_MASS]);
+    }
+
+    /**
+     * @param mass
+     *            a particle mass
+     * @return the inverse of the given mass, following the rules of {@link #getInvMass()}.
+     */
+    static double getInvMass(final double mass) {
         if (mass == 0) {
             return Float.POSITIVE_INFINITY;
         } else if (mass == Float.POSITIVE_INFINITY) {
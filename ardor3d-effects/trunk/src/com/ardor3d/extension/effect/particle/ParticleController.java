@@ -156,6 +156,15 @@ public class ParticleController extends Controller {
                 }
             }
 
+            // With array storage, influences, aging and movement run in bulk before the spawn loop below.
+            final ParticleData data = particles.getParticleData();
+            if (data != null) {
+                if (influences != null) {
+                    applyInfluences(data);
+                }
+                data.update(particles, timePassed, particles.getWorkerThreads());
+            }
+
             // Track particle index
             int i = 0;
 
@@ -172,7 +181,7 @@ public class ParticleController extends Controller {
                 final Particle p = particles.getParticle(i);
 
                 // If we have influences and particle is alive
-                if (influences != null && p.getStatus() == Particle.Status.Alive) {
+                if (data == null && influences != null && p.getStatus() == Particle.Status.Alive) {
                     // Apply each enabled influence to the current particle
                     for (int x = 0; x < influences.size(); x++) {
                         final ParticleInfluence inf = influences.get(x);
@@ -187,11 +196,13 @@ public class ParticleController extends Controller {
                 // reused, we may reuse it. Do so if we are not using
                 // control flow, OR we intend to create particles based on
                 // control flow count calculated above
-                final boolean reuse = p.updateAndCheck(timePassed);
+                final boolean reuse = data == null ? p.updateAndCheck(timePassed)
+                        : data.getStatus(i) != Particle.Status.Alive;
                 if (reuse && (!controlFlow || particlesToCreate > 0)) {
 
                     // Don't recreate the particle if it is dead, and we are clamped
-                    if (p.getStatus() == Particle.Status.Dead && getRepeatType() == RT_CLAMP) {
+                    if ((data == null ? p.getStatus() : data.getStatus(i)) == Particle.Status.Dead
+                            && getRepeatType() == RT_CLAMP) {
                         ;
 
                         // We plan to reuse the particle
@@ -211,7 +222,11 @@ public class ParticleController extends Controller {
                         p.setStatus(Particle.Status.Alive);
                         particles.initParticleLocation(i);
                         particles.resetParticleVelocity(i);
-                        p.updateVerts(null);
+                        if (data == null) {
+                            p.updateVerts(null);
+                        } else {
+                            data.spawn(i, p, particles);
+                        }
                     }
 
                 } else if (!reuse || (controlFlow && particles.getReleaseRate() > 0)) {
@@ -221,7 +236,7 @@ public class ParticleController extends Controller {
                 }
 
                 // Check for living particles so we know when to update our boundings.
-                if (p.getStatus() == Particle.Status.Alive) {
+                if ((data == null ? p.getStatus() : data.getStatus(i)) == Particle.Status.Alive) {
                     anyAlive = true;
                 }
 
@@ -247,6 +262,21 @@ public class ParticleController extends Controller {
         }
     }
 
+    /**
+     * Apply each of our enabled influences, in turn, to all particles held in the given array storage.
+     * 
+     * @param data
+     *            the particle storage to update
+     */
+    private void applyInfluences(final ParticleData data) {
+        for (int x = 0; x < influences.size(); x++) {
+            final ParticleInfluence inf = influences.get(x);
+            if (inf.isEnabled()) {
+                inf.applyBatch(timePassed, particles, 0, data.getCount());
+            }
+        }
+    }
+
     /**
      * Get how soon after the last update the manager will send updates to the particles.
      * 
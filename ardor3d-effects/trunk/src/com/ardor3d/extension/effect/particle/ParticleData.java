@@ -0,0 +1,511 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.extension.effect.particle;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.ardor3d.extension.effect.particle.ParticleSystem.ParticleType;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.MathUtils;
+import com.ardor3d.math.type.ReadOnlyColorRGBA;
+import com.ardor3d.math.type.ReadOnlyVector3;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.scenegraph.MeshData;
+
+/**
+ * <code>ParticleData</code> stores the per frame state of every particle in a ParticleSystem as a structure of
+ * primitive arrays, rather than as one Particle object per particle. Particle i keeps its position and velocity at
+ * [i*3, i*3+2], its color at [i*4, i*4+3] and its scalar values at [i]. Updates and vertex generation run as tight
+ * loops over index ranges, which may be split across worker threads.
+ * <p>
+ * Particle objects are still used when a particle is (re)spawned, since emission is defined in terms of them, and to
+ * run per particle influences. They are otherwise not kept in sync; use {@link #store(int, Particle)} to copy the
+ * current state of a particle into its Particle object.
+ * </p>
+ * 
+ * @see ParticleSystem#setParticleStorage(ParticleSystem.ParticleStorage)
+ */
+public class ParticleData {
+
+    /** Ranges smaller than this are not worth handing to another thread. */
+    private static final int MIN_RANGE_SIZE = 4096;
+
+    /** Shared pool of daemon threads used by {@link #forEachRange(int, int, RangeTask)}, created on first use. */
+    private static ExecutorService _workers;
+
+    /**
+     * A unit of work over the particles from index <code>from</code> (inclusive) to <code>to</code> (exclusive).
+     */
+    public interface RangeTask {
+        void run(int from, int to);
+    }
+
+    protected final int _count;
+    protected final float[] _positions;
+    protected final float[] _velocities;
+    protected final float[] _colors;
+    protected final float[] _ages;
+    protected final float[] _lifeSpans;
+    protected final float[] _sizes;
+    protected final float[] _spins;
+    protected final float[] _masses;
+    protected final Particle.Status[] _status;
+
+    /**
+     * Create storage for the given number of particles, all with status Available.
+     * 
+     * @param count
+     *            number of particles
+     */
+    public ParticleData(final int count) {
+        _count = count;
+        _positions = new float[count * 3];
+        _velocities = new float[count * 3];
+        _colors = new float[count * 4];
+        _ages = new float[count];
+        _lifeSpans = new float[count];
+        _sizes = new float[count];
+        _spins = new float[count];
+        _masses = new float[count];
+        _status = new Particle.Status[count];
+        for (int i = 0; i < count; i++) {
+            _status[i] = Particle.Status.Available;
+            _masses[i] = 1;
+        }
+    }
+
+    /**
+     * @return the number of particles stored.
+     */
+    public int getCount() {
+        return _count;
+    }
+
+    /**
+     * @return particle positions, 3 floats per particle.
+     */
+    public float[] getPositions() {
+        return _positions;
+    }
+
+    /**
+     * @return particle velocities in units per ms, 3 floats per particle.
+     */
+    public float[] getVelocities() {
+        return _velocities;
+    }
+
+    /**
+     * @return particle colors, 4 floats (r, g, b, a) per particle.
+     */
+    public float[] getColors() {
+        return _colors;
+    }
+
+    /**
+     * @return particle ages in ms.
+     */
+    public float[] getAges() {
+        return _ages;
+    }
+
+    /**
+     * @return particle life spans in ms.
+     */
+    public float[] getLifeSpans() {
+        return _lifeSpans;
+    }
+
+    /**
+     * @return particle sizes.
+     */
+    public float[] getSizes() {
+        return _sizes;
+    }
+
+    /**
+     * @return particle spin angles, in radians.
+     */
+    public float[] getSpins() {
+        return _spins;
+    }
+
+    /**
+     * @return particle masses.
+     */
+    public float[] getMasses() {
+        return _masses;
+    }
+
+    public Particle.Status getStatus(final int index) {
+        return _status[index];
+    }
+
+    public void setStatus(final int index, final Particle.Status status) {
+        _status[index] = status;
+    }
+
+    /**
+     * Copy the position and velocity of the given Particle into our arrays.
+     * 
+     * @param index
+     *            the particle index
+     * @param particle
+     *            the particle to copy from
+     */
+    public void load(final int index, final Particle particle) {
+        final ReadOnlyVector3 pos = particle.getPosition();
+        final ReadOnlyVector3 vel = particle.getVelocity();
+        final int i3 = index * 3;
+        _positions[i3] = pos.getXf();
+        _positions[i3 + 1] = pos.getYf();
+        _positions[i3 + 2] = pos.getZf();
+        _velocities[i3] = vel.getXf();
+        _velocities[i3 + 1] = vel.getYf();
+        _velocities[i3 + 2] = vel.getZf();
+    }
+
+    /**
+     * Copy the position, velocity, mass and status of the given particle into its Particle object.
+     * 
+     * @param index
+     *            the particle index
+     * @param particle
+     *            the particle to copy to
+     */
+    public void store(final int index, final Particle particle) {
+        final int i3 = index * 3;
+        particle.getPosition().set(_positions[i3], _positions[i3 + 1], _positions[i3 + 2]);
+        particle.getVelocity().set(_velocities[i3], _velocities[i3 + 1], _velocities[i3 + 2]);
+        particle.setMass(_masses[index]);
+        particle.setStatus(_status[index]);
+    }
+
+    /**
+     * Start the given particle's life using the position, velocity, life span and color its Particle object was just
+     * (re)created with.
+     * 
+     * @param index
+     *            the particle index
+     * @param particle
+     *            the freshly recreated particle
+     * @param system
+     *            the particle system both belong to
+     */
+    public void spawn(final int index, final Particle particle, final ParticleSystem system) {
+        load(index, particle);
+        final ReadOnlyColorRGBA color = particle.getCurrentColor();
+        final int i4 = index * 4;
+        _colors[i4] = color.getRed();
+        _colors[i4 + 1] = color.getGreen();
+        _colors[i4 + 2] = color.getBlue();
+        _colors[i4 + 3] = color.getAlpha();
+        _ages[index] = 0;
+        _lifeSpans[index] = (float) particle.getLifeSpan();
+        _sizes[index] = (float) system.getStartSize();
+        _spins[index] = (float) system.getStartSpin();
+        _masses[index] = 1;
+        _status[index] = particle.getStatus();
+    }
+
+    /**
+     * Age, move and kill the living particles in a range, then update their color, size, spin and mass from the
+     * system's appearance ramp. Mirrors {@link Particle#updateAndCheck(double)}, but only touches our arrays.
+     * 
+     * @param system
+     *            the particle system we belong to
+     * @param secondsPassed
+     *            number of seconds passed since last update.
+     * @param from
+     *            first particle to update, inclusive
+     * @param to
+     *            last particle to update, exclusive
+     */
+    public void update(final ParticleSystem system, final double secondsPassed, final int from, final int to) {
+        final ParticleAppearanceRamp ramp = system.getRamp();
+        final ColorRGBA color = new ColorRGBA();
+        final double[] values = new double[3];
+        final float ms = (float) (secondsPassed * 1000);
+        for (int i = from; i < to; i++) {
+            if (_status[i] != Particle.Status.Alive) {
+                continue;
+            }
+            final float age = _ages[i] + ms;
+            _ages[i] = age;
+            if (age > _lifeSpans[i]) {
+                _status[i] = Particle.Status.Dead;
+                _colors[i * 4 + 3] = 0;
+                continue;
+            }
+
+            final int i3 = i * 3;
+            _positions[i3] += _velocities[i3] * ms;
+            _positions[i3 + 1] += _velocities[i3 + 1] * ms;
+            _positions[i3 + 2] += _velocities[i3 + 2] * ms;
+
+            ramp.getValuesAtAge(age, _lifeSpans[i], color, values, system);
+            final int i4 = i * 4;
+            _colors[i4] = color.getRed();
+            _colors[i4 + 1] = color.getGreen();
+            _colors[i4 + 2] = color.getBlue();
+            _colors[i4 + 3] = color.getAlpha();
+            _sizes[i] = (float) values[Particle.VAL_CURRENT_SIZE];
+            _spins[i] = (float) values[Particle.VAL_CURRENT_SPIN];
+            _masses[i] = (float) values[Particle.VAL_CURRENT_MASS];
+        }
+    }
+
+    /**
+     * Update every particle, splitting the work across the given number of threads.
+     * 
+     * @param system
+     *            the particle system we belong to
+     * @param secondsPassed
+     *            number of seconds passed since last update.
+     * @param threads
+     *            the maximum number of threads to use.
+     */
+    public void update(final ParticleSystem system, final double secondsPassed, final int threads) {
+        forEachRange(_count, threads, new RangeTask() {
+            public void run(final int from, final int to) {
+                update(system, secondsPassed, from, to);
+            }
+        });
+    }
+
+    /**
+     * Write the vertex, color and (for animated quads) texture coordinates of a range of particles into the system's
+     * particle geometry. Particles that are not alive are collapsed to a single point and made fully transparent.
+     * Mirrors {@link Particle#updateVerts(Camera)}; ParticleType.GeomMesh is not supported.
+     * 
+     * @param system
+     *            the particle system we belong to
+     * @param cam
+     *            Camera to use in determining viewer aspect. If null, or if the system is not set to camera facing,
+     *            the system's left and up vectors are used.
+     * @param from
+     *            first particle to write, inclusive
+     * @param to
+     *            last particle to write, exclusive
+     */
+    public void updateVertices(final ParticleSystem system, final Camera cam, final int from, final int to) {
+        final ParticleType type = system.getParticleType();
+        final int verts = ParticleSystem.getVertsForParticleType(type);
+        final MeshData meshData = system.getParticleGeometry().getMeshData();
+        final FloatBuffer vertices = meshData.getVertexBuffer();
+        final FloatBuffer colors = meshData.getColorBuffer();
+        final FloatBuffer texs = type == ParticleType.Quad && system.getTexQuantity() > 1 ? meshData
+                .getTextureCoords(0).coords : null;
+
+        final boolean facing = cam != null && system.isCameraFacing();
+        final boolean velocityAligned = facing && system.isVelocityAligned();
+        final ReadOnlyVector3 left = facing ? cam.getLeft() : system.getLeftVector();
+        final ReadOnlyVector3 up = facing ? cam.getUp() : system.getUpVector();
+        final double lx = left.getX(), ly = left.getY(), lz = left.getZ();
+        final double ux = up.getX(), uy = up.getY(), uz = up.getZ();
+        final ReadOnlyVector3 dir = cam != null ? cam.getDirection() : null;
+        final double orientation = system.getParticleOrientation();
+
+        for (int i = from; i < to; i++) {
+            final int i3 = i * 3, i4 = i * 4;
+            final double px = _positions[i3], py = _positions[i3 + 1], pz = _positions[i3 + 2];
+            int v = i * verts * 3;
+            int c = i * verts * 4;
+
+            if (_status[i] != Particle.Status.Alive) {
+                for (int x = 0; x < verts; x++) {
+                    vertices.put(v++, (float) px).put(v++, (float) py).put(v++, (float) pz);
+                    colors.put(c + 3, 0);
+                    c += 4;
+                }
+                continue;
+            }
+
+            final double size = _sizes[i];
+            double xx, xy, xz, yx, yy, yz;
+            if (velocityAligned) {
+                final double vx = _velocities[i3], vy = _velocities[i3 + 1], vz = _velocities[i3 + 2];
+                final double vLength = Math.sqrt(vx * vx + vy * vy + vz * vz);
+                final double vScale = vLength != 0 ? size / vLength : 0;
+                xx = vx * vScale;
+                xy = vy * vScale;
+                xz = vz * vScale;
+                // dir cross bbX
+                yx = dir.getY() * xz - dir.getZ() * xy;
+                yy = dir.getZ() * xx - dir.getX() * xz;
+                yz = dir.getX() * xy - dir.getY() * xx;
+                final double yLength = Math.sqrt(yx * yx + yy * yy + yz * yz);
+                final double yScale = yLength != 0 ? size / yLength : 0;
+                yx *= yScale;
+                yy *= yScale;
+                yz *= yScale;
+            } else {
+                final double orient = orientation + _spins[i];
+                if (!facing || orient == 0) {
+                    xx = lx * size;
+                    xy = ly * size;
+                    xz = lz * size;
+                    yx = ux * size;
+                    yy = uy * size;
+                    yz = uz * size;
+                } else {
+                    final double cA = MathUtils.cos(orient) * size;
+                    final double sA = MathUtils.sin(orient) * size;
+                    xx = lx * cA + ux * sA;
+                    xy = ly * cA + uy * sA;
+                    xz = lz * cA + uz * sA;
+                    yx = ux * cA - lx * sA;
+                    yy = uy * cA - ly * sA;
+                    yz = uz * cA - lz * sA;
+                }
+            }
+
+            switch (type) {
+                case Quad:
+                    vertices.put(v++, (float) (px + xx - yx)).put(v++, (float) (py + xy - yy)).put(v++,
+                            (float) (pz + xz - yz));
+                    vertices.put(v++, (float) (px + xx + yx)).put(v++, (float) (py + xy + yy)).put(v++,
+                            (float) (pz + xz + yz));
+                    vertices.put(v++, (float) (px - xx - yx)).put(v++, (float) (py - xy - yy)).put(v++,
+                            (float) (pz - xz - yz));
+                    vertices.put(v++, (float) (px - xx + yx)).put(v++, (float) (py - xy + yy)).put(v++,
+                            (float) (pz - xz + yz));
+                    break;
+                case Triangle:
+                    vertices.put(v++, (float) (px + xx - yx)).put(v++, (float) (py + xy - yy)).put(v++,
+                            (float) (pz + xz - yz));
+                    vertices.put(v++, (float) (px + xx + 3 * yx)).put(v++, (float) (py + xy + 3 * yy)).put(v++,
+                            (float) (pz + xz + 3 * yz));
+                    vertices.put(v++, (float) (px - 3 * xx - yx)).put(v++, (float) (py - 3 * xy - yy)).put(v++,
+                            (float) (pz - 3 * xz - yz));
+                    break;
+                case Line:
+                    vertices.put(v++, (float) (px - xx)).put(v++, (float) (py - xy)).put(v++, (float) (pz - xz));
+                    vertices.put(v++, (float) (px + xx)).put(v++, (float) (py + xy)).put(v++, (float) (pz + xz));
+                    break;
+                case Point:
+                    vertices.put(v++, (float) px).put(v++, (float) py).put(v++, (float) pz);
+                    break;
+                default:
+                    throw new IllegalStateException("ParticleData does not support particle type " + type);
+            }
+
+            for (int x = 0; x < verts; x++) {
+                colors.put(c++, _colors[i4]).put(c++, _colors[i4 + 1]).put(c++, _colors[i4 + 2]).put(c++,
+                        _colors[i4 + 3]);
+            }
+
+            if (texs != null) {
+                writeTexCoords(system, texs, i);
+            }
+        }
+    }
+
+    /**
+     * Write vertices for every particle, splitting the work across the given number of threads.
+     * 
+     * @param system
+     *            the particle system we belong to
+     * @param cam
+     *            Camera to use in determining viewer aspect, may be null.
+     * @param threads
+     *            the maximum number of threads to use.
+     */
+    public void updateVertices(final ParticleSystem system, final Camera cam, final int threads) {
+        forEachRange(_count, threads, new RangeTask() {
+            public void run(final int from, final int to) {
+                updateVertices(system, cam, from, to);
+            }
+        });
+    }
+
+    private void writeTexCoords(final ParticleSystem system, final FloatBuffer texs, final int i) {
+        final int texQuantity = system.getTexQuantity();
+        int index = system.getTexAnimation().getTexIndexAtAge(_ages[i], _lifeSpans[i], system);
+        if (index >= texQuantity) {
+            index %= texQuantity;
+        }
+        final float side = (float) Math.sqrt(texQuantity);
+        final float row = side - (int) (index / side) - 1;
+        final float col = index % side;
+        final float sU = col / side, eU = (col + 1) / side;
+        final float sV = row / side, eV = (row + 1) / side;
+        int t = i * 8;
+        texs.put(t++, sU).put(t++, sV);
+        texs.put(t++, sU).put(t++, eV);
+        texs.put(t++, eU).put(t++, sV);
+        texs.put(t++, eU).put(t++, eV);
+    }
+
+    /**
+     * Split the range [0, count) into at most <code>threads</code> contiguous chunks and run the task on each, using
+     * the calling thread for the first chunk and a shared pool of daemon threads for the rest. Returns once every chunk
+     * is done. Small counts are always run on the calling thread.
+     * 
+     * @param count
+     *            the number of items to process
+     * @param threads
+     *            the maximum number of threads to use.
+     * @param task
+     *            the work to do on each chunk. Chunks run concurrently, so the task must only write data belonging
+     *            to its own range.
+     */
+    public static void forEachRange(final int count, final int threads, final RangeTask task) {
+        final int chunks = Math.max(1, Math.min(threads, count / MIN_RANGE_SIZE));
+        if (chunks == 1) {
+            task.run(0, count);
+            return;
+        }
+
+        final int chunkSize = (count + chunks - 1) / chunks;
+        final List<Future<?>> futures = new ArrayList<Future<?>>(chunks - 1);
+        for (int start = chunkSize; start < count; start += chunkSize) {
+            final int from = start, to = Math.min(count, start + chunkSize);
+            futures.add(getWorkers().submit(new Runnable() {
+                public void run() {
+                    task.run(from, to);
+                }
+            }));
+        }
+        task.run(0, chunkSize);
+
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final ExecutionException e) {
+                throw new RuntimeException("Particle update failed.", e.getCause());
+            }
+        }
+    }
+
+    private static synchronized ExecutorService getWorkers() {
+        if (_workers == null) {
+            _workers = Executors.newCachedThreadPool(new ThreadFactory() {
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(r, "ParticleData worker");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return _workers;
+    }
+}
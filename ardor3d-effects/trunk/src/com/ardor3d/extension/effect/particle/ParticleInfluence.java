@@ -71,6 +71,34 @@ public abstract class ParticleInfluence implements Savable {
      */
     public abstract void apply(double dt, Particle particle, int index);
 
+    /**
+     * Apply the influence defined by this class to the living particles in a range of a particle system using
+     * ParticleStorage.Arrays. The default implementation adapts {@link #apply(double, Particle, int)}: each living
+     * particle is copied into its Particle object, passed to apply and copied back. Subclasses should override this
+     * with a loop working directly on the arrays of the system's {@link ParticleData}.
+     * 
+     * @param dt
+     *            amount of time since last apply call in ms.
+     * @param system
+     *            the particle system to apply the influence to. Its particle data must not be null.
+     * @param from
+     *            the first particle to apply the influence to, inclusive.
+     * @param to
+     *            the last particle to apply the influence to, exclusive.
+     */
+    public void applyBatch(final double dt, final ParticleSystem system, final int from, final int to) {
+        final ParticleData data = system.getParticleData();
+        for (int i = from; i < to; i++) {
+            if (data.getStatus(i) != Particle.Status.Alive) {
+                continue;
+            }
+            final Particle particle = system.getParticle(i);
+            data.store(i, particle);
+            apply(dt, particle, i);
+            data.load(i, particle);
+        }
+    }
+
     public void write(final Ardor3DExporter e) throws IOException {
         final OutputCapsule capsule = e.getCapsule(this);
         capsule.write(enabled, "enabled", true);
@@ -71,7 +71,7 @@ public class ParticleLines extends ParticleSystem {
         line.getMeshData().setVertexBuffer(_geometryCoordinates);
         line.getMeshData().setColorBuffer(_appearanceColors);
         line.getMeshData().setTextureCoords(new TexCoords(BufferUtils.createVector2Buffer(numParticles * 2)), 0);
-        line.getMeshData().setIndexBuffer(BufferUtils.createIntBuffer(indices));
+        line.getMeshData().setIndices(BufferUtils.createIndexBufferData(indices));
         setRenderBucketType(RenderBucketType.Opaque);
         setLightCombineMode(Spatial.LightCombineMode.Off);
         setTextureCombineMode(TextureCombineMode.Replace);
@@ -99,12 +99,7 @@ public class ParticleLines extends ParticleSystem {
     @Override
     public void draw(final Renderer r) {
         final Camera camera = ContextManager.getCurrentContext().getCurrentCamera();
-        for (int i = 0; i < _particles.length; i++) {
-            final Particle particle = _particles[i];
-            if (particle.getStatus() == Particle.Status.Alive) {
-                particle.updateVerts(camera);
-            }
-        }
+        updateParticleVertices(camera);
 
         if (!_particlesInWorldCoords) {
             getParticleGeometry().setWorldTranslation(getWorldTranslation());
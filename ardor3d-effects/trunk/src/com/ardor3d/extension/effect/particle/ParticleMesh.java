@@ -138,7 +138,7 @@ public class ParticleMesh extends ParticleSystem {
         mesh.getMeshData().setVertexBuffer(_geometryCoordinates);
         mesh.getMeshData().setColorBuffer(_appearanceColors);
         mesh.getMeshData().setTextureCoords(new TexCoords(BufferUtils.createVector2Buffer(numParticles * verts)), 0);
-        mesh.getMeshData().setIndexBuffer(BufferUtils.createIntBuffer(indices));
+        mesh.getMeshData().setIndices(BufferUtils.createIndexBufferData(indices));
 
         final Vector3 temp = Vector3.fetchTempInstance();
         for (int k = 0; k < numParticles; k++) {
@@ -148,7 +148,7 @@ public class ParticleMesh extends ParticleSystem {
             for (int a = verts - 1; a >= 0; a--) {
                 final int ind = (k * verts) + a;
                 if (_particleType == ParticleSystem.ParticleType.GeomMesh && useMeshTexCoords) {
-                    final int index = _psGeom.getMeshData().getIndexBuffer().get(ind);
+                    final int index = _psGeom.getMeshData().getIndices().get(ind);
                     BufferUtils.populateFromBuffer(temp, _psGeom.getMeshData().getTextureCoords(0).coords, index);
                     BufferUtils.setInBuffer(temp, mesh.getMeshData().getTextureCoords(0).coords, ind);
                 } else {
@@ -166,12 +166,7 @@ public class ParticleMesh extends ParticleSystem {
     @Override
     public void draw(final Renderer r) {
         final Camera camera = ContextManager.getCurrentContext().getCurrentCamera();
-        for (int i = 0; i < _particles.length; i++) {
-            final Particle particle = _particles[i];
-            if (particle.getStatus() == Particle.Status.Alive) {
-                particle.updateVerts(camera);
-            }
-        }
+        updateParticleVertices(camera);
 
         if (!_particlesInWorldCoords) {
             getParticleGeometry().setWorldTranslation(getWorldTranslation());
@@ -89,12 +89,7 @@ public class ParticlePoints extends ParticleSystem {
     @Override
     public void draw(final Renderer r) {
         final Camera camera = ContextManager.getCurrentContext().getCurrentCamera();
-        for (int i = 0; i < _particles.length; i++) {
-            final Particle particle = _particles[i];
-            if (particle.getStatus() == Particle.Status.Alive) {
-                particle.updateVerts(camera);
-            }
-        }
+        updateParticleVertices(camera);
 
         if (!_particlesInWorldCoords) {
             getParticleGeometry().setWorldTranslation(getWorldTranslation());
@@ -28,6 +28,7 @@ import com.ardor3d.math.type.ReadOnlyColorRGBA;
 import com.ardor3d.math.type.ReadOnlyMatrix3;
 import com.ardor3d.math.type.ReadOnlyTransform;
 import com.ardor3d.math.type.ReadOnlyVector3;
+import com.ardor3d.renderer.Camera;
 import com.ardor3d.scenegraph.Controller;
 import com.ardor3d.scenegraph.Mesh;
 import com.ardor3d.scenegraph.MeshData;
@@ -55,6 +56,19 @@ public abstract class ParticleSystem extends Node {
         Quad, Triangle, Point, Line, GeomMesh;
     }
 
+    /**
+     * How per particle state is stored and updated.
+     */
+    public enum ParticleStorage {
+        /** One Particle object per particle (default). Supports every particle type. */
+        Objects,
+        /**
+         * Primitive arrays in a {@link ParticleData}, updated and written to the geometry in tight loops that may be
+         * split across threads. Suited to very large systems; does not support ParticleType.GeomMesh.
+         */
+        Arrays;
+    }
+
     protected static final double DEFAULT_END_SIZE = 4;
     protected static final double DEFAULT_START_SIZE = 20;
     protected static final double DEFAULT_MAX_ANGLE = 0.7853982;
@@ -103,6 +117,9 @@ public abstract class ParticleSystem extends Node {
     protected final Vector3 _invScale = new Vector3();
 
     protected Particle _particles[];
+    protected ParticleStorage _particleStorage = ParticleStorage.Objects;
+    protected ParticleData _particleData;
+    protected int _workerThreads = 1;
 
     // protected Vector3 particleSpeed;
     protected int _releaseRate; // particles per second
@@ -115,7 +132,10 @@ public abstract class ParticleSystem extends Node {
     protected Vector3 _oldEmit = new Vector3(Float.NaN, Float.NaN, Float.NaN);
     protected double _matData[] = new double[9];
 
-    public ParticleSystem() {}
+    public ParticleSystem() {
+        // our emitter transform follows the scene on every update.
+        setAlwaysUpdated(true);
+    }
 
     public ParticleSystem(final String name, final int numParticles) {
         this(name, numParticles, ParticleType.Quad);
@@ -123,6 +143,7 @@ public abstract class ParticleSystem extends Node {
 
     public ParticleSystem(final String name, final int numParticles, final ParticleType particleType) {
         super(name);
+        setAlwaysUpdated(true);
         _numParticles = numParticles;
         _particleType = particleType;
         _minimumLifeTime = DEFAULT_MIN_LIFE;
@@ -168,6 +189,9 @@ public abstract class ParticleSystem extends Node {
             _particles[i].setStatus(Particle.Status.Alive);
             _particles[i].updateAndCheck(1);
             _particles[i].setStatus(Particle.Status.Available);
+            if (_particleData != null) {
+                _particleData.setStatus(i, Particle.Status.Available);
+            }
         }
 
         if (_controller != null) {
@@ -723,7 +747,11 @@ public abstract class ParticleSystem extends Node {
     public void initAllParticlesLocation() {
         for (int i = _particles.length; --i >= 0;) {
             initParticleLocation(i);
-            _particles[i].updateVerts(null);
+            if (_particleData != null) {
+                _particleData.load(i, _particles[i]);
+            } else {
+                _particles[i].updateVerts(null);
+            }
         }
     }
 
@@ -736,7 +764,7 @@ public abstract class ParticleSystem extends Node {
             for (int x = 0; x < 3; x++) {
                 vertices[x] = new Vector3();
 
-                BufferUtils.populateFromBuffer(vertices[x], mData.getVertexBuffer(), mData.getIndexBuffer().get(
+                BufferUtils.populateFromBuffer(vertices[x], mData.getVertexBuffer(), mData.getIndices().get(
                         mData.getVertexIndex(index, x, 0)));
             }
             Triangle t = p.getTriangleModel();
@@ -806,6 +834,80 @@ public abstract class ParticleSystem extends Node {
         return _particles[i];
     }
 
+    public ParticleStorage getParticleStorage() {
+        return _particleStorage;
+    }
+
+    /**
+     * Choose how per particle state is stored. Switching to ParticleStorage.Arrays copies the current particle
+     * positions and velocities into a new {@link ParticleData}; all particles then restart as available.
+     *
+     * @param storage
+     *            the new storage type
+     * @throws IllegalArgumentException
+     *             if Arrays storage is requested for a ParticleType.GeomMesh system.
+     */
+    public void setParticleStorage(final ParticleStorage storage) {
+        if (storage == ParticleStorage.Arrays && getParticleType() == ParticleType.GeomMesh) {
+            throw new IllegalArgumentException("ParticleStorage.Arrays does not support ParticleType.GeomMesh");
+        }
+        _particleStorage = storage;
+        initializeParticleData();
+    }
+
+    /**
+     * @return the array storage of our particles, or null if our storage type is ParticleStorage.Objects.
+     */
+    public ParticleData getParticleData() {
+        return _particleData;
+    }
+
+    public int getWorkerThreads() {
+        return _workerThreads;
+    }
+
+    /**
+     * @param threads
+     *            the maximum number of threads used to update and write particles when using ParticleStorage.Arrays.
+     *            Defaults to 1, meaning all work happens on the calling thread.
+     */
+    public void setWorkerThreads(final int threads) {
+        _workerThreads = Math.max(1, threads);
+    }
+
+    /**
+     * (Re)create our ParticleData to match the current particles, if our storage type is ParticleStorage.Arrays.
+     */
+    protected void initializeParticleData() {
+        if (_particleStorage != ParticleStorage.Arrays || _particles == null) {
+            _particleData = null;
+            return;
+        }
+        _particleData = new ParticleData(_particles.length);
+        for (int i = 0; i < _particles.length; i++) {
+            _particleData.load(i, _particles[i]);
+        }
+    }
+
+    /**
+     * Write the vertices of our particles to the particle geometry.
+     *
+     * @param camera
+     *            Camera to use in determining viewer aspect, may be null.
+     */
+    protected void updateParticleVertices(final Camera camera) {
+        if (_particleData != null) {
+            _particleData.updateVertices(this, camera, _workerThreads);
+            return;
+        }
+        for (int i = 0; i < _particles.length; i++) {
+            final Particle particle = _particles[i];
+            if (particle.getStatus() == Particle.Status.Alive) {
+                particle.updateVerts(camera);
+            }
+        }
+    }
+
     public boolean isActive() {
         return _controller.isActive();
     }
@@ -989,6 +1091,7 @@ public abstract class ParticleSystem extends Node {
     public void recreate(final int count) {
         _numParticles = count;
         initializeParticles(_numParticles);
+        initializeParticleData();
     }
 
     @Override
@@ -1072,6 +1175,8 @@ public abstract class ParticleSystem extends Node {
         capsule.write(_particlesInWorldCoords, "particlesInWorldCoords", true);
         capsule.write(_ramp, "ramp", new ParticleAppearanceRamp());
         capsule.write(_texAnimation, "texAnimation", new TexAnimation());
+        capsule.write(_particleStorage, "particleStorage", ParticleStorage.Objects);
+        capsule.write(_workerThreads, "workerThreads", 1);
     }
 
     @Override
@@ -1119,6 +1224,8 @@ public abstract class ParticleSystem extends Node {
         _particlesInWorldCoords = capsule.readBoolean("particlesInWorldCoords", true);
         _ramp = (ParticleAppearanceRamp) capsule.readSavable("ramp", new ParticleAppearanceRamp());
         _texAnimation = (TexAnimation) capsule.readSavable("texAnimation", new TexAnimation());
+        _particleStorage = capsule.readEnum("particleStorage", ParticleStorage.class, ParticleStorage.Objects);
+        _workerThreads = capsule.readInt("workerThreads", 1);
 
         _invScale.zero();
         _upXemit.zero();
@@ -1126,5 +1233,6 @@ public abstract class ParticleSystem extends Node {
         _abUpMinUp.zero();
         _rotMatrix.loadIdentity();
         initializeParticles(_numParticles);
+        initializeParticleData();
     }
 }
@@ -16,6 +16,7 @@ import com.ardor3d.math.Line3;
 import com.ardor3d.math.MathUtils;
 import com.ardor3d.math.Quaternion;
 import com.ardor3d.math.Vector3;
+import com.ardor3d.math.type.ReadOnlyVector3;
 import com.ardor3d.util.export.Ardor3DExporter;
 import com.ardor3d.util.export.Ardor3DImporter;
 import com.ardor3d.util.export.InputCapsule;
@@ -85,6 +86,23 @@ public final class SimpleParticleInfluenceFactory {
             vector.scaleAdd(tStr * dt, p.getVelocity(), p.getVelocity());
         }
 
+        @Override
+        public void applyBatch(final double dt, final ParticleSystem system, final int from, final int to) {
+            final ParticleData data = system.getParticleData();
+            final float[] velocities = data.getVelocities();
+            final double x = vector.getX() * dt, y = vector.getY() * dt, z = vector.getZ() * dt;
+            for (int i = from; i < to; i++) {
+                if (data.getStatus(i) != Particle.Status.Alive) {
+                    continue;
+                }
+                final double tStr = (random ? MathUtils.nextRandomFloat() * strength : strength);
+                final int i3 = i * 3;
+                velocities[i3] += x * tStr;
+                velocities[i3 + 1] += y * tStr;
+                velocities[i3 + 2] += z * tStr;
+            }
+        }
+
         @Override
         public void write(final Ardor3DExporter e) throws IOException {
             super.write(e);
@@ -152,6 +170,23 @@ public final class SimpleParticleInfluenceFactory {
             vector.scaleAdd(dt, p.getVelocity(), p.getVelocity());
         }
 
+        @Override
+        public void applyBatch(final double dt, final ParticleSystem system, final int from, final int to) {
+            final ParticleData data = system.getParticleData();
+            final float[] velocities = data.getVelocities();
+            final float x = (float) (vector.getX() * dt), y = (float) (vector.getY() * dt), z = (float) (vector
+                    .getZ() * dt);
+            for (int i = from; i < to; i++) {
+                if (data.getStatus(i) != Particle.Status.Alive) {
+                    continue;
+                }
+                final int i3 = i * 3;
+                velocities[i3] += x;
+                velocities[i3 + 1] += y;
+                velocities[i3 + 2] += z;
+            }
+        }
+
         @Override
         public void write(final Ardor3DExporter e) throws IOException {
             super.write(e);
@@ -199,6 +234,24 @@ public final class SimpleParticleInfluenceFactory {
             p.getVelocity().addLocal(velocity.multiplyLocal(-dragCoefficient * dt * p.getInvMass()));
         }
 
+        @Override
+        public void applyBatch(final double dt, final ParticleSystem system, final int from, final int to) {
+            final ParticleData data = system.getParticleData();
+            final float[] velocities = data.getVelocities();
+            final float[] masses = data.getMasses();
+            final double drag = -dragCoefficient * dt;
+            for (int i = from; i < to; i++) {
+                if (data.getStatus(i) != Particle.Status.Alive) {
+                    continue;
+                }
+                final double scale = drag * Particle.getInvMass(masses[i]);
+                final int i3 = i * 3;
+                velocities[i3] += velocities[i3] * scale;
+                velocities[i3 + 1] += velocities[i3 + 1] * scale;
+                velocities[i3 + 2] += velocities[i3 + 2] * scale;
+            }
+        }
+
         @Override
         public void write(final Ardor3DExporter e) throws IOException {
             super.write(e);
@@ -229,6 +282,7 @@ public final class SimpleParticleInfluenceFactory {
         private Line3 axis;
         private boolean random, transformWithScene;
         private final Vector3 v1 = new Vector3(), v2 = new Vector3(), v3 = new Vector3();
+        private final Vector3 position = new Vector3(), velocity = new Vector3();
         private final Quaternion rot = new Quaternion();
         private final Line3 line = new Line3();
 
@@ -329,7 +383,31 @@ public final class SimpleParticleInfluenceFactory {
         @Override
         public void apply(final double dt, final Particle p, final int index) {
             final double dtStr = dt * strength * (random ? MathUtils.nextRandomFloat() : 1f);
-            p.getPosition().subtract(line.getOrigin(), v1);
+            applyVortex(dtStr, p.getPosition(), p.getVelocity());
+        }
+
+        @Override
+        public void applyBatch(final double dt, final ParticleSystem system, final int from, final int to) {
+            final ParticleData data = system.getParticleData();
+            final float[] positions = data.getPositions();
+            final float[] velocities = data.getVelocities();
+            for (int i = from; i < to; i++) {
+                if (data.getStatus(i) != Particle.Status.Alive) {
+                    continue;
+                }
+                final double dtStr = dt * strength * (random ? MathUtils.nextRandomFloat() : 1f);
+                final int i3 = i * 3;
+                position.set(positions[i3], positions[i3 + 1], positions[i3 + 2]);
+                velocity.set(velocities[i3], velocities[i3 + 1], velocities[i3 + 2]);
+                applyVortex(dtStr, position, velocity);
+                velocities[i3] = velocity.getXf();
+                velocities[i3 + 1] = velocity.getYf();
+                velocities[i3 + 2] = velocity.getZf();
+            }
+        }
+
+        private void applyVortex(final double dtStr, final ReadOnlyVector3 position, final Vector3 velocity) {
+            position.subtract(line.getOrigin(), v1);
             line.getDirection().cross(v1, v2);
             if (v2.length() == 0) { // particle is on the axis
                 return;
@@ -337,14 +415,14 @@ public final class SimpleParticleInfluenceFactory {
             v2.normalizeLocal();
             if (type == VT_CYLINDER) {
                 rot.apply(v2, v2);
-                v2.scaleAdd(dtStr, p.getVelocity(), p.getVelocity());
+                v2.scaleAdd(dtStr, velocity, velocity);
                 return;
             }
             v2.cross(line.getDirection(), v1);
             v1.multiplyLocal(radius);
             line.getDirection().scaleAdd(height, v1, v1);
             v1.addLocal(line.getOrigin());
-            v1.subtractLocal(p.getPosition());
+            v1.subtractLocal(position);
             if (v1.length() == 0) { // particle is on the ring
                 return;
             }
@@ -352,7 +430,7 @@ public final class SimpleParticleInfluenceFactory {
             v1.cross(v2, v3);
             rot.fromAngleAxis(-divergence, v2);
             rot.apply(v3, v3);
-            v3.scaleAdd(dtStr, p.getVelocity(), p.getVelocity());
+            v3.scaleAdd(dtStr, velocity, velocity);
         }
 
         @Override
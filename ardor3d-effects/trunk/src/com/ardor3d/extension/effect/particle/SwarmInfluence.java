@@ -107,6 +107,78 @@ public class SwarmInfluence extends ParticleInfluence {
         Matrix3.releaseTempInstance(workMat);
     }
 
+    @Override
+    public void applyBatch(final double dt, final ParticleSystem system, final int from, final int to) {
+        final ParticleData data = system.getParticleData();
+        final float[] positions = data.getPositions();
+        final float[] velocities = data.getVelocities();
+        final double sx = _swarmPoint.getX(), sy = _swarmPoint.getY(), sz = _swarmPoint.getZ();
+        final double bump = _speedBump * dt;
+        // the turn angle is always +/- turnSpeed * dt and acos is decreasing, so trig can be hoisted out of the loop.
+        final double cosTurn = MathUtils.cos(_turnSpeed * dt), sinTurn = MathUtils.sin(_turnSpeed * dt);
+        final double cosDeviance = MathUtils.cos(_deviance);
+        for (int i = from; i < to; i++) {
+            if (data.getStatus(i) != Particle.Status.Alive) {
+                continue;
+            }
+            final int i3 = i * 3;
+            double vx = velocities[i3], vy = velocities[i3 + 1], vz = velocities[i3 + 2];
+
+            // unit vector to the swarm point, and unit velocity
+            double dx = sx - positions[i3], dy = sy - positions[i3 + 1], dz = sz - positions[i3 + 2];
+            final double pDist = dx * dx + dy * dy + dz * dz;
+            if (pDist != 0) {
+                final double inv = 1 / Math.sqrt(pDist);
+                dx *= inv;
+                dy *= inv;
+                dz *= inv;
+            }
+            final double speedSQ = vx * vx + vy * vy + vz * vz;
+            double wx = vx, wy = vy, wz = vz;
+            if (speedSQ != 0) {
+                final double inv = 1 / Math.sqrt(speedSQ);
+                wx *= inv;
+                wy *= inv;
+                wz *= inv;
+            }
+
+            final double sin;
+            if (pDist > _swarmRangeSQ) {
+                // IN THE OUTER ZONE...
+                if (dx * wx + dy * wy + dz * wz > cosDeviance) {
+                    // heading toward the swarm point, speed up.
+                    if (speedSQ < maxSpeedSQ) {
+                        velocities[i3] += wx * bump;
+                        velocities[i3 + 1] += wy * bump;
+                        velocities[i3 + 2] += wz * bump;
+                    }
+                    continue;
+                }
+                sin = (Double.doubleToLongBits(speedSQ) & 0x1d) != 0 ? sinTurn : -sinTurn;
+            } else {
+                // IN THE INNER ZONE...
+                sin = (i & 0x1f) != 0 ? sinTurn : -sinTurn;
+            }
+
+            // rotate the velocity about (w cross d), using Rodrigues' formula
+            double ax = wy * dz - wz * dy, ay = wz * dx - wx * dz, az = wx * dy - wy * dx;
+            final double aLength = Math.sqrt(ax * ax + ay * ay + az * az);
+            if (aLength != 0) {
+                ax /= aLength;
+                ay /= aLength;
+                az /= aLength;
+            }
+            final double kDotV = (ax * vx + ay * vy + az * vz) * (1 - cosTurn);
+            final double cx = ay * vz - az * vy, cy = az * vx - ax * vz, cz = ax * vy - ay * vx;
+            vx = vx * cosTurn + cx * sin + ax * kDotV;
+            vy = vy * cosTurn + cy * sin + ay * kDotV;
+            vz = vz * cosTurn + cz * sin + az * kDotV;
+            velocities[i3] = (float) vx;
+            velocities[i3 + 1] = (float) vy;
+            velocities[i3 + 2] = (float) vz;
+        }
+    }
+
     public double getSwarmRange() {
         return Math.sqrt(_swarmRangeSQ);
     }
@@ -61,6 +61,45 @@ public class WanderInfluence extends ParticleInfluence {
         particle.getVelocity().set(workVect);
     }
 
+    @Override
+    public void applyBatch(final double dt, final ParticleSystem system, final int from, final int to) {
+        if (wanderRadius == 0 && wanderDistance == 0 && wanderJitter == 0) {
+            return;
+        }
+
+        final ParticleData data = system.getParticleData();
+        final float[] velocities = data.getVelocities();
+        for (int i = from; i < to; i++) {
+            if (data.getStatus(i) != Particle.Status.Alive) {
+                continue;
+            }
+
+            final Vector3 wanderTarget = wanderTargets.get(i);
+            double tx = wanderTarget.getX() + calcNewJitter();
+            double ty = wanderTarget.getY() + calcNewJitter();
+            double tz = wanderTarget.getZ() + calcNewJitter();
+            final double tLength = Math.sqrt(tx * tx + ty * ty + tz * tz);
+            if (tLength != 0) {
+                final double scale = wanderRadius / tLength;
+                tx *= scale;
+                ty *= scale;
+                tz *= scale;
+            }
+            wanderTarget.set(tx, ty, tz);
+
+            final int i3 = i * 3;
+            final double vx = velocities[i3], vy = velocities[i3 + 1], vz = velocities[i3 + 2];
+            final double speed = Math.sqrt(vx * vx + vy * vy + vz * vz);
+            final double vScale = speed != 0 ? wanderDistance / speed : wanderDistance;
+            final double wx = vx * vScale + tx, wy = vy * vScale + ty, wz = vz * vScale + tz;
+            final double wLength = Math.sqrt(wx * wx + wy * wy + wz * wz);
+            final double wScale = wLength != 0 ? speed / wLength : speed;
+            velocities[i3] = (float) (wx * wScale);
+            velocities[i3 + 1] = (float) (wy * wScale);
+            velocities[i3 + 2] = (float) (wz * wScale);
+        }
+    }
+
     private double calcNewJitter() {
         return ((MathUtils.nextRandomFloat() * 2.0f) - 1.0f) * wanderJitter;
     }
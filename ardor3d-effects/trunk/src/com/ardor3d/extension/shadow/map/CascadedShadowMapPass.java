@@ -0,0 +1,684 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.extension.shadow.map;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.ardor3d.bounding.BoundingVolume;
+import com.ardor3d.framework.DisplaySettings;
+import com.ardor3d.image.Texture;
+import com.ardor3d.image.Texture2D;
+import com.ardor3d.image.Texture.DepthTextureCompareFunc;
+import com.ardor3d.image.Texture.DepthTextureCompareMode;
+import com.ardor3d.image.Texture.DepthTextureMode;
+import com.ardor3d.light.DirectionalLight;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.Matrix4;
+import com.ardor3d.math.Transform;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.math.type.ReadOnlyMatrix4;
+import com.ardor3d.math.type.ReadOnlyVector3;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.ContextManager;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.TextureRenderer;
+import com.ardor3d.renderer.TextureRendererFactory;
+import com.ardor3d.renderer.pass.Pass;
+import com.ardor3d.renderer.state.BlendState;
+import com.ardor3d.renderer.state.ClipState;
+import com.ardor3d.renderer.state.ColorMaskState;
+import com.ardor3d.renderer.state.CullState;
+import com.ardor3d.renderer.state.GLSLShaderObjectsState;
+import com.ardor3d.renderer.state.LightState;
+import com.ardor3d.renderer.state.MaterialState;
+import com.ardor3d.renderer.state.RenderState;
+import com.ardor3d.renderer.state.TextureState;
+import com.ardor3d.scenegraph.Spatial;
+
+/**
+ * A pass providing a shadow mapping layer across the top of an existing scene, like {@link DirectionalShadowMapPass},
+ * but splitting the view frustum of the current camera into cascades along its view direction. Each cascade gets its
+ * own shadow map, rendered with an orthographic light camera fitted around just that slice of the view frustum and
+ * only the occluders that light camera can see. Near cascades therefore get sharp shadows and far ones cover a lot of
+ * ground, without one huge map.
+ * <p>
+ * The shadowed scene is drawn once per cascade, clipped to the slice of that cascade.
+ * </p>
+ */
+public class CascadedShadowMapPass extends Pass {
+    private static final Logger logger = Logger.getLogger(CascadedShadowMapPass.class.getName());
+
+    private static final long serialVersionUID = 1L;
+
+    /** Bias matrix borrowed from the projected texture utility */
+    private static Matrix4 biasMatrix = new Matrix4(0.5f, 0.0f, 0.0f, 0.0f, 0.0f, 0.5f, 0.0f, 0.0f, 0.0f, 0.0f, 0.5f,
+            0.0f, 0.5f, 0.5f, 0.5f, 1.0f); // bias from [-1, 1] to [0, 1]
+
+    /** The direction shadows are being cast in */
+    protected final Vector3 direction = new Vector3();
+
+    /** The size of the shadow map of each cascade */
+    private final int[] mapSizes;
+
+    /** The cameras fitted around each cascade, copied to the texture renderers when drawing */
+    private final Camera[] lightCameras;
+
+    /** The distance along the view direction where each cascade starts, plus where the last one ends */
+    private final double[] splits;
+
+    /** The occluders drawn into each cascade on the last update */
+    private final List<List<Spatial>> cascadeOccluders = new ArrayList<List<Spatial>>();
+
+    /** The list of occluding nodes */
+    private final List<Spatial> occluderNodes = new ArrayList<Spatial>();
+
+    /** The farthest distance from the view camera that receives shadows */
+    protected double maxDistance = 500;
+
+    /** The blend between logarithmic (1) and uniform (0) splits */
+    protected double splitLambda = 0.75;
+
+    /** How far towards the light occluders are still drawn into a cascade, beyond the slice itself */
+    protected double casterDistance = 500;
+
+    private TextureRenderer[] shadowMapRenderers;
+    private Texture2D[] shadowMapTextures;
+    private TextureState[] shadowTextureStates;
+    private ClipState[] cascadeClips;
+    private GLSLShaderObjectsState[] shaders;
+
+    /** Culling front faces when rendering shadow maps */
+    private CullState cullFrontFace;
+    /** Turn off textures when rendering shadow maps */
+    private TextureState noTexture;
+    /** Turn off colors when rendering shadow maps - depth only */
+    private ColorMaskState colorDisabled;
+    /** Turn off lighting when rendering shadow maps - depth only */
+    private LightState noLights;
+    /** Don't perform any plane clipping when rendering the shadow maps */
+    private ClipState noClip;
+
+    /**
+     * The blending to both discard the fragments that have been determined to be free of shadows and to blend into the
+     * background scene
+     */
+    private BlendState discardShadowFragments;
+    /** The bright light used to blend the shadows version into the scene */
+    private LightState brightLights;
+    /** The dark material used to blend the shadows into the scene */
+    private MaterialState darkMaterial;
+
+    /** True once the pass has been initialized */
+    protected boolean initialised = false;
+
+    /**
+     * A place to internally save previous enforced states setup before rendering this pass
+     */
+    protected final EnumMap<RenderState.StateType, RenderState> preStates = new EnumMap<RenderState.StateType, RenderState>(
+            RenderState.StateType.class);
+
+    /** The color of shadows cast */
+    private final ColorRGBA shadowCol = new ColorRGBA(0, 0, 0, 0.3f);
+
+    private final Vector3 lightLeft = new Vector3();
+    private final Vector3 lightUp = new Vector3();
+
+    /**
+     * Create a cascaded shadow map pass casting shadows from a light with the direction given.
+     * 
+     * @param direction
+     *            The direction of the light casting the shadows
+     * @param cascades
+     *            The number of cascades to split the view into
+     * @param shadowMapSize
+     *            The size of the shadow map texture of each cascade
+     */
+    public CascadedShadowMapPass(final ReadOnlyVector3 direction, final int cascades, final int shadowMapSize) {
+        if (cascades < 1) {
+            throw new IllegalArgumentException("need at least one cascade: " + cascades);
+        }
+        mapSizes = new int[cascades];
+        Arrays.fill(mapSizes, shadowMapSize);
+        lightCameras = new Camera[cascades];
+        splits = new double[cascades + 1];
+        for (int i = 0; i < cascades; i++) {
+            lightCameras[i] = new Camera(shadowMapSize, shadowMapSize);
+            lightCameras[i].setParallelProjection(true);
+            cascadeOccluders.add(new ArrayList<Spatial>());
+        }
+        setDirection(direction);
+    }
+
+    /**
+     * @param direction
+     *            The direction of the light casting the shadows
+     */
+    public void setDirection(final ReadOnlyVector3 direction) {
+        this.direction.set(direction).normalizeLocal();
+        // any up vector perpendicular to the light will do, it only rotates the maps.
+        if (Math.abs(this.direction.getY()) < 0.99) {
+            Vector3.UNIT_Y.cross(this.direction, lightLeft);
+        } else {
+            Vector3.UNIT_X.cross(this.direction, lightLeft);
+        }
+        lightLeft.normalizeLocal();
+        this.direction.cross(lightLeft, lightUp).normalizeLocal();
+    }
+
+    public ReadOnlyVector3 getDirection() {
+        return direction;
+    }
+
+    public int getCascadeCount() {
+        return mapSizes.length;
+    }
+
+    /**
+     * Set the size of the shadow map of one cascade, eg. to spend less memory on far cascades. Must be called before
+     * the pass is first rendered.
+     * 
+     * @param cascade
+     *            the cascade, 0 being nearest to the camera.
+     * @param size
+     *            the width and height of its shadow map texture.
+     */
+    public void setCascadeMapSize(final int cascade, final int size) {
+        if (initialised) {
+            throw new IllegalStateException("map sizes can not be changed once the pass is initialised.");
+        }
+        mapSizes[cascade] = size;
+    }
+
+    public int getCascadeMapSize(final int cascade) {
+        return mapSizes[cascade];
+    }
+
+    /**
+     * @param distance
+     *            the farthest distance from the view camera to cast shadows up to. The far plane of the camera is used
+     *            instead if it is nearer.
+     */
+    public void setMaxDistance(final double distance) {
+        maxDistance = distance;
+    }
+
+    public double getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * @param lambda
+     *            how the view is split into cascades, from 0 for slices of equal depth to 1 for slices growing
+     *            logarithmically with distance. Default is 0.75
+     */
+    public void setSplitLambda(final double lambda) {
+        splitLambda = lambda;
+    }
+
+    public double getSplitLambda() {
+        return splitLambda;
+    }
+
+    /**
+     * @param distance
+     *            how far beyond the slice of a cascade, towards the light, occluders may still cast shadows into it.
+     */
+    public void setCasterDistance(final double distance) {
+        casterDistance = distance;
+    }
+
+    public double getCasterDistance() {
+        return casterDistance;
+    }
+
+    /**
+     * Set the colour of the shadows to be cast
+     * 
+     * @param alpha
+     *            The alpha of the shadows to be cast
+     */
+    public void setShadowAlpha(final float alpha) {
+        shadowCol.setAlpha(alpha);
+        if (darkMaterial != null) {
+            darkMaterial.setDiffuse(shadowCol);
+        }
+    }
+
+    /**
+     * @return the distance along the view direction where the given cascade starts. Passing the cascade count gives
+     *         where the last cascade ends.
+     */
+    public double getSplitDistance(final int split) {
+        return splits[split];
+    }
+
+    /**
+     * @return the orthographic light camera fitted around the given cascade on the last update.
+     */
+    public Camera getLightCamera(final int cascade) {
+        return lightCameras[cascade];
+    }
+
+    /**
+     * @return the occluders drawn into the shadow map of the given cascade on the last update.
+     */
+    public List<Spatial> getCascadeOccluders(final int cascade) {
+        return cascadeOccluders.get(cascade);
+    }
+
+    /**
+     * Add a spatial that will occlude light and hence cast a shadow
+     * 
+     * @param occluder
+     *            The spatial to add as an occluder
+     */
+    public void addOccluder(final Spatial occluder) {
+        occluderNodes.add(occluder);
+    }
+
+    /**
+     * Remove the contents of the pass
+     */
+    public void clear() {
+        occluderNodes.clear();
+        spatials.clear();
+        for (final List<Spatial> occluders : cascadeOccluders) {
+            occluders.clear();
+        }
+    }
+
+    /**
+     * Split the view frustum of the given camera into our cascades, fit a light camera around each of them and pick
+     * the occluders each light camera sees.
+     * 
+     * @param view
+     *            the camera the scene is viewed with.
+     */
+    public void updateCascades(final Camera view) {
+        final int cascades = getCascadeCount();
+        final double near = view.getFrustumNear();
+        final double far = Math.max(near, Math.min(view.getFrustumFar(), maxDistance));
+        for (int i = 0; i <= cascades; i++) {
+            final double fraction = i / (double) cascades;
+            final double logarithmic = near * Math.pow(far / near, fraction);
+            final double uniform = near + (far - near) * fraction;
+            splits[i] = splitLambda * logarithmic + (1 - splitLambda) * uniform;
+        }
+
+        final Vector3[] corners = new Vector3[8];
+        for (int c = 0; c < 8; c++) {
+            corners[c] = new Vector3();
+        }
+        final Vector3 center = new Vector3();
+        final Vector3 location = new Vector3();
+        for (int i = 0; i < cascades; i++) {
+            getSliceCorners(view, splits[i], splits[i + 1], corners);
+
+            // a bounding sphere keeps the size of the map steady while the view turns, so shadows do not swim.
+            center.zero();
+            for (int c = 0; c < 8; c++) {
+                center.addLocal(corners[c]);
+            }
+            center.divideLocal(8);
+            double radius = 0;
+            for (int c = 0; c < 8; c++) {
+                radius = Math.max(radius, corners[c].distance(center));
+            }
+            radius = Math.ceil(radius * 16) / 16;
+
+            // snap the center to whole texels of the map for the same reason.
+            final double texel = 2 * radius / mapSizes[i];
+            final double x = Math.floor(-lightLeft.dot(center) / texel) * texel;
+            final double y = Math.floor(lightUp.dot(center) / texel) * texel;
+            final double z = direction.dot(center);
+
+            final double nearZ = z - radius - casterDistance;
+            location.set(lightLeft).multiplyLocal(-x);
+            addScaled(location, lightUp, y);
+            addScaled(location, direction, nearZ - 1);
+
+            final Camera camera = lightCameras[i];
+            // top and bottom swapped as in DirectionalShadowMapPass, which is what Camera's parallel culling expects.
+            camera.setFrustum(1, z + radius - nearZ + 1, -radius, radius, -radius, radius);
+            camera.setFrame(location, lightLeft, lightUp, direction);
+            camera.update();
+
+            final List<Spatial> occluders = cascadeOccluders.get(i);
+            occluders.clear();
+            for (int o = 0, oSize = occluderNodes.size(); o < oSize; o++) {
+                final Spatial occluder = occluderNodes.get(o);
+                final BoundingVolume bound = occluder.getWorldBound();
+                // each occluder is tested against every plane, not just those its predecessor intersected.
+                camera.setPlaneState(0);
+                if (bound == null || camera.contains(bound) != Camera.FrustumIntersect.Outside) {
+                    occluders.add(occluder);
+                }
+            }
+        }
+    }
+
+    /**
+     * Store the world space corners of the slice of the given camera's view between the given distances.
+     */
+    private static void getSliceCorners(final Camera view, final double from, final double to, final Vector3[] store) {
+        final ReadOnlyVector3 location = view.getLocation();
+        final ReadOnlyVector3 left = view.getLeft();
+        final ReadOnlyVector3 up = view.getUp();
+        final ReadOnlyVector3 dir = view.getDirection();
+        int c = 0;
+        for (int d = 0; d < 2; d++) {
+            final double distance = d == 0 ? from : to;
+            final double scale = view.isParallelProjection() ? 1 : distance / view.getFrustumNear();
+            for (int h = 0; h < 2; h++) {
+                final double horizontal = (h == 0 ? view.getFrustumLeft() : view.getFrustumRight()) * scale;
+                for (int v = 0; v < 2; v++) {
+                    final double vertical = (v == 0 ? view.getFrustumBottom() : view.getFrustumTop()) * scale;
+                    final Vector3 corner = store[c++];
+                    corner.set(location);
+                    addScaled(corner, dir, distance);
+                    // frustum left and right are measured to the right of the camera, against its left axis.
+                    addScaled(corner, left, -horizontal);
+                    addScaled(corner, up, vertical);
+                }
+            }
+        }
+    }
+
+    private static void addScaled(final Vector3 store, final ReadOnlyVector3 vector, final double scale) {
+        store.addLocal(vector.getX() * scale, vector.getY() * scale, vector.getZ() * scale);
+    }
+
+    /**
+     * Initialise the pass render states
+     * 
+     * @param r
+     */
+    public void init(final Renderer r) {
+        if (initialised) {
+            return;
+        }
+
+        initialised = true; // now it's initialized
+
+        final int cascades = getCascadeCount();
+        shadowMapRenderers = new TextureRenderer[cascades];
+        shadowMapTextures = new Texture2D[cascades];
+        shadowTextureStates = new TextureState[cascades];
+        cascadeClips = new ClipState[cascades];
+        shaders = new GLSLShaderObjectsState[cascades];
+        final boolean glsl = ContextManager.getCurrentContext().getCapabilities().isGLSLSupported();
+        for (int i = 0; i < cascades; i++) {
+            // the texture that the shadow map will be rendered into. Modulated so
+            // that it can be blended over the scene.
+            final Texture2D texture = new Texture2D();
+            texture.setApply(Texture.ApplyMode.Modulate);
+            texture.setMinificationFilter(Texture.MinificationFilter.NearestNeighborNoMipMaps);
+            texture.setWrap(Texture.WrapMode.Clamp);
+            texture.setMagnificationFilter(Texture.MagnificationFilter.Bilinear);
+            texture.setRenderToTextureType(Texture.RenderToTextureType.Depth);
+            texture.setEnvironmentalMapMode(Texture.EnvironmentalMapMode.EyeLinear);
+            texture.setDepthCompareMode(DepthTextureCompareMode.RtoTexture);
+            texture.setDepthCompareFunc(DepthTextureCompareFunc.GreaterThanEqual);
+            texture.setDepthMode(DepthTextureMode.Intensity);
+            shadowMapTextures[i] = texture;
+
+            // configure the texture renderer to output to the texture
+            final DisplaySettings settings = new DisplaySettings(mapSizes[i], mapSizes[i], 0, 0, 0, 8, 0, 0, false);
+            shadowMapRenderers[i] = TextureRendererFactory.INSTANCE.createTextureRenderer(settings, r,
+                    TextureRenderer.Target.Texture2D);
+            shadowMapRenderers[i].setupTexture(texture);
+
+            // render state to apply the shadow map texture
+            shadowTextureStates[i] = new TextureState();
+            shadowTextureStates[i].setTexture(texture, 0);
+
+            // keeps the shadowed scene of this cascade to its slice of the view
+            cascadeClips[i] = new ClipState();
+            cascadeClips[i].setEnabled(true);
+
+            if (glsl) {
+                final GLSLShaderObjectsState shader = new GLSLShaderObjectsState();
+                try {
+                    shader.setVertexShader(getResource("cascadedShadowMap.vert"));
+                    shader.setFragmentShader(prefixStream("const float OFFSET = 0.5 / " + mapSizes[i] + ".0;",
+                            getResource("shadowMap.frag")));
+                } catch (final IOException ex) {
+                    logger.logp(Level.SEVERE, getClass().getName(), "init(Renderer)", "Could not load shaders.", ex);
+                }
+                shader.setUniform("shadowMap", 0);
+                shader.setUniform("offset", 0.0002f);
+                shader.setEnabled(true);
+                shaders[i] = shader;
+            }
+        }
+
+        noClip = new ClipState();
+        noClip.setEnabled(false);
+
+        // render states to use when rendering into the shadow map, no textures or colors are required since we're only
+        // interested in recording depth. Also only need back faces when rendering the shadow maps
+        noTexture = new TextureState();
+        noTexture.setEnabled(false);
+        colorDisabled = new ColorMaskState();
+        colorDisabled.setAll(false);
+        cullFrontFace = new CullState();
+        cullFrontFace.setEnabled(true);
+        cullFrontFace.setCullFace(CullState.Face.Front);
+        noLights = new LightState();
+        noLights.setEnabled(false);
+
+        discardShadowFragments = new BlendState();
+        discardShadowFragments.setEnabled(true);
+        discardShadowFragments.setBlendEnabled(true);
+        discardShadowFragments.setSourceFunction(BlendState.SourceFunction.SourceAlpha);
+        discardShadowFragments.setDestinationFunction(BlendState.DestinationFunction.OneMinusSourceAlpha);
+
+        brightLights = new LightState();
+        brightLights.setEnabled(true);
+        final DirectionalLight light = new DirectionalLight();
+        light.setDiffuse(new ColorRGBA(1, 1, 1, 1f));
+        light.setEnabled(true);
+        brightLights.attach(light);
+
+        darkMaterial = new MaterialState();
+        darkMaterial.setEnabled(true);
+        darkMaterial.setDiffuse(shadowCol);
+        darkMaterial.setAmbient(new ColorRGBA(0, 0, 0, 0f));
+        darkMaterial.setShininess(0);
+        darkMaterial.setSpecular(new ColorRGBA(0, 0, 0, 0));
+        darkMaterial.setEmissive(new ColorRGBA(0, 0, 0, 0));
+        darkMaterial.setMaterialFace(MaterialState.MaterialFace.Front);
+    }
+
+    private InputStream prefixStream(final String text, final InputStream in) {
+        try {
+            final ByteArrayOutputStream bout = new ByteArrayOutputStream();
+
+            final DataInputStream dataStream = new DataInputStream(in);
+            final byte shaderCode[] = new byte[in.available()];
+            dataStream.readFully(shaderCode);
+            in.close();
+            dataStream.close();
+
+            bout.write(text.getBytes());
+            bout.write(shaderCode);
+            bout.close();
+
+            return new ByteArrayInputStream(bout.toByteArray());
+        } catch (final IOException e) {
+            throw new RuntimeException("Failed to load shadow map shader:", e);
+        }
+    }
+
+    private InputStream getResource(final String ref) {
+        return Thread.currentThread().getContextClassLoader().getResourceAsStream(
+                "com/ardor3d/extension/shadow/map/" + ref);
+    }
+
+    /**
+     * @see com.ardor3d.renderer.pass.Pass#doRender(com.ardor3d.renderer.Renderer)
+     */
+    @Override
+    public void doRender(final Renderer r) {
+        if (occluderNodes.size() == 0) {
+            return;
+        }
+
+        init(r);
+        final Camera view = ContextManager.getCurrentContext().getCurrentCamera();
+        updateCascades(view);
+        updateShadowMaps(r);
+        renderShadowedScene(r, view);
+    }
+
+    /**
+     * Render the shadow map of every cascade
+     * 
+     * @param r
+     *            The renderer to being use to display this map
+     */
+    protected void updateShadowMaps(final Renderer r) {
+        saveEnforcedStates();
+        context.enforceState(noClip);
+        context.enforceState(noTexture);
+        context.enforceState(colorDisabled);
+        context.enforceState(cullFrontFace);
+        context.enforceState(noLights);
+
+        r.setPolygonOffset(0, 5);
+        final List<Texture> target = new ArrayList<Texture>(1);
+        for (int i = 0; i < getCascadeCount(); i++) {
+            final Camera light = lightCameras[i];
+            final Camera camera = shadowMapRenderers[i].getCamera();
+            camera.setParallelProjection(true);
+            camera.setFrustum(light.getFrustumNear(), light.getFrustumFar(), light.getFrustumLeft(), light
+                    .getFrustumRight(), light.getFrustumTop(), light.getFrustumBottom());
+            camera.setFrame(light.getLocation(), light.getLeft(), light.getUp(), light.getDirection());
+            camera.update();
+            updateTextureTransform(camera, shadowMapTextures[i]);
+
+            target.clear();
+            target.add(shadowMapTextures[i]);
+            shadowMapRenderers[i].render(cascadeOccluders.get(i), target, true);
+        }
+        r.clearPolygonOffset();
+        replaceEnforcedStates();
+    }
+
+    /**
+     * Render the scene with shadows, once per cascade
+     * 
+     * @param r
+     *            The renderer to use
+     * @param view
+     *            The camera the scene is viewed with
+     */
+    protected void renderShadowedScene(final Renderer r, final Camera view) {
+        saveEnforcedStates();
+        context.enforceState(discardShadowFragments);
+
+        Matrix4 inverseView = null;
+        if (context.getCapabilities().isGLSLSupported()) {
+            final ReadOnlyMatrix4 modelView = view.getModelViewMatrix();
+            inverseView = modelView.invert(null);
+        } else {
+            context.enforceState(brightLights);
+            context.enforceState(darkMaterial);
+        }
+
+        final ReadOnlyVector3 dir = view.getDirection();
+        final double start = dir.dot(view.getLocation());
+        r.setPolygonOffset(0, -5);
+        for (int i = 0; i < getCascadeCount(); i++) {
+            // keep distance along the view between the splits of this cascade
+            final ClipState clip = cascadeClips[i];
+            clip.setEnableClipPlane(ClipState.CLIP_PLANE0, true);
+            clip.setClipPlaneEquation(ClipState.CLIP_PLANE0, dir.getX(), dir.getY(), dir.getZ(), -start - splits[i]);
+            clip.setEnableClipPlane(ClipState.CLIP_PLANE1, true);
+            clip.setClipPlaneEquation(ClipState.CLIP_PLANE1, -dir.getX(), -dir.getY(), -dir.getZ(), start
+                    + splits[i + 1]);
+            context.enforceState(clip);
+            context.enforceState(shadowTextureStates[i]);
+            if (inverseView != null) {
+                shaders[i].setUniform("inverseView", inverseView, false);
+                context.enforceState(shaders[i]);
+            }
+
+            // draw the scene, only the shadowed bits will be drawn and blended
+            // with the shadow coloured geometry
+            for (final Spatial spat : spatials) {
+                spat.onDraw(r);
+            }
+            r.renderQueue();
+        }
+        r.clearPolygonOffset();
+
+        replaceEnforcedStates();
+    }
+
+    private void updateTextureTransform(final Camera camera, final Texture2D texture) {
+        final Matrix4 proj = new Matrix4();
+        final Matrix4 view = new Matrix4();
+        proj.set(camera.getProjectionMatrix());
+        view.set(camera.getModelViewMatrix());
+
+        final Matrix4 transform = Matrix4.fetchTempInstance().set(view.multiplyLocal(proj).multiplyLocal(biasMatrix))
+                .transposeLocal();
+        final Transform newTransform = Transform.fetchTempInstance().fromHomogeneousMatrix(transform);
+        texture.setTransform(newTransform);
+        Transform.releaseTempInstance(newTransform);
+        Matrix4.releaseTempInstance(transform);
+    }
+
+    /**
+     * saves any states enforced by the user for replacement at the end of the pass.
+     */
+    protected void saveEnforcedStates() {
+        preStates.clear();
+        for (final RenderState state : context.getEnforcedStates().values()) {
+            preStates.put(state.getType(), state);
+        }
+    }
+
+    /**
+     * replaces any states enforced by the user at the end of the pass.
+     */
+    protected void replaceEnforcedStates() {
+        for (final RenderState state : preStates.values()) {
+            context.enforceState(state);
+        }
+        preStates.clear();
+    }
+
+    /**
+     * @see com.ardor3d.renderer.pass.Pass#cleanUp()
+     */
+    @Override
+    public void cleanUp() {
+        super.cleanUp();
+
+        if (shadowMapRenderers != null) {
+            for (final TextureRenderer renderer : shadowMapRenderers) {
+                renderer.cleanup();
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+uniform mat4 inverseView;
+
+void main(void){
+    vec4 eyePosition = gl_ModelViewMatrix * gl_Vertex;
+    gl_TexCoord[0] = gl_TextureMatrix[0] * inverseView * eyePosition;
+    // needed for the clip planes keeping each cascade to its slice of the view
+    gl_ClipVertex = eyePosition;
+
+    gl_Position = ftransform();
+}
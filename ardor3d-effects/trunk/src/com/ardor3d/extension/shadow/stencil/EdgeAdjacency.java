@@ -0,0 +1,219 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.extension.shadow.stencil;
+
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import com.ardor3d.math.Vector3;
+import com.ardor3d.scenegraph.IndexBufferData;
+import com.ardor3d.scenegraph.MeshData;
+
+/**
+ * <code>EdgeAdjacency</code> holds the edges of the first section of a MeshData, each with the one or two triangles
+ * sharing it, along with the object space plane of every triangle. Vertices sharing a position are treated as one. It
+ * is built once per MeshData and shared by every Mesh using that data, so silhouettes can be found against a light
+ * moved into object space without transforming the mesh.
+ * <p>
+ * The planes are taken from the vertices at build time. If the vertices are changed in place, call
+ * {@link #rebuild(MeshData)}.
+ * </p>
+ */
+public class EdgeAdjacency {
+    private static final Map<MeshData, EdgeAdjacency> _cache = new WeakHashMap<MeshData, EdgeAdjacency>();
+
+    private final FloatBuffer _vertexSource;
+    private final IndexBufferData<?> _indexSource;
+    private final int _vertexCount;
+    private final int _triangleCount;
+
+    /** nx, ny, nz, d of each triangle. */
+    private final float[] _planes;
+
+    /**
+     * p0, p1, triangle, other triangle (or ShadowTriangle.INVALID_TRIANGLE) of each edge. p0 to p1 follows the winding
+     * of the first triangle.
+     */
+    private final int[] _edges;
+    private final int _edgeCount;
+
+    /**
+     * @param data
+     *            the mesh data to look up.
+     * @return the shared adjacency of the given mesh data, built now if missing or if its buffers or counts changed.
+     */
+    public static EdgeAdjacency get(final MeshData data) {
+        synchronized (_cache) {
+            final EdgeAdjacency adjacency = _cache.get(data);
+            if (adjacency != null && adjacency.matches(data)) {
+                return adjacency;
+            }
+        }
+        return rebuild(data);
+    }
+
+    /**
+     * Build the adjacency of the given mesh data again, eg. after its vertices were changed in place.
+     * 
+     * @param data
+     *            the mesh data to build from.
+     * @return the new adjacency, also shared through {@link #get(MeshData)} from now on.
+     */
+    public static EdgeAdjacency rebuild(final MeshData data) {
+        final EdgeAdjacency adjacency = new EdgeAdjacency(data);
+        synchronized (_cache) {
+            _cache.put(data, adjacency);
+        }
+        return adjacency;
+    }
+
+    private EdgeAdjacency(final MeshData data) {
+        _vertexSource = data.getVertexBuffer();
+        _indexSource = data.getIndices();
+        _vertexCount = data.getVertexCount();
+        if (_indexSource == null || _vertexSource == null) {
+            _triangleCount = 0;
+            _planes = new float[0];
+            _edges = new int[0];
+            _edgeCount = 0;
+            return;
+        }
+
+        // edges are matched by position, so seams in normals or texture coordinates do not split the mesh up.
+        final int[] welded = new int[_vertexCount];
+        final HashMap<Vector3, Integer> positions = new HashMap<Vector3, Integer>();
+        for (int v = 0; v < _vertexCount; v++) {
+            final Vector3 position = new Vector3(_vertexSource.get(v * 3), _vertexSource.get(v * 3 + 1), _vertexSource
+                    .get(v * 3 + 2));
+            final Integer first = positions.get(position);
+            if (first != null) {
+                welded[v] = first;
+            } else {
+                welded[v] = v;
+                positions.put(position, v);
+            }
+        }
+
+        _triangleCount = data.getPrimitiveCount(0);
+        _planes = new float[_triangleCount * 4];
+        final int[] edges = new int[_triangleCount * 3 * 4];
+        final HashMap<Long, Integer> open = new HashMap<Long, Integer>();
+        int edgeCount = 0;
+        for (int t = 0; t < _triangleCount; t++) {
+            final int i0 = welded[_indexSource.get(t * 3)];
+            final int i1 = welded[_indexSource.get(t * 3 + 1)];
+            final int i2 = welded[_indexSource.get(t * 3 + 2)];
+            computePlane(t, i0, i1, i2);
+            for (int k = 0; k < 3; k++) {
+                final int a = k == 0 ? i0 : k == 1 ? i1 : i2;
+                final int b = k == 0 ? i1 : k == 1 ? i2 : i0;
+                final Long key = Long.valueOf(Math.min(a, b) * (long) _vertexCount + Math.max(a, b));
+                final Integer existing = open.get(key);
+                if (existing != null && edges[existing * 4 + 3] == ShadowTriangle.INVALID_TRIANGLE) {
+                    edges[existing * 4 + 3] = t;
+                    continue;
+                }
+                // first use of this edge, or one more triangle on an edge already shared by two.
+                edges[edgeCount * 4] = a;
+                edges[edgeCount * 4 + 1] = b;
+                edges[edgeCount * 4 + 2] = t;
+                edges[edgeCount * 4 + 3] = ShadowTriangle.INVALID_TRIANGLE;
+                open.put(key, edgeCount++);
+            }
+        }
+        _edges = edges;
+        _edgeCount = edgeCount;
+    }
+
+    private void computePlane(final int t, final int i0, final int i1, final int i2) {
+        final FloatBuffer v = _vertexSource;
+        final double ax = v.get(i0 * 3), ay = v.get(i0 * 3 + 1), az = v.get(i0 * 3 + 2);
+        final double e1x = v.get(i1 * 3) - ax, e1y = v.get(i1 * 3 + 1) - ay, e1z = v.get(i1 * 3 + 2) - az;
+        final double e2x = v.get(i2 * 3) - ax, e2y = v.get(i2 * 3 + 1) - ay, e2z = v.get(i2 * 3 + 2) - az;
+        final double nx = e1y * e2z - e1z * e2y, ny = e1z * e2x - e1x * e2z, nz = e1x * e2y - e1y * e2x;
+        _planes[t * 4] = (float) nx;
+        _planes[t * 4 + 1] = (float) ny;
+        _planes[t * 4 + 2] = (float) nz;
+        _planes[t * 4 + 3] = (float) -(nx * ax + ny * ay + nz * az);
+    }
+
+    private boolean matches(final MeshData data) {
+        return data.getVertexBuffer() == _vertexSource && data.getIndices() == _indexSource
+                && data.getVertexCount() == _vertexCount
+                && (_indexSource == null || data.getPrimitiveCount(0) == _triangleCount);
+    }
+
+    public int getTriangleCount() {
+        return _triangleCount;
+    }
+
+    public int getEdgeCount() {
+        return _edgeCount;
+    }
+
+    /**
+     * Find the edges between triangles facing the light and triangles facing away from it (or no triangle at all).
+     * 
+     * @param x
+     *            the object space light direction (directional) or location (point) x
+     * @param y
+     *            y of the light direction or location
+     * @param z
+     *            z of the light direction or location
+     * @param directional
+     *            true if x, y, z is a direction the light shines in, false if it is the location of the light.
+     * @param mirrored
+     *            true if the mesh is drawn with a transform that flips the winding, eg. a negative scale.
+     * @param facing
+     *            scratch space of at least {@link #getTriangleCount()} flags.
+     * @param store
+     *            receives the two vertex indices of each silhouette edge, in the winding of its lit triangle. Must
+     *            hold at least 2 * {@link #getEdgeCount()} values.
+     * @return the number of silhouette edges written to store.
+     */
+    public int findSilhouette(final double x, final double y, final double z, final boolean directional,
+            final boolean mirrored, final boolean[] facing, final int[] store) {
+        final float[] planes = _planes;
+        for (int t = 0; t < _triangleCount; t++) {
+            final int p = t * 4;
+            final double side;
+            if (directional) {
+                side = -(planes[p] * x + planes[p + 1] * y + planes[p + 2] * z);
+            } else {
+                side = planes[p] * x + planes[p + 1] * y + planes[p + 2] * z + planes[p + 3];
+            }
+            facing[t] = mirrored ? side <= 0 : side >= 0;
+        }
+
+        final int[] edges = _edges;
+        int count = 0;
+        for (int e = 0; e < _edgeCount; e++) {
+            final int i = e * 4;
+            final boolean first = facing[edges[i + 2]];
+            final int other = edges[i + 3];
+            if (other == ShadowTriangle.INVALID_TRIANGLE) {
+                if (first) {
+                    store[count * 2] = edges[i];
+                    store[count * 2 + 1] = edges[i + 1];
+                    count++;
+                }
+            } else if (first != facing[other]) {
+                // keep the winding of whichever triangle is lit.
+                store[count * 2] = first ? edges[i] : edges[i + 1];
+                store[count * 2 + 1] = first ? edges[i + 1] : edges[i];
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -11,9 +11,7 @@
 package com.ardor3d.extension.shadow.stencil;
 
 import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.List;
 
 import com.ardor3d.light.DirectionalLight;
@@ -21,11 +19,15 @@ import com.ardor3d.light.Light;
 import com.ardor3d.light.PointLight;
 import com.ardor3d.math.Matrix3;
 import com.ardor3d.math.Plane;
+import com.ardor3d.math.Transform;
 import com.ardor3d.math.Vector3;
 import com.ardor3d.math.type.ReadOnlyMatrix3;
+import com.ardor3d.math.type.ReadOnlyTransform;
 import com.ardor3d.math.type.ReadOnlyVector3;
 import com.ardor3d.renderer.state.LightState;
+import com.ardor3d.scenegraph.IndexBufferData;
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.Spatial;
 import com.ardor3d.util.geom.BufferUtils;
 
@@ -38,11 +40,14 @@ public class MeshShadows {
     /** the distance to which shadow volumes will be projected */
     protected float projectionLength = 1000;
 
-    /** The triangles of our occluding mesh (one per triangle in the mesh) */
-    protected List<ShadowTriangle> faces;
+    /** The shared edges and face planes of our target's mesh data */
+    protected EdgeAdjacency adjacency;
 
-    /** A bitset used for storing directional flags. */
-    protected BitSet facing;
+    /** Per triangle flags, true if the triangle faces the light being processed. */
+    protected boolean[] facing = new boolean[0];
+
+    /** Vertex index pairs of the silhouette edges of the light being processed. */
+    protected int[] silhouette = new int[0];
 
     /** The mesh that is the target of this shadow volume */
     protected Mesh target = null;
@@ -59,9 +64,13 @@ public class MeshShadows {
     /** The world scale of the trimesh at the last mesh construction */
     protected Vector3 oldWorldScale = new Vector3();
 
-    private int maxIndex;
+    /** Volumes rebuilt by buildGeometry whose model bound has not been updated yet. */
+    private final List<ShadowVolume> rebuilt = new ArrayList<ShadowVolume>();
 
-    private int vertCount;
+    private final Transform inverseWorld = new Transform();
+    private final Vector3 lightVector = new Vector3();
+    private final Vector3 edgeStart = new Vector3();
+    private final Vector3 edgeEnd = new Vector3();
 
     public static long throttle = 1000 / 50; // 50 x a sec
     private long lastTime;
@@ -90,13 +99,23 @@ public class MeshShadows {
      * @param factory
      */
     public void createGeometry(final LightState lightState) {
-        if (target.getMeshData().getPrimitiveCount(0) != maxIndex || target.getMeshData().getVertexCount() != vertCount) {
+        buildGeometry(lightState);
+        updateBounds();
+    }
+
+    /**
+     * Same as {@link #createGeometry(LightState)}, except that the model bounds of rebuilt volumes are left for
+     * {@link #updateBounds()}. Bound computation uses the shared math temp pools, so only this part may run on a worker
+     * thread.
+     * 
+     * @param lightState
+     *            is the current lighting state
+     */
+    void buildGeometry(final LightState lightState) {
+        if (adjacency == null || adjacency != EdgeAdjacency.get(target.getMeshData())) {
             recreateFaces();
         }
 
-        // Holds a copy of the mesh vertices transformed to world coordinates
-        FloatBuffer vertex = null;
-
         // Ensure that we have some potential lights to cast shadows!
         if (lightState.getNumberOfChildren() != 0) {
             final LightState lights = lightState;
@@ -138,39 +157,34 @@ public class MeshShadows {
 
                     lv.setCullHint(Spatial.CullHint.Dynamic);
 
-                    // Translate the vertex information from the mesh to
-                    // world
-                    // coordinates if
-                    // we are going to do any work
-                    if (vertex == null) {
-                        vertex = target.getWorldVectors(null);
+                    // Find the silhouette against the light moved into the space of the mesh, so only the silhouette
+                    // vertices need to be transformed to world coordinates.
+                    final boolean directional = light.getType() == Light.Type.Directional;
+                    final ReadOnlyTransform world = target.getWorldTransform();
+                    // applyInverse may borrow from the temp pools, the inverse transform does not.
+                    world.invert(inverseWorld);
+                    if (directional) {
+                        inverseWorld.applyForwardVector(((DirectionalLight) light).getDirection(), lightVector);
+                    } else {
+                        inverseWorld.applyForward(((PointLight) light).getLocation(), lightVector);
                     }
+                    final int length = adjacency.findSilhouette(lightVector.getX(), lightVector.getY(), lightVector
+                            .getZ(), directional, isMirrored(world), facing, silhouette);
 
-                    // Find out which triangles are facing the light
-                    // triangle will be set true for faces towards the light
-                    processFaces(vertex, light, target);
-
-                    // Get the edges that are in shadow
-                    final ShadowEdge[] edges = getShadowEdges();
-
-                    // Now we need to develop a mesh based on projecting
-                    // these
-                    // edges
-                    // to infinity in the direction of the light
-                    final int length = edges.length;
-
-                    // Create arrays to hold the shadow mesh
+                    // Reuse the buffers of the volume, growing them with some slack.
+                    final int capacity = length + length / 2;
                     FloatBuffer shadowVertex = lv.getMeshData().getVertexBuffer();
                     if (shadowVertex == null || shadowVertex.capacity() < length * 12) {
-                        shadowVertex = BufferUtils.createVector3Buffer(length * 4);
+                        shadowVertex = BufferUtils.createVector3Buffer(capacity * 4);
                     }
                     FloatBuffer shadowNormal = lv.getMeshData().getNormalBuffer();
                     if (shadowNormal == null || shadowNormal.capacity() < length * 12) {
-                        shadowNormal = BufferUtils.createVector3Buffer(length * 4);
+                        shadowNormal = BufferUtils.createVector3Buffer(capacity * 4);
                     }
-                    IntBuffer shadowIndex = lv.getMeshData().getIndexBuffer();
-                    if (shadowIndex == null || shadowIndex.capacity() < length * 6) {
-                        shadowIndex = BufferUtils.createIntBuffer(length * 6);
+                    IndexBufferData<?> shadowIndex = lv.getMeshData().getIndices();
+                    if (shadowIndex == null || shadowIndex.capacity() < length * 6
+                            || shadowIndex.getMaxIndex() < length * 4 - 1) {
+                        shadowIndex = BufferUtils.createIndexBufferData(capacity * 6, capacity * 4 - 1);
                     }
 
                     shadowVertex.limit(length * 12);
@@ -178,14 +192,14 @@ public class MeshShadows {
                     shadowIndex.limit(length * 6);
 
                     // Create quads out of the edge vertices
-                    createShadowQuads(vertex, edges, shadowVertex, shadowNormal, shadowIndex, light);
+                    createShadowQuads(world, length, shadowVertex, shadowNormal, shadowIndex, light);
 
                     // Rebuild the Mesh
                     lv.reconstruct(shadowVertex, shadowNormal, null, null);
-                    lv.getMeshData().setIndexBuffer(shadowIndex);
+                    lv.getMeshData().setIndices(shadowIndex);
                     shadowVertex.rewind();
                     shadowIndex.rewind();
-                    lv.updateModelBound();
+                    rebuilt.add(lv);
                 }
 
             }
@@ -198,69 +212,117 @@ public class MeshShadows {
     }
 
     /**
-     * void <code>createShadowQuad</code> Creates projected quads from a series of edges and vertices and stores them in
-     * the output shadowXXXX arrays
+     * Update the model bounds of the volumes rebuilt by {@link #buildGeometry(LightState)} since the last call. Must be
+     * called from the rendering thread.
+     */
+    void updateBounds() {
+        for (int i = 0, max = rebuilt.size(); i < max; i++) {
+            rebuilt.get(i).updateModelBound();
+        }
+        rebuilt.clear();
+    }
+
+    /**
+     * @return true if the given transform turns triangles inside out, eg. by a negative scale.
+     */
+    private boolean isMirrored(final ReadOnlyTransform world) {
+        final Vector3 x = world.applyForwardVector(Vector3.UNIT_X, edgeStart);
+        final Vector3 y = world.applyForwardVector(Vector3.UNIT_Y, edgeEnd);
+        final double crossX = x.getY() * y.getZ() - x.getZ() * y.getY();
+        final double crossY = x.getZ() * y.getX() - x.getX() * y.getZ();
+        final double crossZ = x.getX() * y.getY() - x.getY() * y.getX();
+        final Vector3 z = world.applyForwardVector(Vector3.UNIT_Z, lightVector.zero());
+        return crossX * z.getX() + crossY * z.getY() + crossZ * z.getZ() < 0;
+    }
+
+    /**
+     * void <code>createShadowQuad</code> Creates projected quads from the silhouette edges found for a light and stores
+     * them in the output shadowXXXX arrays
      * 
-     * @param vertex
-     *            array of world coordinate vertices for the target Mesh
+     * @param world
+     *            the world transform of the target Mesh
      * @param edges
-     *            a collection of edges that will be projected
+     *            the number of silhouette edges to project
      * @param shadowVertex
      * @param shadowNormal
      * @param shadowIndex
      * @param light
      *            light casting shadow
      */
-    private void createShadowQuads(final FloatBuffer vertex, final ShadowEdge[] edges, final FloatBuffer shadowVertex,
-            final FloatBuffer shadowNormal, final IntBuffer shadowIndex, final Light light) {
-        final Vector3 p0 = new Vector3();
-        Vector3 p1 = new Vector3(), p2 = new Vector3();
-        final Vector3 p3 = new Vector3();
+    private void createShadowQuads(final ReadOnlyTransform world, final int edges, final FloatBuffer shadowVertex,
+            final FloatBuffer shadowNormal, final IndexBufferData<?> shadowIndex, final Light light) {
+        final FloatBuffer vertex = target.getMeshData().getVertexBuffer();
 
         // Setup a flag to indicate which type of light this is
         final boolean directional = (light.getType() == Light.Type.Directional);
 
-        final Vector3 direction = new Vector3();
-        final Vector3 location = new Vector3();
+        double dx = 0, dy = 0, dz = 0, lx = 0, ly = 0, lz = 0;
         if (directional) {
-            direction.set(((DirectionalLight) light).getDirection());
+            final ReadOnlyVector3 direction = ((DirectionalLight) light).getDirection();
+            dx = direction.getX();
+            dy = direction.getY();
+            dz = direction.getZ();
         } else {
-            location.set(((PointLight) light).getLocation());
+            final ReadOnlyVector3 location = ((PointLight) light).getLocation();
+            lx = location.getX();
+            ly = location.getY();
+            lz = location.getZ();
         }
 
         // Loop for each edge
-        for (int e = 0; e < edges.length; e++) {
-            // get the two known vertices
-            BufferUtils.populateFromBuffer(p0, vertex, edges[e].p0);
-            BufferUtils.populateFromBuffer(p3, vertex, edges[e].p1);
-
-            // Calculate the projection of p0
+        for (int e = 0; e < edges; e++) {
+            // get the two known vertices in world coordinates
+            BufferUtils.populateFromBuffer(edgeStart, vertex, silhouette[e * 2]);
+            BufferUtils.populateFromBuffer(edgeEnd, vertex, silhouette[e * 2 + 1]);
+            world.applyForward(edgeStart);
+            world.applyForward(edgeEnd);
+            final double p0x = edgeStart.getX(), p0y = edgeStart.getY(), p0z = edgeStart.getZ();
+            final double p3x = edgeEnd.getX(), p3y = edgeEnd.getY(), p3z = edgeEnd.getZ();
+
+            // Project both vertices to infinity, away from the light
             if (!directional) {
-                p0.subtract(location, direction).normalizeLocal();
+                final double invLength = 1.0 / Math.sqrt((p0x - lx) * (p0x - lx) + (p0y - ly) * (p0y - ly)
+                        + (p0z - lz) * (p0z - lz));
+                dx = (p0x - lx) * invLength;
+                dy = (p0y - ly) * invLength;
+                dz = (p0z - lz) * invLength;
             }
-            // Project the other edges to infinity
-            p1 = direction.multiply(projectionLength, p1).addLocal(p0);
+            final float p1x = (float) (p0x + dx * projectionLength);
+            final float p1y = (float) (p0y + dy * projectionLength);
+            final float p1z = (float) (p0z + dz * projectionLength);
             if (!directional) {
-                p3.subtract(location, direction).normalizeLocal();
+                final double invLength = 1.0 / Math.sqrt((p3x - lx) * (p3x - lx) + (p3y - ly) * (p3y - ly)
+                        + (p3z - lz) * (p3z - lz));
+                dx = (p3x - lx) * invLength;
+                dy = (p3y - ly) * invLength;
+                dz = (p3z - lz) * invLength;
             }
-            p2 = direction.multiply(projectionLength, p2).addLocal(p3);
+            final float p2x = (float) (p3x + dx * projectionLength);
+            final float p2y = (float) (p3y + dy * projectionLength);
+            final float p2z = (float) (p3z + dz * projectionLength);
 
             // Now we need to add a quad to the model
             final int vertexOffset = e * 4;
-            BufferUtils.setInBuffer(p0, shadowVertex, vertexOffset);
-            BufferUtils.setInBuffer(p1, shadowVertex, vertexOffset + 1);
-            BufferUtils.setInBuffer(p2, shadowVertex, vertexOffset + 2);
-            BufferUtils.setInBuffer(p3, shadowVertex, vertexOffset + 3);
+            shadowVertex.position(vertexOffset * 3);
+            shadowVertex.put((float) p0x).put((float) p0y).put((float) p0z);
+            shadowVertex.put(p1x).put(p1y).put(p1z);
+            shadowVertex.put(p2x).put(p2y).put(p2z);
+            shadowVertex.put((float) p3x).put((float) p3y).put((float) p3z);
 
             // Calculate the normal
-            final Vector3 n = p1.subtract(p0, Vector3.fetchTempInstance()).normalizeLocal();
-            final Vector3 nDiff = p3.subtract(p0, Vector3.fetchTempInstance()).normalizeLocal();
-
-            n.crossLocal(nDiff).normalizeLocal();
-            BufferUtils.setInBuffer(n, shadowNormal, vertexOffset);
-            BufferUtils.setInBuffer(n, shadowNormal, vertexOffset + 1);
-            BufferUtils.setInBuffer(n, shadowNormal, vertexOffset + 2);
-            BufferUtils.setInBuffer(n, shadowNormal, vertexOffset + 3);
+            final double ax = p1x - p0x, ay = p1y - p0y, az = p1z - p0z;
+            final double bx = p3x - p0x, by = p3y - p0y, bz = p3z - p0z;
+            double nx = ay * bz - az * by, ny = az * bx - ax * bz, nz = ax * by - ay * bx;
+            final double length = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (length > 0) {
+                nx /= length;
+                ny /= length;
+                nz /= length;
+            }
+            shadowNormal.position(vertexOffset * 3);
+            for (int i = 0; i < 4; i++) {
+                shadowNormal.put((float) nx).put((float) ny).put((float) nz);
+            }
 
             // Add the indices
             final int indexOffset = e * 6;
@@ -271,6 +333,8 @@ public class MeshShadows {
             shadowIndex.put(indexOffset + 4, vertexOffset + 1);
             shadowIndex.put(indexOffset + 5, vertexOffset + 2);
         }
+        shadowVertex.rewind();
+        shadowNormal.rewind();
     }
 
     // Get the intersection of a line segment and a plane in terms of t>=0 t<=1
@@ -289,98 +353,6 @@ public class MeshShadows {
 
     }
 
-    /**
-     * <code>getShadowEdges</code>
-     * 
-     * @return an array of the edges which are in shadow
-     */
-    private ShadowEdge[] getShadowEdges() {
-        // Create a dynamic structure to contain the vertices
-        final List<ShadowEdge> shadowEdges = new ArrayList<ShadowEdge>();
-        // Now work through the faces
-        for (int t = 0; t < maxIndex; t++) {
-            // Check whether this is a front facing triangle
-            if (facing.get(t)) {
-                final ShadowTriangle tri = faces.get(t);
-                // If it is then check if any of the edges are connected to a
-                // back facing triangle or are unconnected
-                checkAndAdd(tri.edge1, shadowEdges);
-                checkAndAdd(tri.edge2, shadowEdges);
-                checkAndAdd(tri.edge3, shadowEdges);
-            }
-        }
-        return shadowEdges.toArray(new ShadowEdge[0]);
-    }
-
-    private void checkAndAdd(final ShadowEdge edge, final List<ShadowEdge> shadowEdges) {
-        // Is the edge connected
-        if (edge.triangle == ShadowTriangle.INVALID_TRIANGLE) {
-            // if not then add the edge
-            shadowEdges.add(edge);
-
-        }
-        // check if the connected triangle is back facing
-        else if (!facing.get(edge.triangle)) {
-            // if it is then add the edge
-            shadowEdges.add(edge);
-
-        }
-    }
-
-    /**
-     * <code>processFaces</code> Determines whether faces of a Mesh face the light
-     * 
-     * @param triangle
-     *            an array of boolean values that will indicate whether a triangle is front or back facing
-     * @param light
-     *            the light to use
-     * @param target
-     *            the Mesh that will be shadowed and holds the triangles for testing
-     */
-    private void processFaces(final FloatBuffer vertex, final Light light, final Mesh target) {
-        if (target.getMeshData().getIndexBuffer() == null) {
-            return;
-        }
-
-        final Vector3 v0 = Vector3.fetchTempInstance();
-        final Vector3 v1 = Vector3.fetchTempInstance();
-        final Vector3 compVect = Vector3.fetchTempInstance();
-        final Vector3 compVect2 = Vector3.fetchTempInstance();
-        final boolean directional = light.getType() == Light.Type.Directional;
-        final Vector3 vLight = Vector3.fetchTempInstance();
-        final int[] index = BufferUtils.getIntArray(target.getMeshData().getIndexBuffer());
-
-        if (directional) {
-            vLight.set(((DirectionalLight) light).getDirection());
-        }
-
-        // Loop through each triangle and see if it is back or front facing
-        for (int t = 0, tri = 0; t < index.length; tri++, t += 3) {
-            // Calculate a normal to the plane
-            BufferUtils.populateFromBuffer(compVect, vertex, index[t]);
-            BufferUtils.populateFromBuffer(v0, vertex, index[t + 1]);
-            BufferUtils.populateFromBuffer(v1, vertex, index[t + 2]);
-            v1.subtractLocal(v0).normalizeLocal();
-            v0.subtractLocal(compVect).normalizeLocal();
-            final Vector3 n = v1.cross(v0, compVect2);
-
-            // Some kind of bodge for a direction to a point light -
-            // TODO: improve this
-            if (!directional) {
-                vLight.set(((PointLight) light).getLocation());
-                compVect.subtract(vLight, vLight).normalizeLocal();
-            }
-            // See if it is back facing
-            facing.set(tri, (n.dot(vLight) >= 0));
-        }
-
-        Vector3.releaseTempInstance(v0);
-        Vector3.releaseTempInstance(v1);
-        Vector3.releaseTempInstance(compVect);
-        Vector3.releaseTempInstance(compVect2);
-        Vector3.releaseTempInstance(vLight);
-    }
-
     /**
      * <code>updateCache</code> Updates the cache to show which models need rebuilding
      * 
@@ -463,62 +435,20 @@ public class MeshShadows {
         return same;
     }
 
-    // Checks whether two edges are connected and sets triangle field if they
-    // are.
-    private void edgeConnected(final int face, final IntBuffer index, final int index1, final int index2,
-            final ShadowEdge edge) {
-        edge.p0 = index1;
-        edge.p1 = index2;
-
-        index.rewind();
-
-        for (int t = 0; t < maxIndex; t++) {
-            if (t != face) {
-                final int offset = t * 3;
-                final int t0 = index.get(offset), t1 = index.get(offset + 1), t2 = index.get(offset + 2);
-                if ((t0 == index1 && t1 == index2) || (t1 == index1 && t2 == index2) || (t2 == index1 && t0 == index2)
-                        || (t0 == index2 && t1 == index1) || (t1 == index2 && t2 == index1)
-                        || (t2 == index2 && t0 == index1)) {
-                    // Edges are connected
-                    edge.triangle = t;
-                    return;
-                }
-            }
-        }
-    }
-
     /**
-     * <code>recreateFaces</code> creates a triangle array for every triangle in the target occluder mesh and stores it
-     * in the faces field. This is only done rarely in general.
+     * <code>recreateFaces</code> looks up the shared edge adjacency of the target occluder mesh data, building it if
+     * needed. This is only done rarely in general, but should be called if the vertices of the mesh were changed in
+     * place.
      */
     public void recreateFaces() {
-        // make a copy of the original indices
-        maxIndex = 0;
-        facing = new BitSet();
-        final IntBuffer index = BufferUtils.clone(target.getMeshData().getIndexBuffer());
-        if (index == null) {
-            return;
+        final MeshData data = target.getMeshData();
+        adjacency = adjacency != null && adjacency == EdgeAdjacency.get(data) ? EdgeAdjacency.rebuild(data)
+                : EdgeAdjacency.get(data);
+        if (facing.length < adjacency.getTriangleCount()) {
+            facing = new boolean[adjacency.getTriangleCount()];
         }
-        index.clear();
-
-        // Create a ShadowTriangle object for each face
-        faces = new ArrayList<ShadowTriangle>();
-
-        maxIndex = index.capacity() / 3;
-        vertCount = target.getMeshData().getVertexCount();
-
-        // Create a bitset for holding direction flags
-        facing = new BitSet(maxIndex);
-
-        // Loop through all of the triangles
-        for (int t = 0; t < maxIndex; t++) {
-            final ShadowTriangle tri = new ShadowTriangle();
-            faces.add(tri);
-            final int offset = t * 3;
-            final int t0 = index.get(offset), t1 = index.get(offset + 1), t2 = index.get(offset + 2);
-            edgeConnected(t, index, t0, t1, tri.edge1);
-            edgeConnected(t, index, t1, t2, tri.edge2);
-            edgeConnected(t, index, t2, t0, tri.edge3);
+        if (silhouette.length < adjacency.getEdgeCount() * 2) {
+            silhouette = new int[adjacency.getEdgeCount() * 2];
         }
     }
 
@@ -14,6 +14,11 @@ import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import com.ardor3d.light.Light;
 import com.ardor3d.math.ColorRGBA;
@@ -115,6 +120,17 @@ public class ShadowedRenderPass extends Pass {
 
     private ShadowGate shadowGate = new DefaultShadowGate();
 
+    /** the number of threads, including the rendering thread, shadow volumes are generated on. */
+    protected int volumeThreads = Runtime.getRuntime().availableProcessors();
+
+    /** the least number of occluders handed to each of those threads. */
+    protected int minOccludersPerThread = 4;
+
+    private transient ExecutorService volumeExecutor;
+
+    private final List<MeshShadows> volumeUpdates = new ArrayList<MeshShadows>();
+    private final List<LightState> volumeUpdateStates = new ArrayList<LightState>();
+
     public static boolean rTexture = true;
 
     protected ZBufferState zbufferWriteLE;
@@ -645,7 +661,10 @@ public class ShadowedRenderPass extends Pass {
     }
 
     protected void generateVolumes() {
-
+        // the gate and our mesh map are only touched here, the volumes of separate occluders are then built in
+        // parallel.
+        volumeUpdates.clear();
+        volumeUpdateStates.clear();
         for (int c = 0; c < occluderMeshes.size(); c++) {
             final Mesh mesh = occluderMeshes.get(c);
             if (!shadowGate.shouldUpdateShadows(mesh)) {
@@ -660,9 +679,101 @@ public class ShadowedRenderPass extends Pass {
             // Create the geometry for the shadow volume
             final LightState state = (LightState) mesh._getWorldRenderState(RenderState.StateType.Light);
             if (state != null) {
-                sv.createGeometry(state);
+                volumeUpdates.add(sv);
+                volumeUpdateStates.add(state);
+            }
+        }
+
+        final int count = volumeUpdates.size();
+        final int batches = Math.min(volumeThreads, count / Math.max(1, minOccludersPerThread));
+        if (batches <= 1) {
+            createGeometry(0, count);
+            updateBounds(count);
+            return;
+        }
+
+        // hand all but the first batch to the workers, do the rest here.
+        final int batchSize = (count + batches - 1) / batches;
+        final List<Future<?>> futures = new ArrayList<Future<?>>(batches - 1);
+        for (int start = batchSize; start < count; start += batchSize) {
+            final int from = start, to = Math.min(count, start + batchSize);
+            futures.add(getVolumeExecutor().submit(new Runnable() {
+                public void run() {
+                    createGeometry(from, to);
+                }
+            }));
+        }
+        createGeometry(0, batchSize);
+
+        for (final Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final ExecutionException e) {
+                throw new RuntimeException("Shadow volume generation failed.", e.getCause());
             }
         }
+        updateBounds(count);
+    }
+
+    private void createGeometry(final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            volumeUpdates.get(i).buildGeometry(volumeUpdateStates.get(i));
+        }
+    }
+
+    /**
+     * Bounds are computed here, on the rendering thread, as the bounding volumes use the shared math temp pools.
+     */
+    private void updateBounds(final int count) {
+        for (int i = 0; i < count; i++) {
+            volumeUpdates.get(i).updateBounds();
+        }
+    }
+
+    private ExecutorService getVolumeExecutor() {
+        if (volumeExecutor == null) {
+            volumeExecutor = Executors.newFixedThreadPool(volumeThreads - 1, new ThreadFactory() {
+                public Thread newThread(final Runnable r) {
+                    final Thread thread = new Thread(r, "ShadowedRenderPass worker");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return volumeExecutor;
+    }
+
+    /**
+     * @return the number of threads, including the rendering thread, shadow volumes are generated on.
+     */
+    public int getVolumeThreads() {
+        return volumeThreads;
+    }
+
+    /**
+     * @param threads
+     *            the number of threads, including the rendering thread, shadow volumes of separate occluders are
+     *            generated on. 1 generates them all on the rendering thread.
+     */
+    public void setVolumeThreads(final int threads) {
+        if (threads != volumeThreads) {
+            cleanUp();
+        }
+        volumeThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Shut down the threads used to generate shadow volumes. They are recreated if this pass is rendered again.
+     */
+    @Override
+    public void cleanUp() {
+        if (volumeExecutor != null) {
+            volumeExecutor.shutdown();
+            volumeExecutor = null;
+        }
     }
 
     /**
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.example.basic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.math.Matrix3;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.scenegraph.Controller;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.Spatial;
+import com.ardor3d.scenegraph.shape.Box;
+
+/**
+ * A headless benchmark of Spatial.updateGeometricState on a mostly static graph of about 500k spatials: 500 groups of
+ * 1000 meshes sharing one box's mesh data. One group in a hundred carries a spinning controller, and up to a few
+ * hundred meshes are moved before each update. The same graph is then updated with every spatial flagged always
+ * updated, which visits the whole tree as updates did before clean branches were skipped. Run with a large heap, e.g.
+ * -Xmx2g.
+ */
+public class SceneUpdateBenchmark {
+
+    private static final int GROUPS = 500;
+    private static final int MESHES_PER_GROUP = 1000;
+    private static final int ANIMATED_GROUP_STRIDE = 100;
+    private static final int[] MOVED_PER_UPDATE = { 0, 25, 250 };
+    private static final int WARMUP_UPDATES = 20;
+    private static final int MEASURED_UPDATES = 100;
+
+    public static void main(final String[] args) {
+        final List<Spatial> all = new ArrayList<Spatial>();
+        final Node root = buildScene(all);
+        System.out.println("spatials\tmoved/update\tmode\tms/update");
+        for (final int moved : MOVED_PER_UPDATE) {
+            report(root, all, moved, "pruned");
+        }
+        for (final Spatial spatial : all) {
+            spatial.setAlwaysUpdated(true);
+        }
+        for (final int moved : MOVED_PER_UPDATE) {
+            report(root, all, moved, "full");
+        }
+    }
+
+    private static void report(final Node root, final List<Spatial> all, final int moved, final String mode) {
+        int next = 0;
+        for (int i = 0; i < WARMUP_UPDATES; i++) {
+            next = moveSome(all, next, moved);
+            root.updateGeometricState(0.01);
+        }
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_UPDATES; i++) {
+            next = moveSome(all, next, moved);
+            root.updateGeometricState(0.01);
+        }
+        final double ms = (System.nanoTime() - start) / 1e6 / MEASURED_UPDATES;
+        System.out.println(all.size() + "\t" + moved + "\t" + mode + "\t" + String.format("%.3f", ms));
+    }
+
+    private static int moveSome(final List<Spatial> all, int next, final int moved) {
+        // step through the graph with a stride that spreads the moves over many groups.
+        for (int i = 0; i < moved; i++) {
+            next = (next + 7919) % all.size();
+            final Spatial spatial = all.get(next);
+            spatial.setTranslation(spatial.getTranslation().getX(), (i & 1) * 0.1, spatial.getTranslation().getZ());
+        }
+        return next;
+    }
+
+    private static Node buildScene(final List<Spatial> all) {
+        final Box shape = new Box("shape", new Vector3(), 0.5, 0.5, 0.5);
+        final Node root = new Node("root");
+        for (int g = 0; g < GROUPS; g++) {
+            final Node group = new Node("group" + g);
+            group.setTranslation(g % 25 * 40, 0, g / 25 * 40);
+            for (int m = 0; m < MESHES_PER_GROUP; m++) {
+                final Mesh mesh = new Mesh("mesh" + m);
+                mesh.setMeshData(shape.getMeshData());
+                mesh.setModelBound(new BoundingBox());
+                mesh.setTranslation(m % 32, 0, m / 32);
+                group.attachChild(mesh);
+                all.add(mesh);
+            }
+            if (g % ANIMATED_GROUP_STRIDE == 0) {
+                group.addController(new Controller() {
+                    private static final long serialVersionUID = 1L;
+
+                    private double _angle;
+
+                    @Override
+                    public void update(final double time) {
+                        _angle += time;
+                        group.setRotation(new Matrix3().fromAngleAxis(_angle, Vector3.UNIT_Y));
+                    }
+                });
+            }
+            root.attachChild(group);
+            all.add(group);
+        }
+        root.updateGeometricState(0);
+        return root;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.example.effect;
+
+import com.ardor3d.extension.effect.particle.ParticleFactory;
+import com.ardor3d.extension.effect.particle.ParticleSystem;
+import com.ardor3d.extension.effect.particle.SimpleParticleInfluenceFactory;
+import com.ardor3d.extension.effect.particle.SwarmInfluence;
+import com.ardor3d.extension.effect.particle.WanderInfluence;
+import com.ardor3d.extension.effect.particle.ParticleSystem.ParticleStorage;
+import com.ardor3d.math.MathUtils;
+import com.ardor3d.math.Vector3;
+
+/**
+ * A headless micro benchmark comparing particle updates with the per particle influence path (ParticleStorage.Objects)
+ * against the batch influence path (ParticleStorage.Arrays), at 10k, 100k and 1M particles. No window or GL context is
+ * needed. Run with a large heap, e.g. -Xmx2g, for the 1M particle case.
+ */
+public class ParticleInfluenceBenchmark {
+
+    private static final int[] SIZES = { 10000, 100000, 1000000 };
+    private static final int WARMUP_UPDATES = 20;
+    private static final int MEASURED_UPDATES = 50;
+
+    public static void main(final String[] args) {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        System.out.println("particles\tstorage\tthreads\tms/update");
+        for (final int size : SIZES) {
+            report(size, ParticleStorage.Objects, 1);
+            report(size, ParticleStorage.Arrays, 1);
+            if (threads > 1) {
+                report(size, ParticleStorage.Arrays, threads);
+            }
+        }
+    }
+
+    private static void report(final int size, final ParticleStorage storage, final int threads) {
+        final ParticleSystem particles = buildSystem(size, storage, threads);
+        for (int i = 0; i < WARMUP_UPDATES; i++) {
+            particles.getParticleController().update(0.02);
+        }
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_UPDATES; i++) {
+            particles.getParticleController().update(0.02);
+        }
+        final double ms = (System.nanoTime() - start) / 1e6 / MEASURED_UPDATES;
+        System.out.println(size + "\t" + storage + "\t" + threads + "\t" + String.format("%.3f", ms));
+    }
+
+    private static ParticleSystem buildSystem(final int size, final ParticleStorage storage, final int threads) {
+        final ParticleSystem particles = ParticleFactory.buildParticles("bench", size);
+        particles.setParticleStorage(storage);
+        particles.setWorkerThreads(threads);
+        particles.setEmissionDirection(new Vector3(0, 1, 0));
+        particles.setInitialVelocity(.05);
+        particles.setMinimumLifeTime(5000);
+        particles.setMaximumLifeTime(15000);
+        particles.setMaximumAngle(360f * MathUtils.DEG_TO_RAD);
+        particles.getParticleController().setControlFlow(false);
+
+        particles.addInfluence(SimpleParticleInfluenceFactory.createBasicGravity(new Vector3(0, -0.001, 0), false));
+        particles.addInfluence(SimpleParticleInfluenceFactory.createBasicWind(0.001, new Vector3(Vector3.UNIT_X),
+                true, false));
+        particles.addInfluence(SimpleParticleInfluenceFactory.createBasicDrag(0.1));
+        particles.addInfluence(new WanderInfluence());
+        particles.addInfluence(new SwarmInfluence(new Vector3(), 1));
+
+        particles.updateGeometricState(0, true);
+        return particles;
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.example.renderer;
+
+import java.util.Random;
+
+import com.ardor3d.example.ExampleBase;
+import com.ardor3d.framework.FrameWork;
+import com.ardor3d.input.logical.LogicalLayer;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.Matrix3;
+import com.ardor3d.math.Transform;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.state.CullState;
+import com.ardor3d.scenegraph.InstancedMesh;
+import com.ardor3d.scenegraph.VBOInfo;
+import com.ardor3d.scenegraph.shape.Sphere;
+import com.ardor3d.util.Timer;
+import com.google.inject.Inject;
+
+/**
+ * The scene of MeshDataSharingExample, drawn as a single InstancedMesh instead of a thousand copies of a Sphere.
+ */
+public class InstancedMeshExample extends ExampleBase {
+    private final Timer _timer;
+    private InstancedMesh _spheres;
+
+    public static void main(final String[] args) {
+        start(InstancedMeshExample.class);
+    }
+
+    @Inject
+    public InstancedMeshExample(final LogicalLayer layer, final FrameWork frameWork, final Timer timer) {
+        super(layer, frameWork);
+        _timer = timer;
+    }
+
+    double counter = 0;
+
+    @Override
+    protected void updateExample(final double tpf) {
+        counter += tpf;
+        if (counter > 1) {
+            counter = 0;
+            System.out.printf("%7.1f FPS, %d of %d instances drawn\n", _timer.getFrameRate(), _spheres
+                    .getVisibleInstanceCount(), _spheres.getInstanceCount());
+        }
+    }
+
+    @Override
+    protected void initExample() {
+        _canvas.setTitle("InstancedMeshExample");
+
+        final Sphere sphere = new Sphere("Sphere", 8, 8, 1);
+
+        final CullState cs = new CullState();
+        cs.setCullFace(CullState.Face.Back);
+        cs.setEnabled(true);
+        _root.setRenderState(cs);
+
+        _spheres = new InstancedMesh("spheres", sphere.getMeshData());
+        _spheres.setVBOInfo(new VBOInfo(true));
+        _spheres.setTranslation(new Vector3(0, 0, -200));
+
+        final Random rand = new Random(1337);
+        final Transform transform = new Transform();
+        final Matrix3 rotation = new Matrix3();
+        for (int i = 0; i < 1000; i++) {
+            transform.setTranslation(rand.nextDouble() * 200.0 - 100.0, rand.nextDouble() * 100.0 - 50.0, rand
+                    .nextDouble() * 100.0 - 50.0);
+            transform.setRotation(rotation.fromAngles(0, rand.nextDouble() * Math.PI, 0));
+            transform.setScale(0.5 + rand.nextDouble());
+            _spheres.addInstance(transform, i % 2 == 0 ? ColorRGBA.WHITE : ColorRGBA.RED);
+        }
+
+        _root.attachChild(_spheres);
+    }
+}
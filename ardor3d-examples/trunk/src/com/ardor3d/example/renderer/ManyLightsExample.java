@@ -20,6 +20,7 @@ import com.ardor3d.light.PointLight;
 import com.ardor3d.math.ColorRGBA;
 import com.ardor3d.math.MathUtils;
 import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.state.LightGrid;
 import com.ardor3d.scenegraph.Controller;
 import com.ardor3d.scenegraph.Node;
 import com.ardor3d.scenegraph.Spatial;
@@ -30,6 +31,7 @@ public class ManyLightsExample extends ExampleBase {
     private final Random rand = new Random();
     private Node colornode;
     private final double worldsize = 20;
+    private final LightGrid lightGrid = new LightGrid(worldsize / 2);
 
     public static void main(final String[] args) {
         start(ManyLightsExample.class);
@@ -42,7 +44,9 @@ public class ManyLightsExample extends ExampleBase {
 
     @Override
     protected void updateExample(final double tpf) {
-        _root.sortLights();
+        // bin the lights once, then let each sphere pick the lights near it.
+        lightGrid.update(_lightState.getLightList());
+        _root.sortLights(lightGrid);
     }
 
     /**
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.example.renderer;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.framework.DisplaySettings;
+import com.ardor3d.framework.Scene;
+import com.ardor3d.image.Texture2D;
+import com.ardor3d.intersection.PickResults;
+import com.ardor3d.math.MathUtils;
+import com.ardor3d.math.Ray3;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.headless.HeadlessCanvasRenderer;
+import com.ardor3d.renderer.headless.HeadlessRenderer;
+import com.ardor3d.renderer.queue.OpaqueRenderBucket;
+import com.ardor3d.renderer.queue.RenderBucketType;
+import com.ardor3d.renderer.state.GLSLShaderObjectsState;
+import com.ardor3d.renderer.state.TextureState;
+import com.ardor3d.renderer.state.ZBufferState;
+import com.ardor3d.renderer.state.RenderState.StateType;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.shape.Box;
+
+/**
+ * A headless benchmark of the opaque bucket's sort policies on an overdraw heavy scene: layers of overlapping boxes
+ * receding from the camera, each with one of several textures and shaders, attached in random order. For each policy
+ * it reports the time per frame, the texture and shader changes per frame, and the overdraw estimated by the
+ * {@link HeadlessRenderer}: how many of the screen tiles covered by a box were already covered by one farther away.
+ */
+public class OpaqueOrderingBenchmark {
+
+    private static final int COLUMNS = 24;
+    private static final int ROWS = 18;
+    private static final int LAYERS = 30;
+    private static final int TEXTURE_VARIANTS = 16;
+    private static final int SHADER_VARIANTS = 4;
+    private static final int WARMUP_FRAMES = 20;
+    private static final int MEASURED_FRAMES = 100;
+
+    public static void main(final String[] args) {
+        final Node root = buildScene();
+        System.out.println("policy\ttexture:shader cost\tms/frame\ttexture changes\tshader changes"
+                + "\toverdrawn/covered tiles");
+        report(root, OpaqueRenderBucket.SortPolicy.States, 1, 1);
+        report(root, OpaqueRenderBucket.SortPolicy.States, 1, 4);
+        report(root, OpaqueRenderBucket.SortPolicy.FrontToBack, 1, 1);
+        report(root, OpaqueRenderBucket.SortPolicy.DepthBuckets, 1, 1);
+        report(root, OpaqueRenderBucket.SortPolicy.DepthBuckets, 1, 4);
+    }
+
+    private static void report(final Node root, final OpaqueRenderBucket.SortPolicy policy, final int textureCost,
+            final int shaderCost) {
+        final HeadlessCanvasRenderer canvas = new HeadlessCanvasRenderer(new Scene() {
+            public boolean renderUnto(final Renderer renderer) {
+                root.onDraw(renderer);
+                return true;
+            }
+
+            public PickResults doPick(final Ray3 pickRay) {
+                return null;
+            }
+        });
+        canvas.init(new DisplaySettings(800, 600, 24, 0, 0, 24, 0, 0, false), true);
+        canvas.getCamera().setLocation(new Vector3(0, 0, 40));
+        canvas.getCamera().setFrustumPerspective(60, 800 / 600.0, 1, 200);
+
+        final HeadlessRenderer renderer = canvas.getHeadlessRenderer();
+        final OpaqueRenderBucket bucket = (OpaqueRenderBucket) renderer.getQueue().getRenderBucket(
+                RenderBucketType.Opaque);
+        bucket.setSortPolicy(policy);
+        bucket.setStateChangeCosts(textureCost, shaderCost);
+        renderer.setEstimateOverdraw(true);
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            canvas.draw();
+        }
+        renderer.resetStatistics();
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            canvas.draw();
+        }
+        final double ms = (System.nanoTime() - start) / 1e6 / MEASURED_FRAMES;
+
+        System.out.println(policy + "\t" + textureCost + ":" + shaderCost + "\t" + String.format("%.3f", ms) + "\t"
+                + renderer.getStateChangeCount(StateType.Texture) / MEASURED_FRAMES + "\t"
+                + renderer.getStateChangeCount(StateType.GLSLShader) / MEASURED_FRAMES + "\t"
+                + renderer.getOverdrawnTileCount() / MEASURED_FRAMES + "/" + renderer.getCoveredTileCount()
+                / MEASURED_FRAMES);
+        canvas.cleanup();
+    }
+
+    private static Node buildScene() {
+        final TextureState[] textures = new TextureState[TEXTURE_VARIANTS];
+        for (int i = 0; i < TEXTURE_VARIANTS; i++) {
+            // likewise stand in for uploaded textures.
+            final Texture2D texture = new Texture2D();
+            texture.setTextureId(i + 1);
+            textures[i] = new TextureState();
+            textures[i].setTexture(texture);
+        }
+        final GLSLShaderObjectsState[] shaders = new GLSLShaderObjectsState[SHADER_VARIANTS];
+        for (int i = 0; i < SHADER_VARIANTS; i++) {
+            shaders[i] = new GLSLShaderObjectsState();
+            // the headless renderer links nothing, so stand in for linked programs.
+            shaders[i]._programID = i + 1;
+        }
+
+        final Node root = new Node("root");
+        root.setRenderState(new ZBufferState());
+        root.setRenderBucketType(RenderBucketType.Opaque);
+
+        // deterministic placement, so every run draws the same scene.
+        MathUtils.setRandomSeed(1234);
+        final int count = COLUMNS * ROWS * LAYERS;
+        final int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        for (int i = count - 1; i > 0; i--) {
+            final int j = MathUtils.nextRandomInt(0, i);
+            final int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        for (final int i : order) {
+            final Box box = new Box("box" + i, new Vector3(), 1, 1, 1);
+            box.setModelBound(new BoundingBox());
+            final int layer = i / (COLUMNS * ROWS);
+            box.setTranslation((i % COLUMNS - COLUMNS / 2) * 1.5, (i / COLUMNS % ROWS - ROWS / 2) * 1.5, -layer * 4);
+            box.setRenderState(textures[MathUtils.nextRandomInt(0, TEXTURE_VARIANTS - 1)]);
+            box.setRenderState(shaders[MathUtils.nextRandomInt(0, SHADER_VARIANTS - 1)]);
+            root.attachChild(box);
+        }
+        root.updateGeometricState(0);
+        return root;
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.example.renderer;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.framework.DisplaySettings;
+import com.ardor3d.framework.Scene;
+import com.ardor3d.image.Texture2D;
+import com.ardor3d.intersection.PickResults;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.MathUtils;
+import com.ardor3d.math.Ray3;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.headless.HeadlessCanvasRenderer;
+import com.ardor3d.renderer.headless.HeadlessRenderer;
+import com.ardor3d.renderer.headless.HeadlessRenderer.Command;
+import com.ardor3d.renderer.queue.RenderBucketType;
+import com.ardor3d.renderer.state.BlendState;
+import com.ardor3d.renderer.state.MaterialState;
+import com.ardor3d.renderer.state.TextureState;
+import com.ardor3d.renderer.state.ZBufferState;
+import com.ardor3d.renderer.state.RenderState.StateType;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.shape.Box;
+
+/**
+ * A headless benchmark of the CPU side of a frame: culling in Node.onDraw, filling and sorting the render queue in
+ * RenderQueue.renderBuckets, and state resolution in Renderer.applyStates. Scenes of generated boxes, with a mix of
+ * shared material, texture and blend states, are drawn into a {@link HeadlessRenderer}, so no window or graphics
+ * device is needed. Reports the average time per frame along with the recorded command and state counts, which should
+ * stay stable from run to run and can be compared between revisions.
+ */
+public class RenderPipelineBenchmark {
+
+    private static final int[] SIZES = { 1000, 10000, 50000 };
+    private static final int STATE_VARIANTS = 16;
+    private static final int WARMUP_FRAMES = 50;
+    private static final int MEASURED_FRAMES = 200;
+
+    public static void main(final String[] args) {
+        System.out.println("meshes\ttransparent\tms/frame\tdraws\tstates applied\tstates skipped\tprimitives");
+        for (final int size : SIZES) {
+            report(size, 0);
+            report(size, 0.25);
+        }
+    }
+
+    private static void report(final int size, final double transparentFraction) {
+        final Node root = buildScene(size, transparentFraction);
+        final HeadlessCanvasRenderer canvas = new HeadlessCanvasRenderer(new Scene() {
+            public boolean renderUnto(final Renderer renderer) {
+                root.onDraw(renderer);
+                return true;
+            }
+
+            public PickResults doPick(final Ray3 pickRay) {
+                return null;
+            }
+        });
+        canvas.init(new DisplaySettings(800, 600, 24, 0, 0, 24, 0, 0, false), true);
+        canvas.getCamera().setLocation(new Vector3(0, 0, 150));
+
+        final HeadlessRenderer renderer = canvas.getHeadlessRenderer();
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            canvas.draw();
+        }
+        renderer.resetStatistics();
+
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            canvas.draw();
+        }
+        final double ms = (System.nanoTime() - start) / 1e6 / MEASURED_FRAMES;
+
+        int applied = 0, skipped = 0;
+        for (final StateType type : StateType.values()) {
+            applied += renderer.getStateApplyCount(type);
+            skipped += renderer.getStateSkipCount(type);
+        }
+        System.out.println(size + "\t" + transparentFraction + "\t" + String.format("%.3f", ms) + "\t"
+                + renderer.getCommandCount(Command.DrawElements) / MEASURED_FRAMES + "\t" + applied / MEASURED_FRAMES
+                + "\t" + skipped / MEASURED_FRAMES + "\t" + renderer.getPrimitiveCount() / MEASURED_FRAMES);
+        canvas.cleanup();
+    }
+
+    private static Node buildScene(final int size, final double transparentFraction) {
+        final MaterialState[] materials = new MaterialState[STATE_VARIANTS];
+        final TextureState[] textures = new TextureState[STATE_VARIANTS];
+        for (int i = 0; i < STATE_VARIANTS; i++) {
+            materials[i] = new MaterialState();
+            materials[i].setDiffuse(new ColorRGBA(i / (float) STATE_VARIANTS, 0.5f, 0.5f, 1));
+            textures[i] = new TextureState();
+            textures[i].setTexture(new Texture2D());
+        }
+        final BlendState blend = new BlendState();
+        blend.setBlendEnabled(true);
+
+        final Node root = new Node("root");
+        root.setRenderState(new ZBufferState());
+
+        // deterministic placement, so every run draws the same scene.
+        MathUtils.setRandomSeed(1234);
+        final int side = (int) Math.ceil(Math.cbrt(size));
+        for (int i = 0; i < size; i++) {
+            final Box box = new Box("box" + i, new Vector3(), 0.4, 0.4, 0.4);
+            box.setModelBound(new BoundingBox());
+            box.setTranslation(i % side - side / 2, i / side % side - side / 2, i / (side * side) - side / 2);
+            box.setRenderState(materials[MathUtils.nextRandomInt(0, STATE_VARIANTS - 1)]);
+            box.setRenderState(textures[MathUtils.nextRandomInt(0, STATE_VARIANTS - 1)]);
+            if (MathUtils.nextRandomDouble() < transparentFraction) {
+                box.setRenderState(blend);
+                box.setRenderBucketType(RenderBucketType.Transparent);
+            }
+            root.attachChild(box);
+        }
+        root.updateGeometricState(0);
+        return root;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.example.renderer;
+
+import com.ardor3d.framework.DisplaySettings;
+import com.ardor3d.framework.Scene;
+import com.ardor3d.image.Texture2D;
+import com.ardor3d.intersection.PickResults;
+import com.ardor3d.math.Ray3;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.headless.HeadlessCanvasRenderer;
+import com.ardor3d.renderer.headless.HeadlessRenderer;
+import com.ardor3d.renderer.queue.RenderBucketType;
+import com.ardor3d.renderer.state.TextureState;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.ui.text.BasicText;
+import com.ardor3d.ui.text.GlyphAtlas;
+import com.ardor3d.ui.text.TextBatch;
+import com.ardor3d.ui.text.TextLabel;
+
+/**
+ * A headless benchmark of a HUD with many labels, a few of which change every frame: drawn as one {@link BasicText}
+ * per label, then as one {@link TextBatch}. For each it reports the time per frame and the text and array draws per
+ * frame, and for the batch the vertices rewritten per frame.
+ */
+public class TextBatchBenchmark {
+
+    private static final int LABELS = 500;
+    private static final int CHANGED_PER_FRAME = 10;
+    private static final int WARMUP_FRAMES = 50;
+    private static final int MEASURED_FRAMES = 500;
+
+    public static void main(final String[] args) {
+        // stand in for the uploaded font texture.
+        final Texture2D texture = new Texture2D();
+        texture.setTextureId(1);
+        final TextureState font = new TextureState();
+        font.setTexture(texture);
+
+        System.out.println("text\tms/frame\ttext draws\tarray draws\tvertices rewritten");
+
+        final Node basicRoot = new Node("basic");
+        basicRoot.setRenderBucketType(RenderBucketType.Ortho);
+        final BasicText[] texts = new BasicText[LABELS];
+        for (int i = 0; i < LABELS; i++) {
+            texts[i] = new BasicText("label" + i, "label " + i + ": 0");
+            texts[i].setRenderState(font);
+            texts[i].setRenderState(BasicText.getFontBlend());
+            texts[i].setTranslation(i % 10 * 80, i / 10 * 12, 0);
+            basicRoot.attachChild(texts[i]);
+        }
+        report("BasicText", basicRoot, new Runnable() {
+            int _frame;
+
+            public void run() {
+                _frame++;
+                for (int i = 0; i < CHANGED_PER_FRAME; i++) {
+                    final int index = (_frame * CHANGED_PER_FRAME + i) % LABELS;
+                    texts[index].print("label " + index + ": " + _frame);
+                }
+            }
+        }, null);
+
+        final Node batchRoot = new Node("batch");
+        batchRoot.setRenderBucketType(RenderBucketType.Ortho);
+        final TextBatch batch = new TextBatch("batch", GlyphAtlas.createGrid(font, 16, 16, ' ', 16, 10));
+        final TextLabel[] labels = new TextLabel[LABELS];
+        for (int i = 0; i < LABELS; i++) {
+            labels[i] = batch.addLabel("label " + i + ": 0", i % 10 * 80, i / 10 * 12);
+        }
+        batchRoot.attachChild(batch);
+        report("TextBatch", batchRoot, new Runnable() {
+            int _frame;
+
+            public void run() {
+                _frame++;
+                for (int i = 0; i < CHANGED_PER_FRAME; i++) {
+                    final int index = (_frame * CHANGED_PER_FRAME + i) % LABELS;
+                    labels[index].setText("label " + index + ": " + _frame);
+                }
+            }
+        }, batch);
+    }
+
+    private static void report(final String name, final Node root, final Runnable change, final TextBatch batch) {
+        root.updateGeometricState(0);
+        final HeadlessCanvasRenderer canvas = new HeadlessCanvasRenderer(new Scene() {
+            public boolean renderUnto(final Renderer renderer) {
+                change.run();
+                root.onDraw(renderer);
+                return true;
+            }
+
+            public PickResults doPick(final Ray3 pickRay) {
+                return null;
+            }
+        });
+        canvas.init(new DisplaySettings(800, 600, 24, 0, 0, 24, 0, 0, false), true);
+
+        final HeadlessRenderer renderer = canvas.getHeadlessRenderer();
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            canvas.draw();
+        }
+        renderer.resetStatistics();
+
+        long rewritten = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_FRAMES; i++) {
+            canvas.draw();
+            if (batch != null) {
+                rewritten += batch.getDirtyVertexCount();
+            }
+        }
+        final double ms = (System.nanoTime() - start) / 1e6 / MEASURED_FRAMES;
+
+        System.out.println(name + "\t" + String.format("%.3f", ms) + "\t"
+                + renderer.getCommandCount(HeadlessRenderer.Command.DrawText) / MEASURED_FRAMES + "\t"
+                + renderer.getCommandCount(HeadlessRenderer.Command.DrawArrays) / MEASURED_FRAMES + "\t"
+                + (batch != null ? String.valueOf(rewritten / MEASURED_FRAMES) : "-"));
+        canvas.cleanup();
+    }
+}
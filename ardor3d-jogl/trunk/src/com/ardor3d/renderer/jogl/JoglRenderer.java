@@ -81,6 +81,7 @@ import com.ardor3d.scene.state.jogl.JoglWireframeStateUtil;
 import com.ardor3d.scene.state.jogl.JoglZBufferStateUtil;
 import com.ardor3d.scene.state.jogl.util.JoglRendererUtil;
 import com.ardor3d.scene.state.jogl.util.JoglTextureUtil;
+import com.ardor3d.scenegraph.IndexBufferData;
 import com.ardor3d.scenegraph.Mesh;
 import com.ardor3d.scenegraph.Renderable;
 import com.ardor3d.scenegraph.Spatial;
@@ -229,6 +230,9 @@ public class JoglRenderer extends Renderer {
             applyState(defaultStateList.get(RenderState.StateType.ZBuffer));
         }
         gl.glClear(GL.GL_COLOR_BUFFER_BIT | GL.GL_DEPTH_BUFFER_BIT);
+
+        // forget what was applied last frame, so view dependent and externally modified state is refreshed.
+        ContextManager.getCurrentContext().invalidateStateHashes();
     }
 
     @Override
@@ -301,6 +305,7 @@ public class JoglRenderer extends Renderer {
         gl.glPushMatrix();
         gl.glLoadIdentity();
         inOrthoMode = true;
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
     }
 
     @Override
@@ -321,6 +326,7 @@ public class JoglRenderer extends Renderer {
         gl.glPushMatrix();
         gl.glLoadIdentity();
         inOrthoMode = true;
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
     }
 
     @Override
@@ -338,6 +344,7 @@ public class JoglRenderer extends Renderer {
         JoglRendererUtil.switchMode(matRecord, GL.GL_MODELVIEW);
         gl.glPopMatrix();
         inOrthoMode = false;
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
     }
 
     @Override
@@ -550,7 +557,7 @@ public class JoglRenderer extends Renderer {
         final RenderContext context = ContextManager.getCurrentContext();
 
         RenderState tempState = null;
-        for (final StateType type : StateType.values()) {
+        for (final StateType type : StateType.values) {
             // first look up in enforced states
             tempState = context.getEnforcedState(type);
 
@@ -564,10 +571,12 @@ public class JoglRenderer extends Renderer {
                 tempState = defaultStateList.get(type);
             }
 
-            if (!RenderState._quickCompare.contains(type) || tempState.needsRefresh()
-                    || tempState != context.getCurrentState(type)) {
+            if (!context.isStateCurrent(tempState)) {
                 applyState(tempState);
                 tempState.setNeedsRefresh(false);
+                context.stateApplied(tempState);
+            } else if (Debug.stats) {
+                StatCollector.addStat(StatType.STAT_STATES_AVOIDED, 1);
             }
         }
 
@@ -944,7 +953,7 @@ public class JoglRenderer extends Renderer {
     }
 
     @Override
-    public void drawElements(final IntBuffer indices, final VBOInfo vbo, final int[] indexLengths,
+    public void drawElements(final IndexBufferData<?> indices, final VBOInfo vbo, final int[] indexLengths,
             final IndexMode[] indexModes) {
         final RenderContext context = ContextManager.getCurrentContext();
         final RendererRecord rendRecord = context.getRendererRecord();
@@ -960,14 +969,17 @@ public class JoglRenderer extends Renderer {
             JoglRendererUtil.setBoundElementVBO(rendRecord, 0);
         }
 
+        // the VBO path may run without client side indices, in which case int indices are assumed
+        final int type = indices != null ? getGLDataType(indices) : GL.GL_UNSIGNED_INT;
+        final int byteCount = indices != null ? indices.getByteCount() : 4;
         if (indexLengths == null) {
             final int glIndexMode = getGLIndexMode(indexModes[0]);
 
             if (!useIndicesVBO) {
                 indices.position(0);
-                gl.glDrawElements(glIndexMode, indices.limit(), GL.GL_UNSIGNED_INT, indices);
+                gl.glDrawElements(glIndexMode, indices.limit(), type, indices.getBuffer());
             } else {
-                gl.glDrawElements(glIndexMode, indices.limit(), GL.GL_UNSIGNED_INT, 0);
+                gl.glDrawElements(glIndexMode, indices.limit(), type, 0);
             }
         } else {
             int offset = 0;
@@ -980,9 +992,9 @@ public class JoglRenderer extends Renderer {
                 if (!useIndicesVBO) {
                     indices.position(offset);
                     indices.limit(offset + count);
-                    gl.glDrawElements(glIndexMode, count, GL.GL_UNSIGNED_INT, indices);
+                    gl.glDrawElements(glIndexMode, count, type, indices.getBuffer());
                 } else {
-                    gl.glDrawElements(glIndexMode, count, GL.GL_UNSIGNED_INT, offset);
+                    gl.glDrawElements(glIndexMode, count, type, offset * byteCount);
                 }
 
                 offset += count;
@@ -994,6 +1006,17 @@ public class JoglRenderer extends Renderer {
         }
     }
 
+    private int getGLDataType(final IndexBufferData<?> indices) {
+        switch (indices.getByteCount()) {
+            case 1:
+                return GL.GL_UNSIGNED_BYTE;
+            case 2:
+                return GL.GL_UNSIGNED_SHORT;
+            default:
+                return GL.GL_UNSIGNED_INT;
+        }
+    }
+
     @Override
     public void drawArrays(final FloatBuffer vertexBuffer, final int[] indexLengths, final IndexMode[] indexModes) {
         final GL gl = GLU.getCurrentGL();
@@ -1021,6 +1044,36 @@ public class JoglRenderer extends Renderer {
         }
     }
 
+    @Override
+    public void drawInstances(final IndexBufferData<?> indices, final FloatBuffer vertexBuffer, final VBOInfo vbo,
+            final int[] indexLengths, final IndexMode[] indexModes, final FloatBuffer instanceMatrices,
+            final FloatBuffer instanceColors, final int instanceCount) {
+        final GL gl = GLU.getCurrentGL();
+
+        final RendererRecord matRecord = ContextManager.getCurrentContext().getRendererRecord();
+        JoglRendererUtil.switchMode(matRecord, GL.GL_MODELVIEW);
+
+        final boolean useIndicesVBO = vbo != null && vbo.getVBOIndexID() > 0;
+        for (int i = 0; i < instanceCount; i++) {
+            gl.glPushMatrix();
+            instanceMatrices.limit(i * 16 + 16).position(i * 16);
+            gl.glMultMatrixf(instanceMatrices);
+            if (instanceColors != null) {
+                final int index = i * 4;
+                gl.glColor4f(instanceColors.get(index), instanceColors.get(index + 1), instanceColors.get(index + 2),
+                        instanceColors.get(index + 3));
+            }
+
+            if (indices != null || useIndicesVBO) {
+                drawElements(indices, vbo, indexLengths, indexModes);
+            } else {
+                drawArrays(vertexBuffer, indexLengths, indexModes);
+            }
+            gl.glPopMatrix();
+        }
+        instanceMatrices.clear();
+    }
+
     public int makeVBOId(final RendererRecord rendRecord) {
         final GL gl = GLU.getCurrentGL();
 
@@ -1150,6 +1203,9 @@ public class JoglRenderer extends Renderer {
         JoglRendererUtil.switchMode(matRecord, GL.GL_MODELVIEW);
 
         GLU.getCurrentGL().glLoadMatrixd(matrix);
+
+        // lights are positioned relative to the modelview matrix.
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
     }
 
     @Override
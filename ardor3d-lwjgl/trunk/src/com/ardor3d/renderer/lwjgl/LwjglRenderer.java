@@ -18,6 +18,7 @@ import java.nio.ByteBuffer;
 import java.nio.DoubleBuffer;
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
 import java.util.Arrays;
 import java.util.EnumMap;
 import java.util.List;
@@ -86,6 +87,7 @@ import com.ardor3d.scene.state.lwjgl.LwjglWireframeStateUtil;
 import com.ardor3d.scene.state.lwjgl.LwjglZBufferStateUtil;
 import com.ardor3d.scene.state.lwjgl.util.LwjglRendererUtil;
 import com.ardor3d.scene.state.lwjgl.util.LwjglTextureUtil;
+import com.ardor3d.scenegraph.IndexBufferData;
 import com.ardor3d.scenegraph.Mesh;
 import com.ardor3d.scenegraph.Renderable;
 import com.ardor3d.scenegraph.Spatial;
@@ -223,6 +225,9 @@ public class LwjglRenderer extends Renderer {
             applyState(defaultStateList.get(RenderState.StateType.ZBuffer));
         }
         GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
+
+        // forget what was applied last frame, so view dependent and externally modified state is refreshed.
+        ContextManager.getCurrentContext().invalidateStateHashes();
     }
 
     @Override
@@ -287,6 +292,7 @@ public class LwjglRenderer extends Renderer {
         GL11.glPushMatrix();
         GL11.glLoadIdentity();
         inOrthoMode = true;
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
     }
 
     @Override
@@ -304,6 +310,7 @@ public class LwjglRenderer extends Renderer {
         GL11.glPushMatrix();
         GL11.glLoadIdentity();
         inOrthoMode = true;
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
     }
 
     @Override
@@ -319,6 +326,7 @@ public class LwjglRenderer extends Renderer {
         LwjglRendererUtil.switchMode(matRecord, GL11.GL_MODELVIEW);
         GL11.glPopMatrix();
         inOrthoMode = false;
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
     }
 
     @Override
@@ -537,10 +545,12 @@ public class LwjglRenderer extends Renderer {
                 tempState = defaultStateList.get(type);
             }
 
-            if (!RenderState._quickCompare.contains(type) || tempState.needsRefresh()
-                    || tempState != context.getCurrentState(type)) {
+            if (!context.isStateCurrent(tempState)) {
                 applyState(tempState);
                 tempState.setNeedsRefresh(false);
+                context.stateApplied(tempState);
+            } else if (Debug.stats) {
+                StatCollector.addStat(StatType.STAT_STATES_AVOIDED, 1);
             }
         }
 
@@ -900,7 +910,7 @@ public class LwjglRenderer extends Renderer {
     }
 
     @Override
-    public void drawElements(final IntBuffer indices, final VBOInfo vbo, final int[] indexLengths,
+    public void drawElements(final IndexBufferData<?> indices, final VBOInfo vbo, final int[] indexLengths,
             final IndexMode[] indexModes) {
         final RenderContext context = ContextManager.getCurrentContext();
         final RendererRecord rendRecord = context.getRendererRecord();
@@ -919,14 +929,17 @@ public class LwjglRenderer extends Renderer {
             return;
         }
 
+        // the VBO path may run without client side indices, in which case int indices are assumed
+        final int type = indices != null ? getGLDataType(indices) : GL11.GL_UNSIGNED_INT;
+        final int byteCount = indices != null ? indices.getByteCount() : 4;
         if (indexLengths == null) {
             final int glIndexMode = getGLIndexMode(indexModes[0]);
 
             if (!useIndicesVBO) {
                 indices.position(0);
-                GL11.glDrawElements(glIndexMode, indices);
+                drawElements(glIndexMode, indices);
             } else {
-                GL11.glDrawElements(glIndexMode, indices.limit(), GL11.GL_UNSIGNED_INT, 0);
+                GL11.glDrawElements(glIndexMode, indices.limit(), type, 0);
             }
         } else {
             int offset = 0;
@@ -939,9 +952,9 @@ public class LwjglRenderer extends Renderer {
                 if (!useIndicesVBO) {
                     indices.position(offset);
                     indices.limit(offset + count);
-                    GL11.glDrawElements(glIndexMode, indices);
+                    drawElements(glIndexMode, indices);
                 } else {
-                    GL11.glDrawElements(glIndexMode, count, GL11.GL_UNSIGNED_INT, offset);
+                    GL11.glDrawElements(glIndexMode, count, type, offset * byteCount);
                 }
 
                 offset += count;
@@ -953,6 +966,28 @@ public class LwjglRenderer extends Renderer {
         }
     }
 
+    private void drawElements(final int glIndexMode, final IndexBufferData<?> indices) {
+        final Buffer buffer = indices.getBuffer();
+        if (buffer instanceof IntBuffer) {
+            GL11.glDrawElements(glIndexMode, (IntBuffer) buffer);
+        } else if (buffer instanceof ShortBuffer) {
+            GL11.glDrawElements(glIndexMode, (ShortBuffer) buffer);
+        } else if (buffer instanceof ByteBuffer) {
+            GL11.glDrawElements(glIndexMode, (ByteBuffer) buffer);
+        }
+    }
+
+    private int getGLDataType(final IndexBufferData<?> indices) {
+        switch (indices.getByteCount()) {
+            case 1:
+                return GL11.GL_UNSIGNED_BYTE;
+            case 2:
+                return GL11.GL_UNSIGNED_SHORT;
+            default:
+                return GL11.GL_UNSIGNED_INT;
+        }
+    }
+
     @Override
     public void drawArrays(final FloatBuffer vertexBuffer, final int[] indexLengths, final IndexMode[] indexModes) {
         if (indexLengths == null) {
@@ -978,6 +1013,34 @@ public class LwjglRenderer extends Renderer {
         }
     }
 
+    @Override
+    public void drawInstances(final IndexBufferData<?> indices, final FloatBuffer vertexBuffer, final VBOInfo vbo,
+            final int[] indexLengths, final IndexMode[] indexModes, final FloatBuffer instanceMatrices,
+            final FloatBuffer instanceColors, final int instanceCount) {
+        final RendererRecord matRecord = ContextManager.getCurrentContext().getRendererRecord();
+        LwjglRendererUtil.switchMode(matRecord, GL11.GL_MODELVIEW);
+
+        final boolean useIndicesVBO = vbo != null && vbo.getVBOIndexID() > 0;
+        for (int i = 0; i < instanceCount; i++) {
+            GL11.glPushMatrix();
+            instanceMatrices.limit(i * 16 + 16).position(i * 16);
+            GL11.glMultMatrix(instanceMatrices);
+            if (instanceColors != null) {
+                final int index = i * 4;
+                GL11.glColor4f(instanceColors.get(index), instanceColors.get(index + 1),
+                        instanceColors.get(index + 2), instanceColors.get(index + 3));
+            }
+
+            if (indices != null || useIndicesVBO) {
+                drawElements(indices, vbo, indexLengths, indexModes);
+            } else {
+                drawArrays(vertexBuffer, indexLengths, indexModes);
+            }
+            GL11.glPopMatrix();
+        }
+        instanceMatrices.clear();
+    }
+
     // private void handleStats() {
     // if (Debug.stats) {
     // switch (indexMode) {
@@ -1125,6 +1188,9 @@ public class LwjglRenderer extends Renderer {
         final RendererRecord matRecord = ContextManager.getCurrentContext().getRendererRecord();
         LwjglRendererUtil.switchMode(matRecord, GL11.GL_MODELVIEW);
         GL11.glLoadMatrix(matrix);
+
+        // lights are positioned relative to the modelview matrix.
+        ContextManager.getCurrentContext().invalidateStateHash(StateType.Light);
     }
 
     @Override
@@ -12,11 +12,11 @@ package com.ardor3d.extension.shape;
 
 import java.io.IOException;
 import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 
 import com.ardor3d.math.MathUtils;
 import com.ardor3d.math.Vector2;
 import com.ardor3d.math.Vector3;
+import com.ardor3d.scenegraph.IndexBufferData;
 import com.ardor3d.scenegraph.Mesh;
 import com.ardor3d.scenegraph.TexCoords;
 import com.ardor3d.util.export.Ardor3DExporter;
@@ -52,7 +52,7 @@ public class Dodecahedron extends Mesh {
         _meshData.setNormalBuffer(BufferUtils.createVector3Buffer(NUM_POINTS));
         _meshData.setTextureCoords(new TexCoords(BufferUtils.createVector2Buffer(NUM_POINTS)), 0);
 
-        _meshData.setIndexBuffer(BufferUtils.createIntBuffer(3 * NUM_TRIS));
+        _meshData.setIndices(BufferUtils.createIndexBufferData(3 * NUM_TRIS, _meshData.getVertexCount() - 1));
 
         setVertexData();
         setNormalData();
@@ -62,7 +62,7 @@ public class Dodecahedron extends Mesh {
     }
 
     private void setIndexData() {
-        final IntBuffer indices = _meshData.getIndexBuffer();
+        final IndexBufferData<?> indices = _meshData.getIndices();
         indices.rewind();
         indices.put(0).put(8).put(9);
         indices.put(0).put(9).put(4);
@@ -103,9 +103,9 @@ public class Dodecahedron extends Mesh {
 
         if (!true) { // outside view
             for (int i = 0; i < NUM_TRIS; i++) {
-                final int iSave = _meshData.getIndexBuffer().get(3 * i + 1);
-                _meshData.getIndexBuffer().put(3 * i + 1, _meshData.getIndexBuffer().get(3 * i + 2));
-                _meshData.getIndexBuffer().put(3 * i + 2, iSave);
+                final int iSave = _meshData.getIndices().get(3 * i + 1);
+                _meshData.getIndices().put(3 * i + 1, _meshData.getIndices().get(3 * i + 2));
+                _meshData.getIndices().put(3 * i + 2, iSave);
             }
         }
 
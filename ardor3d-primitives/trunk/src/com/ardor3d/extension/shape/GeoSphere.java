@@ -12,11 +12,14 @@ package com.ardor3d.extension.shape;
 
 import java.nio.FloatBuffer;
 import java.nio.IntBuffer;
+import java.util.List;
 
 import com.ardor3d.math.Vector3;
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.TexCoords;
 import com.ardor3d.util.geom.BufferUtils;
+import com.ardor3d.util.geom.GeometryCache;
 
 /**
  * GeoSphere - generate a polygon mesh approximating a sphere by recursive subdivision. First approximation is an
@@ -51,7 +54,15 @@ public class GeoSphere extends Mesh {
         super(name);
         this.maxlevels = maxlevels;
         useIkosa = ikosa;
+
+        final List<Object> key = GeometryCache.createKey(GeoSphere.class, ikosa, maxlevels);
+        final MeshData shared = GeometryCache.get(key);
+        if (shared != null) {
+            _meshData = shared;
+            return;
+        }
         setGeometry();
+        GeometryCache.put(key, _meshData);
     }
 
     /**
@@ -12,16 +12,19 @@ package com.ardor3d.extension.shape;
 
 import java.io.IOException;
 import java.nio.IntBuffer;
+import java.util.List;
 
 import com.ardor3d.math.MathUtils;
 import com.ardor3d.math.Vector3;
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.TexCoords;
 import com.ardor3d.util.export.Ardor3DExporter;
 import com.ardor3d.util.export.Ardor3DImporter;
 import com.ardor3d.util.export.InputCapsule;
 import com.ardor3d.util.export.OutputCapsule;
 import com.ardor3d.util.geom.BufferUtils;
+import com.ardor3d.util.geom.GeometryCache;
 
 /**
  * PQTorus generates the geometry of a parameterized torus, also known as a pq torus.
@@ -67,8 +70,15 @@ public class PQTorus extends Mesh {
         this.steps = steps;
         this.radialSamples = radialSamples;
 
+        final List<Object> key = GeometryCache.createKey(PQTorus.class, p, q, radius, width, steps, radialSamples);
+        final MeshData shared = GeometryCache.get(key);
+        if (shared != null) {
+            _meshData = shared;
+            return;
+        }
         setGeometryData();
         setIndexData();
+        GeometryCache.put(key, _meshData);
     }
 
     private void setGeometryData() {
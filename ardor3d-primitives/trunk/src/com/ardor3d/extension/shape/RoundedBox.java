@@ -12,9 +12,11 @@ package com.ardor3d.extension.shape;
 
 import java.io.IOException;
 import java.nio.FloatBuffer;
+import java.util.List;
 
 import com.ardor3d.math.Vector3;
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.TexCoords;
 import com.ardor3d.util.export.Ardor3DExporter;
 import com.ardor3d.util.export.Ardor3DImporter;
@@ -22,6 +24,7 @@ import com.ardor3d.util.export.InputCapsule;
 import com.ardor3d.util.export.OutputCapsule;
 import com.ardor3d.util.export.Savable;
 import com.ardor3d.util.geom.BufferUtils;
+import com.ardor3d.util.geom.GeometryCache;
 
 public class RoundedBox extends Mesh implements Savable {
 
@@ -51,9 +54,17 @@ public class RoundedBox extends Mesh implements Savable {
     }
 
     private void setData() {
+        final List<Object> key = GeometryCache.createKey(RoundedBox.class, new Vector3(_extent), new Vector3(_border),
+                new Vector3(_slope));
+        final MeshData shared = GeometryCache.get(key);
+        if (shared != null) {
+            _meshData = shared;
+            return;
+        }
         setVertexAndNormalData();
         setTextureData();
         setIndexData();
+        GeometryCache.put(key, _meshData);
     }
 
     private void put(final FloatBuffer fb, final FloatBuffer nb, final Vector3 vec) {
@@ -173,7 +184,7 @@ public class RoundedBox extends Mesh implements Savable {
                     indices[30 * i + n] = 8 * i + data[n];
                 }
             }
-            _meshData.setIndexBuffer(BufferUtils.createIntBuffer(indices));
+            _meshData.setIndices(BufferUtils.createIndexBufferData(indices));
         }
     }
 
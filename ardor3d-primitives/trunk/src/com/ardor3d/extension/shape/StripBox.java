@@ -206,7 +206,7 @@ public class StripBox extends Mesh implements Savable {
         _meshData.setIndexMode(IndexMode.TriangleStrip);
         if (_meshData.getIndexBuffer() == null) {
             final int[] indices = { 1, 0, 4, 5, 7, 0, 3, 1, 2, 4, 6, 7, 2, 3 };
-            _meshData.setIndexBuffer(BufferUtils.createIntBuffer(indices));
+            _meshData.setIndices(BufferUtils.createIndexBufferData(indices));
         }
     }
 
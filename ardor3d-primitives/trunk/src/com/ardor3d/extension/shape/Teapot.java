@@ -10,9 +10,13 @@
 
 package com.ardor3d.extension.shape;
 
+import java.util.List;
+
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.TexCoords;
 import com.ardor3d.util.geom.BufferUtils;
+import com.ardor3d.util.geom.GeometryCache;
 
 /**
  * Teapot is the classical teapot model ready for you to use in ardor3d! If you plan to texture this shape, use wrapmode
@@ -40,13 +44,23 @@ public class Teapot extends Mesh {
     }
 
     /**
-     * sets up the data for the Teapot
+     * sets up the data for the Teapot. While the {@link GeometryCache} is enabled, it is shared by all teapots.
      */
     public void resetData() {
+        final List<Object> key = GeometryCache.createKey(Teapot.class);
+        final MeshData shared = GeometryCache.get(key);
+        if (shared != null) {
+            _meshData = shared;
+            return;
+        }
+        if (GeometryCache.isEnabled() || _meshData.isShared()) {
+            _meshData = new MeshData();
+        }
         setVertexData();
         setNormalData();
         setTextureData();
         setIndexData();
+        GeometryCache.put(key, _meshData);
     }
 
     private void setVertexData() {
@@ -847,6 +861,6 @@ public class Teapot extends Mesh {
                 762, 767, 306, 313, 769, 313, 317, 770, 317, 321, 771, 329, 328, 772, 328, 333, 773, 333, 337, 774,
                 337, 341, 775, 349, 348, 776, 348, 353, 777, 353, 357, 778, 357, 361, 779, 369, 368, 780, 368, 373,
                 781, 373, 309, 782 };
-        _meshData.setIndexBuffer(BufferUtils.createIntBuffer(indices));
+        _meshData.setIndices(BufferUtils.createIndexBufferData(indices));
     }
 }
\ No newline at end of file
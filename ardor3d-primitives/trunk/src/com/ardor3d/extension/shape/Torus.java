@@ -11,16 +11,19 @@
 package com.ardor3d.extension.shape;
 
 import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.List;
 
 import com.ardor3d.math.MathUtils;
-import com.ardor3d.math.Vector3;
 import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.MeshData;
 import com.ardor3d.scenegraph.TexCoords;
 import com.ardor3d.util.export.Ardor3DExporter;
 import com.ardor3d.util.export.Ardor3DImporter;
 import com.ardor3d.util.export.InputCapsule;
 import com.ardor3d.util.export.OutputCapsule;
 import com.ardor3d.util.geom.BufferUtils;
+import com.ardor3d.util.geom.GeometryCache;
 
 public class Torus extends Mesh {
     private static final long serialVersionUID = 1L;
@@ -38,7 +41,8 @@ public class Torus extends Mesh {
     }
 
     /**
-     * Constructs a new Torus. Center is the origin, but the Torus may be transformed.
+     * Constructs a new Torus. Center is the origin, but the Torus may be transformed. While the
+     * {@link GeometryCache} is enabled, the geometry is shared with other tori created with the same values.
      * 
      * @param name
      *            The name of the Torus.
@@ -60,9 +64,16 @@ public class Torus extends Mesh {
         this.innerRadius = innerRadius;
         this.outerRadius = outerRadius;
 
+        final List<Object> key = GeometryCache.createKey(Torus.class, circleSamples, radialSamples, innerRadius,
+                outerRadius);
+        final MeshData shared = GeometryCache.get(key);
+        if (shared != null) {
+            _meshData = shared;
+            return;
+        }
         setGeometryData();
         setIndexData();
-
+        GeometryCache.put(key, _meshData);
     }
 
     private void setGeometryData() {
@@ -79,65 +90,57 @@ public class Torus extends Mesh {
         // generate geometry
         final double inverseCircleSamples = 1.0 / circleSamples;
         final double inverseRadialSamples = 1.0 / radialSamples;
-        int i = 0;
-        // generate the cylinder itself
-        final Vector3 radialAxis = new Vector3(), torusMiddle = new Vector3(), tempNormal = new Vector3();
-        for (int circleCount = 0; circleCount < circleSamples; circleCount++) {
+
+        // the radial angles are the same on every circle, with duplication at the end point.
+        final double[] cosPhi = new double[radialSamples + 1];
+        final double[] sinPhi = new double[radialSamples + 1];
+        for (int radialCount = 0; radialCount < radialSamples; radialCount++) {
+            final double phi = MathUtils.TWO_PI * radialCount * inverseRadialSamples;
+            cosPhi[radialCount] = MathUtils.cos(phi);
+            sinPhi[radialCount] = MathUtils.sin(phi);
+        }
+        cosPhi[radialSamples] = cosPhi[0];
+        sinPhi[radialSamples] = sinPhi[0];
+
+        // generate the cylinder itself, a circle at a time, duplicating the first circle at the end to form a torus.
+        final FloatBuffer vertices = _meshData.getVertexBuffer();
+        final FloatBuffer normals = _meshData.getNormalBuffer();
+        final FloatBuffer texCoords = _meshData.getTextureCoords(0).coords;
+        final float[] circleVertices = new float[(radialSamples + 1) * 3];
+        final float[] circleNormals = new float[(radialSamples + 1) * 3];
+        final float[] circleTexCoords = new float[(radialSamples + 1) * 2];
+        for (int circleCount = 0; circleCount <= circleSamples; circleCount++) {
             // compute center point on torus circle at specified angle
-            final double circleFraction = circleCount * inverseCircleSamples;
+            final int sample = circleCount < circleSamples ? circleCount : 0;
+            final double circleFraction = sample * inverseCircleSamples;
             final double theta = MathUtils.TWO_PI * circleFraction;
             final double cosTheta = MathUtils.cos(theta);
             final double sinTheta = MathUtils.sin(theta);
-            radialAxis.set(cosTheta, sinTheta, 0);
-            radialAxis.multiply(outerRadius, torusMiddle);
-
-            // compute slice vertices with duplication at end point
-            final int iSave = i;
-            for (int radialCount = 0; radialCount < radialSamples; radialCount++) {
-                final double radialFraction = radialCount * inverseRadialSamples;
-                // in [0,1)
-                final double phi = MathUtils.TWO_PI * radialFraction;
-                final double cosPhi = MathUtils.cos(phi);
-                final double sinPhi = MathUtils.sin(phi);
-                tempNormal.set(radialAxis).multiplyLocal(cosPhi);
-                tempNormal.setZ(tempNormal.getZ() + sinPhi);
-                if (true) {
-                    _meshData.getNormalBuffer().put((float) tempNormal.getX()).put((float) tempNormal.getY()).put(
-                            (float) tempNormal.getZ());
-                } else {
-                    _meshData.getNormalBuffer().put((float) -tempNormal.getX()).put((float) -tempNormal.getY()).put(
-                            (float) -tempNormal.getZ());
-                }
-
-                tempNormal.multiplyLocal(innerRadius).addLocal(torusMiddle);
-                _meshData.getVertexBuffer().put((float) tempNormal.getX()).put((float) tempNormal.getY()).put(
-                        (float) tempNormal.getZ());
 
-                _meshData.getTextureCoords(0).coords.put((float) radialFraction).put((float) circleFraction);
-                i++;
+            for (int radialCount = 0; radialCount <= radialSamples; radialCount++) {
+                final double normalX = cosTheta * cosPhi[radialCount];
+                final double normalY = sinTheta * cosPhi[radialCount];
+                final double normalZ = sinPhi[radialCount];
+                circleNormals[radialCount * 3] = (float) normalX;
+                circleNormals[radialCount * 3 + 1] = (float) normalY;
+                circleNormals[radialCount * 3 + 2] = (float) normalZ;
+                circleVertices[radialCount * 3] = (float) (normalX * innerRadius + cosTheta * outerRadius);
+                circleVertices[radialCount * 3 + 1] = (float) (normalY * innerRadius + sinTheta * outerRadius);
+                circleVertices[radialCount * 3 + 2] = (float) (normalZ * innerRadius);
+                circleTexCoords[radialCount * 2] = radialCount < radialSamples ? (float) (radialCount
+                        * inverseRadialSamples) : 1.0f;
+                circleTexCoords[radialCount * 2 + 1] = circleCount < circleSamples ? (float) circleFraction : 1.0f;
             }
-
-            BufferUtils.copyInternalVector3(_meshData.getVertexBuffer(), iSave, i);
-            BufferUtils.copyInternalVector3(_meshData.getNormalBuffer(), iSave, i);
-
-            _meshData.getTextureCoords(0).coords.put(1.0f).put((float) circleFraction);
-
-            i++;
-        }
-
-        // duplicate the cylinder ends to form a torus
-        for (int iR = 0; iR <= radialSamples; iR++, i++) {
-            BufferUtils.copyInternalVector3(_meshData.getVertexBuffer(), iR, i);
-            BufferUtils.copyInternalVector3(_meshData.getNormalBuffer(), iR, i);
-            BufferUtils.copyInternalVector2(_meshData.getTextureCoords(0).coords, iR, i);
-            _meshData.getTextureCoords(0).coords.put(i * 2 + 1, 1.0f);
+            vertices.put(circleVertices);
+            normals.put(circleNormals);
+            texCoords.put(circleTexCoords);
         }
     }
 
     private void setIndexData() {
         // allocate connectivity
         final int tris = (2 * circleSamples * radialSamples);
-        _meshData.setIndexBuffer(BufferUtils.createIntBuffer(3 * tris));
+        _meshData.setIndices(BufferUtils.createIndexBufferData(3 * tris, _meshData.getVertexCount() - 1));
         int i;
         // generate connectivity
         int connectionStart = 0;
@@ -150,19 +153,19 @@ public class Torus extends Mesh {
             int i3 = i2 + 1;
             for (i = 0; i < radialSamples; i++, index += 6) {
                 if (true) {
-                    _meshData.getIndexBuffer().put(i0++);
-                    _meshData.getIndexBuffer().put(i2);
-                    _meshData.getIndexBuffer().put(i1);
-                    _meshData.getIndexBuffer().put(i1++);
-                    _meshData.getIndexBuffer().put(i2++);
-                    _meshData.getIndexBuffer().put(i3++);
+                    _meshData.getIndices().put(i0++);
+                    _meshData.getIndices().put(i2);
+                    _meshData.getIndices().put(i1);
+                    _meshData.getIndices().put(i1++);
+                    _meshData.getIndices().put(i2++);
+                    _meshData.getIndices().put(i3++);
                 } else {
-                    _meshData.getIndexBuffer().put(i0++);
-                    _meshData.getIndexBuffer().put(i1);
-                    _meshData.getIndexBuffer().put(i2);
-                    _meshData.getIndexBuffer().put(i1++);
-                    _meshData.getIndexBuffer().put(i3++);
-                    _meshData.getIndexBuffer().put(i2++);
+                    _meshData.getIndices().put(i0++);
+                    _meshData.getIndices().put(i1);
+                    _meshData.getIndices().put(i2);
+                    _meshData.getIndices().put(i1++);
+                    _meshData.getIndices().put(i3++);
+                    _meshData.getIndices().put(i2++);
                 }
             }
         }
@@ -64,7 +64,8 @@ public class Tube extends Mesh implements Savable {
         _meshData.setTextureCoords(new TexCoords(BufferUtils.createVector2Buffer(verts)), 0);
 
         final int tris = (4 * radialSamples * (1 + axisSamples));
-        _meshData.setIndexBuffer(BufferUtils.createIntBuffer(_meshData.getIndexBuffer(), 3 * tris));
+        _meshData.setIndices(BufferUtils.createIndexBufferData(_meshData.getIndices(), 3 * tris, _meshData
+                .getVertexCount() - 1));
 
         setGeometryData();
         setIndexData();
@@ -194,8 +195,8 @@ public class Tube extends Mesh implements Savable {
                 final int index1 = index0 + 1;
                 final int index2 = index0 + (axisSamples + 1);
                 final int index3 = index2 + 1;
-                _meshData.getIndexBuffer().put(index0).put(index1).put(index2);
-                _meshData.getIndexBuffer().put(index1).put(index3).put(index2);
+                _meshData.getIndices().put(index0).put(index1).put(index2);
+                _meshData.getIndices().put(index1).put(index3).put(index2);
             }
         }
 
@@ -206,8 +207,8 @@ public class Tube extends Mesh implements Savable {
                 final int index1 = index0 + 1;
                 final int index2 = index0 + (axisSamples + 1);
                 final int index3 = index2 + 1;
-                _meshData.getIndexBuffer().put(index0).put(index2).put(index1);
-                _meshData.getIndexBuffer().put(index1).put(index2).put(index3);
+                _meshData.getIndices().put(index0).put(index2).put(index1);
+                _meshData.getIndices().put(index1).put(index2).put(index3);
             }
         }
 
@@ -217,8 +218,8 @@ public class Tube extends Mesh implements Savable {
             final int index1 = index0 + 1;
             final int index2 = bottomEdge + 2 * ((radialCount + 1) % radialSamples);
             final int index3 = index2 + 1;
-            _meshData.getIndexBuffer().put(index0).put(index2).put(index1);
-            _meshData.getIndexBuffer().put(index1).put(index2).put(index3);
+            _meshData.getIndices().put(index0).put(index2).put(index1);
+            _meshData.getIndices().put(index1).put(index2).put(index3);
         }
 
         // top edge
@@ -227,8 +228,8 @@ public class Tube extends Mesh implements Savable {
             final int index1 = index0 + 1;
             final int index2 = topEdge + 2 * ((radialCount + 1) % radialSamples);
             final int index3 = index2 + 1;
-            _meshData.getIndexBuffer().put(index0).put(index1).put(index2);
-            _meshData.getIndexBuffer().put(index1).put(index3).put(index2);
+            _meshData.getIndices().put(index0).put(index1).put(index2);
+            _meshData.getIndices().put(index1).put(index3).put(index2);
         }
     }
 
@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.bounding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.ardor3d.math.Matrix3;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.util.geom.BufferUtils;
+
+public class TestBoundingFit {
+    private static FloatBuffer randomPoints(final int count, final long seed) {
+        final Random rand = new Random(seed);
+        final FloatBuffer buf = BufferUtils.createVector3Buffer(count);
+        for (int i = 0; i < count; i++) {
+            buf.put(rand.nextFloat() * 10 - 5).put(rand.nextFloat() * 4 + 2).put(rand.nextFloat() * 2 - 8);
+        }
+        return buf;
+    }
+
+    private static void assertContainsAll(final BoundingVolume bound, final FloatBuffer points) {
+        final Vector3 point = new Vector3();
+        for (int i = 0, len = points.limit() / 3; i < len; i++) {
+            BufferUtils.populateFromBuffer(point, points, i);
+            // nudge the point toward the center so that points on the surface count as contained.
+            point.lerpLocal(bound.getCenter(), 1e-5);
+            assertTrue(bound.contains(point));
+        }
+    }
+
+    @Test
+    public void testSphereFitModes() throws Exception {
+        final FloatBuffer points = randomPoints(1000, 1);
+        final BoundingSphere welzl = new BoundingSphere();
+        welzl.computeFromPoints(points);
+        for (final BoundingSphere.FitMode mode : BoundingSphere.FitMode.values()) {
+            final BoundingSphere sphere = new BoundingSphere();
+            sphere.setFitMode(mode);
+            sphere.computeFromPoints(points);
+            assertContainsAll(sphere, points);
+            // the approximate fits should stay close to the minimal sphere.
+            assertTrue(sphere.getRadius() < welzl.getRadius() * 1.2);
+        }
+    }
+
+    @Test
+    public void testPCAFit() throws Exception {
+        // a long thin box, rotated away from the world axes.
+        final Matrix3 rot = new Matrix3().fromAngles(0.3, 0.7, -0.4);
+        final Random rand = new Random(2);
+        final FloatBuffer points = BufferUtils.createVector3Buffer(2000);
+        final Vector3 point = new Vector3();
+        for (int i = 0; i < 2000; i++) {
+            point.set(rand.nextDouble() * 20 - 10, rand.nextDouble() - 0.5, rand.nextDouble() * 2 - 1);
+            rot.applyPost(point, point);
+            points.put(point.getXf()).put(point.getYf()).put(point.getZf());
+        }
+
+        final OrientedBoundingBox aabb = new OrientedBoundingBox();
+        aabb.computeFromPoints(points);
+        final OrientedBoundingBox pca = new OrientedBoundingBox();
+        pca.setFitMode(OrientedBoundingBox.FitMode.PCA);
+        pca.computeFromPoints(points);
+
+        assertContainsAll(pca, points);
+        assertTrue(pca.getVolume() < aabb.getVolume() * 0.5);
+        assertEquals(40, pca.getVolume(), 4);
+    }
+
+    @Test
+    public void testExpandToContain() throws Exception {
+        final BoundingVolume[] bounds = new BoundingVolume[] { new BoundingBox(), new BoundingSphere(),
+                new OrientedBoundingBox() };
+        for (final BoundingVolume bound : bounds) {
+            final FloatBuffer points = randomPoints(100, 3);
+            bound.computeFromPoints(points);
+            final double volume = bound.getVolume();
+
+            // moving a vertex inward must not change the bound, moving it outward must grow it.
+            points.put(0, 0).put(1, 4).put(2, -7);
+            bound.expandToContain(points, 0, 1);
+            assertEquals(volume, bound.getVolume(), 1e-6);
+
+            points.put(0, 50).put(1, -20).put(2, 30);
+            bound.expandToContain(points, 0, 1);
+            assertTrue(bound.getVolume() > volume);
+            assertContainsAll(bound, points);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.extension.effect.particle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+
+import com.ardor3d.extension.effect.particle.ParticleSystem.ParticleStorage;
+import com.ardor3d.math.Vector3;
+
+public class TestParticleData {
+    private ParticleMesh createSystem(final int count) {
+        final ParticleMesh system = new ParticleMesh("test", count);
+        system.setParticleStorage(ParticleStorage.Arrays);
+        system.setWorkerThreads(4);
+        system.setEmissionDirection(Vector3.UNIT_Y);
+        system.setMinimumAngle(0);
+        system.setMaximumAngle(0);
+        system.setInitialVelocity(0.01);
+        system.setMinimumLifeTime(1000);
+        system.setMaximumLifeTime(1000);
+        system.addController(new ParticleController(system));
+        system.updateGeometricState(0, true);
+        return system;
+    }
+
+    @Test
+    public void testUpdate() throws Exception {
+        final ParticleMesh system = createSystem(20000);
+        final ParticleController controller = system.getParticleController();
+        final ParticleData data = system.getParticleData();
+
+        controller.update(0.1);
+        controller.update(0.1);
+        for (int i = 0; i < data.getCount(); i++) {
+            assertSame(Particle.Status.Alive, data.getStatus(i));
+            // spawned at the origin during the first update and moved 0.01 units/ms for 100ms since.
+            assertEquals(1.0, data.getPositions()[i * 3 + 1], 1e-4);
+        }
+
+        // past the life span, every particle dies and is immediately reused.
+        controller.update(1.0);
+        for (int i = 0; i < data.getCount(); i++) {
+            assertSame(Particle.Status.Alive, data.getStatus(i));
+            assertEquals(0, data.getAges()[i], 1e-4);
+        }
+    }
+
+    @Test
+    public void testBatchInfluenceMatchesAdapter() throws Exception {
+        final ParticleInfluence drag = SimpleParticleInfluenceFactory.createBasicDrag(0.5);
+        final ParticleMesh batch = createSystem(5000);
+        batch.addInfluence(drag);
+        final ParticleMesh adapted = createSystem(5000);
+        // only overrides apply, so it goes through the default applyBatch adapter.
+        adapted.addInfluence(new ParticleInfluence() {
+            @Override
+            public void apply(final double dt, final Particle particle, final int index) {
+                drag.apply(dt, particle, index);
+            }
+        });
+
+        for (int x = 0; x < 3; x++) {
+            batch.getParticleController().update(0.1);
+            adapted.getParticleController().update(0.1);
+        }
+        final float[] expected = adapted.getParticleData().getVelocities();
+        final float[] actual = batch.getParticleData().getVelocities();
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 1e-6);
+        }
+    }
+
+    @Test
+    public void testUpdateVertices() throws Exception {
+        final ParticleMesh system = createSystem(10000);
+        system.getParticleController().update(0.1);
+        system.getParticleController().update(0.1);
+        final ParticleData data = system.getParticleData();
+        data.updateVertices(system, null, 4);
+
+        final FloatBuffer verts = system.getParticleGeometry().getMeshData().getVertexBuffer();
+        final Vector3 store = new Vector3();
+        final Vector3 expected = new Vector3();
+        for (int i = 0; i < data.getCount(); i++) {
+            final double size = data.getSizes()[i];
+            final Vector3 position = new Vector3(data.getPositions()[i * 3], data.getPositions()[i * 3 + 1], data
+                    .getPositions()[i * 3 + 2]);
+            // first corner of the quad is position + left * size - up * size
+            position.add(system.getLeftVector().multiply(size, null), expected).subtractLocal(
+                    system.getUpVector().multiply(size, null));
+            store.set(verts.get(i * 12), verts.get(i * 12 + 1), verts.get(i * 12 + 2));
+            assertEquals(0, store.distance(expected), 1e-4);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.extension.shadow.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.ardor3d.bounding.BoundingSphere;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.Camera.FrustumIntersect;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.shape.Box;
+
+public class TestCascadedShadowMapPass {
+
+    @Test
+    public void testCascadesCoverViewAndCullOccluders() throws Exception {
+        final Camera view = new Camera(800, 600);
+        view.setFrustumPerspective(60, 800 / 600.0, 1, 2000);
+        view.setFrame(new Vector3(0, 10, 0), new Vector3(-1, 0, 0), new Vector3(0, 1, 0), new Vector3(0, 0, -1));
+
+        final CascadedShadowMapPass pass = new CascadedShadowMapPass(new Vector3(0.3, -1, 0.2), 3, 1024);
+        pass.setMaxDistance(300);
+        pass.setCasterDistance(50);
+
+        // a row of occluders along the view, plus one far behind the camera.
+        final Node root = new Node("root");
+        final Box[] boxes = new Box[31];
+        for (int i = 0; i < 30; i++) {
+            boxes[i] = new Box("box" + i, new Vector3(), 1, 1, 1);
+            boxes[i].setTranslation(0, 1, -10 * i);
+        }
+        boxes[30] = new Box("behind", new Vector3(), 1, 1, 1);
+        boxes[30].setTranslation(0, 1, 1000);
+        for (final Box box : boxes) {
+            box.setModelBound(new BoundingSphere());
+            root.attachChild(box);
+            pass.addOccluder(box);
+        }
+        root.updateGeometricState(0);
+
+        pass.updateCascades(view);
+        assertEquals(1, pass.getSplitDistance(0), 1e-9);
+        assertEquals(300, pass.getSplitDistance(3), 1e-9);
+        assertTrue(pass.getSplitDistance(1) < pass.getSplitDistance(2));
+
+        int drawn = 0;
+        for (int i = 0; i < 3; i++) {
+            final Camera light = pass.getLightCamera(i);
+            // the corners of the slice of the view are all inside the light camera of the cascade.
+            final double from = pass.getSplitDistance(i), to = pass.getSplitDistance(i + 1);
+            for (final double distance : new double[] { from, to }) {
+                final double scale = distance / view.getFrustumNear();
+                for (final double x : new double[] { view.getFrustumLeft(), view.getFrustumRight() }) {
+                    for (final double y : new double[] { view.getFrustumBottom(), view.getFrustumTop() }) {
+                        final Vector3 corner = new Vector3(x * scale, 10 + y * scale, -distance);
+                        assertFalse(light.contains(new BoundingSphere(0.001, corner)) == FrustumIntersect.Outside);
+                    }
+                }
+            }
+            assertFalse(pass.getCascadeOccluders(i).contains(boxes[30]));
+            drawn += pass.getCascadeOccluders(i).size();
+        }
+        // the near cascades only see a few of the boxes.
+        assertTrue(pass.getCascadeOccluders(0).size() < 10);
+        assertTrue(drawn < 3 * 30);
+    }
+}
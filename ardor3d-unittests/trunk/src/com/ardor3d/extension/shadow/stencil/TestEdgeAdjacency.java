@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.extension.shadow.stencil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.ardor3d.light.DirectionalLight;
+import com.ardor3d.light.PointLight;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.state.LightState;
+import com.ardor3d.scenegraph.MeshData;
+import com.ardor3d.scenegraph.shape.Box;
+import com.ardor3d.scenegraph.shape.Sphere;
+import com.ardor3d.util.geom.BufferUtils;
+
+public class TestEdgeAdjacency {
+
+    @Test
+    public void testBoxSilhouette() throws Exception {
+        final Box box = new Box("box", new Vector3(), 1, 1, 1);
+        final EdgeAdjacency adjacency = EdgeAdjacency.get(box.getMeshData());
+        assertSame(adjacency, EdgeAdjacency.get(box.getMeshData()));
+        assertEquals(12, adjacency.getTriangleCount());
+        // the faces of the box share their edges even though they do not share vertices.
+        assertEquals(18, adjacency.getEdgeCount());
+
+        // lit from straight above, the sides count as lit and the silhouette runs around the bottom.
+        final boolean[] facing = new boolean[adjacency.getTriangleCount()];
+        final int[] edges = new int[adjacency.getEdgeCount() * 2];
+        final int count = adjacency.findSilhouette(0, -1, 0, true, false, facing, edges);
+        assertEquals(4, count);
+        assertClosedLoops(box.getMeshData(), edges, count);
+        for (int i = 0; i < count * 2; i++) {
+            assertEquals(-1, box.getMeshData().getVertexBuffer().get(edges[i] * 3 + 1), 0);
+        }
+    }
+
+    @Test
+    public void testSphereVolume() throws Exception {
+        final Sphere sphere = new Sphere("sphere", 16, 16, 1);
+        sphere.updateGeometricState(0);
+        final EdgeAdjacency adjacency = EdgeAdjacency.get(sphere.getMeshData());
+        final boolean[] facing = new boolean[adjacency.getTriangleCount()];
+        final int[] edges = new int[adjacency.getEdgeCount() * 2];
+        final int count = adjacency.findSilhouette(5, 1, 2, false, false, facing, edges);
+        assertTrue(count > 0 && count < adjacency.getEdgeCount() / 8);
+        assertClosedLoops(sphere.getMeshData(), edges, count);
+
+        final PointLight light = new PointLight();
+        light.setLocation(5, 1, 2);
+        light.setShadowCaster(true);
+        light.setEnabled(true);
+        final LightState lights = new LightState();
+        lights.attach(light);
+        final DirectionalLight ignored = new DirectionalLight();
+        lights.attach(ignored);
+
+        final MeshShadows shadows = new MeshShadows(sphere);
+        shadows.createGeometry(lights);
+        assertEquals(1, shadows.getVolumes().size());
+        final ShadowVolume volume = shadows.getShadowVolume(light);
+        assertEquals(count * 4, volume.getMeshData().getVertexCount());
+        assertEquals(count * 2, volume.getMeshData().getTotalPrimitiveCount());
+    }
+
+    /**
+     * Every vertex of a silhouette of a closed mesh starts as many edges as it ends.
+     */
+    private static void assertClosedLoops(final MeshData data, final int[] edges, final int count) {
+        final Map<Vector3, Integer> balance = new HashMap<Vector3, Integer>();
+        for (int e = 0; e < count; e++) {
+            final Vector3 start = new Vector3(), end = new Vector3();
+            BufferUtils.populateFromBuffer(start, data.getVertexBuffer(), edges[e * 2]);
+            BufferUtils.populateFromBuffer(end, data.getVertexBuffer(), edges[e * 2 + 1]);
+            balance.put(start, (balance.containsKey(start) ? balance.get(start) : 0) + 1);
+            balance.put(end, (balance.containsKey(end) ? balance.get(end) : 0) - 1);
+        }
+        for (final Integer value : balance.values()) {
+            assertEquals(0, value.intValue());
+        }
+    }
+}
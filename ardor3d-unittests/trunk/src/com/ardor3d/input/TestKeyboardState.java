@@ -11,6 +11,7 @@
 package com.ardor3d.input;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.EnumSet;
@@ -68,4 +69,15 @@ public class TestKeyboardState {
         assertTrue("d pressed", pressed.contains(Key.D));
     }
 
+    @Test
+    public void testPressedAndReleasedSince() throws Exception {
+        ks1 = new KeyboardState(EnumSet.of(Key.A, Key.B));
+        ks2 = new KeyboardState(EnumSet.of(Key.A, Key.C));
+
+        assertTrue("c pressed", ks2.isPressedSince(Key.C, ks1));
+        assertFalse("a held", ks2.isPressedSince(Key.A, ks1));
+        assertTrue("b released", ks2.isReleasedSince(Key.B, ks1));
+        assertFalse("a held", ks2.isReleasedSince(Key.A, ks1));
+        assertFalse("d untouched", ks2.isReleasedSince(Key.D, ks1));
+    }
 }
@@ -242,4 +242,42 @@ public class TestLogicalLayer {
         ll.checkTriggers(tpf);
 
     }
+
+    @Test
+    public void testKeyedTriggers() throws Exception {
+        final InputState pressed = new InputState(new KeyboardState(EnumSet.of(Key.A)), ms);
+        final InputState released = new InputState(ks, ms);
+
+        final double tpf = 14;
+
+        final LinkedList<InputState> states1 = new LinkedList<InputState>();
+        final LinkedList<InputState> states2 = new LinkedList<InputState>();
+        final LinkedList<InputState> states3 = new LinkedList<InputState>();
+
+        states1.add(pressed);
+        states3.add(released);
+
+        pl.readState();
+        pl.readState();
+        pl.readState();
+        expect(pl.drainAvailableStates()).andReturn(states1);
+        expect(pl.drainAvailableStates()).andReturn(states2);
+        expect(pl.drainAvailableStates()).andReturn(states3);
+        // the pressed trigger fires once, the held trigger while A stays down, the unkeyed one is always checked.
+        ta1.perform(canvas, pressed, tpf);
+        ta2.perform(canvas, pressed, tpf);
+        ta2.perform(canvas, pressed, tpf);
+        expect(p1.apply(isA(TwoInputStates.class))).andReturn(false).times(3);
+
+        replay(mocks);
+
+        ll.registerTrigger(new InputTrigger(new KeyPressedCondition(Key.A), ta1));
+        ll.registerTrigger(new InputTrigger(new KeyHeldCondition(Key.A), ta2));
+        ll.registerTrigger(new InputTrigger(new KeyPressedCondition(Key.B), ta2));
+        ll.registerTrigger(new InputTrigger(p1, ta2));
+
+        ll.checkTriggers(tpf);
+        ll.checkTriggers(tpf);
+        ll.checkTriggers(tpf);
+    }
 }
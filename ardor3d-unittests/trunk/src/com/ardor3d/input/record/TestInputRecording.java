@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.input.record;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ardor3d.input.ButtonState;
+import com.ardor3d.input.FocusWrapper;
+import com.ardor3d.input.InputState;
+import com.ardor3d.input.Key;
+import com.ardor3d.input.KeyEvent;
+import com.ardor3d.input.KeyState;
+import com.ardor3d.input.KeyboardWrapper;
+import com.ardor3d.input.MouseButton;
+import com.ardor3d.input.MouseState;
+import com.ardor3d.input.MouseWrapper;
+import com.ardor3d.input.PhysicalLayer;
+import com.google.common.collect.PeekingIterator;
+
+public class TestInputRecording {
+    private final LinkedList<KeyEvent> _keyEvents = new LinkedList<KeyEvent>();
+    private final LinkedList<MouseState> _mouseStates = new LinkedList<MouseState>();
+    private boolean _focusLost;
+
+    private final KeyboardWrapper _keyboard = new KeyboardWrapper() {
+        public void init() {}
+
+        public PeekingIterator<KeyEvent> getEvents() {
+            return new Drain<KeyEvent>(_keyEvents);
+        }
+    };
+
+    private final MouseWrapper _mouse = new MouseWrapper() {
+        public void init() {}
+
+        public PeekingIterator<MouseState> getEvents() {
+            return new Drain<MouseState>(_mouseStates);
+        }
+    };
+
+    private final FocusWrapper _focus = new FocusWrapper() {
+        public void init() {}
+
+        public boolean getAndClearFocusLost() {
+            final boolean lost = _focusLost;
+            _focusLost = false;
+            return lost;
+        }
+    };
+
+    @Test
+    public void testReplayGivesSameStates() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final InputRecorder recorder = new InputRecorder(bytes);
+        final PhysicalLayer recording = new PhysicalLayer(new RecordingKeyboardWrapper(_keyboard, recorder),
+                new RecordingMouseWrapper(_mouse, recorder), new RecordingFocusWrapper(_focus, recorder));
+
+        final List<List<InputState>> recorded = new ArrayList<List<InputState>>();
+        // frame 0: A down, then A up and down again, which takes separate states.
+        _keyEvents.add(new KeyEvent(Key.A, KeyState.DOWN));
+        _keyEvents.add(new KeyEvent(Key.A, KeyState.UP));
+        _keyEvents.add(new KeyEvent(Key.A, KeyState.DOWN));
+        _mouseStates.add(new MouseState(10, 20, 1, 2, 0, MouseButton.makeMap(ButtonState.DOWN, ButtonState.UP,
+                ButtonState.UP)));
+        recorded.add(read(recording));
+        // frame 1: nothing happens.
+        recorded.add(read(recording));
+        // frame 2: the wheel turns, then focus is lost.
+        _mouseStates.add(new MouseState(10, 20, 0, 0, -3, null));
+        _focusLost = true;
+        recorded.add(read(recording));
+        recorder.close();
+        assertEquals(3, recorder.getFrameCount());
+        assertEquals(3, recorded.get(0).size());
+        assertTrue(recorded.get(1).isEmpty());
+        assertSame(InputState.LOST_FOCUS, recorded.get(2).get(1));
+
+        final InputReplay replay = new InputReplay(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(3, replay.getFrameCount());
+        final PhysicalLayer replaying = new PhysicalLayer(new ReplayKeyboardWrapper(replay), new ReplayMouseWrapper(
+                replay), new ReplayFocusWrapper(replay));
+        for (int frame = 0; frame < recorded.size(); frame++) {
+            assertEquals(frame, replay.getFrame());
+            assertSameStates(recorded.get(frame), read(replaying));
+        }
+        assertTrue(replay.isFinished());
+        assertTrue(read(replaying).isEmpty());
+
+        replay.rewind();
+        assertFalse(replay.isFinished());
+        assertSameStates(recorded.get(0), read(replaying));
+    }
+
+    @Test
+    public void testTruncatedRecording() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final InputRecorder recorder = new InputRecorder(bytes);
+        final PhysicalLayer recording = new PhysicalLayer(new RecordingKeyboardWrapper(_keyboard, recorder),
+                new RecordingMouseWrapper(_mouse, recorder), new RecordingFocusWrapper(_focus, recorder));
+        _keyEvents.add(new KeyEvent(Key.A, KeyState.DOWN));
+        read(recording);
+        _mouseStates.add(new MouseState(10, 20, 1, 2, 0, null));
+        read(recording);
+        recorder.close();
+        final byte[] full = bytes.toByteArray();
+
+        // cutting the file anywhere inside the second frame, even inside an entry, drops just that frame.
+        for (int length = full.length - 1; length >= full.length - 27; length--) {
+            final byte[] cut = new byte[length];
+            System.arraycopy(full, 0, cut, 0, length);
+            assertEquals(1, new InputReplay(new ByteArrayInputStream(cut)).getFrameCount());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownKey() throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final InputRecorder recorder = new InputRecorder(bytes);
+        final PhysicalLayer recording = new PhysicalLayer(new RecordingKeyboardWrapper(_keyboard, recorder),
+                new RecordingMouseWrapper(_mouse, recorder), new RecordingFocusWrapper(_focus, recorder));
+        _keyEvents.add(new KeyEvent(Key.A, KeyState.DOWN));
+        read(recording);
+        recorder.close();
+
+        // the key ordinal follows the 4 byte magic, the version and the entry type.
+        final byte[] data = bytes.toByteArray();
+        data[6] = (byte) 0xff;
+        data[7] = (byte) 0xff;
+        new InputReplay(new ByteArrayInputStream(data));
+    }
+
+    private static List<InputState> read(final PhysicalLayer physicalLayer) {
+        physicalLayer.readState();
+        return physicalLayer.drainAvailableStates();
+    }
+
+    private static void assertSameStates(final List<InputState> expected, final List<InputState> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            final InputState e = expected.get(i), a = actual.get(i);
+            if (e == InputState.LOST_FOCUS) {
+                assertSame(InputState.LOST_FOCUS, a);
+                continue;
+            }
+            assertEquals(e.getKeyboardState().getKeysDown(), a.getKeyboardState().getKeysDown());
+            assertEquals(e.getMouseState().toString(), a.getMouseState().toString());
+        }
+    }
+
+    // like the real wrappers, keeps events that were only peeked at for the next iterator.
+    private static class Drain<E> implements PeekingIterator<E> {
+        private final LinkedList<E> _queue;
+
+        Drain(final LinkedList<E> queue) {
+            _queue = queue;
+        }
+
+        public boolean hasNext() {
+            return !_queue.isEmpty();
+        }
+
+        public E peek() {
+            return _queue.getFirst();
+        }
+
+        public E next() {
+            return _queue.removeFirst();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
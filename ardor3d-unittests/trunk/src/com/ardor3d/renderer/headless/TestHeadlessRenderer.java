@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.renderer.headless;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.framework.DisplaySettings;
+import com.ardor3d.framework.Scene;
+import com.ardor3d.intersection.PickResults;
+import com.ardor3d.math.Ray3;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.headless.HeadlessRenderer.Command;
+import com.ardor3d.renderer.state.RenderState.StateType;
+import com.ardor3d.renderer.state.ZBufferState;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.shape.Box;
+
+public class TestHeadlessRenderer {
+
+    @Test
+    public void testRecordsFrame() throws Exception {
+        final Node root = new Node("root");
+        final ZBufferState zbuf = new ZBufferState();
+        root.setRenderState(zbuf);
+        for (int i = 0; i < 10; i++) {
+            final Box box = new Box("box" + i, new Vector3(), 0.5, 0.5, 0.5);
+            box.setModelBound(new BoundingBox());
+            box.setTranslation(i - 5, 0, 0);
+            root.attachChild(box);
+        }
+        // one box far behind the camera.
+        final Box culled = new Box("culled", new Vector3(), 0.5, 0.5, 0.5);
+        culled.setModelBound(new BoundingBox());
+        culled.setTranslation(0, 0, 100);
+        root.attachChild(culled);
+        root.updateGeometricState(0);
+
+        final HeadlessCanvasRenderer canvas = new HeadlessCanvasRenderer(new Scene() {
+            public boolean renderUnto(final Renderer renderer) {
+                root.onDraw(renderer);
+                return true;
+            }
+
+            public PickResults doPick(final Ray3 pickRay) {
+                return null;
+            }
+        });
+        canvas.init(new DisplaySettings(320, 240, 0, 0, 0, 8, 0, 0, false), true);
+        final HeadlessRenderer renderer = canvas.getHeadlessRenderer();
+        renderer.setRecordCommands(true);
+
+        assertTrue(canvas.draw());
+        assertEquals(1, renderer.getFrameCount());
+        assertEquals(10, renderer.getCommandCount(Command.DrawElements));
+        assertEquals(10, renderer.getCommandCount(Command.PushTransform));
+        assertEquals(120, renderer.getPrimitiveCount());
+        assertEquals(360, renderer.getIndexCount());
+
+        // all boxes share the zbuffer state, so it is only applied for the first box after the clear.
+        assertEquals(9, renderer.getStateSkipCount(StateType.ZBuffer));
+        assertEquals(Command.DisplayBackBuffer, renderer.getLoggedCommand(renderer.getCommandLogSize() - 1));
+
+        renderer.resetStatistics();
+        assertEquals(0, renderer.getTotalCommandCount());
+        assertEquals(0, renderer.getCommandLogSize());
+        canvas.cleanup();
+    }
+
+    @Test
+    public void testEstimatesOverdraw() throws Exception {
+        final Node root = new Node("root");
+        final Box far = new Box("far", new Vector3(), 1, 1, 1);
+        far.setModelBound(new BoundingBox());
+        far.setTranslation(0, 0, -20);
+        final Box near = new Box("near", new Vector3(), 1, 1, 1);
+        near.setModelBound(new BoundingBox());
+        root.attachChild(far);
+        root.attachChild(near);
+        root.updateGeometricState(0);
+
+        final HeadlessCanvasRenderer canvas = new HeadlessCanvasRenderer(new Scene() {
+            public boolean renderUnto(final Renderer renderer) {
+                root.onDraw(renderer);
+                return true;
+            }
+
+            public PickResults doPick(final Ray3 pickRay) {
+                return null;
+            }
+        });
+        canvas.init(new DisplaySettings(320, 240, 0, 0, 0, 8, 0, 0, false), true);
+        final HeadlessRenderer renderer = canvas.getHeadlessRenderer();
+        renderer.setEstimateOverdraw(true);
+
+        // back to front: the near box covers tiles the far one was already drawn to.
+        canvas.draw();
+        assertTrue(renderer.getCoveredTileCount() > 0);
+        assertTrue(renderer.getOverdrawnTileCount() > 0);
+
+        // front to back: nothing is drawn over.
+        root.detachChild(far);
+        root.attachChild(far);
+        root.updateGeometricState(0);
+        renderer.resetStatistics();
+        canvas.draw();
+        assertTrue(renderer.getCoveredTileCount() > 0);
+        assertEquals(0, renderer.getOverdrawnTileCount());
+        canvas.cleanup();
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.renderer.queue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.framework.DisplaySettings;
+import com.ardor3d.framework.Scene;
+import com.ardor3d.intersection.PickResults;
+import com.ardor3d.math.Ray3;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.ContextManager;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.headless.HeadlessCanvasRenderer;
+import com.ardor3d.renderer.state.GLSLShaderObjectsState;
+import com.ardor3d.scenegraph.Spatial;
+import com.ardor3d.scenegraph.shape.Box;
+
+public class TestRenderBucketSort {
+    private HeadlessCanvasRenderer _canvas;
+
+    @Before
+    public void setUp() {
+        _canvas = new HeadlessCanvasRenderer(new Scene() {
+            public boolean renderUnto(final Renderer renderer) {
+                return true;
+            }
+
+            public PickResults doPick(final Ray3 pickRay) {
+                return null;
+            }
+        });
+        _canvas.init(new DisplaySettings(320, 240, 0, 0, 0, 8, 0, 0, false), true);
+        _canvas.setCurrentContext();
+        ContextManager.getCurrentContext().setCurrentCamera(_canvas.getCamera());
+        _canvas.getCamera().setLocation(new Vector3());
+        _canvas.getCamera().lookAt(new Vector3(0, 0, -1), Vector3.UNIT_Y);
+    }
+
+    @After
+    public void tearDown() {
+        _canvas.cleanup();
+    }
+
+    private static Box[] boxes(final int count) {
+        final Random random = new Random(42);
+        final Box[] boxes = new Box[count];
+        for (int i = 0; i < count; i++) {
+            boxes[i] = new Box("box" + i, new Vector3(), 0.5, 0.5, 0.5);
+            boxes[i].setModelBound(new BoundingBox());
+            boxes[i].setTranslation(random.nextDouble() * 10 - 5, 0, -random.nextInt(50));
+            boxes[i].updateGeometricState(0);
+        }
+        return boxes;
+    }
+
+    @Test
+    public void testCachedDepthsMatchComparator() throws Exception {
+        final Box[] boxes = boxes(200);
+        final TransparentRenderBucket cached = new TransparentRenderBucket(_canvas.getRenderer());
+        final TransparentRenderBucket uncached = new TransparentRenderBucket(_canvas.getRenderer());
+        uncached.setCacheViewDepths(false);
+        for (final Box box : boxes) {
+            cached.add(box);
+            uncached.add(box);
+        }
+        cached.sort();
+        uncached.sort();
+
+        // both sorts are stable, so they agree on ties too.
+        assertEquals(boxes.length, cached._currentListSize);
+        for (int i = 0; i < boxes.length; i++) {
+            assertSame(uncached._currentList[i], cached._currentList[i]);
+            assertEquals(-cached._currentList[i].getWorldTranslation().getZ(), cached._currentDepths[i], 1e-9);
+        }
+        for (int i = 1; i < boxes.length; i++) {
+            assertTrue(cached._currentDepths[i - 1] >= cached._currentDepths[i]);
+        }
+    }
+
+    @Test
+    public void testOpaqueFrontToBackWithinStates() throws Exception {
+        final Box[] boxes = boxes(50);
+        final OpaqueRenderBucket bucket = new OpaqueRenderBucket(_canvas.getRenderer());
+        for (final Box box : boxes) {
+            bucket.add(box);
+        }
+        bucket.pushBucket();
+        bucket.add(boxes[0]);
+        bucket.popBucket();
+        bucket.sort();
+        assertEquals(boxes.length, bucket._currentListSize);
+        for (int i = 1; i < boxes.length; i++) {
+            final Spatial previous = bucket._currentList[i - 1];
+            final Spatial current = bucket._currentList[i];
+            assertTrue(-previous.getWorldTranslation().getZ() <= -current.getWorldTranslation().getZ());
+        }
+    }
+
+    @Test
+    public void testOpaqueSortPolicies() throws Exception {
+        final GLSLShaderObjectsState[] shaders = new GLSLShaderObjectsState[2];
+        for (int i = 0; i < shaders.length; i++) {
+            shaders[i] = new GLSLShaderObjectsState();
+            shaders[i]._programID = i + 1;
+        }
+        // the camera sees 1 to 1000, so with two depth buckets the split is near 500.
+        final double[] depths = { 600, 10, 700, 20, 30, 650 };
+        final Box[] boxes = new Box[depths.length];
+        for (int i = 0; i < boxes.length; i++) {
+            boxes[i] = new Box("box" + i, new Vector3(), 0.5, 0.5, 0.5);
+            boxes[i].setModelBound(new BoundingBox());
+            boxes[i].setTranslation(0, 0, -depths[i]);
+            boxes[i].setRenderState(shaders[i % 2]);
+            boxes[i].updateGeometricState(0);
+        }
+        final OpaqueRenderBucket bucket = new OpaqueRenderBucket(_canvas.getRenderer());
+        bucket.setStateChangeCosts(1, 4);
+
+        bucket.setSortPolicy(OpaqueRenderBucket.SortPolicy.States);
+        assertOrder(bucket, boxes, 4, 0, 2, 1, 3, 5);
+
+        bucket.setSortPolicy(OpaqueRenderBucket.SortPolicy.FrontToBack);
+        assertOrder(bucket, boxes, 1, 3, 4, 0, 5, 2);
+
+        bucket.setSortPolicy(OpaqueRenderBucket.SortPolicy.DepthBuckets);
+        bucket.setDepthBucketCount(2);
+        assertOrder(bucket, boxes, 4, 1, 3, 0, 2, 5);
+    }
+
+    private static void assertOrder(final OpaqueRenderBucket bucket, final Box[] boxes, final int... expected) {
+        for (final Box box : boxes) {
+            bucket.add(box);
+        }
+        bucket.sort();
+        assertEquals(expected.length, bucket._currentListSize);
+        for (int i = 0; i < expected.length; i++) {
+            assertSame(boxes[expected[i]], bucket._currentList[i]);
+        }
+        bucket.clear();
+    }
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.renderer.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.light.DirectionalLight;
+import com.ardor3d.light.PointLight;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.renderer.state.RenderState.StateType;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.shape.Box;
+
+public class TestLightGrid {
+
+    @Test
+    public void testMatchesFullSelection() throws Exception {
+        final Random rand = new Random(1234);
+        final LightState lights = new LightState();
+        for (int i = 0; i < 500; i++) {
+            final PointLight light = new PointLight();
+            light.setAttenuate(true);
+            light.setConstant(1);
+            light.setQuadratic(0.1f);
+            light.setLocation(rand.nextDouble() * 100 - 50, rand.nextDouble() * 100 - 50, rand.nextDouble() * 100 - 50);
+            light.setEnabled(true);
+            lights.attach(light);
+        }
+        final DirectionalLight sun = new DirectionalLight();
+        sun.setEnabled(true);
+        sun.setDiffuse(new ColorRGBA(0.1f, 0.1f, 0.1f, 1));
+        sun.setAmbient(new ColorRGBA(0, 0, 0, 1));
+        lights.attach(sun);
+
+        final Node root = new Node("root");
+        root.setRenderState(lights);
+        for (int i = 0; i < 20; i++) {
+            final Box box = new Box("box" + i);
+            box.setModelBound(new BoundingBox());
+            box.setTranslation(rand.nextDouble() * 100 - 50, rand.nextDouble() * 100 - 50, rand.nextDouble() * 100 - 50);
+            root.attachChild(box);
+        }
+        root.updateGeometricState(0);
+
+        final LightGrid grid = new LightGrid(10);
+        grid.update(lights.getLightList());
+        assertEquals(501, grid.getLightCount());
+        assertEquals(1, grid.getGlobalLightCount());
+
+        final LightState expected = new LightState();
+        final LightState actual = new LightState();
+        for (int i = 0; i < 20; i++) {
+            final Box box = (Box) root.getChild(i);
+            LightUtil.selectLights(box, box.getLightState(), expected);
+            grid.selectLights(box, box.getLightState(), actual);
+
+            // every light bright enough to be binned is found
+            for (int j = 0; j < expected.getNumberOfChildren(); j++) {
+                if (LightUtil.getValueFor(expected.get(j), box.getWorldBound()) >= grid.getMinimumContribution()) {
+                    assertSame(expected.get(j), actual.get(j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSortLightsKeepsWorldState() throws Exception {
+        final LightState lights = new LightState();
+        for (int i = 0; i < 12; i++) {
+            final PointLight light = new PointLight();
+            light.setLocation(i, 0, 0);
+            light.setEnabled(true);
+            lights.attach(light);
+        }
+        final Node root = new Node("root");
+        root.setRenderState(lights);
+        final Box box = new Box("box");
+        box.setModelBound(new BoundingBox());
+        root.attachChild(box);
+        root.updateGeometricState(0);
+
+        final LightGrid grid = new LightGrid(5);
+        grid.update(lights.getLightList());
+        root.sortLights(grid);
+
+        assertEquals(12, box.getLightState().getLightList().size());
+        final LightState applied = (LightState) box._getWorldRenderState(StateType.Light);
+        assertEquals(LightState.MAX_LIGHTS_ALLOWED, applied.getNumberOfChildren());
+        assertTrue(applied != box.getLightState());
+        for (int i = 0; i < LightState.MAX_LIGHTS_ALLOWED; i++) {
+            assertSame(lights.get(i), applied.get(i));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.renderer.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.ardor3d.image.Texture2D;
+import com.ardor3d.light.PointLight;
+import com.ardor3d.renderer.state.RenderState.StateType;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.Spatial.TextureCombineMode;
+import com.ardor3d.scenegraph.shape.Box;
+
+public class TestRenderStateInterner {
+
+    @After
+    public void tearDown() {
+        RenderStateInterner.setEnabled(true);
+        RenderStateInterner.clear();
+    }
+
+    @Test
+    public void testSharedLightState() throws Exception {
+        final LightState lights = new LightState();
+        lights.attach(new PointLight());
+        final Node root = new Node("root");
+        root.setRenderState(lights);
+
+        final Node left = new Node("left");
+        final Node right = new Node("right");
+        final Box a = new Box("a");
+        final Box b = new Box("b");
+        left.attachChild(a);
+        right.attachChild(b);
+        root.attachChild(left);
+        root.attachChild(right);
+
+        // equal, but separate, local states still resolve to one world state
+        final LightState extra = new LightState();
+        final PointLight light = new PointLight();
+        extra.attach(light);
+        left.setRenderState(extra);
+        final LightState extraCopy = new LightState();
+        extraCopy.attach(light);
+        right.setRenderState(extraCopy);
+
+        root.updateGeometricState(0);
+        assertSame(a.getLightState(), b.getLightState());
+        assertTrue(a.getLightState().isInterned());
+        assertEquals(2, a.getLightState().getNumberOfChildren());
+
+        // a different combination gets its own state
+        right.clearRenderState(StateType.Light);
+        b.updateWorldRenderStates(false);
+        assertNotSame(a.getLightState(), b.getLightState());
+        assertEquals(1, b.getLightState().getNumberOfChildren());
+    }
+
+    @Test
+    public void testSharedTextureState() throws Exception {
+        final TextureState base = new TextureState();
+        base.setTexture(new Texture2D(), 0);
+        final TextureState detail = new TextureState();
+        detail.setTexture(new Texture2D(), 1);
+
+        final Node root = new Node("root");
+        root.setRenderState(base);
+        root.setTextureCombineMode(TextureCombineMode.CombineClosest);
+        final Box a = new Box("a");
+        final Box b = new Box("b");
+        a.setRenderState(detail);
+        b.setRenderState(detail);
+        root.attachChild(a);
+        root.attachChild(b);
+
+        root.updateGeometricState(0);
+        final RenderState stateA = a._getWorldRenderState(StateType.Texture);
+        assertSame(stateA, b._getWorldRenderState(StateType.Texture));
+        assertTrue(stateA.isInterned());
+
+        RenderStateInterner.setEnabled(false);
+        a.updateWorldRenderStates(false);
+        b.updateWorldRenderStates(false);
+        assertNotSame(a._getWorldRenderState(StateType.Texture), b._getWorldRenderState(StateType.Texture));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInternedStateIsImmutable() throws Exception {
+        final Node root = new Node("root");
+        final LightState lights = new LightState();
+        lights.attach(new PointLight());
+        root.setRenderState(lights);
+        final Box box = new Box("box");
+        root.attachChild(box);
+        root.updateGeometricState(0);
+
+        box.getLightState().detachAll();
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.renderer.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.ardor3d.image.Texture2D;
+import com.ardor3d.light.PointLight;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.type.ReadOnlyColorRGBA;
+import com.ardor3d.renderer.RenderContext;
+import com.ardor3d.renderer.headless.HeadlessContextCapabilities;
+import com.ardor3d.renderer.state.RenderState.StateType;
+
+public class TestStateHashCompare {
+
+    @Test
+    public void testContentHash() throws Exception {
+        final MaterialState a = new MaterialState();
+        final MaterialState b = new MaterialState();
+        assertEquals(a.getContentHash(), b.getContentHash());
+
+        b.setDiffuse(ColorRGBA.RED);
+        assertFalse(a.getContentHash() == b.getContentHash());
+
+        // all disabled states behave the same
+        a.setEnabled(false);
+        b.setEnabled(false);
+        assertEquals(a.getContentHash(), b.getContentHash());
+        assertTrue(a.isContentEqual(b));
+    }
+
+    @Test
+    public void testDistinctContent() throws Exception {
+        final BlendState blendA = new BlendState();
+        final BlendState blendB = new BlendState();
+        blendB.setBlendEnabled(true);
+        assertFalse(blendA.getContentHash() == blendB.getContentHash());
+        assertFalse(blendA.isContentEqual(blendB));
+
+        final FogState fogA = new FogState();
+        final FogState fogB = new FogState();
+        fogA.setStart(10);
+        fogB.setStart(20);
+        assertFalse(fogA.getContentHash() == fogB.getContentHash());
+        assertFalse(fogA.isContentEqual(fogB));
+
+        final MaterialState materialA = new MaterialState();
+        final MaterialState materialB = new MaterialState();
+        materialA.setAmbient(ColorRGBA.RED);
+        materialB.setAmbient(ColorRGBA.GREEN);
+        assertFalse(materialA.getContentHash() == materialB.getContentHash());
+        assertFalse(materialA.isContentEqual(materialB));
+
+        final PointLight shared = new PointLight();
+        final LightState lightA = new LightState();
+        final LightState lightB = new LightState();
+        lightA.attach(createLight(ColorRGBA.RED));
+        lightA.attach(shared);
+        lightB.attach(createLight(ColorRGBA.BLUE));
+        lightB.attach(shared);
+        assertFalse(lightA.getContentHash() == lightB.getContentHash());
+        assertFalse(lightA.isContentEqual(lightB));
+
+        final LightState lightC = new LightState();
+        lightC.attach(createLight(ColorRGBA.RED));
+        lightC.attach(shared);
+        assertEquals(lightA.getContentHash(), lightC.getContentHash());
+        assertTrue(lightA.isContentEqual(lightC));
+    }
+
+    private static PointLight createLight(final ReadOnlyColorRGBA diffuse) {
+        final PointLight light = new PointLight();
+        light.setDiffuse(new ColorRGBA(diffuse));
+        return light;
+    }
+
+    @Test
+    public void testHashCollision() throws Exception {
+        final RenderContext context = new RenderContext(this, new HeadlessContextCapabilities());
+        final CullState applied = new CollidingCullState();
+        applied.setCullFace(CullState.Face.Back);
+        final CullState other = new CollidingCullState();
+        other.setCullFace(CullState.Face.Front);
+        applied.setNeedsRefresh(false);
+        other.setNeedsRefresh(false);
+
+        context.stateApplied(applied);
+        assertEquals(applied.getContentHash(), other.getContentHash());
+        assertFalse(context.isStateCurrent(other));
+    }
+
+    private static class CollidingCullState extends CullState {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected int computeContentHash() {
+            return 1;
+        }
+    }
+
+    @Test
+    public void testSetterRefresh() throws Exception {
+        final RenderContext context = new RenderContext(this, new HeadlessContextCapabilities());
+        final BlendState applied = new BlendState();
+        applied.setBlendEnabled(true);
+        context.setCurrentState(StateType.Blend, applied);
+        context.stateApplied(applied);
+        applied.setNeedsRefresh(false);
+        final int hash = applied.getContentHash();
+        assertTrue(context.isStateCurrent(applied));
+
+        applied.setBlendEquationRGB(BlendState.BlendEquation.Subtract);
+        assertFalse(context.isStateCurrent(applied));
+        assertFalse(hash == applied.getContentHash());
+
+        context.stateApplied(applied);
+        applied.setNeedsRefresh(false);
+        applied.setBlendEquationAlpha(BlendState.BlendEquation.Subtract);
+        assertFalse(context.isStateCurrent(applied));
+
+        final FogState fog = new FogState();
+        fog.setNeedsRefresh(false);
+        fog.setSource(FogState.CoordinateSource.FogCoords);
+        assertTrue(fog.needsRefresh());
+    }
+
+    @Test
+    public void testStateCurrent() throws Exception {
+        final RenderContext context = new RenderContext(this, new HeadlessContextCapabilities());
+
+        final Texture2D texture = new Texture2D();
+        final TextureState applied = new TextureState();
+        applied.setTexture(texture);
+        final TextureState equal = new TextureState();
+        equal.setTexture(texture);
+        final TextureState other = new TextureState();
+        other.setTexture(new Texture2D());
+
+        assertFalse(context.isStateCurrent(equal));
+        context.setCurrentState(StateType.Texture, applied);
+        context.stateApplied(applied);
+        applied.setNeedsRefresh(false);
+        equal.setNeedsRefresh(false);
+        other.setNeedsRefresh(false);
+
+        assertTrue(context.isStateCurrent(equal));
+        assertFalse(context.isStateCurrent(other));
+
+        // texture changes are picked up without a setter call on the state.
+        texture.setTextureId(5);
+        assertFalse(context.isStateCurrent(equal));
+
+        context.stateApplied(applied);
+        assertTrue(context.isStateCurrent(equal));
+        context.invalidateStateHashes();
+        assertFalse(context.isStateCurrent(equal));
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.ardor3d.math.Vector3;
+import com.ardor3d.scenegraph.event.DirtyEventListener;
+import com.ardor3d.scenegraph.event.DirtyType;
+
+public class TestControllerScheduler {
+    private static class CountingController extends Controller {
+        private static final long serialVersionUID = 1L;
+
+        int updates;
+        double time;
+        double alpha;
+
+        @Override
+        public void update(final double tpf) {
+            updates++;
+            time += tpf;
+        }
+
+        @Override
+        public void interpolate(final double alpha) {
+            this.alpha = alpha;
+        }
+    }
+
+    private static class MovingController extends Controller {
+        private static final long serialVersionUID = 1L;
+
+        private final Spatial spatial;
+        private final int index;
+        private double time;
+
+        MovingController(final Spatial spatial, final int index) {
+            this.spatial = spatial;
+            this.index = index;
+            setIndependent(true);
+        }
+
+        @Override
+        public void update(final double tpf) {
+            time += tpf;
+            spatial.setTranslation(time, index, 0);
+        }
+    }
+
+    @Test
+    public void testFixedStep() throws Exception {
+        final ControllerScheduler scheduler = new ControllerScheduler(1);
+        final CountingController controller = new CountingController();
+        scheduler.addController(controller);
+        scheduler.setFixedTimeStep(0.01);
+
+        assertEquals(2, scheduler.update(0.025));
+        assertEquals(2, controller.updates);
+        assertEquals(0.02, controller.time, 1e-9);
+        assertEquals(0.5, controller.alpha, 1e-6);
+
+        // catch up is limited to max sub steps, excess time is dropped
+        scheduler.setMaxSubSteps(3);
+        assertEquals(3, scheduler.update(0.1));
+        assertEquals(5, controller.updates);
+        assertEquals(0.5, scheduler.getInterpolation(), 1e-6);
+        assertEquals(5, scheduler.getStats(controller).getUpdateCount());
+    }
+
+    @Test
+    public void testIndependentBatches() throws Exception {
+        final ControllerScheduler scheduler = new ControllerScheduler(4);
+        scheduler.setMinBatchSize(2);
+        final CountingController[] controllers = new CountingController[20];
+        for (int i = 0; i < controllers.length; i++) {
+            controllers[i] = new CountingController();
+            controllers[i].setIndependent(i % 3 != 0);
+            scheduler.addController(controllers[i]);
+        }
+        scheduler.update(0.5);
+        scheduler.update(0.5);
+        scheduler.shutdown();
+        for (final CountingController controller : controllers) {
+            assertEquals(2, controller.updates);
+            assertEquals(1.0, controller.time, 1e-9);
+        }
+    }
+
+    @Test
+    public void testIndependentMarks() throws Exception {
+        final Node root = new Node("root");
+        final Node parent = new Node("parent");
+        root.attachChild(parent);
+        final Node[] children = new Node[400];
+        for (int i = 0; i < children.length; i++) {
+            children[i] = new Node("child" + i);
+            parent.attachChild(children[i]);
+            children[i].addController(new MovingController(children[i], i));
+        }
+        final ControllerScheduler scheduler = new ControllerScheduler(4);
+        scheduler.setMinBatchSize(8);
+        scheduler.addControllers(root);
+        root.updateGeometricState(0);
+
+        // marks must only ever reach the shared parent from the calling thread
+        final Thread caller = Thread.currentThread();
+        final boolean[] markedElsewhere = new boolean[1];
+        parent.setListener(new DirtyEventListener() {
+            public boolean spatialDirty(final Spatial spatial, final DirtyType dirtyType) {
+                if (Thread.currentThread() != caller) {
+                    markedElsewhere[0] = true;
+                }
+                return false;
+            }
+        });
+
+        // every move made on a worker must reach the parent, or the clean branch skips the child
+        for (int frame = 1; frame <= 20; frame++) {
+            scheduler.update(1);
+            root.updateGeometricState(1);
+            for (int i = 0; i < children.length; i++) {
+                assertEquals(new Vector3(frame, i, 0), children[i].getWorldTranslation());
+            }
+        }
+        scheduler.shutdown();
+        assertFalse(markedElsewhere[0]);
+    }
+
+    @Test
+    public void testRemovalDuringUpdate() throws Exception {
+        final Node parent = new Node("parent");
+        final ControllerScheduler scheduler = new ControllerScheduler(4);
+        scheduler.setMinBatchSize(4);
+        scheduler.setFixedTimeStep(0.5);
+        for (int i = 0; i < 64; i++) {
+            final Node child = new Node("child" + i);
+            parent.attachChild(child);
+            final boolean inUpdate = i % 2 == 0;
+            final Controller controller = new Controller() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public void update(final double time) {
+                    if (inUpdate) {
+                        child.removeController(this);
+                    }
+                }
+
+                @Override
+                public void interpolate(final double alpha) {
+                    child.removeController(this);
+                }
+            };
+            controller.setIndependent(true);
+            child.addController(controller);
+        }
+        scheduler.addControllers(parent);
+
+        // half remove themselves on the workers, the rest while interpolating
+        scheduler.update(0.75);
+        scheduler.shutdown();
+        assertTrue(scheduler.getStats().isEmpty());
+        for (int i = 0; i < parent.getNumberOfChildren(); i++) {
+            assertEquals(0, parent.getChild(i).getControllerCount());
+        }
+        assertFalse(scheduler.removeController(new CountingController()));
+    }
+
+    @Test
+    public void testSpatialSkipsScheduled() throws Exception {
+        final Node root = new Node("root");
+        final Node child = new Node("child");
+        root.attachChild(child);
+        final CountingController controller = new CountingController();
+        child.addController(controller);
+
+        final ControllerScheduler scheduler = new ControllerScheduler(1);
+        scheduler.addControllers(root);
+        assertSame(scheduler, controller.getScheduler());
+
+        root.updateGeometricState(0.1);
+        assertEquals(0, controller.updates);
+        scheduler.update(0.1);
+        assertEquals(1, controller.updates);
+
+        scheduler.removeController(controller);
+        root.updateGeometricState(0.1);
+        assertEquals(2, controller.updates);
+    }
+
+    @Test
+    public void testRemovalUnschedules() throws Exception {
+        final Node root = new Node("root");
+        final Node branch = new Node("branch");
+        final Node leaf = new Node("leaf");
+        root.attachChild(branch);
+        branch.attachChild(leaf);
+        final CountingController first = new CountingController();
+        final CountingController second = new CountingController();
+        leaf.addController(first);
+        leaf.addController(second);
+
+        final ControllerScheduler scheduler = new ControllerScheduler(1);
+        scheduler.addControllers(root);
+        assertEquals(2, scheduler.getStats().size());
+
+        // removing a controller from its spatial unregisters it
+        leaf.removeController(first);
+        assertNull(first.getScheduler());
+        assertNull(scheduler.getStats(first));
+
+        // so does detaching its branch, and the controller is updated by its new parent
+        root.detachChild(branch);
+        assertNull(second.getScheduler());
+        assertTrue(scheduler.getStats().isEmpty());
+        final Node other = new Node("other");
+        other.attachChild(branch);
+        other.updateGeometricState(0.1);
+        assertEquals(1, second.updates);
+    }
+
+    @Test
+    public void testIndependenceChange() throws Exception {
+        final ControllerScheduler scheduler = new ControllerScheduler(2);
+        scheduler.setMinBatchSize(1);
+        final CountingController[] others = new CountingController[3];
+        for (int i = 0; i < others.length; i++) {
+            others[i] = new CountingController();
+            others[i].setIndependent(true);
+            scheduler.addController(others[i]);
+        }
+        final Thread caller = Thread.currentThread();
+        final Thread[] ranOn = new Thread[1];
+        final Controller probe = new Controller() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void update(final double time) {
+                ranOn[0] = Thread.currentThread();
+            }
+        };
+        scheduler.addController(probe);
+        scheduler.update(0.1);
+        assertSame(caller, ranOn[0]);
+
+        // flipping the flag after registration moves the controller into the worker's batch on the next update
+        probe.setIndependent(true);
+        scheduler.update(0.1);
+        scheduler.shutdown();
+        assertNotSame(caller, ranOn[0]);
+        assertEquals(2, others[2].updates);
+    }
+}
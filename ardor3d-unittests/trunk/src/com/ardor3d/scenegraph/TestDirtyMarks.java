@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.scenegraph.event.DirtyEventListener;
+import com.ardor3d.scenegraph.event.DirtyType;
+import com.ardor3d.scenegraph.shape.Box;
+
+public class TestDirtyMarks {
+
+    private static Box box(final String name) {
+        final Box box = new Box(name, new Vector3(), 1, 1, 1);
+        box.setModelBound(new BoundingBox());
+        return box;
+    }
+
+    @Test
+    public void testSubtreeMarksAreHandedDown() throws Exception {
+        final Node root = new Node("root");
+        final Node branch = new Node("branch");
+        final Node inner = new Node("inner");
+        final Box leaf = box("leaf");
+        root.attachChild(branch);
+        branch.attachChild(inner);
+        inner.attachChild(leaf);
+        root.updateGeometricState(0);
+        assertFalse(leaf.isDirty(DirtyType.Transform));
+        assertFalse(root.isDirty(DirtyType.Bounding));
+        assertFalse(root.isDirtyBelow());
+
+        branch.setTranslation(10, 0, 0);
+        // only the branch itself is marked, but the leaf is dirty through it.
+        assertTrue(leaf.isDirty(DirtyType.Transform));
+        assertFalse(leaf._dirtyMark.contains(DirtyType.Transform));
+        assertTrue(root.isDirty(DirtyType.Bounding));
+        assertFalse(root.isDirty(DirtyType.Transform));
+        assertTrue(root.isDirtyBelow());
+
+        root.updateGeometricState(0);
+        assertFalse(leaf.isDirty(DirtyType.Transform));
+        assertFalse(inner.isDirty(DirtyType.Bounding));
+        assertEquals(10, leaf.getWorldTranslation().getX(), 1e-9);
+        assertEquals(10, ((BoundingBox) root.getWorldBound()).getCenter().getX(), 1e-9);
+    }
+
+    @Test
+    public void testMarksStopAtMarkedAncestor() throws Exception {
+        final Node root = new Node("root");
+        final Node branch = new Node("branch");
+        final Box a = box("a");
+        final Box b = box("b");
+        root.attachChild(branch);
+        branch.attachChild(a);
+        branch.attachChild(b);
+        root.updateGeometricState(0);
+
+        a.setTranslation(5, 0, 0);
+        assertTrue(branch.isDirtyBelow());
+        assertTrue(root.isDirty(DirtyType.Bounding));
+
+        // clearing the root by hand shows b's mark does not climb past the already marked branch.
+        root.clearDirty(DirtyType.Bounding);
+        b.setTranslation(-5, 0, 0);
+        assertFalse(root.isDirty(DirtyType.Bounding));
+
+        root.markDirty(DirtyType.Bounding);
+        root.updateGeometricState(0);
+        final BoundingBox bound = (BoundingBox) root.getWorldBound();
+        assertEquals(0, bound.getCenter().getX(), 1e-9);
+        assertEquals(6, bound.getXExtent(), 1e-9);
+    }
+
+    @Test
+    public void testMarkDuringUpdateIsKept() throws Exception {
+        final Node root = new Node("root");
+        final Box a = box("a");
+        final Box b = box("b");
+        root.attachChild(a);
+        root.attachChild(b);
+        root.updateGeometricState(0);
+
+        // b moves a after a was already updated this pass.
+        b.addController(new Controller() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void update(final double time) {
+                a.setTranslation(20, 0, 0);
+            }
+        });
+        root.updateGeometricState(0);
+        assertTrue(root.isDirty(DirtyType.Bounding));
+        assertTrue(root.isDirtyBelow());
+
+        b.clearControllers();
+        root.updateGeometricState(0);
+        final BoundingBox bound = (BoundingBox) root.getWorldBound();
+        assertEquals(10, bound.getCenter().getX(), 1e-9);
+        assertEquals(11, bound.getXExtent(), 1e-9);
+        assertFalse(root.isDirty(DirtyType.Bounding));
+    }
+
+    @Test
+    public void testInitiatorHandsDownAncestorMarks() throws Exception {
+        final Node root = new Node("root");
+        final Node branch = new Node("branch");
+        final Box leaf = box("leaf");
+        root.attachChild(branch);
+        branch.attachChild(leaf);
+        root.updateGeometricState(0);
+
+        root.setTranslation(10, 0, 0);
+        root.updateWorldTransform(false);
+        // an update started below the marked root still brings the whole branch up to date.
+        branch.updateGeometricState(0);
+        assertFalse(leaf._dirtyMark.contains(DirtyType.Transform));
+        assertEquals(10, branch.getWorldTranslation().getX(), 1e-9);
+        assertEquals(10, leaf.getWorldTranslation().getX(), 1e-9);
+    }
+
+    @Test
+    public void testInheritedMarksFollowParentChanges() throws Exception {
+        final Node root = new Node("root");
+        final Node branch = new Node("branch");
+        final Box leaf = box("leaf");
+        root.attachChild(branch);
+        branch.attachChild(leaf);
+        root.updateGeometricState(0);
+
+        root.setTranslation(1, 0, 0);
+        assertTrue(leaf.isDirty(DirtyType.Transform));
+        // once the branch leaves the marked root, the leaf no longer inherits its mark.
+        root.detachChild(branch);
+        assertFalse(leaf.isDirty(DirtyType.Transform));
+        root.attachChild(branch);
+        assertTrue(leaf.isDirty(DirtyType.Transform));
+        root.updateGeometricState(0);
+        assertFalse(leaf.isDirty(DirtyType.Transform));
+    }
+
+    @Test
+    public void testListenerStillNotified() throws Exception {
+        final Node root = new Node("root");
+        final Box leaf = box("leaf");
+        root.attachChild(leaf);
+        final int[] events = new int[1];
+        root.setListener(new DirtyEventListener() {
+            public boolean spatialDirty(final Spatial spatial, final DirtyType dirtyType) {
+                events[0]++;
+                return true;
+            }
+        });
+        leaf.setTranslation(1, 0, 0);
+        leaf.setTranslation(2, 0, 0);
+        assertEquals(2, events[0]);
+        root.setListener(null);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.ardor3d.util.geom.BufferUtils;
+
+public class TestIndexBufferData {
+    @Test
+    public void testStorageSelection() throws Exception {
+        assertTrue(BufferUtils.createIndexBufferData(6, 255) instanceof ByteBufferData);
+        assertTrue(BufferUtils.createIndexBufferData(6, 256) instanceof ShortBufferData);
+        assertTrue(BufferUtils.createIndexBufferData(6, 65535) instanceof ShortBufferData);
+        assertTrue(BufferUtils.createIndexBufferData(6, 65536) instanceof IntBufferData);
+    }
+
+    @Test
+    public void testUnsignedValues() throws Exception {
+        final IndexBufferData<?> bytes = new ByteBufferData(2);
+        bytes.put(200).put(255);
+        assertEquals(200, bytes.get(0));
+        assertEquals(255, bytes.get(1));
+
+        final IndexBufferData<?> shorts = new ShortBufferData(2);
+        shorts.put(40000).put(65535);
+        shorts.rewind();
+        assertEquals(40000, shorts.get());
+        assertEquals(65535, shorts.get());
+    }
+
+    @Test
+    public void testCompactIndices() throws Exception {
+        final MeshData data = new MeshData();
+        data.setVertexBuffer(BufferUtils.createVector3Buffer(300));
+        data.setIndexBuffer(BufferUtils.createIntBuffer(0, 1, 299, 299, 1, 2));
+        assertEquals(4, data.getIndices().getByteCount());
+
+        data.compactIndices();
+        assertEquals(2, data.getIndices().getByteCount());
+        assertEquals(2, data.getTotalPrimitiveCount());
+        assertArrayEquals(new int[] { 0, 1, 299, 299, 1, 2 }, BufferUtils.getIntArray(data.getIndices()));
+    }
+}
@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+
+import com.ardor3d.framework.DisplaySettings;
+import com.ardor3d.framework.Scene;
+import com.ardor3d.intersection.PickResults;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.Ray3;
+import com.ardor3d.math.Transform;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.Renderer;
+import com.ardor3d.renderer.headless.HeadlessCanvasRenderer;
+import com.ardor3d.renderer.headless.HeadlessRenderer;
+import com.ardor3d.renderer.headless.HeadlessRenderer.Command;
+import com.ardor3d.scenegraph.shape.Box;
+
+public class TestInstancedMesh {
+
+    @Test
+    public void testCullAndDraw() throws Exception {
+        final Box box = new Box("box", new Vector3(), 0.5, 0.5, 0.5);
+        final InstancedMesh forest = new InstancedMesh("forest", box.getMeshData());
+        for (int i = 0; i < 10; i++) {
+            forest.addInstance(at(i - 5, 0, 0));
+        }
+        // one instance far behind the camera.
+        final int culled = forest.addInstance(at(0, 0, 100));
+        forest.setInstanceColor(3, ColorRGBA.RED);
+
+        final Node root = new Node("root");
+        root.attachChild(forest);
+        root.updateGeometricState(0);
+        assertTrue(forest.getWorldBound().contains(new Vector3(0, 0, 100)));
+        assertTrue(forest.getWorldBound().contains(new Vector3(-5, 0, 0)));
+
+        final HeadlessCanvasRenderer canvas = new HeadlessCanvasRenderer(new Scene() {
+            public boolean renderUnto(final Renderer renderer) {
+                root.onDraw(renderer);
+                return true;
+            }
+
+            public PickResults doPick(final Ray3 pickRay) {
+                return null;
+            }
+        });
+        canvas.init(new DisplaySettings(320, 240, 0, 0, 0, 8, 0, 0, false), true);
+        final HeadlessRenderer renderer = canvas.getHeadlessRenderer();
+
+        assertTrue(canvas.draw());
+        assertEquals(10, forest.getVisibleInstanceCount());
+        assertEquals(10, renderer.getInstanceCount());
+        assertEquals(1, renderer.getCommandCount(Command.DrawInstances));
+        assertEquals(0, renderer.getCommandCount(Command.DrawElements));
+        assertEquals(120, renderer.getPrimitiveCount());
+
+        // visible instances are packed together, colors included.
+        final FloatBuffer colors = forest.getVisibleColors();
+        assertEquals(1, colors.get(3 * 4), 0);
+        assertEquals(0, colors.get(3 * 4 + 1), 0);
+        assertEquals(1, colors.get(4 * 4 + 1), 0);
+        assertEquals(-5, forest.getVisibleMatrices().get(12), 0);
+
+        forest.setInstanceCulling(false);
+        renderer.resetStatistics();
+        canvas.draw();
+        assertEquals(11, renderer.getInstanceCount());
+
+        forest.removeInstance(culled);
+        forest.setInstanceCulling(true);
+        canvas.draw();
+        assertEquals(10, forest.getInstanceCount());
+        assertEquals(10, forest.getVisibleInstanceCount());
+        canvas.cleanup();
+    }
+
+    @Test
+    public void testNoInstances() throws Exception {
+        final InstancedMesh mesh = new InstancedMesh("empty", new Box("box", new Vector3(), 1, 1, 1).getMeshData());
+        mesh.updateGeometricState(0);
+        assertNull(mesh.getWorldBound());
+        assertEquals(0, mesh.cullInstances(null));
+        assertNull(mesh.getVisibleColors());
+    }
+
+    private static Transform at(final double x, final double y, final double z) {
+        final Transform transform = new Transform();
+        transform.setTranslation(x, y, z);
+        return transform;
+    }
+}
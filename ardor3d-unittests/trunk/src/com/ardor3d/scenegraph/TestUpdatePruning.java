@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestUpdatePruning {
+
+    private static class CountingNode extends Node {
+        private static final long serialVersionUID = 1L;
+
+        int updates;
+
+        CountingNode(final String name) {
+            super(name);
+        }
+
+        @Override
+        public void updateGeometricState(final double time, final boolean initiator) {
+            updates++;
+            super.updateGeometricState(time, initiator);
+        }
+    }
+
+    private static class CountingController extends Controller {
+        private static final long serialVersionUID = 1L;
+
+        int updates;
+
+        @Override
+        public void update(final double time) {
+            updates++;
+        }
+    }
+
+    @Test
+    public void testCleanBranchesAreSkipped() throws Exception {
+        final Node root = new Node("root");
+        final CountingNode a = new CountingNode("a");
+        final CountingNode b = new CountingNode("b");
+        final CountingNode leaf = new CountingNode("leaf");
+        root.attachChild(a);
+        root.attachChild(b);
+        b.attachChild(leaf);
+        root.updateGeometricState(0);
+        assertEquals(1, a.updates);
+        assertEquals(1, leaf.updates);
+
+        root.updateGeometricState(0);
+        assertEquals(1, a.updates);
+        assertEquals(1, b.updates);
+
+        leaf.setTranslation(1, 0, 0);
+        root.updateGeometricState(0);
+        assertEquals(1, a.updates);
+        assertEquals(2, b.updates);
+        assertEquals(2, leaf.updates);
+        assertEquals(1, leaf.getWorldTranslation().getX(), 1e-9);
+
+        // a transform on the root reaches every branch.
+        root.setTranslation(0, 2, 0);
+        root.updateGeometricState(0);
+        assertEquals(2, a.updates);
+        assertEquals(3, leaf.updates);
+        assertEquals(2, leaf.getWorldTranslation().getY(), 1e-9);
+    }
+
+    @Test
+    public void testControllersKeepBranchUpdated() throws Exception {
+        final Node root = new Node("root");
+        final Node branch = new Node("branch");
+        final CountingNode leaf = new CountingNode("leaf");
+        root.attachChild(branch);
+        branch.attachChild(leaf);
+        root.updateGeometricState(0);
+        assertFalse(root.hasUpdatersBelow());
+
+        final CountingController controller = new CountingController();
+        leaf.addController(controller);
+        assertTrue(root.hasUpdatersBelow());
+        root.updateGeometricState(0);
+        root.updateGeometricState(0);
+        assertEquals(2, controller.updates);
+
+        // moving the branch moves its count.
+        final Node other = new Node("other");
+        other.attachChild(branch);
+        assertFalse(root.hasUpdatersBelow());
+        assertTrue(other.hasUpdatersBelow());
+
+        leaf.removeController(controller);
+        assertFalse(other.hasUpdatersBelow());
+        leaf.setAlwaysUpdated(true);
+        assertTrue(other.hasUpdatersBelow());
+        other.updateGeometricState(0);
+        final int updates = leaf.updates;
+        other.updateGeometricState(0);
+        assertEquals(updates + 1, leaf.updates);
+
+        leaf.setAlwaysUpdated(false);
+        leaf.addController(controller);
+        leaf.addController(new CountingController());
+        leaf.clearControllers();
+        assertFalse(other.hasUpdatersBelow());
+        branch.detachChild(leaf);
+        assertFalse(branch.hasUpdatersBelow());
+    }
+}
@@ -0,0 +1,196 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph.extension;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.ardor3d.image.Texture;
+import com.ardor3d.image.Texture2D;
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.renderer.TextureRenderer;
+import com.ardor3d.scenegraph.Controller;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.Spatial;
+
+public class TestImposterManager {
+
+    /** Records what would be rendered. */
+    private static class FakeTextureRenderer implements TextureRenderer {
+        final Camera _camera = new Camera(256, 256);
+        final List<Spatial> _rendered = new ArrayList<Spatial>();
+        final List<double[]> _viewPorts = new ArrayList<double[]>();
+
+        public boolean isSupported() {
+            return true;
+        }
+
+        public Camera getCamera() {
+            return _camera;
+        }
+
+        public void setCamera(final Camera camera) {}
+
+        public void render(final Spatial spat, final Texture tex) {}
+
+        public void render(final Spatial spat, final Texture tex, final boolean doClear) {}
+
+        public void render(final List<? extends Spatial> spats, final List<Texture> tex) {}
+
+        public void render(final List<? extends Spatial> spats, final List<Texture> tex, final boolean doClear) {
+            assertFalse(doClear);
+            _rendered.add(spats.get(spats.size() - 1));
+            _viewPorts.add(new double[] { _camera.getViewPortLeft(), _camera.getViewPortBottom() });
+        }
+
+        public void setBackgroundColor(final ColorRGBA c) {}
+
+        public ColorRGBA getBackgroundColor(final ColorRGBA store) {
+            return store;
+        }
+
+        public void setupTexture(final Texture2D tex) {}
+
+        public void copyToTexture(final Texture tex, final int width, final int height) {}
+
+        public void cleanup() {}
+
+        public void setMultipleTargets(final boolean multi) {}
+
+        public int getWidth() {
+            return 256;
+        }
+
+        public int getHeight() {
+            return 256;
+        }
+    }
+
+    @Test
+    public void testRendersWithinBudgetByPriority() throws Exception {
+        final FakeTextureRenderer textureRenderer = new FakeTextureRenderer();
+        final ImposterManager manager = new ImposterManager("imposters", textureRenderer, 2);
+        manager.setRenderBudget(3);
+
+        // the first imposters are the farthest away, so the smallest on screen.
+        final List<ImposterManager.Imposter> imposters = new ArrayList<ImposterManager.Imposter>();
+        for (int i = 0; i < 10; i++) {
+            imposters.add(manager.addImposter(new Node("tree" + i), new Vector3(i - 5, 0, -100 + i * 5), 1));
+        }
+        // four tiles to a page.
+        assertEquals(3, manager.getPageCount());
+        assertNotSame(manager.getTexture(imposters.get(0)), manager.getTexture(imposters.get(4)));
+
+        final Camera camera = new Camera(800, 600);
+        camera.setFrustumPerspective(45, 800 / 600.0, 1, 1000);
+        camera.setLocation(new Vector3(0, 0, 10));
+        camera.lookAt(new Vector3(0, 0, 0), Vector3.UNIT_Y);
+
+        manager.update(camera);
+        assertEquals(3, manager.getRenderedCount());
+        assertEquals(7, manager.getPendingCount());
+        assertSame(imposters.get(9).getScene(), textureRenderer._rendered.get(0));
+        assertSame(imposters.get(8).getScene(), textureRenderer._rendered.get(1));
+        assertTrue(imposters.get(9).isRendered());
+        assertFalse(imposters.get(0).isRendered());
+        // the last imposter is in the second tile of the third page, at the bottom right.
+        assertEquals(0.5, textureRenderer._viewPorts.get(0)[0], 1e-9);
+        assertEquals(0, textureRenderer._viewPorts.get(0)[1], 1e-9);
+
+        manager.update(camera);
+        manager.update(camera);
+        manager.update(camera);
+        assertEquals(1, manager.getRenderedCount());
+        assertEquals(0, manager.getPendingCount());
+        assertEquals(10, textureRenderer._rendered.size());
+
+        // nothing moved, so nothing is rendered again.
+        manager.update(camera);
+        assertEquals(0, manager.getRenderedCount());
+
+        // only the imposters whose direction changed enough are rendered again: the seven nearest ones.
+        manager.setAngleThreshold(0.2);
+        camera.setLocation(new Vector3(20, 0, 10));
+        camera.lookAt(new Vector3(0, 0, -50), Vector3.UNIT_Y);
+        manager.update(camera);
+        assertEquals(3, manager.getRenderedCount());
+        assertEquals(4, manager.getPendingCount());
+        assertSame(imposters.get(9).getScene(), textureRenderer._rendered.get(10));
+        manager.update(camera);
+        manager.update(camera);
+        assertEquals(1, manager.getRenderedCount());
+        manager.update(camera);
+        assertEquals(0, manager.getRenderedCount());
+
+        imposters.get(0).markDirty();
+        manager.update(camera);
+        assertEquals(1, manager.getRenderedCount());
+        assertSame(imposters.get(0).getScene(), textureRenderer._rendered.get(textureRenderer._rendered.size() - 1));
+    }
+
+    @Test
+    public void testTimeUnderCleanParent() throws Exception {
+        final Node root = new Node("root");
+        final ImposterManager manager = new ImposterManager("imposters", new FakeTextureRenderer(), 2);
+        root.attachChild(manager);
+        final Node tree = new Node("tree");
+        final double[] elapsed = new double[1];
+        tree.addController(new Controller() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void update(final double time) {
+                elapsed[0] += time;
+            }
+        });
+        manager.addImposter(tree, new Vector3(0, 0, -50), 1);
+
+        // once the root is clean, only the manager's own wish to be updated gets it visited.
+        root.updateGeometricState(0);
+        root.updateGeometricState(1.5);
+        root.updateGeometricState(1.5);
+
+        final Camera camera = new Camera(800, 600);
+        camera.setFrustumPerspective(45, 800 / 600.0, 1, 1000);
+        camera.setLocation(new Vector3(0, 0, 10));
+        camera.lookAt(new Vector3(0, 0, 0), Vector3.UNIT_Y);
+        manager.update(camera);
+        assertEquals(1, manager.getRenderedCount());
+        assertEquals(3, elapsed[0], 1e-9);
+    }
+
+    @Test
+    public void testRemoveFreesTile() throws Exception {
+        final ImposterManager manager = new ImposterManager("imposters", new FakeTextureRenderer(), 2);
+        final List<ImposterManager.Imposter> imposters = new ArrayList<ImposterManager.Imposter>();
+        for (int i = 0; i < 4; i++) {
+            imposters.add(manager.addImposter(new Node("tree" + i), new Vector3(i, 0, 0), 1));
+        }
+        assertEquals(1, manager.getPageCount());
+
+        final Texture2D page = manager.getTexture(imposters.get(1));
+        assertTrue(manager.removeImposter(imposters.get(1)));
+        assertFalse(manager.removeImposter(imposters.get(1)));
+        final ImposterManager.Imposter added = manager.addImposter(new Node("tree"), new Vector3(), 1);
+        assertEquals(1, manager.getPageCount());
+        assertSame(page, manager.getTexture(added));
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.scenegraph.extension;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.ardor3d.math.Vector3;
+import com.ardor3d.renderer.Camera;
+import com.ardor3d.scenegraph.MeshData;
+import com.ardor3d.scenegraph.shape.Sphere;
+import com.ardor3d.util.geom.MeshSimplifier;
+
+public class TestLodNode {
+
+    @Test
+    public void testSelectWithHysteresis() throws Exception {
+        final MeshData[] levels = new MeshSimplifier().buildLevels(new Sphere("s", 16, 16, 1).getMeshData(), 3, 0.25);
+        final LodNode lod = new LodNode("lod", levels, 100, 20);
+        lod.updateGeometricState(0);
+
+        final Camera camera = new Camera(800, 600);
+        camera.setFrustumPerspective(45, 800 / 600.0, 1, 1000);
+
+        moveTo(camera, 2);
+        assertEquals(0, lod.selectLevel(camera));
+
+        // find the distance right at the first threshold.
+        moveTo(camera, 10);
+        final double atThreshold = 10 * LodNode.getScreenSize(lod.getWorldBound(), camera) / 100;
+        moveTo(camera, atThreshold * 1.05);
+        assertEquals(0, lod.selectLevel(camera));
+        moveTo(camera, atThreshold * 1.2);
+        assertEquals(1, lod.selectLevel(camera));
+        // coming back a little closer than the threshold does not switch back yet.
+        moveTo(camera, atThreshold * 0.95);
+        assertEquals(1, lod.selectLevel(camera));
+        moveTo(camera, atThreshold * 0.8);
+        assertEquals(0, lod.selectLevel(camera));
+
+        // far away jumps straight to the coarsest level.
+        moveTo(camera, 1000);
+        assertEquals(2, lod.selectLevel(camera));
+        assertEquals(2, lod.getCurrentLevel());
+    }
+
+    private static void moveTo(final Camera camera, final double distance) {
+        camera.setLocation(new Vector3(0, 0, distance));
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.ui.text;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.Vector2;
+import com.ardor3d.renderer.state.TextureState;
+
+public class TestTextBatch {
+
+    private static GlyphAtlas atlas() {
+        return GlyphAtlas.createGrid(new TextureState(), 16, 16, ' ', 16, 10);
+    }
+
+    @Test
+    public void testMeasure() throws Exception {
+        final GlyphAtlas atlas = atlas();
+        assertEquals(30, atlas.getWidth("abc"), 1e-9);
+        assertEquals(30, atlas.getWidth("ab\nabc\n"), 1e-9);
+        assertEquals(48, atlas.getHeight("ab\nabc\n"), 1e-9);
+        assertEquals(new Vector2(20, 16), atlas.measure("ab", null));
+        assertNull(atlas.getGlyph((char) 0x4e00));
+
+        // 'A' is the 33rd character from ' ': row 2, column 1 of the grid, counting from the top left.
+        final GlyphAtlas.Glyph glyph = atlas.getGlyph('A');
+        assertEquals(1 / 16f, glyph.getU0(), 1e-6);
+        assertEquals(1 - 3 / 16f, glyph.getV0(), 1e-6);
+    }
+
+    @Test
+    public void testLabelsShareOneMesh() throws Exception {
+        final TextBatch batch = new TextBatch("batch", atlas());
+        final TextLabel first = batch.addLabel("abcd", 100, 50);
+        final TextLabel second = batch.addLabel("xy", 0, 0);
+        second.setScale(2);
+        second.setColor(ColorRGBA.RED);
+        batch.update();
+
+        // each label keeps at least four quads.
+        assertEquals(8 * 4, batch.getMeshData().getVertexCount());
+        final FloatBuffer vertices = batch.getMeshData().getVertexBuffer();
+        assertEquals(100, vertices.get(0), 1e-6);
+        assertEquals(50, vertices.get(1), 1e-6);
+        // second quad of the first label starts one advance to the right.
+        assertEquals(110, vertices.get(12), 1e-6);
+        // the second label's first quad is twice the size.
+        assertEquals(32, vertices.get(16 * 3 + 6), 1e-6);
+        assertEquals(1, batch.getMeshData().getColorBuffer().get(16 * 4), 1e-6);
+        assertEquals(0, batch.getMeshData().getColorBuffer().get(16 * 4 + 1), 1e-6);
+
+        // changing one label only rewrites its range.
+        second.setText("z");
+        batch.update();
+        assertEquals(16, batch.getDirtyVertexStart());
+        assertEquals(16, batch.getDirtyVertexCount());
+        // the freed quad collapses.
+        assertEquals(0, vertices.get(5 * 12 + 6), 1e-6);
+
+        // growing past its range moves the label to the end.
+        first.setText("a longer text");
+        batch.update();
+        assertEquals(8 * 4 + 13 * 4, batch.getMeshData().getVertexCount());
+        assertEquals(100, batch.getMeshData().getVertexBuffer().get(8 * 12), 1e-6);
+        assertTrue(batch.getMeshData().getVertexBuffer().get(0) == 0);
+
+        // removing the last label gives its quads back.
+        first.remove();
+        batch.update();
+        assertEquals(8 * 4, batch.getMeshData().getVertexCount());
+        assertEquals(1, batch.getLabels().size());
+        assertEquals(20, second.getWidth(), 1e-9);
+    }
+
+    @Test
+    public void testRemovedLabelIsIgnored() throws Exception {
+        final TextBatch batch = new TextBatch("batch", atlas());
+        final TextLabel label = batch.addLabel("abcd", 100, 50);
+        batch.update();
+        label.remove();
+        batch.update();
+        assertEquals(0, batch.getMeshData().getVertexCount());
+
+        // changing a removed label does not bring it back.
+        label.setText("ghost");
+        label.setPosition(10, 10);
+        batch.update();
+        assertEquals(0, batch.getMeshData().getVertexCount());
+        assertTrue(batch.getLabels().isEmpty());
+        assertFalse(batch.removeLabel(label));
+    }
+}
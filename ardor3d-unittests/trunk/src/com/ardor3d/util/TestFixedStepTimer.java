@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TestFixedStepTimer {
+
+    @Test
+    public void testFixedSteps() throws Exception {
+        final FixedStepTimer timer = new FixedStepTimer(1 / 60.0);
+        assertEquals(0, timer.getTime());
+        for (int i = 0; i < 120; i++) {
+            timer.update();
+        }
+        assertEquals(120, timer.getFrameCount());
+        assertEquals(2, timer.getTimeInSeconds(), 1e-6);
+        assertEquals(1 / 60.0, timer.getTimePerFrame(), 1e-9);
+        assertEquals(60, timer.getFrameRate(), 1e-4);
+
+        timer.reset();
+        assertEquals(0, timer.getTime());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsZeroStep() throws Exception {
+        new FixedStepTimer(0);
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class TestGameTaskQueue {
+
+    private static Callable<Integer> task(final List<Integer> order, final int id, final long sleepMS) {
+        return new Callable<Integer>() {
+            public Integer call() throws Exception {
+                if (sleepMS > 0) {
+                    Thread.sleep(sleepMS);
+                }
+                order.add(id);
+                return id;
+            }
+        };
+    }
+
+    @Test
+    public void testOnePerExecuteInPriorityOrder() throws Exception {
+        final GameTaskQueue queue = new GameTaskQueue("test");
+        final List<Integer> order = new ArrayList<Integer>();
+        queue.enqueue(task(order, 0, 0));
+        queue.enqueue(task(order, 1, 0), 5);
+        queue.enqueue(task(order, 2, 0));
+        final Future<Integer> cancelled = queue.enqueue(task(order, 3, 0), 10);
+        cancelled.cancel(false);
+        assertEquals(4, queue.getBacklog());
+
+        queue.execute();
+        assertEquals(1, order.size());
+        assertEquals(1, (int) order.get(0));
+        queue.execute();
+        queue.execute();
+        assertEquals(3, order.size());
+        assertEquals(0, (int) order.get(1));
+        assertEquals(2, (int) order.get(2));
+        assertEquals(0, queue.getBacklog());
+        assertEquals(3, queue.getExecutedCount());
+        assertEquals(3, queue.getLatencyHistogram().getCount());
+    }
+
+    @Test
+    public void testBudgetAndDeadlines() throws Exception {
+        final GameTaskQueue queue = new GameTaskQueue();
+        queue.setExecutionBudget(10);
+        final List<Integer> order = new ArrayList<Integer>();
+        for (int i = 0; i < 20; i++) {
+            queue.enqueue(task(order, i, 4));
+        }
+        // low priority, but due right away.
+        queue.enqueue(task(order, 100, 0), -1, 0);
+
+        queue.execute();
+        // the budget stops us after a few tasks, the overdue one runs anyway.
+        assertTrue(order.size() >= 2 && order.size() < 10);
+        assertEquals(100, (int) order.get(order.size() - 1));
+        assertEquals(1, queue.getOverdueCount());
+
+        final int firstFrame = order.size();
+        queue.execute();
+        assertTrue(order.size() > firstFrame);
+
+        queue.setExecuteAll(true);
+        queue.execute();
+        assertEquals(21, order.size());
+        assertEquals(0, queue.getBacklog());
+        assertEquals(21, queue.getExecutedCount());
+        assertTrue(queue.getExecutionTimeHistogram().getMax() >= 4);
+    }
+}
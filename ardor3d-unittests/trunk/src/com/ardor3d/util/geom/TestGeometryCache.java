@@ -0,0 +1,159 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.ardor3d.math.ColorRGBA;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.scenegraph.MeshData;
+import com.ardor3d.scenegraph.shape.Capsule;
+import com.ardor3d.scenegraph.shape.Cylinder;
+import com.ardor3d.scenegraph.shape.Sphere;
+
+public class TestGeometryCache {
+
+    @After
+    public void disableCache() {
+        GeometryCache.setEnabled(false);
+    }
+
+    @Test
+    public void testOffByDefault() throws Exception {
+        final Sphere a = new Sphere("a", 8, 8, 1);
+        final Sphere b = new Sphere("b", 8, 8, 1);
+        assertNotSame(a.getMeshData(), b.getMeshData());
+        assertFalse(a.getMeshData().isShared());
+        assertEquals(0, GeometryCache.size());
+    }
+
+    @Test
+    public void testSharesAlikeShapes() throws Exception {
+        GeometryCache.setEnabled(true);
+        final Sphere a = new Sphere("a", 8, 8, 1);
+        final Sphere b = new Sphere("b", new Vector3(), 8, 8, 1);
+        assertSame(a.getMeshData(), b.getMeshData());
+        assertTrue(a.getMeshData().isShared());
+        assertNotSame(a.getMeshData(), new Sphere("c", 8, 8, 2).getMeshData());
+        assertNotSame(a.getMeshData(), new Sphere("d", new Vector3(1, 0, 0), 8, 8, 1).getMeshData());
+
+        final Cylinder cylinder = new Cylinder("e", 4, 8, 1, 2, true);
+        assertSame(cylinder.getMeshData(), new Cylinder("f", 4, 8, 1, 2, true).getMeshData());
+        assertNotSame(cylinder.getMeshData(), new Cylinder("g", 4, 8, 1, 2, false).getMeshData());
+    }
+
+    @Test
+    public void testCopyOnWrite() throws Exception {
+        GeometryCache.setEnabled(true);
+        final Sphere a = new Sphere("a", 8, 8, 1);
+        final Sphere b = new Sphere("b", 8, 8, 1);
+        final MeshData shared = a.getMeshData();
+
+        final MeshData writable = a.getWritableMeshData();
+        assertNotSame(shared, writable);
+        assertSame(writable, a.getMeshData());
+        assertSame(writable, a.getWritableMeshData());
+        assertFalse(writable.isShared());
+        assertEquals(shared.getVertexCount(), writable.getVertexCount());
+        assertEquals(shared.getIndices().get(5), writable.getIndices().get(5));
+        assertEquals(shared.getTextureBuffer(0).get(7), writable.getTextureBuffer(0).get(7), 0);
+
+        writable.getVertexBuffer().put(0, 100);
+        assertEquals(100, a.getMeshData().getVertexBuffer().get(0), 0);
+        assertTrue(b.getMeshData().getVertexBuffer().get(0) != 100);
+
+        // the shapes' own setters leave shared geometry alone.
+        final Cylinder c = new Cylinder("c", 4, 8, 1, 2, true);
+        final Cylinder d = new Cylinder("d", 4, 8, 1, 2, true);
+        d.setHeight(4);
+        assertNotSame(c.getMeshData(), d.getMeshData());
+        assertSame(c.getMeshData(), new Cylinder("e", 4, 8, 1, 2, true).getMeshData());
+
+        final Capsule e = new Capsule("e", 4, 8, 4, 1, 2);
+        final Capsule f = new Capsule("f", 4, 8, 4, 1, 2);
+        f.setRadius(3);
+        assertFalse(f.getMeshData().isShared());
+        assertEquals(3, maxX(f.getMeshData()), 1e-5);
+        assertEquals(1, maxX(e.getMeshData()), 1e-5);
+    }
+
+    @Test
+    public void testMeshSettersCopy() throws Exception {
+        GeometryCache.setEnabled(true);
+        final Sphere a = new Sphere("a", 8, 8, 1);
+        final Sphere b = new Sphere("b", 8, 8, 1);
+        final MeshData shared = b.getMeshData();
+
+        a.setSolidColor(ColorRGBA.RED);
+        assertNotSame(shared, a.getMeshData());
+        assertEquals(1, a.getMeshData().getColorBuffer().get(0), 0);
+        assertNull(shared.getColorBuffer());
+        assertNull(new Sphere("c", 8, 8, 1).getMeshData().getColorBuffer());
+
+        final Sphere d = new Sphere("d", 8, 8, 1);
+        d.setRandomColors();
+        assertNotSame(shared, d.getMeshData());
+        assertNull(shared.getColorBuffer());
+
+        final Sphere e = new Sphere("e", 8, 8, 1);
+        final FloatBuffer vertices = BufferUtils.createVector3Buffer(3);
+        e.reconstruct(vertices, null, null, null, null);
+        assertSame(vertices, e.getMeshData().getVertexBuffer());
+        assertNotSame(vertices, shared.getVertexBuffer());
+        assertNotNull(shared.getIndices());
+    }
+
+    @Test
+    public void testToolsCopy() throws Exception {
+        GeometryCache.setEnabled(true);
+        final Sphere reference = new Sphere("reference", 8, 8, 1);
+        final MeshData shared = reference.getMeshData();
+        final int vertexCount = shared.getVertexCount();
+        final int[] indices = BufferUtils.getIntArray(shared.getIndices());
+        final float[] vertices = BufferUtils.getFloatArray(shared.getVertexBuffer());
+
+        // the sphere's seam and poles repeat vertices, which minimizing merges.
+        final Sphere a = new Sphere("a", 8, 8, 1);
+        GeometryTool.minimizeVerts(a, 0);
+        assertNotSame(shared, a.getMeshData());
+        assertTrue(a.getMeshData().getVertexCount() < vertexCount);
+
+        // splitting along creases rewrites the buffers in place when they are large enough.
+        final Sphere b = new Sphere("b", 8, 8, 1);
+        new NormalGenerator().generateNormals(b, 0.1f);
+        assertNotSame(shared, b.getMeshData());
+
+        assertSame(shared, new Sphere("c", 8, 8, 1).getMeshData());
+        assertEquals(vertexCount, shared.getVertexCount());
+        assertTrue(Arrays.equals(indices, BufferUtils.getIntArray(shared.getIndices())));
+        assertTrue(Arrays.equals(vertices, BufferUtils.getFloatArray(shared.getVertexBuffer())));
+    }
+
+    private static double maxX(final MeshData data) {
+        double max = 0;
+        for (int i = 0; i < data.getVertexCount(); i++) {
+            max = Math.max(max, data.getVertexBuffer().get(i * 3));
+        }
+        return max;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.scenegraph.IndexBufferData;
+import com.ardor3d.scenegraph.MeshData;
+import com.ardor3d.scenegraph.shape.Sphere;
+
+public class TestMeshSimplifier {
+
+    @Test
+    public void testFlatGridKeepsOutline() throws Exception {
+        final int size = 10;
+        final FloatBuffer verts = BufferUtils.createVector3Buffer((size + 1) * (size + 1));
+        for (int z = 0; z <= size; z++) {
+            for (int x = 0; x <= size; x++) {
+                verts.put(x).put(0).put(z);
+            }
+        }
+        final int[] indices = new int[size * size * 6];
+        int i = 0;
+        for (int z = 0; z < size; z++) {
+            for (int x = 0; x < size; x++) {
+                final int corner = z * (size + 1) + x;
+                indices[i++] = corner;
+                indices[i++] = corner + size + 1;
+                indices[i++] = corner + 1;
+                indices[i++] = corner + 1;
+                indices[i++] = corner + size + 1;
+                indices[i++] = corner + size + 2;
+            }
+        }
+        final MeshData grid = new MeshData();
+        grid.setVertexBuffer(verts);
+        grid.setIndices(BufferUtils.createIndexBufferData(indices));
+
+        final MeshData simple = new MeshSimplifier().simplify(grid, 2);
+        assertEquals(2, simple.getTotalPrimitiveCount());
+        assertEquals(4, simple.getVertexCount());
+        // the outline and the area are unchanged, so no triangle folded over.
+        assertEquals(size * size, area(simple), 1e-6);
+        final BoundingBox bound = new BoundingBox();
+        bound.computeFromPoints(simple.getVertexBuffer());
+        assertEquals(size / 2.0, bound.getXExtent(), 1e-6);
+        assertEquals(size / 2.0, bound.getZExtent(), 1e-6);
+    }
+
+    @Test
+    public void testLevels() throws Exception {
+        final Sphere sphere = new Sphere("sphere", 32, 32, 1);
+        final MeshData[] levels = new MeshSimplifier().buildLevels(sphere.getMeshData(), 4, 0.5);
+        assertEquals(4, levels.length);
+        for (int l = 1; l < levels.length; l++) {
+            final int previous = levels[l - 1].getTotalPrimitiveCount();
+            assertTrue(levels[l].getTotalPrimitiveCount() <= previous / 2);
+            assertTrue(levels[l].getVertexCount() < levels[l - 1].getVertexCount());
+            assertEquals(levels[l].getVertexCount(), levels[l].getNormalBuffer().limit() / 3);
+            assertEquals(levels[l].getVertexCount(), levels[l].getTextureCoords(0).coords.limit() / 2);
+
+            // only vertices of the sphere are kept, and the shape still spans it.
+            final BoundingBox bound = new BoundingBox();
+            bound.computeFromPoints(levels[l].getVertexBuffer());
+            assertTrue(bound.getXExtent() > 0.9 && bound.getYExtent() > 0.9 && bound.getZExtent() > 0.9);
+            final Vector3 vert = new Vector3();
+            for (int v = 0; v < levels[l].getVertexCount(); v++) {
+                BufferUtils.populateFromBuffer(vert, levels[l].getVertexBuffer(), v);
+                assertEquals(1, vert.length(), 1e-5);
+            }
+        }
+    }
+
+    private static double area(final MeshData data) {
+        final IndexBufferData<?> indices = data.getIndices();
+        final Vector3 a = new Vector3(), b = new Vector3(), c = new Vector3();
+        double area = 0;
+        for (int t = 0; t < data.getTotalPrimitiveCount(); t++) {
+            BufferUtils.populateFromBuffer(a, data.getVertexBuffer(), indices.get(t * 3));
+            BufferUtils.populateFromBuffer(b, data.getVertexBuffer(), indices.get(t * 3 + 1));
+            BufferUtils.populateFromBuffer(c, data.getVertexBuffer(), indices.get(t * 3 + 2));
+            area += b.subtractLocal(a).crossLocal(c.subtractLocal(a)).length() / 2;
+        }
+        return area;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util.geom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.ardor3d.bounding.BoundingBox;
+import com.ardor3d.bounding.BoundingVolume;
+import com.ardor3d.bounding.CollisionTree;
+import com.ardor3d.bounding.CollisionTreeManager;
+import com.ardor3d.math.Vector3;
+import com.ardor3d.scenegraph.Mesh;
+import com.ardor3d.scenegraph.Node;
+import com.ardor3d.scenegraph.Spatial;
+import com.ardor3d.scenegraph.shape.Box;
+
+public class TestSceneCopier {
+
+    @Test
+    public void testSharedCopyKeepsModelBound() throws Exception {
+        final Box box = new Box("box", new Vector3(), 1, 1, 1);
+        // a bound that does not fit the vertices shows it was copied, not recomputed.
+        box.setModelBound(new BoundingBox(new Vector3(), 5, 5, 5), false);
+
+        final Mesh copy = (Mesh) SceneCopier.makeCopy(box, new SharedCopyLogic());
+        assertSame(box.getMeshData(), copy.getMeshData());
+        final BoundingVolume bound = copy.getModelBound(null);
+        assertTrue(bound instanceof BoundingBox);
+        assertEquals(5, ((BoundingBox) bound).getXExtent(), 1e-9);
+
+        final CollisionTree tree = CollisionTreeManager.getInstance().getCollisionTree(box);
+        final CollisionTree copyTree = CollisionTreeManager.getInstance().getCollisionTree(copy);
+        assertNotSame(tree, copyTree);
+        assertSame(copy, copyTree.getMesh());
+        assertSame(tree.getBounds(), copyTree.getBounds());
+        assertNotSame(tree.getWorldBounds(), copyTree.getWorldBounds());
+        CollisionTreeManager.getInstance().removeCollisionTree(box);
+        CollisionTreeManager.getInstance().removeCollisionTree(copy);
+    }
+
+    @Test
+    public void testParallelCopyMatchesSerial() throws Exception {
+        final Node root = new Node("root");
+        final Box shape = new Box("shape", new Vector3(), 1, 1, 1);
+        for (int g = 0; g < 6; g++) {
+            final Node group = new Node("group" + g);
+            root.attachChild(group);
+            for (int m = 0; m < 50 * g; m++) {
+                final Mesh mesh = new Mesh("mesh" + g + "_" + m);
+                mesh.setMeshData(shape.getMeshData());
+                mesh.setTranslation(m, g, 0);
+                group.attachChild(mesh);
+            }
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final Spatial serial = SceneCopier.makeCopy(root, new SharedCopyLogic());
+            final Spatial parallel = SceneCopier.makeCopy(root, new SharedCopyLogic(), executor, 16);
+            assertSameStructure(serial, parallel);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void assertSameStructure(final Spatial expected, final Spatial actual) {
+        assertEquals(expected.getName(), actual.getName());
+        assertEquals(expected.getClass(), actual.getClass());
+        assertEquals(expected.getTranslation(), actual.getTranslation());
+        if (expected instanceof Node) {
+            final Node expectedNode = (Node) expected;
+            final Node actualNode = (Node) actual;
+            assertEquals(expectedNode.getNumberOfChildren(), actualNode.getNumberOfChildren());
+            for (int i = 0; i < expectedNode.getNumberOfChildren(); i++) {
+                assertSame(actualNode, actualNode.getChild(i).getParent());
+                assertSameStructure(expectedNode.getChild(i), actualNode.getChild(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2008-2009 Ardor Labs, Inc.
+ *
+ * This file is part of Ardor3D.
+ *
+ * Ardor3D is free software: you can redistribute it and/or modify it 
+ * under the terms of its license which may be found in the accompanying
+ * LICENSE file or at <http://www.ardor3d.com/LICENSE>.
+ */
+
+package com.ardor3d.util.stat;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class TestStatCollector {
+    private static final StatType COUNTED = new StatType("_testCounted");
+    private static final StatType OUTER = new StatType("_testOuter");
+    private static final StatType INNER = new StatType("_testInner");
+
+    @After
+    public void tearDown() {
+        StatCollector.removeAllTimedStats();
+        StatCollector.resetHistograms();
+        StatCollector.init(1000, 100);
+    }
+
+    @Test
+    public void testHistogramPercentiles() throws Exception {
+        final StatHistogram histogram = new StatHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertEquals(1, histogram.getMin(), 1e-9);
+        assertEquals(1000, histogram.getMax(), 1e-9);
+        assertEquals(500, histogram.getValueAtPercentile(50), 500 * 0.04);
+        assertEquals(990, histogram.getValueAtPercentile(99), 990 * 0.04);
+        assertEquals(1000, histogram.getValueAtPercentile(100), 1e-9);
+
+        // sub-millisecond times keep microsecond resolution.
+        final StatHistogram small = new StatHistogram();
+        small.record(0.002);
+        small.record(0.010);
+        assertEquals(0.002, small.getValueAtPercentile(50), 1e-9);
+        assertEquals(0.010, small.getValueAtPercentile(100), 1e-9);
+
+        final StatHistogram merged = new StatHistogram(histogram);
+        merged.add(small);
+        assertEquals(1002, merged.getCount());
+        assertEquals(0.002, merged.getMin(), 1e-9);
+    }
+
+    @Test
+    public void testThreadsGatherSeparately() throws Exception {
+        StatCollector.init(0, 10);
+        StatCollector.addTimedStat(OUTER);
+        StatCollector.addTimedStat(INNER);
+        StatCollector.update();
+
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        StatCollector.startStat(OUTER);
+                        StatCollector.addStat(COUNTED, 2);
+                        StatCollector.startStat(INNER);
+                        StatCollector.endStat(INNER);
+                        StatCollector.endStat(OUTER);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        StatCollector.update();
+
+        final MultiStatSample sample = StatCollector.getHistorical().get(StatCollector.getHistorical().size() - 1);
+        assertEquals(8000, sample.values.get(COUNTED).val, 1e-9);
+        assertEquals(4000, sample.values.get(COUNTED).iterations);
+        assertEquals(4000, sample.values.get(OUTER).iterations);
+        assertEquals(4000, sample.values.get(INNER).iterations);
+        assertEquals(4000, sample.histograms.get(OUTER).getCount());
+        assertEquals(4000, StatCollector.getHistogram(INNER).getCount());
+        // each inner block lies within its outer one.
+        assertTrue(sample.histograms.get(INNER).getMean() <= sample.histograms.get(OUTER).getMean());
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        final MultiStatSample sample = new MultiStatSample();
+        sample.actualTime = 1000;
+        sample.values.put(COUNTED, new StatValue(6, 3));
+        final StatHistogram histogram = new StatHistogram();
+        histogram.record(16);
+        sample.histograms.put(StatType.STAT_FRAMES, histogram);
+
+        final StringWriter csv = new StringWriter();
+        final StatFileExporter csvExporter = new StatFileExporter(csv, StatFileExporter.Format.CSV, true);
+        csvExporter.write(sample, 42);
+        csvExporter.close();
+        final String[] lines = csv.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("time,stat,value,iterations,average,count,mean,p50,p90,p99,max", lines[0]);
+        assertEquals("42,_frames,,,,1,16.0,16.0,16.0,16.0,16.0", lines[1]);
+        assertEquals("42,_testCounted,6.0,3,0.0,,,,,,", lines[2]);
+
+        final StringWriter json = new StringWriter();
+        final StatFileExporter jsonExporter = new StatFileExporter(json, StatFileExporter.Format.JsonLines, true);
+        jsonExporter.write(sample, 42);
+        jsonExporter.close();
+        assertEquals("{\"time\":42,\"actualTime\":1000.0,"
+                + "\"stats\":{\"_testCounted\":{\"value\":6.0,\"iterations\":3,\"average\":0.0}},"
+                + "\"histograms\":{\"_frames\":{\"count\":1,\"mean\":16.0,\"p50\":16.0,\"p90\":16.0,\"p99\":16.0,"
+                + "\"max\":16.0}}}\n", json.toString());
+    }
+}